@@ -0,0 +1,248 @@
+// BenchDatabaseSeeder.java
+package chat.compi.bench;
+
+import chat.compi.DB.QueryStats;
+import chat.compi.DB.SchemaMigrator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * DaoBench용 DB에 스키마를 적용하고 합성 사용자/방/참여자/메시지/읽음 기록을 넣는다.
+ * 같은 설정이면 항상 같은 데이터가 만들어지도록 난수 시드를 고정한다.
+ *
+ * 운영 DB를 실수로 채우지 않도록 -Dcompi.db.url로 전용 DB를 지정해야 하고, 비어 있는 DB에만 넣는다.
+ * 이미 벤치마크 데이터가 있으면 아무것도 하지 않는다 (다시 만들려면 DB를 지우고 실행).
+ *
+ * 설정 (-Dcompi.bench.*):
+ * - users (기본 10000), rooms (기본 50000), roomSize: 방 하나의 참여자 수 (기본 8)
+ * - messages (기본 5000000), readRatio: 보낸 사람 외 참여자가 메시지를 읽었을 확률 (기본 0.5)
+ * - seedBatch: INSERT 한 번에 넣는 행 수 (기본 1000)
+ *
+ * 실행: ./gradlew seedBenchDb -Dcompi.db.url=jdbc:mysql://localhost:3306/compi_bench?createDatabaseIfNotExist=true
+ *       -Dcompi.db.user=... -Dcompi.db.password=... -Dcompi.bench.messages=50000000
+ */
+public class BenchDatabaseSeeder {
+    static final String USERNAME_PREFIX = "bench_u";
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final int users;
+    private final int rooms;
+    private final int roomSize;
+    private final long messages;
+    private final double readRatio;
+    private final int batchSize;
+    private final Random random = new Random(42);
+
+    BenchDatabaseSeeder(int users, int rooms, int roomSize, long messages, double readRatio, int batchSize) {
+        this.users = users;
+        this.rooms = rooms;
+        this.roomSize = Math.min(roomSize, users);
+        this.messages = messages;
+        this.readRatio = readRatio;
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("compi.db.url") == null) {
+            System.err.println("Usage: -Dcompi.db.url=<dedicated benchmark database> [-Dcompi.db.user=... -Dcompi.db.password=...] "
+                    + "[-Dcompi.bench.users=10000 -Dcompi.bench.rooms=50000 -Dcompi.bench.roomSize=8 -Dcompi.bench.messages=5000000]");
+            System.exit(1);
+        }
+        new SchemaMigrator().migrate();
+        BenchDatabaseSeeder seeder = new BenchDatabaseSeeder(
+                Integer.getInteger("compi.bench.users", 10_000),
+                Integer.getInteger("compi.bench.rooms", 50_000),
+                Integer.getInteger("compi.bench.roomSize", 8),
+                Long.getLong("compi.bench.messages", 5_000_000L),
+                Double.parseDouble(System.getProperty("compi.bench.readRatio", "0.5")),
+                Integer.getInteger("compi.bench.seedBatch", 1000));
+        seeder.seed();
+    }
+
+    void seed() throws SQLException {
+        try (Connection conn = QueryStats.getConnection("BenchDatabaseSeeder.seed")) {
+            long existingUsers = count(conn, "SELECT COUNT(*) FROM users");
+            if (existingUsers > 0) {
+                if (count(conn, "SELECT COUNT(*) FROM users WHERE username = '" + USERNAME_PREFIX + "1'") > 0) {
+                    System.out.println("Benchmark data already present; nothing to do.");
+                    return;
+                }
+                throw new IllegalStateException("Refusing to seed a database that already has " + existingUsers + " users");
+            }
+            conn.setAutoCommit(false);
+            long start = System.nanoTime();
+            seedUsers(conn);
+            int[][] members = seedRooms(conn);
+            seedMessages(conn, members);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE chat_rooms cr SET last_message_at = "
+                        + "(SELECT MAX(m.sent_at) FROM messages m WHERE m.room_id = cr.room_id)");
+            }
+            conn.commit();
+            System.out.printf("Seeded %d users, %d rooms, %d messages in %.1f s%n",
+                    users, rooms, messages, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private void seedUsers(Connection conn) throws SQLException {
+        try (RowInserter insert = new RowInserter(conn, "INSERT INTO users (user_id, username, password, nickname, status) VALUES ", 5)) {
+            for (int userId = 1; userId <= users; userId++) {
+                insert.add(userId, USERNAME_PREFIX + userId, "bench", "사용자" + userId, "OFFLINE");
+            }
+        }
+        System.out.printf("  users: %d%n", users);
+    }
+
+    // 방마다 서로 다른 참여자 roomSize명. 반환값은 방별 참여자 ID (메시지 보낸 사람/읽은 사람 선택용)
+    private int[][] seedRooms(Connection conn) throws SQLException {
+        int[][] members = new int[rooms + 1][];
+        try (RowInserter roomInsert = new RowInserter(conn, "INSERT INTO chat_rooms (room_id, room_name, is_group_chat, created_at) VALUES ", 4);
+             RowInserter participantInsert = new RowInserter(conn, "INSERT INTO room_participants (room_id, user_id) VALUES ", 2, roomInsert)) {
+            for (int roomId = 1; roomId <= rooms; roomId++) {
+                boolean groupChat = roomSize > 2;
+                roomInsert.add(roomId, groupChat ? "벤치마크 방 " + roomId : "", groupChat, Timestamp.valueOf(START_TIME));
+                members[roomId] = pickDistinctUsers(roomSize);
+                for (int userId : members[roomId]) {
+                    participantInsert.add(roomId, userId);
+                }
+            }
+        }
+        System.out.printf("  rooms: %d (%d participants each)%n", rooms, roomSize);
+        return members;
+    }
+
+    // 메시지는 방 번호가 작을수록 많이 받도록(제곱 분포) 나눠 대화가 몰리는 방과 조용한 방을 함께 만든다
+    private void seedMessages(Connection conn, int[][] members) throws SQLException {
+        long[] roomSeq = new long[rooms + 1];
+        long progressStep = Math.max(1, messages / 20);
+        try (RowInserter messageInsert = new RowInserter(conn,
+                "INSERT INTO messages (message_id, room_id, room_seq, sender_id, message_type, content, sent_at, is_notice) VALUES ", 8);
+             RowInserter readInsert = new RowInserter(conn, "INSERT INTO message_reads (message_id, user_id) VALUES ", 2, messageInsert)) {
+            for (long messageId = 1; messageId <= messages; messageId++) {
+                double r = random.nextDouble();
+                int roomId = 1 + (int) (rooms * r * r);
+                int[] roomMembers = members[roomId];
+                int senderId = roomMembers[random.nextInt(roomMembers.length)];
+                LocalDateTime sentAt = START_TIME.plusSeconds(messageId);
+                messageInsert.add(messageId, roomId, ++roomSeq[roomId], senderId, "TEXT",
+                        "벤치마크 메시지 " + messageId, Timestamp.valueOf(sentAt), false);
+                for (int userId : roomMembers) {
+                    if (userId == senderId || random.nextDouble() < readRatio) {
+                        readInsert.add(messageId, userId);
+                    }
+                }
+                if (messageId % progressStep == 0) {
+                    conn.commit();
+                    System.out.printf("  messages: %d/%d%n", messageId, messages);
+                }
+            }
+        }
+    }
+
+    private int[] pickDistinctUsers(int count) {
+        int[] picked = new int[count];
+        for (int i = 0; i < count; i++) {
+            int candidate;
+            boolean duplicate;
+            do {
+                candidate = 1 + random.nextInt(users);
+                duplicate = false;
+                for (int j = 0; j < i; j++) {
+                    duplicate |= picked[j] == candidate;
+                }
+            } while (duplicate);
+            picked[i] = candidate;
+        }
+        return picked;
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * 행을 모아 다중 행 INSERT 한 번으로 넣는다 (MessageDAO.saveMessagesBatch와 같은 방식).
+     * parent가 있으면 (외래 키로 참조하는 테이블) 자기 행을 넣기 전에 parent에 모인 행을 먼저 넣는다.
+     * 그래서 try-with-resources가 자식을 먼저 닫아도 외래 키 검사에 걸리지 않는다.
+     */
+    private final class RowInserter implements AutoCloseable {
+        private final Connection conn;
+        private final String prefix;
+        private final int columns;
+        private final RowInserter parent;
+        private final Object[] values;
+        private PreparedStatement fullBatch;
+        private int rows;
+
+        RowInserter(Connection conn, String prefix, int columns) {
+            this(conn, prefix, columns, null);
+        }
+
+        RowInserter(Connection conn, String prefix, int columns, RowInserter parent) {
+            this.conn = conn;
+            this.prefix = prefix;
+            this.columns = columns;
+            this.parent = parent;
+            this.values = new Object[batchSize * columns];
+        }
+
+        void add(Object... row) throws SQLException {
+            System.arraycopy(row, 0, values, rows * columns, columns);
+            if (++rows == batchSize) {
+                if (fullBatch == null) {
+                    fullBatch = conn.prepareStatement(sql(batchSize));
+                }
+                execute(fullBatch, rows);
+            }
+        }
+
+        // 모인 행을 바로 넣는다 (마지막 묶음이라 batchSize보다 적을 수 있음)
+        void flush() throws SQLException {
+            if (rows > 0) {
+                try (PreparedStatement partial = conn.prepareStatement(sql(rows))) {
+                    execute(partial, rows);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                if (fullBatch != null) {
+                    fullBatch.close();
+                }
+            }
+        }
+
+        private void execute(PreparedStatement pstmt, int rowCount) throws SQLException {
+            if (parent != null) {
+                parent.flush();
+            }
+            for (int i = 0; i < rowCount * columns; i++) {
+                pstmt.setObject(i + 1, values[i]);
+            }
+            pstmt.executeUpdate();
+            rows = 0;
+        }
+
+        private String sql(int rowCount) {
+            StringBuilder sb = new StringBuilder(prefix);
+            String placeholders = "(" + "?, ".repeat(columns - 1) + "?)";
+            for (int i = 0; i < rowCount; i++) {
+                sb.append(i == 0 ? "" : ", ").append(placeholders);
+            }
+            return sb.toString();
+        }
+    }
+}
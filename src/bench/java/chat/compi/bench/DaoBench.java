@@ -0,0 +1,145 @@
+// DaoBench.java
+package chat.compi.bench;
+
+import chat.compi.DB.ChatRoomDAO;
+import chat.compi.DB.MessageDAO;
+import chat.compi.DB.MessageIdGenerator;
+import chat.compi.DB.QueryStats;
+import chat.compi.Entity.ChatRoom;
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 자주 호출되는 DAO 메서드의 실제 DB 왕복 시간.
+ * BenchDatabaseSeeder로 채운 전용 DB에서 실행하며, 매 호출마다 미리 뽑아 둔 (방, 참여자) 쌍 중 하나를 무작위로 골라
+ * 특정 방 하나가 캐시에 올라가 있는 경우만 재지 않도록 한다.
+ * saveMessage/saveMessagesBatch는 실제로 행을 추가하므로 측정할수록 DB가 조금씩 커진다.
+ *
+ * 실행 (결과 파일을 커밋별로 남겨 비교):
+ *   ./gradlew seedBenchDb -Dcompi.db.url=... (처음 한 번)
+ *   ./gradlew jmh -Pjmh.include=DaoBench -Pjmh.results=build/reports/jmh/dao-$(git rev-parse --short HEAD).json -Dcompi.db.url=...
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoBench {
+    private static final int SAMPLE_ROOMS = 1000;
+    private static final int BATCH_SIZE = 64;
+
+    private final MessageDAO messageDAO = new MessageDAO();
+    private final ChatRoomDAO chatRoomDAO = new ChatRoomDAO();
+    private MessageIdGenerator idGenerator;
+    private int[] sampleRoomIds;
+    private int[] sampleUserIds; // sampleRoomIds[i] 방의 참여자
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        if (System.getProperty("compi.db.url") == null) {
+            throw new IllegalStateException("Set -Dcompi.db.url to the database seeded by BenchDatabaseSeeder");
+        }
+        System.setProperty("compi.messageStore", "jdbc"); // getChatRoomsByUserId가 쓰는 기본 저장소도 MySQL로
+        idGenerator = new MessageIdGenerator(1, messageDAO); // 시드 데이터(1..N)와 겹치지 않는 시각 기반 ID
+
+        List<int[]> pairs = new ArrayList<>();
+        try (Connection conn = QueryStats.getConnection("DaoBench.setUp")) {
+            int maxRoomId;
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(room_id), 0) FROM chat_rooms")) {
+                maxRoomId = rs.next() ? rs.getInt(1) : 0;
+            }
+            if (maxRoomId == 0) {
+                throw new IllegalStateException("No rooms found; run ./gradlew seedBenchDb first");
+            }
+            Random random = new Random(7);
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT room_id, user_id FROM room_participants WHERE room_id = ?")) {
+                for (int i = 0; i < SAMPLE_ROOMS; i++) {
+                    pstmt.setInt(1, 1 + random.nextInt(maxRoomId));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        List<int[]> members = new ArrayList<>();
+                        while (rs.next()) {
+                            members.add(new int[]{rs.getInt(1), rs.getInt(2)});
+                        }
+                        if (!members.isEmpty()) {
+                            pairs.add(members.get(random.nextInt(members.size())));
+                        }
+                    }
+                }
+            }
+        }
+        Collections.shuffle(pairs, new Random(11));
+        sampleRoomIds = pairs.stream().mapToInt(pair -> pair[0]).toArray();
+        sampleUserIds = pairs.stream().mapToInt(pair -> pair[1]).toArray();
+    }
+
+    @Benchmark
+    public List<Message> getMessagesInRoom() {
+        return messageDAO.getMessagesInRoom(sampleRoomIds[pick()]);
+    }
+
+    @Benchmark
+    public List<ChatRoom> getChatRoomsByUserId() {
+        return chatRoomDAO.getChatRoomsByUserId(sampleUserIds[pick()]);
+    }
+
+    @Benchmark
+    public int getUnreadMessageCount() {
+        int i = pick();
+        return messageDAO.getUnreadMessageCount(sampleRoomIds[i], sampleUserIds[i]);
+    }
+
+    @Benchmark
+    public void saveMessage() throws SQLException {
+        int i = pick();
+        Message message = newMessage(sampleRoomIds[i], sampleUserIds[i]);
+        messageDAO.saveMessagesBatch(List.of(message), List.of(sampleUserIds[i]));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void saveMessagesBatch() throws SQLException {
+        List<Message> messages = new ArrayList<>(BATCH_SIZE);
+        List<Integer> readerIds = new ArrayList<>(BATCH_SIZE);
+        for (int n = 0; n < BATCH_SIZE; n++) {
+            int i = pick();
+            messages.add(newMessage(sampleRoomIds[i], sampleUserIds[i]));
+            readerIds.add(sampleUserIds[i]);
+        }
+        messageDAO.saveMessagesBatch(messages, readerIds);
+    }
+
+    private Message newMessage(int roomId, int senderId) throws SQLException {
+        Message message = new Message(roomId, senderId, "bench", MessageType.TEXT, "benchmark message", false);
+        message.setMessageId(idGenerator.nextId());
+        message.setRoomSeq(idGenerator.nextRoomSeq(roomId));
+        return message;
+    }
+
+    private int pick() {
+        return ThreadLocalRandom.current().nextInt(sampleRoomIds.length);
+    }
+}
@@ -0,0 +1,243 @@
+// LoadBot.java
+package chat.compi.bench;
+
+import chat.compi.Controller.ChatClient;
+import chat.compi.Dto.ServerResponse;
+import chat.compi.Entity.ChatRoom;
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * GUI 없이 ChatClient 프로토콜을 그대로 쓰는 가상 사용자 하나.
+ * 가입(이미 있으면 건너뜀) -> 로그인 -> 방 참여 후, LoadTest가 정한 속도로 메시지/파일을 보내고
+ * 받은 메시지 일부를 읽음 처리한다.
+ *
+ * 보내는 메시지 내용에 보낸 시각(System.nanoTime)을 넣어, 같은 JVM의 다른 봇이 NEW_MESSAGE를 받았을 때
+ * 보낸 시각부터 받은 시각까지(서버 저장 + 전파 + 직렬화 + 네트워크)를 잰다.
+ */
+final class LoadBot {
+    static final String CONTENT_PREFIX = "LOAD|";
+
+    private final int index;
+    private final String username;
+    private final String password;
+    private final LoadStats stats;
+    private final double readRatio;
+    private final ChatClient client;
+
+    private final CompletableFuture<Integer> loggedIn = new CompletableFuture<>();
+    private final CompletableFuture<Integer> joined = new CompletableFuture<>();
+    private final ConcurrentLinkedQueue<Long> pendingUploads = new ConcurrentLinkedQueue<>(); // 응답은 요청 순서대로 옴
+    private volatile boolean registering;
+    private volatile String roomName;
+    private volatile List<ChatRoom> chatRooms = List.of();
+    private volatile int userId = -1;
+    private volatile int roomId = -1;
+    private int roomMembers;
+    private Thread dispatcher;
+    private long sequence;
+
+    LoadBot(int index, String usernamePrefix, String password, LoadStats stats, double readRatio, String host, int port) {
+        this.index = index;
+        this.username = usernamePrefix + index;
+        this.password = password;
+        this.stats = stats;
+        this.readRatio = readRatio;
+        this.client = new ChatClient(host, port, Thread.ofVirtual().name("load-recv-" + index).factory());
+        registerListeners();
+    }
+
+    /**
+     * 서버에 접속해 가입/로그인을 요청합니다. 로그인 후 첫 방 목록을 받으면 {@link #loggedIn()}이 완료됩니다.
+     */
+    CompletableFuture<Integer> connectAndLogin() {
+        if (!client.connect()) {
+            loggedIn.completeExceptionally(new IllegalStateException("connect failed"));
+            return loggedIn;
+        }
+        dispatcher = Thread.ofVirtual().name("load-dispatch-" + index).start(client::processResponses);
+        registering = true;
+        client.register(username, password, username);
+        return loggedIn;
+    }
+
+    /**
+     * 이 이름의 방에 들어갈 때까지 기다리는 future를 반환합니다. 이미 참여한 방이면 바로 완료됩니다.
+     */
+    CompletableFuture<Integer> join(String name, int members) {
+        roomMembers = members;
+        roomName = name;
+        findRoom(chatRooms);
+        return joined;
+    }
+
+    /**
+     * 방 이름으로 그룹 방을 만듭니다. 참여자 목록에 자신도 포함해야 합니다.
+     */
+    void createRoom(String name, List<Integer> participantIds) {
+        client.createChatRoom(name, true, participantIds);
+    }
+
+    /**
+     * 메시지 하나(fileBytes가 있으면 파일 하나)를 보냅니다. 봇마다 한 스레드에서만 호출합니다.
+     */
+    void sendOnce(byte[] fileBytes) {
+        if (!client.isConnected()) {
+            stats.error("disconnected");
+            return;
+        }
+        long n = sequence++;
+        if (fileBytes != null) {
+            pendingUploads.add(System.nanoTime());
+            stats.uploadsSent.increment();
+            stats.uploadBytes.add(fileBytes.length);
+            stats.expectedDeliveries.add(roomMembers); // 보낸 사람을 포함한 방 참여자 모두가 받음
+            client.uploadFile(roomId, "load-" + index + "-" + n + ".bin", fileBytes);
+        } else {
+            stats.messagesSent.increment();
+            stats.expectedDeliveries.add(roomMembers); // 보낸 사람을 포함한 방 참여자 모두가 받음
+            client.sendMessage(roomId, CONTENT_PREFIX + index + "|" + n + "|" + System.nanoTime(), MessageType.TEXT, false);
+        }
+    }
+
+    void disconnect() {
+        client.disconnect();
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    boolean isConnected() {
+        return client.isConnected();
+    }
+
+    int getUserId() {
+        return userId;
+    }
+
+    int getRoomId() {
+        return roomId;
+    }
+
+    CompletableFuture<Integer> loggedIn() {
+        return loggedIn;
+    }
+
+    private void registerListeners() {
+        client.setResponseListener(ServerResponse.ResponseType.REGISTER_SUCCESS, response -> login());
+        client.setResponseListener(ServerResponse.ResponseType.BOOTSTRAP, response -> {
+            User user = (User) response.getData().get("user");
+            client.setCurrentUser(user);
+            userId = user.getUserId();
+            onChatRooms(response);
+        });
+        client.setResponseListener(ServerResponse.ResponseType.CHAT_ROOMS_UPDATE, this::onChatRooms);
+        client.setResponseListener(ServerResponse.ResponseType.ROOM_ADDED, response -> {
+            ChatRoom room = (ChatRoom) response.getData().get("chatRoom");
+            List<ChatRoom> rooms = new ArrayList<>(chatRooms);
+            rooms.add(room);
+            chatRooms = rooms;
+            findRoom(List.of(room));
+        });
+        client.setResponseListener(ServerResponse.ResponseType.SUCCESS, response -> {
+            Map<String, Object> data = response.getData();
+            if (data != null && data.get("chatRoom") instanceof ChatRoom room) {
+                findRoom(List.of(room));
+            }
+        });
+        client.setResponseListener(ServerResponse.ResponseType.NEW_MESSAGE, this::onNewMessage);
+        client.setResponseListener(ServerResponse.ResponseType.FILE_UPLOAD_SUCCESS, response -> {
+            Long startedAt = pendingUploads.poll();
+            if (startedAt != null) {
+                stats.uploadLatency.record(System.nanoTime() - startedAt);
+            }
+        });
+        client.setResponseListener(ServerResponse.ResponseType.MESSAGE_READ_CONFIRM, response -> stats.readsConfirmed.increment());
+        client.setResponseListener(ServerResponse.ResponseType.MESSAGE_ALREADY_READ, response -> stats.readsConfirmed.increment());
+        client.setResponseListener(ServerResponse.ResponseType.FAIL, this::onFail);
+        // 부하 테스트에서 쓰지 않는 응답은 받기만 함
+        client.setResponseListener(ServerResponse.ResponseType.FRIEND_LIST_UPDATE, response -> { });
+        client.setResponseListener(ServerResponse.ResponseType.FRIEND_STATUS_UPDATE, response -> { });
+        client.setResponseListener(ServerResponse.ResponseType.THUMBNAIL_READY, response -> { });
+        client.setResponseListener(ServerResponse.ResponseType.ROOM_UPDATED, response -> { });
+        client.setResponseListener(ServerResponse.ResponseType.ROOM_REMOVED, response -> { });
+    }
+
+    // BOOTSTRAP과 CHAT_ROOMS_UPDATE의 채팅방 목록
+    private void onChatRooms(ServerResponse response) {
+        if (!response.isSuccess() || response.getData() == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<ChatRoom> rooms = (List<ChatRoom>) response.getData().get("chatRooms");
+        chatRooms = rooms != null ? rooms : List.of();
+        if (userId != -1) {
+            loggedIn.complete(userId);
+        }
+        findRoom(chatRooms);
+    }
+
+    private void login() {
+        registering = false;
+        client.login(username, password);
+    }
+
+    private void onFail(ServerResponse response) {
+        if (registering) { // 이전 실행에서 만든 사용자: 가입 실패는 정상
+            login();
+            return;
+        }
+        if (!loggedIn.isDone()) {
+            loggedIn.completeExceptionally(new IllegalStateException(response.getMessage()));
+            return;
+        }
+        if (response.getMessage() != null && response.getMessage().startsWith("File upload failed")) {
+            pendingUploads.poll();
+        }
+        stats.error(response.getMessage());
+    }
+
+    private void onNewMessage(ServerResponse response) {
+        Message message = (Message) response.getData().get("message");
+        if (message == null || message.getRoomId() != roomId) {
+            return;
+        }
+        if (message.getMessageType() == MessageType.FILE) {
+            stats.messagesDelivered.increment();
+            return;
+        }
+        String content = message.getContent();
+        if (content == null || !content.startsWith(CONTENT_PREFIX)) {
+            return; // 방 생성 시스템 메시지 등
+        }
+        long sentAt = Long.parseLong(content.substring(content.lastIndexOf('|') + 1));
+        stats.deliveryLatency.record(System.nanoTime() - sentAt);
+        stats.messagesDelivered.increment();
+        if (message.getSenderId() != userId && ThreadLocalRandom.current().nextDouble() < readRatio) {
+            stats.readsSent.increment();
+            client.markMessageAsRead(message.getMessageId());
+        }
+    }
+
+    private void findRoom(List<ChatRoom> rooms) {
+        String name = roomName;
+        if (name == null || joined.isDone()) {
+            return;
+        }
+        for (ChatRoom room : rooms) {
+            if (name.equals(room.getRoomName())) {
+                roomId = room.getRoomId();
+                joined.complete(roomId);
+                return;
+            }
+        }
+    }
+}
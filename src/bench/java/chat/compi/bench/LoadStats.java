@@ -0,0 +1,43 @@
+// LoadStats.java
+package chat.compi.bench;
+
+import chat.compi.Metrics.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 부하 테스트 봇 전체가 함께 기록하는 결과.
+ * 여러 봇의 수신 스레드가 동시에 기록하므로 잠금 없는 히스토그램과 LongAdder만 사용한다.
+ */
+final class LoadStats {
+    final LatencyHistogram deliveryLatency = new LatencyHistogram(); // 보낸 시각 -> 방 참여자가 NEW_MESSAGE를 받은 시각
+    final LatencyHistogram uploadLatency = new LatencyHistogram();   // UPLOAD_FILE 요청 -> FILE_UPLOAD_SUCCESS
+    final LongAdder messagesSent = new LongAdder();
+    final LongAdder messagesDelivered = new LongAdder();
+    final LongAdder expectedDeliveries = new LongAdder();
+    final LongAdder uploadsSent = new LongAdder();
+    final LongAdder uploadBytes = new LongAdder();
+    final LongAdder readsSent = new LongAdder();
+    final LongAdder readsConfirmed = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void error(String reason) {
+        errors.computeIfAbsent(reason != null ? reason : "unknown", key -> new LongAdder()).increment();
+    }
+
+    long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * 오류 사유별 횟수 (사유 이름순)
+     */
+    Map<String, Long> getErrors() {
+        Map<String, Long> result = new TreeMap<>();
+        errors.forEach((reason, count) -> result.put(reason, count.sum()));
+        return result;
+    }
+}
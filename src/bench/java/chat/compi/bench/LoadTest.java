@@ -0,0 +1,253 @@
+// LoadTest.java
+package chat.compi.bench;
+
+import chat.compi.Controller.ChatServer;
+import chat.compi.Metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 가상 사용자(봇) 여러 명으로 서버에 부하를 주고 전송 -> 수신 지연, 처리량, 오류 수를 출력한다.
+ * 봇은 ChatClient를 그대로 쓰므로 실제 GUI 클라이언트와 같은 요청/응답 경로를 지난다.
+ *
+ * 진행 순서:
+ * 1. 봇 접속/가입/로그인 (rampUpSeconds 동안 나눠서)
+ * 2. roomSize명씩 묶어 그룹 방 참여 (같은 설정으로 다시 실행하면 이전에 만든 방을 다시 씀)
+ * 3. seconds 동안 봇마다 messagesPerSecond 속도로 메시지 전송 (open loop), uploadEvery번째마다 파일 업로드,
+ *    받은 메시지 중 readRatio 비율을 읽음 처리
+ * 4. drainSeconds 동안 남은 응답을 기다린 뒤 결과 출력
+ *
+ * 설정 (-Dcompi.load.*):
+ * - host, port: 서버 주소 (기본 localhost:12345)
+ * - startServer: true면 이 JVM에서 ChatServer를 띄움 (기본 false, DB 접속 설정은 서버와 같음)
+ * - users: 봇 수 (기본 100), roomSize: 방 하나의 인원 (기본 10)
+ * - messagesPerSecond: 봇 하나의 전송 속도 (기본 1), seconds: 측정 시간 (기본 60)
+ * - rampUpSeconds (기본 10), drainSeconds (기본 5)
+ * - uploadEvery: 몇 번째 전송마다 파일을 올릴지 (기본 20, 0이면 업로드 안 함), fileBytes (기본 16384)
+ * - readRatio: 받은 메시지 중 읽음 처리할 비율 (기본 0.1)
+ * - userPrefix, password: 봇 계정 (기본 loadbot / loadbot)
+ * - report: 결과 JSON 파일 경로 (없으면 콘솔에만 출력)
+ *
+ * 실행: ./gradlew loadTest -Dcompi.load.users=1000 -Dcompi.load.messagesPerSecond=0.5
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String host = System.getProperty("compi.load.host", "localhost");
+        int port = Integer.getInteger("compi.load.port", 12345);
+        int users = Integer.getInteger("compi.load.users", 100);
+        int roomSize = Math.max(1, Math.min(users, Integer.getInteger("compi.load.roomSize", 10)));
+        double messagesPerSecond = Double.parseDouble(System.getProperty("compi.load.messagesPerSecond", "1"));
+        int seconds = Integer.getInteger("compi.load.seconds", 60);
+        int rampUpSeconds = Integer.getInteger("compi.load.rampUpSeconds", 10);
+        int drainSeconds = Integer.getInteger("compi.load.drainSeconds", 5);
+        int uploadEvery = Integer.getInteger("compi.load.uploadEvery", 20);
+        int fileBytes = Integer.getInteger("compi.load.fileBytes", 16384);
+        double readRatio = Double.parseDouble(System.getProperty("compi.load.readRatio", "0.1"));
+        String userPrefix = System.getProperty("compi.load.userPrefix", "loadbot");
+        String password = System.getProperty("compi.load.password", "loadbot");
+        String report = System.getProperty("compi.load.report");
+
+        if (Boolean.getBoolean("compi.load.startServer")) {
+            startServer(host, port);
+        }
+
+        LoadStats stats = new LoadStats();
+        List<LoadBot> bots = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            bots.add(new LoadBot(i, userPrefix, password, stats, readRatio, host, port));
+        }
+
+        // 1. 접속/로그인
+        System.out.printf("Logging in %d bots over %d s...%n", users, rampUpSeconds);
+        long loginStart = System.nanoTime();
+        try (ExecutorService connector = Executors.newVirtualThreadPerTaskExecutor()) {
+            long intervalNanos = users > 1 ? TimeUnit.SECONDS.toNanos(rampUpSeconds) / users : 0;
+            for (LoadBot bot : bots) {
+                connector.submit(bot::connectAndLogin);
+                LockSupport.parkNanos(intervalNanos);
+            }
+        }
+        int loggedIn = awaitAll(bots.stream().map(LoadBot::loggedIn).toList(), rampUpSeconds + 30, stats, "login");
+        System.out.printf("%d/%d bots logged in (%.1f s)%n", loggedIn, users, (System.nanoTime() - loginStart) / 1e9);
+
+        // 2. 방 참여: 방마다 첫 봇이 방을 만든다 (이미 있으면 만들지 않음)
+        List<CompletableFuture<Integer>> joins = new ArrayList<>();
+        for (int first = 0; first < users; first += roomSize) {
+            List<LoadBot> members = bots.subList(first, Math.min(users, first + roomSize));
+            String roomName = userPrefix + "-r" + roomSize + "-" + (first / roomSize);
+            for (LoadBot member : members) {
+                joins.add(member.join(roomName, members.size()));
+            }
+            if (!joins.get(first).isDone() && members.get(0).loggedIn().isDone()) {
+                List<Integer> participantIds = members.stream()
+                        .filter(member -> member.getUserId() != -1)
+                        .map(LoadBot::getUserId)
+                        .toList();
+                members.get(0).createRoom(roomName, new ArrayList<>(participantIds));
+            }
+        }
+        int joined = awaitAll(joins, 30, stats, "join room");
+        System.out.printf("%d/%d bots joined %d rooms%n", joined, users, (users + roomSize - 1) / roomSize);
+
+        // 3. 측정
+        System.out.printf("Sending %.2f msgs/s per bot (%.0f msgs/s total) for %d s...%n",
+                messagesPerSecond, messagesPerSecond * joined, seconds);
+        long runStart = System.nanoTime();
+        long runEnd = runStart + TimeUnit.SECONDS.toNanos(seconds);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / messagesPerSecond);
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LoadBot bot : bots) {
+                if (bot.getRoomId() == -1) {
+                    continue;
+                }
+                senders.submit(() -> {
+                    // 봇마다 시작 시점을 흩어 모든 봇이 같은 순간에 보내지 않게 함
+                    long next = runStart + ThreadLocalRandom.current().nextLong(Math.max(1, intervalNanos));
+                    int count = 0;
+                    while (next < runEnd) {
+                        LockSupport.parkNanos(next - System.nanoTime());
+                        count++;
+                        byte[] file = null;
+                        if (uploadEvery > 0 && count % uploadEvery == 0) {
+                            file = new byte[fileBytes];
+                            ThreadLocalRandom.current().nextBytes(file); // 저장소의 중복 제거를 피하도록 매번 다른 내용
+                        }
+                        bot.sendOnce(file);
+                        next += intervalNanos; // 늦어져도 예정 시각을 유지 (open loop)
+                    }
+                });
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - runStart) / 1e9;
+        Thread.sleep(TimeUnit.SECONDS.toMillis(drainSeconds));
+
+        int disconnected = (int) bots.stream().filter(bot -> bot.loggedIn().isDone() && !bot.isConnected()).count();
+        for (LoadBot bot : bots) {
+            bot.disconnect();
+        }
+
+        // 4. 결과
+        String summary = summarize(stats, users, joined, disconnected, elapsedSeconds);
+        System.out.print(summary);
+        if (report != null && !report.isEmpty()) {
+            writeJson(new File(report), stats, users, roomSize, messagesPerSecond, joined, disconnected, elapsedSeconds);
+            System.out.println("Report written to " + new File(report).getAbsolutePath());
+        }
+        System.exit(0); // 서버를 함께 띄운 경우에도 종료
+    }
+
+    private static void startServer(String host, int port) throws InterruptedException {
+        Thread serverThread = new Thread(() -> new ChatServer().start(), "ChatServerThread");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            try (Socket probe = new Socket()) {
+                probe.connect(new InetSocketAddress(host, port), 500);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException("Chat server did not start on " + host + ":" + port);
+    }
+
+    // 기한 안에 끝난 future 수를 셈. 실패/시간 초과는 오류로 기록
+    private static int awaitAll(List<CompletableFuture<Integer>> futures, int timeoutSeconds, LoadStats stats, String stage) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        int completed = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                completed++;
+            } catch (TimeoutException e) {
+                stats.error(stage + ": timeout");
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                stats.error(stage + ": " + cause.getMessage());
+            }
+        }
+        return completed;
+    }
+
+    private static String summarize(LoadStats stats, int users, int active, int disconnected, double elapsedSeconds) {
+        StringBuilder sb = new StringBuilder();
+        long sent = stats.messagesSent.sum();
+        long uploads = stats.uploadsSent.sum();
+        long delivered = stats.messagesDelivered.sum();
+        long expected = stats.expectedDeliveries.sum();
+        sb.append(String.format("%n=== Load test: %d bots (%d active, %d disconnected), %.1f s ===%n",
+                users, active, disconnected, elapsedSeconds));
+        sb.append(String.format("sent       %10d msgs  %10.1f msgs/s%n", sent, sent / elapsedSeconds));
+        sb.append(String.format("uploads    %10d       %10.1f files/s  (%.1f MB)%n",
+                uploads, uploads / elapsedSeconds, stats.uploadBytes.sum() / (1024.0 * 1024.0)));
+        sb.append(String.format("delivered  %10d msgs  %10.1f msgs/s  (%d expected, %d missing)%n",
+                delivered, delivered / elapsedSeconds, expected, Math.max(0, expected - delivered)));
+        sb.append(String.format("reads      %10d sent  %10d confirmed%n", stats.readsSent.sum(), stats.readsConfirmed.sum()));
+        sb.append(String.format("%-22s %8s %8s %8s %8s %8s %8s%n", "latency (ms)", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        appendLatency(sb, "send -> receive", stats.deliveryLatency);
+        appendLatency(sb, "upload -> ack", stats.uploadLatency);
+        sb.append(String.format("errors     %10d%n", stats.getErrorCount()));
+        for (Map.Entry<String, Long> error : stats.getErrors().entrySet()) {
+            sb.append(String.format("  %8d  %s%n", error.getValue(), error.getKey()));
+        }
+        return sb.toString();
+    }
+
+    private static void appendLatency(StringBuilder sb, String name, LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot s = histogram.snapshot();
+        sb.append(String.format("%-22s %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n", name,
+                s.getMean() / 1e6, s.getP50() / 1e6, s.getP90() / 1e6, s.getP99() / 1e6, s.getP999() / 1e6, s.getMax() / 1e6));
+    }
+
+    private static void writeJson(File file, LoadStats stats, int users, int roomSize, double messagesPerSecond,
+                                  int active, int disconnected, double elapsedSeconds) throws IOException {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append(String.format(Locale.ROOT, "  \"users\": %d, \"activeUsers\": %d, \"disconnected\": %d, \"roomSize\": %d,%n",
+                users, active, disconnected, roomSize));
+        sb.append(String.format(Locale.ROOT, "  \"messagesPerSecondPerUser\": %s, \"seconds\": %.3f,%n", messagesPerSecond, elapsedSeconds));
+        sb.append(String.format(Locale.ROOT, "  \"sent\": %d, \"uploads\": %d, \"delivered\": %d, \"expectedDeliveries\": %d,%n",
+                stats.messagesSent.sum(), stats.uploadsSent.sum(), stats.messagesDelivered.sum(), stats.expectedDeliveries.sum()));
+        sb.append(String.format(Locale.ROOT, "  \"sentPerSecond\": %.1f, \"deliveredPerSecond\": %.1f,%n",
+                stats.messagesSent.sum() / elapsedSeconds, stats.messagesDelivered.sum() / elapsedSeconds));
+        sb.append(String.format(Locale.ROOT, "  \"readsSent\": %d, \"readsConfirmed\": %d,%n", stats.readsSent.sum(), stats.readsConfirmed.sum()));
+        sb.append("  \"deliveryLatencyMillis\": ").append(latencyJson(stats.deliveryLatency)).append(",\n");
+        sb.append("  \"uploadLatencyMillis\": ").append(latencyJson(stats.uploadLatency)).append(",\n");
+        sb.append("  \"errors\": {");
+        boolean first = true;
+        for (Map.Entry<String, Long> error : stats.getErrors().entrySet()) {
+            sb.append(first ? "" : ", ").append('"').append(error.getKey().replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append("\": ").append(error.getValue());
+            first = false;
+        }
+        sb.append("}\n}\n");
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        Files.writeString(file.toPath(), sb, StandardCharsets.UTF_8);
+    }
+
+    private static String latencyJson(LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot s = histogram.snapshot();
+        return String.format(Locale.ROOT, "{\"count\": %d, \"mean\": %.3f, \"p50\": %.3f, \"p90\": %.3f, \"p99\": %.3f, \"p999\": %.3f, \"max\": %.3f}",
+                s.getCount(), s.getMean() / 1e6, s.getP50() / 1e6, s.getP90() / 1e6, s.getP99() / 1e6, s.getP999() / 1e6, s.getMax() / 1e6);
+    }
+}
@@ -0,0 +1,122 @@
+// LoggingBench.java
+package chat.compi.bench;
+
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 요청 처리 스레드가 로그 한 줄에 쓰는 시간을 비교한다.
+ * - printlnToFile: 기존 방식(System.out.println처럼 잠금을 잡는 PrintStream에 문자열을 이어 붙여 출력)
+ * - asyncInfo: Logger.info (링 버퍼에 넣기만 하고 파일 쓰기는 async-logger 스레드가 함)
+ * - disabledDebug: INFO 수준에서 Logger.debug (수준 확인만 함)
+ * 4스레드로 측정해 여러 ClientHandler가 동시에 로그를 남기는 경우의 잠금 경합을 본다.
+ *
+ * 한 번 호출에 BURST개를 남기는 유한한 작업량을 잰다. 쉬지 않고 로그를 남기면 버퍼가 가득 차서
+ * asyncInfo가 대부분 버리는 경로(카운터 증가)를 재게 되므로, asyncInfo는 호출마다 앞선 로그가 모두 파일에 쓰일 때까지
+ * 측정 밖에서 기다린다. 4스레드 x BURST가 버퍼(기본 8192)보다 작으므로 버리는 로그 없이 실제로 기록되는 경로만 잰다.
+ * 끝날 때 스레드별로 남긴 수와 버린 수를 출력하며, 버린 수가 0이 아니면 결과를 쓰지 않는다.
+ *
+ * 실행: ./gradlew jmh -Pjmh.include=LoggingBench
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@OperationsPerInvocation(LoggingBench.BURST)
+@State(Scope.Benchmark)
+public class LoggingBench {
+    static final int BURST = 1000;
+
+    private File directory;
+    private PrintStream printStream;
+    private Logger log;
+    private int userId = 42;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("compi-log-bench").toFile();
+        // Log는 첫 사용 시 설정을 읽으므로 Logger를 쓰기 전에 지정
+        System.setProperty("compi.log.console", "false");
+        System.setProperty("compi.log.file", new File(directory, "async.log").getPath());
+        System.setProperty("compi.log.level", "INFO");
+        log = Log.get(LoggingBench.class);
+        printStream = new PrintStream(new FileOutputStream(new File(directory, "println.log")), true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        printStream.close();
+        System.out.println("Dropped async log events: " + Log.getDroppedEvents());
+    }
+
+    /**
+     * asyncInfo를 부르는 스레드별 상태. 대기와 개수 세기는 모두 측정 밖(Level.Invocation)에서 한다.
+     */
+    @State(Scope.Thread)
+    public static class AsyncBurst {
+        private long events;
+
+        @Setup(Level.Invocation)
+        public void awaitDrained() {
+            while (Log.getPendingEvents() > 0) {
+                LockSupport.parkNanos(50_000); // 회전 대기로 async-logger 스레드의 CPU를 뺏지 않도록 잠깐씩 쉼
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void count() {
+            events += BURST;
+        }
+
+        @TearDown(Level.Trial)
+        public void report() {
+            System.out.printf("%n%s: %,d async events logged, %,d dropped in total%n",
+                    Thread.currentThread().getName(), events, Log.getDroppedEvents());
+        }
+    }
+
+    @Benchmark
+    public void printlnToFile() {
+        for (int i = 0; i < BURST; i++) {
+            printStream.println("Received request from user " + userId + ": SEND_MESSAGE");
+        }
+    }
+
+    @Benchmark
+    public void asyncInfo(AsyncBurst burst) {
+        for (int i = 0; i < BURST; i++) {
+            log.info("Received request from user {}: {}", userId, "SEND_MESSAGE");
+        }
+    }
+
+    @Benchmark
+    public void disabledDebug() {
+        for (int i = 0; i < BURST; i++) {
+            log.debug("Received request from user {}: {}", userId, "SEND_MESSAGE");
+        }
+    }
+}
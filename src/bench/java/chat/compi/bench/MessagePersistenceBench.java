@@ -0,0 +1,98 @@
+// MessagePersistenceBench.java
+package chat.compi.bench;
+
+import chat.compi.DB.MessageStores;
+import chat.compi.DB.MessagePersistenceQueue;
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MessagePersistenceQueue 처리량 측정.
+ * 지정한 속도(msgs/sec)로 일정 시간 동안 메시지를 넣고(open loop), 커밋까지 걸린 시간과 실제 커밋 처리량을 출력한다.
+ * 벤치마크 메시지는 실제 DB에 저장되므로 테스트용 방과 사용자를 지정해서 실행한다.
+ *
+ * -Dcompi.bench.roomId, -Dcompi.bench.senderId : 메시지를 저장할 방/보낸 사람 (필수)
+ * -Dcompi.bench.rates   : 측정할 속도 목록 (기본 1000,10000,50000)
+ * -Dcompi.bench.seconds : 속도별 측정 시간 (기본 10초)
+ */
+public class MessagePersistenceBench {
+
+    public static void main(String[] args) throws Exception {
+        int roomId = Integer.getInteger("compi.bench.roomId", -1);
+        int senderId = Integer.getInteger("compi.bench.senderId", -1);
+        if (roomId == -1 || senderId == -1) {
+            System.err.println("Usage: -Dcompi.bench.roomId=<room> -Dcompi.bench.senderId=<user> [-Dcompi.bench.rates=1000,10000,50000] [-Dcompi.bench.seconds=10]");
+            System.exit(1);
+        }
+        int seconds = Integer.getInteger("compi.bench.seconds", 10);
+        int[] rates = Arrays.stream(System.getProperty("compi.bench.rates", "1000,10000,50000").split(","))
+                .mapToInt(rate -> Integer.parseInt(rate.trim()))
+                .toArray();
+
+        MessagePersistenceQueue queue = new MessagePersistenceQueue(MessageStores.getDefault(), MessagePersistenceQueue.Durability.ENQUEUE);
+        queue.start();
+        System.out.printf("%10s %12s %12s %10s %10s %10s %12s %8s%n",
+                "offered/s", "committed/s", "messages", "p50(ms)", "p99(ms)", "max(ms)", "avg batch", "failed");
+        for (int rate : rates) {
+            run(queue, roomId, senderId, rate, seconds);
+        }
+        queue.shutdown();
+    }
+
+    private static void run(MessagePersistenceQueue queue, int roomId, int senderId, int rate, int seconds) throws InterruptedException {
+        int total = rate * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long[] latencies = new long[total];
+        CountDownLatch done = new CountDownLatch(total);
+        AtomicLong lastCommitNanos = new AtomicLong();
+        long batchesBefore = queue.getCommittedBatches();
+        long failedBefore = queue.getFailedMessages();
+
+        long start = System.nanoTime();
+        int sent = 0;
+        while (sent < total) {
+            // 지금까지 보냈어야 할 개수만큼 보냄 (open loop, 저장이 밀려도 보내는 속도는 유지)
+            long due = Math.min(total, (System.nanoTime() - start) / intervalNanos + 1);
+            for (; sent < due; sent++) {
+                int index = sent;
+                long enqueuedAt = System.nanoTime();
+                Message message = new Message(roomId, senderId, "bench", MessageType.TEXT, "bench message " + index, false);
+                queue.enqueue(message, senderId).whenComplete((saved, error) -> {
+                    long now = System.nanoTime();
+                    latencies[index] = error == null ? now - enqueuedAt : -1;
+                    lastCommitNanos.accumulateAndGet(now, Math::max);
+                    done.countDown();
+                });
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        done.await(seconds * 10L, TimeUnit.SECONDS);
+
+        long[] committed = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+        double elapsedSeconds = (lastCommitNanos.get() - start) / 1e9;
+        long batches = queue.getCommittedBatches() - batchesBefore;
+        System.out.printf("%10d %12.0f %12d %10.2f %10.2f %10.2f %12.1f %8d%n",
+                rate,
+                committed.length / elapsedSeconds,
+                committed.length,
+                percentileMillis(committed, 0.50),
+                percentileMillis(committed, 0.99),
+                percentileMillis(committed, 1.0),
+                batches > 0 ? (double) committed.length / batches : 0.0,
+                queue.getFailedMessages() - failedBefore);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
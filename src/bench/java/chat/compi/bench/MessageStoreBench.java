@@ -0,0 +1,115 @@
+// MessageStoreBench.java
+package chat.compi.bench;
+
+import chat.compi.DB.LogMessageStore;
+import chat.compi.DB.MessageDAO;
+import chat.compi.DB.MessageIdGenerator;
+import chat.compi.DB.MessageStore;
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+import chat.compi.Entity.UserStatus;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MessageStore 구현별 쓰기/읽기 처리량 비교.
+ * 쓰기: 배치 크기만큼 묶어 saveMessagesBatch 호출 (MessagePersistenceQueue와 같은 방식)
+ * 읽기: 최근 메시지 증분 조회(getMessagesInRoomSince), 방 전체 조회, 안 읽은 메시지 수
+ *
+ * 로그 저장소는 임시 디렉터리에서 항상 측정하고, MySQL은 방/사용자를 지정했을 때만 측정한다 (실제 DB에 저장됨).
+ * -Dcompi.bench.messages   : 저장할 메시지 수 (기본 100000)
+ * -Dcompi.bench.batchSize  : 배치 크기 (기본 500)
+ * -Dcompi.bench.rooms      : 로그 저장소에서 메시지를 나눌 방 수 (기본 16)
+ * -Dcompi.bench.jdbcRoomId, -Dcompi.bench.senderId : MySQL 측정용 방/보낸 사람
+ */
+public class MessageStoreBench {
+    private static final int TAIL_SIZE = 50; // 증분 조회 시 가져올 최근 메시지 수
+    private static final int READ_ITERATIONS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int messages = Integer.getInteger("compi.bench.messages", 100_000);
+        int batchSize = Integer.getInteger("compi.bench.batchSize", 500);
+        int rooms = Integer.getInteger("compi.bench.rooms", 16);
+        int senderId = Integer.getInteger("compi.bench.senderId", 1);
+
+        System.out.printf("%-6s %10s %14s %16s %16s %14s%n",
+                "store", "messages", "write msg/s", "tail reads/s", "full reads/s", "unread/s");
+
+        File logDir = Files.createTempDirectory("message-log-bench").toFile();
+        try (LogMessageStore logStore = new LogMessageStore(logDir, 256 * 1024 * 1024,
+                userId -> new User(userId, "user" + userId, "user" + userId, UserStatus.OFFLINE), null)) {
+            int[] roomIds = new int[rooms];
+            for (int i = 0; i < rooms; i++) {
+                roomIds[i] = i + 1;
+            }
+            run("log", logStore, roomIds, senderId, messages, batchSize);
+        } finally {
+            deleteRecursively(logDir);
+        }
+
+        int jdbcRoomId = Integer.getInteger("compi.bench.jdbcRoomId", -1);
+        if (jdbcRoomId != -1) {
+            run("jdbc", new MessageDAO(), new int[]{jdbcRoomId}, senderId, messages, batchSize);
+        }
+    }
+
+    private static void run(String name, MessageStore store, int[] roomIds, int senderId, int messages, int batchSize) throws Exception {
+        MessageIdGenerator idGenerator = new MessageIdGenerator(0, store);
+
+        long writeStart = System.nanoTime();
+        for (int written = 0; written < messages; ) {
+            int size = Math.min(batchSize, messages - written);
+            List<Message> batch = new ArrayList<>(size);
+            List<Integer> readerIds = new ArrayList<>(size);
+            for (int i = 0; i < size; i++, written++) {
+                Message message = new Message(roomIds[written % roomIds.length], senderId, "bench", MessageType.TEXT, "bench message " + written, false);
+                message.setRoomSeq(idGenerator.nextRoomSeq(message.getRoomId()));
+                message.setMessageId(idGenerator.nextId());
+                message.setSentAt(LocalDateTime.now());
+                batch.add(message);
+                readerIds.add(senderId);
+            }
+            store.saveMessagesBatch(batch, readerIds);
+        }
+        double writeSeconds = (System.nanoTime() - writeStart) / 1e9;
+
+        int roomId = roomIds[0];
+        long maxSeq = store.getMaxRoomSeq(roomId);
+        double tailPerSecond = measure(() -> store.getMessagesInRoomSince(roomId, Math.max(0, maxSeq - TAIL_SIZE)));
+        double fullPerSecond = measure(() -> store.getMessagesInRoom(roomId), Math.max(10, READ_ITERATIONS / 100));
+        double unreadPerSecond = measure(() -> store.getUnreadMessageCount(roomId, senderId + 1), Math.max(10, READ_ITERATIONS / 100));
+
+        System.out.printf("%-6s %10d %14.0f %16.0f %16.1f %14.1f%n",
+                name, messages, messages / writeSeconds, tailPerSecond, fullPerSecond, unreadPerSecond);
+    }
+
+    private static double measure(Runnable read) {
+        return measure(read, READ_ITERATIONS);
+    }
+
+    private static double measure(Runnable read, int iterations) {
+        for (int i = 0; i < Math.min(iterations, 100); i++) { // 워밍업
+            read.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            read.run();
+        }
+        return iterations / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,270 @@
+// MessageViewBench.java
+package chat.compi.bench;
+
+import chat.compi.Controller.ChatClient;
+import chat.compi.Entity.ChatRoom;
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+import chat.compi.Entity.UserStatus;
+import chat.compi.GUI.ChatRoomDialog;
+import chat.compi.GUI.MessageListView;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 채팅방을 열 때(displayMessages + 첫 화면 그리기) 걸리는 시간, 열린 뒤 남아 있는 힙, 스크롤 한 번 그리는 시간.
+ * HTML 뷰(기본)와 가상 목록 뷰(-Dcompi.gui.messageView=list)를 같은 합성 메시지로 비교한다.
+ *
+ * 화면이 있으면 실제 ChatRoomDialog를 서버 연결 없이 띄워 displayMessages를 그대로 호출한다
+ * (읽음 요청이 나가지 않도록 모든 메시지를 이미 읽은 것으로 만듦).
+ * headless 환경에서는 다이얼로그를 띄울 수 없으므로 MessageListView만 같은 크기의 JScrollPane에 넣어 잰다.
+ * HTML 뷰는 메시지 수가 늘면 급격히 느려지므로 htmlMaxMessages보다 많으면 건너뛴다.
+ *
+ * 설정 (-Dcompi.bench.*):
+ * - sizes: 메시지 수 목록 (기본 10000,100000), views: list, html (기본 둘 다)
+ * - htmlMaxMessages (기본 10000), scrollSteps: 맨 아래에서 맨 위까지 나눠 그리는 횟수 (기본 50)
+ *
+ * 실행: ./gradlew messageViewBench -Dcompi.bench.sizes=10000,100000
+ */
+public class MessageViewBench {
+    private static final int WIDTH = 684;   // ChatRoomDialog(700x500)의 메시지 영역과 비슷한 크기
+    private static final int HEIGHT = 420;
+    private static final User ME = new User(1, "bench_me", "나", UserStatus.ONLINE, LocalDateTime.of(2024, 3, 1, 8, 0));
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = Arrays.stream(System.getProperty("compi.bench.sizes", "10000,100000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+        List<String> views = Arrays.asList(System.getProperty("compi.bench.views", "list,html").split(","));
+        int htmlMaxMessages = Integer.getInteger("compi.bench.htmlMaxMessages", 10_000);
+        int scrollSteps = Integer.getInteger("compi.bench.scrollSteps", 50);
+        boolean headless = GraphicsEnvironment.isHeadless();
+        if (headless) {
+            System.out.println("Headless: measuring MessageListView in a bare JScrollPane (the HTML view needs a display)");
+        }
+
+        // 클래스 로딩과 JIT이 첫 측정에 섞이지 않도록 작은 방을 한 번 열어 둠
+        for (String view : views) {
+            if (!headless || view.trim().equals("list")) {
+                measure(view.trim(), createMessages(1000), headless, scrollSteps, false);
+            }
+        }
+
+        System.out.printf("%-5s %9s %11s %11s %16s %16s%n", "view", "messages", "open (ms)", "heap (MB)", "scroll avg (ms)", "scroll max (ms)");
+        for (int size : sizes) {
+            List<Message> messages = createMessages(size);
+            for (String view : views) {
+                view = view.trim();
+                if (view.equals("html") && (headless || size > htmlMaxMessages)) {
+                    System.out.printf("%-5s %9d %11s%n", view, size, "skipped");
+                    continue;
+                }
+                measure(view, messages, headless, scrollSteps, true);
+            }
+        }
+        System.exit(0); // 다이얼로그를 닫아도 AWT 스레드가 남아 있을 수 있음
+    }
+
+    private static void measure(String view, List<Message> messages, boolean headless, int scrollSteps, boolean report) throws Exception {
+        System.setProperty("compi.gui.messageView", view);
+        long heapBefore = usedHeapAfterGc();
+
+        long start = System.nanoTime();
+        Host host = onEdt(() -> headless ? Host.bare(messages) : Host.dialog(messages));
+        onEdt(() -> { // 앞서 큐에 들어간 스크롤 요청이 처리된 뒤 첫 화면을 그림
+            host.paint();
+            return null;
+        });
+        double openMillis = (System.nanoTime() - start) / 1e6;
+        double heapMegabytes = (usedHeapAfterGc() - heapBefore) / (1024.0 * 1024.0);
+
+        double[] frames = onEdt(() -> host.scrollFrames(scrollSteps));
+        double total = 0;
+        double max = 0;
+        for (double frame : frames) {
+            total += frame;
+            max = Math.max(max, frame);
+        }
+        onEdt(() -> {
+            host.close();
+            return null;
+        });
+        if (!report) {
+            return;
+        }
+        System.out.printf("%-5s %9d %11.1f %11.1f %16.2f %16.2f%n",
+                view, messages.size(), openMillis, heapMegabytes, total / frames.length, max);
+    }
+
+    /**
+     * 보낸 사람, 길이, 종류가 섞인 메시지. 다른 사람 메시지는 모두 ME가 읽은 상태.
+     */
+    static List<Message> createMessages(int count) {
+        List<User> members = new ArrayList<>();
+        members.add(ME);
+        for (int userId = 2; userId <= 8; userId++) {
+            members.add(new User(userId, "bench_u" + userId, "사용자" + userId, UserStatus.ONLINE, LocalDateTime.of(2024, 3, 1, 8, 0)));
+        }
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User sender = members.get(i % members.size());
+            MessageType type = i % 97 == 0 ? MessageType.SYSTEM : i % 41 == 0 ? MessageType.FILE : MessageType.TEXT;
+            String content;
+            if (type == MessageType.FILE) {
+                content = "server_uploads/report-" + i + ".pdf";
+            } else if (i % 7 == 0) {
+                content = "긴 메시지 " + i + ": " + "회의 자료는 공유 폴더에 올려두었고, 수정 사항은 내일 오전까지 반영하겠습니다. ".repeat(1 + i % 4);
+            } else {
+                content = "메시지 " + i;
+            }
+            Message message = new Message(i, 42, sender.getUserId(), sender.getNickname(), type, content,
+                    start.plusSeconds(i * 20L), i % 500 == 0);
+            message.setRoomSeq(i);
+            message.setReaders(new ArrayList<>(members.subList(0, 1 + i % members.size())));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static <T> T onEdt(Callable<T> task) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.set(task.call());
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    /**
+     * 측정 대상 뷰를 담은 JScrollPane (실제 다이얼로그 안이거나 단독).
+     */
+    private static final class Host {
+        private final Window window;
+        private final JScrollPane scrollPane;
+        private final BufferedImage canvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+        private Host(Window window, JScrollPane scrollPane) {
+            this.window = window;
+            this.scrollPane = scrollPane;
+        }
+
+        static Host dialog(List<Message> messages) {
+            ChatClient client = new ChatClient(); // 연결하지 않음
+            client.setCurrentUser(ME);
+            ChatRoom room = new ChatRoom(42, "벤치마크 방", LocalDateTime.of(2024, 3, 1, 9, 0), true);
+            room.setParticipants(new ArrayList<>(List.of(ME)));
+            ChatRoomDialog dialog = new ChatRoomDialog(null, client, room);
+            dialog.setVisible(true);
+            dialog.displayMessages(messages);
+            return new Host(dialog, findScrollPane(dialog));
+        }
+
+        static Host bare(List<Message> messages) {
+            MessageListView view = new MessageListView(ME.getUserId(), new MessageListView.Actions() {
+                @Override
+                public void openFile(String filePath) {
+                }
+
+                @Override
+                public void showMessageMenu(Message message, Component invoker, int x, int y) {
+                }
+
+                @Override
+                public Image thumbnail(Message message) {
+                    return null;
+                }
+            });
+            JScrollPane scrollPane = new JScrollPane(view);
+            scrollPane.setSize(WIDTH, HEIGHT);
+            layOut(scrollPane);
+            for (Message message : messages) { // ChatRoomDialog.displayMessages와 같은 순서로 추가
+                view.addMessage(message);
+            }
+            SwingUtilities.invokeLater(() -> {
+                layOut(scrollPane);
+                view.scrollToBottom();
+            });
+            return new Host(null, scrollPane);
+        }
+
+        void paint() {
+            layOut(scrollPane);
+            Graphics2D g = canvas.createGraphics();
+            try {
+                scrollPane.paint(g);
+            } finally {
+                g.dispose();
+            }
+        }
+
+        // 맨 아래에서 맨 위까지 steps번에 나눠 이동하며 한 화면씩 그리는 시간 (ms)
+        double[] scrollFrames(int steps) {
+            JViewport viewport = scrollPane.getViewport();
+            double[] frames = new double[steps];
+            for (int i = 0; i < steps; i++) {
+                int maxY = Math.max(0, viewport.getViewSize().height - viewport.getExtentSize().height);
+                viewport.setViewPosition(new Point(0, (int) ((long) maxY * (steps - 1 - i) / Math.max(1, steps - 1))));
+                long start = System.nanoTime();
+                paint();
+                frames[i] = (System.nanoTime() - start) / 1e6;
+            }
+            return frames;
+        }
+
+        void close() {
+            if (window != null) {
+                window.dispose();
+            }
+        }
+
+        // 화면에 붙지 않은(peer 없는) 컴포넌트는 validate()가 배치를 하지 않으므로 직접 배치
+        private static void layOut(Container container) {
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                if (child instanceof Container nested) {
+                    layOut(nested);
+                }
+            }
+        }
+
+        private static JScrollPane findScrollPane(Container container) {
+            for (Component child : container.getComponents()) {
+                if (child instanceof JScrollPane scrollPane) {
+                    return scrollPane;
+                }
+                if (child instanceof Container nested) {
+                    JScrollPane found = findScrollPane(nested);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+// MetricsRegistryBench.java
+package chat.compi.bench;
+
+import chat.compi.Dto.ClientRequest;
+import chat.compi.Dto.ServerResponse;
+import chat.compi.Metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 하나마다 ClientHandler가 추가로 치르는 지표 기록 비용을 측정한다.
+ * baseline(System.nanoTime 두 번)과 비교해 recordRequest/recordResponse가 몇 ns를 더하는지 본다.
+ * 8스레드 측정은 같은 RequestType에 여러 ClientHandler가 동시에 기록하는 경우다.
+ *
+ * 실행: ./gradlew jmh -Pjmh.include=MetricsRegistryBench
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsRegistryBench {
+    private final MetricsRegistry registry = MetricsRegistry.get();
+
+    @Benchmark
+    public long baselineTiming() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public long recordRequest() {
+        long start = System.nanoTime();
+        long elapsed = System.nanoTime() - start;
+        registry.recordRequest(ClientRequest.RequestType.SEND_MESSAGE, elapsed, false);
+        return elapsed;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long recordRequestContended() {
+        long start = System.nanoTime();
+        long elapsed = System.nanoTime() - start;
+        registry.recordRequest(ClientRequest.RequestType.SEND_MESSAGE, elapsed, false);
+        return elapsed;
+    }
+
+    @Benchmark
+    public void recordResponse() {
+        registry.recordResponse(ServerResponse.ResponseType.NEW_MESSAGE, 512);
+    }
+}
@@ -0,0 +1,173 @@
+// SerializationBench.java
+package chat.compi.bench;
+
+import chat.compi.Dto.ClientRequest;
+import chat.compi.Dto.ServerResponse;
+import chat.compi.Entity.ChatRoom;
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.TimelineEvent;
+import chat.compi.Entity.User;
+import chat.compi.Entity.UserStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서버/클라이언트가 주고받는 DTO의 직렬화(encode)와 역직렬화(decode) 비용.
+ * 지금 프로토콜(Java 직렬화)의 기준값이며, 코덱이나 DTO를 바꿀 때 같은 payload로 전후를 비교한다.
+ *
+ * payload:
+ * - REQUEST: SEND_MESSAGE 요청, RESPONSE: NEW_MESSAGE 응답 (읽은 사람 1명)
+ * - MESSAGE_n_READERS: 읽은 사람이 n명인 Message
+ * - ROOM_LIST_200: 참여자 10명씩인 방 200개 (CHAT_ROOMS_UPDATE)
+ * - ROOM_UPDATED: 참여자 10명인 방 하나의 변경 (ROOM_LIST_200을 대신하는 응답)
+ * - TIMELINE_100: 타임라인 이벤트 100개 (TIMELINE_UPDATE)
+ *
+ * 매번 새 스트림에 쓰므로 스트림 헤더와 클래스 설명자가 포함된다 (실제 연결에서는 설명자를 한 번만 보냄).
+ * payload별 직렬화 크기(bytes/op)는 trial이 끝날 때 출력하고, 할당량은 GC 프로파일러(gc.alloc.rate.norm)로 본다.
+ *
+ * 실행: ./gradlew jmh -Pjmh.include=SerializationBench -Pjmh.prof=gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBench {
+
+    @Param({"REQUEST", "RESPONSE", "MESSAGE_0_READERS", "MESSAGE_10_READERS", "MESSAGE_500_READERS", "ROOM_LIST_200", "ROOM_UPDATED", "TIMELINE_100"})
+    public String payload;
+
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        value = createPayload(payload);
+        encoded = encode(value);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s: %d bytes/op%n", payload, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return encode(value);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(encoded))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object createPayload(String payload) {
+        switch (payload) {
+            case "REQUEST": {
+                Map<String, Object> data = new HashMap<>();
+                data.put("roomId", 42);
+                data.put("content", "오늘 회의는 3시에 시작합니다. 자료는 공유 폴더에 올려두었어요.");
+                data.put("messageType", MessageType.TEXT.name());
+                data.put("isNotice", false);
+                return new ClientRequest(ClientRequest.RequestType.SEND_MESSAGE, data);
+            }
+            case "RESPONSE": {
+                Map<String, Object> data = new HashMap<>();
+                data.put("message", message(1));
+                data.put("senderId", 7);
+                return new ServerResponse(ServerResponse.ResponseType.NEW_MESSAGE, true, "New message", data);
+            }
+            case "MESSAGE_0_READERS":
+                return message(0);
+            case "MESSAGE_10_READERS":
+                return message(10);
+            case "MESSAGE_500_READERS":
+                return message(500);
+            case "ROOM_LIST_200": {
+                List<ChatRoom> rooms = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    ChatRoom room = new ChatRoom(1000 + i, "프로젝트 방 " + i, LocalDateTime.of(2024, 3, 1, 9, 0).plusHours(i), true);
+                    room.setParticipants(users(i * 10, 10)); // DAO처럼 방마다 별도 User 객체
+                    room.setUnreadMessageCount(i % 7);
+                    rooms.add(room);
+                }
+                Map<String, Object> data = new HashMap<>();
+                data.put("chatRooms", rooms);
+                return new ServerResponse(ServerResponse.ResponseType.CHAT_ROOMS_UPDATE, true, "Chat room list updated", data);
+            }
+            case "ROOM_UPDATED": {
+                Map<String, Object> data = new HashMap<>();
+                data.put("roomId", 1000);
+                data.put("roomName", "프로젝트 방 0");
+                data.put("participants", users(0, 10));
+                return new ServerResponse(ServerResponse.ResponseType.ROOM_UPDATED, true, "Chat room updated", data);
+            }
+            case "TIMELINE_100": {
+                List<TimelineEvent> events = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    events.add(new TimelineEvent(i + 1, 42, 7, "user7", "/p", "API 설계 문서 초안 작성 " + i,
+                            LocalDateTime.of(2024, 3, 1, 9, 0).plusMinutes(i * 30L), "PROJECT_CONTENT", "서버 개편"));
+                }
+                Map<String, Object> data = new HashMap<>();
+                data.put("roomId", 42);
+                data.put("timelineEvents", events);
+                return new ServerResponse(ServerResponse.ResponseType.TIMELINE_UPDATE, true, "Timeline events loaded", data);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown payload: " + payload);
+        }
+    }
+
+    private static Message message(int readers) {
+        Message message = new Message(1_234_567_890L, 42, 7, "user7", MessageType.TEXT,
+                "오늘 회의는 3시에 시작합니다. 자료는 공유 폴더에 올려두었어요.", LocalDateTime.of(2024, 3, 1, 15, 0), false);
+        message.setRoomSeq(1024);
+        message.setReaders(users(0, readers));
+        message.setUnreadCount(Math.max(0, 600 - readers));
+        return message;
+    }
+
+    private static List<User> users(int firstId, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int userId = firstId + i + 1;
+            users.add(new User(userId, "user" + userId, "사용자" + userId, UserStatus.ONLINE, LocalDateTime.of(2024, 3, 1, 8, 0)));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,487 @@
+// AdminServer.java
+package chat.compi.Controller;
+
+import chat.compi.DB.MessagePersistenceQueue;
+import chat.compi.DB.QueryStats;
+import chat.compi.Dto.ClientRequest;
+import chat.compi.Dto.ServerResponse;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.CacheStats;
+import chat.compi.Metrics.LatencyHistogram;
+import chat.compi.Metrics.MetricsRegistry;
+import chat.compi.Metrics.RequestMetrics;
+import chat.compi.Metrics.ResponseMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 운영자용 관리 HTTP 서버 (JDK com.sun.net.httpserver, localhost에만 바인딩).
+ *
+ * GET /sessions : 접속 중인 사용자별 연결 상태 (요청 수, 전송 바이트, 출력 적체)
+ * GET /rooms    : 채팅방별 접속 인원
+ * GET /threads  : JVM 스레드와 서버 실행기(executor) 사용률
+ * GET /caches   : 메모리 캐시 적중률
+ * GET /db       : DB 연결 상태, 문장별 통계, 느린 쿼리, 메시지 저장 큐
+ * GET /metrics  : 위 지표의 Prometheus 텍스트 형식
+ *
+ * 모든 응답은 메모리에 있는 값만 읽고 DB를 조회하지 않는다.
+ * -Dcompi.admin.port로 포트를 정하며(기본 12380) 0 이하이면 띄우지 않는다.
+ */
+public class AdminServer {
+    private static final Logger log = Log.get(AdminServer.class);
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ChatServer chatServer;
+    private final int port;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    public AdminServer(ChatServer chatServer, int port) {
+        this.chatServer = chatServer;
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/", exchange -> respond(exchange, JSON, () -> toJson(index())));
+        httpServer.createContext("/sessions", exchange -> respond(exchange, JSON, () -> toJson(sessions())));
+        httpServer.createContext("/rooms", exchange -> respond(exchange, JSON, () -> toJson(rooms())));
+        httpServer.createContext("/threads", exchange -> respond(exchange, JSON, () -> toJson(threads())));
+        httpServer.createContext("/caches", exchange -> respond(exchange, JSON, () -> toJson(caches())));
+        httpServer.createContext("/db", exchange -> respond(exchange, JSON, () -> toJson(db())));
+        httpServer.createContext("/metrics", exchange -> respond(exchange, PROMETHEUS, this::prometheus));
+        httpServer.start();
+        log.info("Admin server listening on http://{}:{}/", httpServer.getAddress().getHostString(), httpServer.getAddress().getPort());
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executor.shutdownNow();
+            httpServer = null;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, Supplier<String> body) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] bytes;
+            int status = 200;
+            try {
+                bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            } catch (RuntimeException e) {
+                log.error("Admin endpoint {} failed: {}", exchange.getRequestURI(), e.getMessage());
+                bytes = toJson(Map.of("error", String.valueOf(e.getMessage()))).getBytes(StandardCharsets.UTF_8);
+                status = 500;
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private Map<String, Object> index() {
+        Map<String, Object> index = new LinkedHashMap<>();
+        index.put("connectedClients", chatServer.getConnectedClients().size());
+        index.put("endpoints", List.of("/sessions", "/rooms", "/threads", "/caches", "/db", "/metrics"));
+        return index;
+    }
+
+    List<Map<String, Object>> sessions() {
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (ClientHandler handler : new TreeMap<>(chatServer.getConnectedClients()).values()) {
+            Map<String, Object> session = new LinkedHashMap<>();
+            session.put("userId", handler.getUserId());
+            session.put("remoteAddress", handler.getRemoteAddress());
+            session.put("connectedSeconds", TimeUnit.MILLISECONDS.toSeconds(now - handler.getConnectedAtMillis()));
+            session.put("requestsHandled", handler.getRequestsHandled());
+            ClientRequest.RequestType current = handler.getCurrentRequestType();
+            session.put("currentRequest", current != null ? current.name() : null);
+            long lastRequestAt = handler.getLastRequestAtMillis();
+            session.put("idleSeconds", lastRequestAt > 0 ? TimeUnit.MILLISECONDS.toSeconds(now - lastRequestAt) : null);
+            session.put("bytesSent", handler.getBytesSent());
+            session.put("pendingWrites", handler.getPendingWrites());
+            session.put("currentWriteMillis", handler.getCurrentWriteMillis());
+            session.put("rooms", handler.getRoomIds().size());
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    // 방 ID -> 접속 인원 (각 연결이 마지막으로 받은 채팅방 목록 기준)
+    Map<Integer, Integer> rooms() {
+        Map<Integer, Integer> online = new TreeMap<>();
+        for (ClientHandler handler : chatServer.getConnectedClients().values()) {
+            for (Integer roomId : handler.getRoomIds()) {
+                online.merge(roomId, 1, Integer::sum);
+            }
+        }
+        return online;
+    }
+
+    private Map<String, Object> threads() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Map<String, Object> threads = new LinkedHashMap<>();
+        threads.put("live", threadBean.getThreadCount());
+        threads.put("peak", threadBean.getPeakThreadCount());
+        threads.put("daemon", threadBean.getDaemonThreadCount());
+        Map<Thread.State, Integer> states = new EnumMap<>(Thread.State.class);
+        for (ThreadInfo info : threadBean.getThreadInfo(threadBean.getAllThreadIds())) {
+            if (info != null) {
+                states.merge(info.getThreadState(), 1, Integer::sum);
+            }
+        }
+        threads.put("states", states);
+
+        int busyHandlers = 0;
+        int pendingWrites = 0;
+        for (ClientHandler handler : chatServer.getConnectedClients().values()) {
+            if (handler.getCurrentRequestType() != null) {
+                busyHandlers++;
+            }
+            pendingWrites += handler.getPendingWrites();
+        }
+        Map<String, Object> handlers = new LinkedHashMap<>();
+        handlers.put("connections", chatServer.getConnectedClients().size());
+        handlers.put("busy", busyHandlers);
+        handlers.put("pendingWrites", pendingWrites);
+
+        Map<String, Object> executors = new LinkedHashMap<>();
+        executors.put("clientHandlers", handlers);
+        executors.put("scheduler", executorStats(chatServer.getScheduler()));
+        executors.put("thumbnail", executorStats(chatServer.getThumbnailService().getExecutor()));
+        executors.put("messagePersistence", persistenceStats(chatServer.getMessagePersistenceQueue()));
+
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        Map<String, Object> heap = new LinkedHashMap<>();
+        heap.put("usedBytes", memoryBean.getHeapMemoryUsage().getUsed());
+        heap.put("committedBytes", memoryBean.getHeapMemoryUsage().getCommitted());
+        heap.put("maxBytes", memoryBean.getHeapMemoryUsage().getMax());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", threads);
+        result.put("executors", executors);
+        result.put("heap", heap);
+        return result;
+    }
+
+    private static Map<String, Object> executorStats(ThreadPoolExecutor executor) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getPoolSize());
+        stats.put("maxPoolSize", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("largestPoolSize", executor.getLargestPoolSize());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("completedTasks", executor.getCompletedTaskCount());
+        return stats;
+    }
+
+    private static Map<String, Object> persistenceStats(MessagePersistenceQueue queue) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("durability", queue.getDurability().name());
+        stats.put("queueDepth", queue.getQueueDepth());
+        stats.put("committedMessages", queue.getCommittedMessages());
+        stats.put("committedBatches", queue.getCommittedBatches());
+        stats.put("failedMessages", queue.getFailedMessages());
+        return stats;
+    }
+
+    private static Map<String, Object> caches() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (CacheStats stats : MetricsRegistry.get().getCaches().values()) {
+            Map<String, Object> cache = new LinkedHashMap<>();
+            cache.put("hits", stats.getHits());
+            cache.put("misses", stats.getMisses());
+            cache.put("hitRate", stats.getHitRate());
+            caches.put(stats.getName(), cache);
+        }
+        return caches;
+    }
+
+    private Map<String, Object> db() {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("openConnections", QueryStats.getOpenConnections());
+        pool.put("peakOpenConnections", QueryStats.getPeakOpenConnections());
+        QueryStats.StatementStats acquire = QueryStats.getAll().get(QueryStats.CONNECTION_ACQUIRE);
+        pool.put("acquire", acquire != null ? statementStats(acquire) : null);
+
+        List<Map<String, Object>> statements = new ArrayList<>();
+        for (QueryStats.StatementStats stats : QueryStats.getTopByTotalTime(20)) {
+            statements.add(statementStats(stats));
+        }
+        List<Map<String, Object>> slowQueries = new ArrayList<>();
+        for (QueryStats.SlowQuery slowQuery : QueryStats.getSlowQueries()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("at", slowQuery.getAt().toString());
+            entry.put("name", slowQuery.getName());
+            entry.put("millis", slowQuery.getMillis());
+            entry.put("rows", slowQuery.getRows());
+            entry.put("sql", slowQuery.getSql());
+            slowQueries.add(entry);
+        }
+
+        Map<String, Object> db = new LinkedHashMap<>();
+        db.put("pool", pool);
+        db.put("messagePersistence", persistenceStats(chatServer.getMessagePersistenceQueue()));
+        db.put("slowQueryThresholdMillis", QueryStats.getSlowQueryThresholdMillis());
+        db.put("topStatements", statements);
+        db.put("slowQueries", slowQueries);
+        return db;
+    }
+
+    private static Map<String, Object> statementStats(QueryStats.StatementStats stats) {
+        LatencyHistogram.Snapshot latency = stats.getLatency();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("name", stats.getName());
+        entry.put("executions", stats.getExecutions());
+        entry.put("errors", stats.getErrors());
+        entry.put("rows", stats.getRows());
+        entry.put("totalMillis", stats.getTotalNanos() / 1e6);
+        entry.put("meanMillis", latency.getMean() / 1e6);
+        entry.put("p99Millis", latency.getP99() / 1e6);
+        entry.put("maxMillis", latency.getMax() / 1e6);
+        return entry;
+    }
+
+    private String prometheus() {
+        PrometheusWriter writer = new PrometheusWriter();
+        MetricsRegistry registry = MetricsRegistry.get();
+
+        writer.type("compi_connected_clients", "gauge");
+        writer.sample("compi_connected_clients", null, chatServer.getConnectedClients().size());
+        int pendingWrites = 0;
+        for (ClientHandler handler : chatServer.getConnectedClients().values()) {
+            pendingWrites += handler.getPendingWrites();
+        }
+        writer.type("compi_pending_writes", "gauge");
+        writer.sample("compi_pending_writes", null, pendingWrites);
+
+        writer.type("compi_request_duration_seconds", "summary");
+        for (ClientRequest.RequestType type : ClientRequest.RequestType.values()) {
+            LatencyHistogram.Snapshot latency = registry.getRequestMetrics(type).getLatency();
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            String label = "type=\"" + type.name() + "\"";
+            writer.sample("compi_request_duration_seconds", label + ",quantile=\"0.5\"", latency.getP50() / 1e9);
+            writer.sample("compi_request_duration_seconds", label + ",quantile=\"0.9\"", latency.getP90() / 1e9);
+            writer.sample("compi_request_duration_seconds", label + ",quantile=\"0.99\"", latency.getP99() / 1e9);
+            writer.sample("compi_request_duration_seconds", label + ",quantile=\"0.999\"", latency.getP999() / 1e9);
+            writer.sample("compi_request_duration_seconds_sum", label, latency.getMean() * latency.getCount() / 1e9);
+            writer.sample("compi_request_duration_seconds_count", label, latency.getCount());
+        }
+        writer.type("compi_request_errors_total", "counter");
+        for (ClientRequest.RequestType type : ClientRequest.RequestType.values()) {
+            RequestMetrics metrics = registry.getRequestMetrics(type);
+            if (metrics.getCount() > 0) {
+                writer.sample("compi_request_errors_total", "type=\"" + type.name() + "\"", metrics.getErrors());
+            }
+        }
+        // 같은 이름의 샘플은 한곳에 모여 있어야 하므로 지표마다 따로 순회
+        writer.type("compi_responses_total", "counter");
+        for (ServerResponse.ResponseType type : ServerResponse.ResponseType.values()) {
+            ResponseMetrics metrics = registry.getResponseMetrics(type);
+            if (metrics.getCount() > 0) {
+                writer.sample("compi_responses_total", "type=\"" + type.name() + "\"", metrics.getCount());
+            }
+        }
+        writer.type("compi_response_bytes_total", "counter");
+        for (ServerResponse.ResponseType type : ServerResponse.ResponseType.values()) {
+            ResponseMetrics metrics = registry.getResponseMetrics(type);
+            if (metrics.getCount() > 0) {
+                writer.sample("compi_response_bytes_total", "type=\"" + type.name() + "\"", metrics.getBytes());
+            }
+        }
+
+        Collection<CacheStats> caches = registry.getCaches().values();
+        writer.type("compi_cache_hits_total", "counter");
+        for (CacheStats stats : caches) {
+            writer.sample("compi_cache_hits_total", "cache=\"" + PrometheusWriter.escape(stats.getName()) + "\"", stats.getHits());
+        }
+        writer.type("compi_cache_misses_total", "counter");
+        for (CacheStats stats : caches) {
+            writer.sample("compi_cache_misses_total", "cache=\"" + PrometheusWriter.escape(stats.getName()) + "\"", stats.getMisses());
+        }
+
+        writer.type("compi_db_open_connections", "gauge");
+        writer.sample("compi_db_open_connections", null, QueryStats.getOpenConnections());
+        Collection<QueryStats.StatementStats> statements = QueryStats.getAll().values();
+        writer.type("compi_db_statements_total", "counter");
+        for (QueryStats.StatementStats stats : statements) {
+            writer.sample("compi_db_statements_total", "statement=\"" + PrometheusWriter.escape(stats.getName()) + "\"", stats.getExecutions());
+        }
+        writer.type("compi_db_statement_errors_total", "counter");
+        for (QueryStats.StatementStats stats : statements) {
+            writer.sample("compi_db_statement_errors_total", "statement=\"" + PrometheusWriter.escape(stats.getName()) + "\"", stats.getErrors());
+        }
+        writer.type("compi_db_statement_seconds_total", "counter");
+        for (QueryStats.StatementStats stats : statements) {
+            writer.sample("compi_db_statement_seconds_total", "statement=\"" + PrometheusWriter.escape(stats.getName()) + "\"", stats.getTotalNanos() / 1e9);
+        }
+
+        MessagePersistenceQueue queue = chatServer.getMessagePersistenceQueue();
+        writer.type("compi_persistence_queue_depth", "gauge");
+        writer.sample("compi_persistence_queue_depth", null, queue.getQueueDepth());
+        writer.type("compi_persistence_committed_messages_total", "counter");
+        writer.sample("compi_persistence_committed_messages_total", null, queue.getCommittedMessages());
+        writer.type("compi_persistence_failed_messages_total", "counter");
+        writer.sample("compi_persistence_failed_messages_total", null, queue.getFailedMessages());
+
+        Map<String, ThreadPoolExecutor> executors = new LinkedHashMap<>();
+        executors.put("scheduler", chatServer.getScheduler());
+        executors.put("thumbnail", chatServer.getThumbnailService().getExecutor());
+        writer.type("compi_executor_active_threads", "gauge");
+        for (Map.Entry<String, ThreadPoolExecutor> entry : executors.entrySet()) {
+            writer.sample("compi_executor_active_threads", "executor=\"" + entry.getKey() + "\"", entry.getValue().getActiveCount());
+        }
+        writer.type("compi_executor_queued_tasks", "gauge");
+        for (Map.Entry<String, ThreadPoolExecutor> entry : executors.entrySet()) {
+            writer.sample("compi_executor_queued_tasks", "executor=\"" + entry.getKey() + "\"", entry.getValue().getQueue().size());
+        }
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        writer.type("compi_jvm_threads", "gauge");
+        writer.sample("compi_jvm_threads", null, threadBean.getThreadCount());
+        writer.type("compi_jvm_heap_used_bytes", "gauge");
+        writer.sample("compi_jvm_heap_used_bytes", null, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        return writer.toString();
+    }
+
+    /**
+     * Map, Collection, 문자열, 숫자, 불리언, null로 이루어진 값을 JSON 문자열로 바꿉니다.
+     */
+    static String toJson(Object value) {
+        StringBuilder sb = new StringBuilder();
+        appendJson(sb, value);
+        return sb.toString();
+    }
+
+    private static void appendJson(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                appendString(sb, String.valueOf(entry.getKey()));
+                sb.append(':');
+                appendJson(sb, entry.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Collection) {
+            sb.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                appendJson(sb, element);
+            }
+            sb.append(']');
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            sb.append(Double.isFinite(d) ? String.valueOf(d) : "null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            appendString(sb, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Prometheus 텍스트 형식(0.0.4) 작성기
+     */
+    static class PrometheusWriter {
+        private final StringBuilder sb = new StringBuilder();
+
+        void type(String name, String type) {
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+
+        void sample(String name, String labels, double value) {
+            sb.append(name);
+            if (labels != null) {
+                sb.append('{').append(labels).append('}');
+            }
+            sb.append(' ');
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                sb.append((long) value);
+            } else {
+                sb.append(value);
+            }
+            sb.append('\n');
+        }
+
+        static String escape(String labelValue) {
+            return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
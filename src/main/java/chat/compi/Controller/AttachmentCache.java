@@ -0,0 +1,237 @@
+// AttachmentCache.java
+package chat.compi.Controller;
+
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 클라이언트 측 첨부파일 디스크 캐시.
+ * 파일은 내용 해시(SHA-256) 이름으로 client_cache/attachments 아래에 저장되고,
+ * 서버 경로 -> 해시 인덱스를 함께 보관하여 다운로드 요청 시 ifNoneMatch로 해시를 보낼 수 있게 한다.
+ * 전체 크기가 예산을 넘으면 가장 오래 사용하지 않은 파일부터 삭제한다 (LRU).
+ *
+ * 같은 디렉터리를 클라이언트 여러 개(다른 프로세스 포함)가 함께 쓸 수 있으므로, 인덱스를 저장할 때는
+ * 파일 잠금(index.lock)을 잡고 디스크의 인덱스를 다시 읽어 합친 뒤 임시 파일에 써서 바꿔 끼운다.
+ */
+public class AttachmentCache {
+    private static final Logger log = Log.get(AttachmentCache.class);
+
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024; // 256MB
+    private static final String INDEX_FILE_NAME = "index.properties";
+    private static final String LOCK_FILE_NAME = "index.lock";
+    private static final Object INDEX_WRITE_LOCK = new Object(); // 같은 JVM 안의 캐시끼리 (파일 잠금은 프로세스 단위)
+
+    private final File cacheDir;
+    private final File indexFile;
+    private final long maxBytes;
+    private final Properties pathIndex = new Properties(); // 서버 파일 경로 -> 내용 해시
+    private final Set<String> invalidatedPaths = new HashSet<>(); // 마지막 저장 뒤 지운 경로 (합칠 때 되살리지 않도록)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true); // 해시 -> 크기 (접근 순서)
+    private long totalBytes;
+
+    public AttachmentCache(File cacheDir, long maxBytes) {
+        this.cacheDir = cacheDir;
+        this.indexFile = new File(cacheDir, INDEX_FILE_NAME);
+        this.maxBytes = maxBytes;
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+        load();
+    }
+
+    /**
+     * 기본 위치(client_cache/attachments)와 예산(-Dcompi.attachmentCache.maxBytes, 기본 256MB)으로 캐시를 만듭니다.
+     */
+    public static AttachmentCache createDefault() {
+        long maxBytes = Long.getLong("compi.attachmentCache.maxBytes", DEFAULT_MAX_BYTES);
+        return new AttachmentCache(new File("client_cache", "attachments"), maxBytes);
+    }
+
+    /**
+     * 서버 경로에 해당하는 캐시된 내용 해시를 반환합니다.
+     * @param filePath 서버 파일 경로
+     * @return 캐시에 파일이 있으면 해시, 없으면 null
+     */
+    public synchronized String getHash(String filePath) {
+        String hash = pathIndex.getProperty(filePath);
+        return hash != null && entries.containsKey(hash) ? hash : null;
+    }
+
+    /**
+     * 캐시에서 파일 내용을 읽고 최근 사용으로 표시합니다.
+     * @param hash 내용 해시
+     * @return 파일 바이트, 캐시에 없으면 null
+     */
+    public synchronized byte[] get(String hash) {
+        if (hash == null || entries.get(hash) == null) { // get()으로 접근 순서 갱신
+            return null;
+        }
+        File file = new File(cacheDir, hash);
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            file.setLastModified(System.currentTimeMillis()); // 재시작 후 LRU 순서 복원용
+            return bytes;
+        } catch (IOException e) {
+            log.error("Error reading cached attachment {}: {}", hash, e.getMessage());
+            remove(hash);
+            return null;
+        }
+    }
+
+    /**
+     * 다운로드한 파일을 캐시에 저장합니다. 서버가 알려준 해시와 실제 내용이 다르면 저장하지 않습니다.
+     * @param filePath 서버 파일 경로
+     * @param hash 서버가 알려준 내용 해시
+     * @param bytes 파일 내용
+     */
+    public synchronized void put(String filePath, String hash, byte[] bytes) {
+        if (filePath == null || hash == null || bytes == null || bytes.length > maxBytes) {
+            return;
+        }
+        if (!hash.equals(AttachmentStorage.contentHash(bytes))) {
+            log.warn("Attachment hash mismatch for {}. Not caching.", filePath);
+            return;
+        }
+        if (!entries.containsKey(hash)) {
+            try {
+                Files.write(new File(cacheDir, hash).toPath(), bytes);
+            } catch (IOException e) {
+                log.error("Error writing cached attachment {}: {}", hash, e.getMessage());
+                return;
+            }
+            entries.put(hash, (long) bytes.length);
+            totalBytes += bytes.length;
+            evictIfNeeded();
+        }
+        pathIndex.setProperty(filePath, hash);
+        invalidatedPaths.remove(filePath);
+        saveIndex();
+    }
+
+    /**
+     * 서버 경로의 인덱스 항목을 지웁니다. 다음 다운로드는 조건 없이 요청됩니다.
+     */
+    public synchronized void invalidate(String filePath) {
+        if (pathIndex.remove(filePath) != null) {
+            invalidatedPaths.add(filePath);
+            saveIndex();
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            new File(cacheDir, eldest.getKey()).delete();
+        }
+        pathIndex.values().removeIf(hash -> !entries.containsKey(hash));
+    }
+
+    private void remove(String hash) {
+        Long size = entries.remove(hash);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        new File(cacheDir, hash).delete();
+        pathIndex.values().removeIf(hash::equals);
+        saveIndex();
+    }
+
+    private void load() {
+        if (indexFile.exists()) {
+            try (InputStream input = new FileInputStream(indexFile)) {
+                pathIndex.load(input);
+            } catch (IOException e) {
+                log.error("Error loading attachment cache index: {}", e.getMessage());
+            }
+        }
+        File[] files = cacheDir.listFiles(file -> file.isFile() && isCacheFileName(file.getName()));
+        if (files != null) {
+            // 마지막 사용 시각 순으로 넣어 LRU 순서를 복원
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (File file : files) {
+                entries.put(file.getName(), file.length());
+                totalBytes += file.length();
+            }
+        }
+        evictIfNeeded();
+    }
+
+    private void saveIndex() {
+        synchronized (INDEX_WRITE_LOCK) {
+            try (FileChannel lockChannel = FileChannel.open(new File(cacheDir, LOCK_FILE_NAME).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    mergeIndexFromDisk();
+                    File tempFile = new File(cacheDir, INDEX_FILE_NAME + ".tmp");
+                    try (OutputStream output = new FileOutputStream(tempFile)) {
+                        pathIndex.store(output, "server file path -> content hash");
+                    }
+                    Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    invalidatedPaths.clear();
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                log.error("Error saving attachment cache index: {}", e.getMessage());
+            }
+        }
+    }
+
+    // 다른 클라이언트가 저장한 항목 중 파일이 남아 있는 것을 가져옴 (이 캐시에서 지운 경로는 제외)
+    private void mergeIndexFromDisk() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        Properties onDisk = new Properties();
+        try (InputStream input = new FileInputStream(indexFile)) {
+            onDisk.load(input);
+        } catch (IOException e) {
+            log.error("Error reading attachment cache index for merge: {}", e.getMessage());
+            return;
+        }
+        for (String filePath : onDisk.stringPropertyNames()) {
+            String hash = onDisk.getProperty(filePath);
+            if (pathIndex.containsKey(filePath) || invalidatedPaths.contains(filePath) || !isCacheFileName(hash)) {
+                continue;
+            }
+            File file = new File(cacheDir, hash);
+            if (!file.isFile()) {
+                continue;
+            }
+            pathIndex.setProperty(filePath, hash);
+            if (!entries.containsKey(hash)) {
+                entries.put(hash, file.length());
+                totalBytes += file.length();
+            }
+        }
+    }
+
+    // 캐시 파일은 내용 해시(16진수) 이름 (인덱스, 잠금, 임시 파일 제외)
+    private static boolean isCacheFileName(String name) {
+        return name != null && name.matches("[0-9a-f]{64}");
+    }
+}
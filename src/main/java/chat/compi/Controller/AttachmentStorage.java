@@ -0,0 +1,380 @@
+// AttachmentStorage.java
+package chat.compi.Controller;
+
+import chat.compi.DB.MessageStore;
+import chat.compi.Entity.Message;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.CacheStats;
+import chat.compi.Metrics.MetricsRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 서버에 저장되는 첨부파일을 관리한다.
+ * - 업로드 파일은 server_uploads/xx/yy/내용 해시/파일명 형태로 분산 저장하여 한 디렉터리에 파일이 몰리지 않게 한다.
+ *   경로에 내용 해시가 들어가므로 이름이 같은 다른 파일이 서로를 덮어쓰지 않고, 같은 파일을 다시 올리면 한 벌만 저장한다.
+ * - 일정 기간이 지난 파일은 gzip으로 압축하여 server_uploads/cold 아래(콜드 티어)로 옮기고, 다운로드 시 투명하게 풀어준다.
+ * - 어떤 메시지도 참조하지 않는 파일(고아 파일)은 유예 시간이 지나면 삭제한다. 참조 여부는 사용량 집계(메시지의 파일 경로)로 판단한다.
+ * - 사용자별/방별 디스크 사용량을 메모리에 집계하여 디렉터리 탐색 없이 조회할 수 있게 한다.
+ * - 조건부 다운로드(ifNoneMatch)를 위해 파일 내용 해시(SHA-256)를 캐시한다.
+ */
+public class AttachmentStorage {
+    private static final Logger log = Log.get(AttachmentStorage.class);
+
+    private static final long COLD_AFTER_DAYS = Long.getLong("compi.storage.coldAfterDays", 30);
+    private static final long ORPHAN_GRACE_MINUTES = Long.getLong("compi.storage.orphanGraceMinutes", 60);
+    private static final long MAINTENANCE_INTERVAL_MINUTES = Long.getLong("compi.storage.maintenanceIntervalMinutes", 60);
+    private static final String COLD_DIR_NAME = "cold";
+    private static final String THUMBNAIL_DIR_NAME = "thumbnails";
+    private static final String COLD_SUFFIX = ".gz";
+    private static final int PATH_HASH_CHARS = 16; // 경로에 넣는 내용 해시 길이 (64비트)
+
+    private final File uploadDir;
+    private final File coldDir;
+    private final MessageStore messageStore;
+    private final ScheduledExecutorService maintenanceExecutor;
+    private final ConcurrentHashMap<String, HashEntry> hashCache = new ConcurrentHashMap<>();
+    private final CacheStats hashCacheStats = MetricsRegistry.get().cache("attachment.hash");
+
+    // 사용량 집계: 파일 경로 -> 소유 정보, 사용자/방 ID -> 디스크 바이트
+    private final ConcurrentHashMap<String, AttachmentRecord> records = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, LongAdder> userUsage = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, LongAdder> roomUsage = new ConcurrentHashMap<>();
+    private volatile boolean usageLoaded; // 집계를 다 불러오기 전에는 고아 파일을 판단할 수 없음
+
+    public AttachmentStorage(File uploadDir, MessageStore messageStore) {
+        this.uploadDir = uploadDir;
+        this.coldDir = new File(uploadDir, COLD_DIR_NAME);
+        this.messageStore = messageStore;
+        this.maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "attachment-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 사용량 집계를 불러오고 주기적인 유지보수 작업(고아 파일 정리, 콜드 티어 이동)을 시작합니다.
+     */
+    public void start() {
+        maintenanceExecutor.execute(this::loadUsage);
+        maintenanceExecutor.scheduleWithFixedDelay(this::runMaintenance,
+                MAINTENANCE_INTERVAL_MINUTES, MAINTENANCE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        log.info("Attachment maintenance scheduled every {} minutes (cold after {} days, orphan grace {} minutes).",
+                MAINTENANCE_INTERVAL_MINUTES, COLD_AFTER_DAYS, ORPHAN_GRACE_MINUTES);
+    }
+
+    public void shutdown() {
+        maintenanceExecutor.shutdownNow();
+    }
+
+    /**
+     * 업로드된 파일을 분산 디렉터리에 저장합니다.
+     * @param fileName 클라이언트가 보낸 파일 이름 (경로 부분은 무시)
+     * @param fileBytes 파일 내용
+     * @return 메시지 content로 저장할 서버 파일 경로 (예: server_uploads/3f/a1/3fa1c09d5e6b7a28/photo.png)
+     */
+    public String store(String fileName, byte[] fileBytes) throws IOException {
+        String safeName = new File(fileName).getName();
+        String hash = contentHash(fileBytes).substring(0, PATH_HASH_CHARS);
+        String shard = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+        File target = new File(new File(uploadDir, shard), safeName);
+        String storagePath = toStoragePath(target.toPath());
+        if (target.exists() || coldFileFor(storagePath).exists()) {
+            return storagePath; // 같은 이름, 같은 내용의 파일이 이미 있음
+        }
+        target.getParentFile().mkdirs();
+        // 같은 파일을 동시에 올려도 읽는 쪽이 쓰다 만 파일을 보지 않도록 임시 파일에 쓴 뒤 옮김
+        Path tempFile = Files.createTempFile(target.getParentFile().toPath(), safeName, ".tmp");
+        try {
+            Files.write(tempFile, fileBytes);
+            Files.move(tempFile, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return storagePath;
+    }
+
+    /**
+     * 파일 메시지가 저장된 뒤 사용량 집계에 반영합니다.
+     */
+    public void recordUpload(String filePath, int roomId, int userId, long sizeBytes) {
+        addRecord(filePath, new AttachmentRecord(roomId, userId, sizeBytes));
+    }
+
+    /**
+     * 경로가 첨부파일 저장소 안의 파일인지 확인합니다. (경로 조작 방지)
+     */
+    public boolean isManagedPath(String filePath) {
+        if (filePath == null) {
+            return false;
+        }
+        Path root = uploadDir.toPath().toAbsolutePath().normalize();
+        Path path = new File(filePath).toPath().toAbsolutePath().normalize();
+        return path.startsWith(root) && !path.startsWith(root.resolve(COLD_DIR_NAME))
+                && !path.startsWith(root.resolve(THUMBNAIL_DIR_NAME));
+    }
+
+    /**
+     * 첨부파일 내용을 읽습니다. 콜드 티어로 옮겨진 파일은 압축을 풀어 반환합니다.
+     * @return 파일 바이트, 없으면 null
+     */
+    public byte[] read(String filePath) throws IOException {
+        File hotFile = new File(filePath);
+        if (hotFile.exists()) {
+            return Files.readAllBytes(hotFile.toPath());
+        }
+        File coldFile = coldFileFor(filePath);
+        if (coldFile.exists()) {
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(coldFile.toPath()))) {
+                return input.readAllBytes();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 첨부파일의 내용 해시를 반환합니다. 파일 크기나 수정 시각이 바뀌면 다시 계산합니다.
+     * @param filePath 서버 파일 경로
+     * @return 16진수 SHA-256 문자열, 파일이 없으면 null
+     */
+    public String contentHash(String filePath) throws IOException {
+        File hotFile = new File(filePath);
+        boolean cold = !hotFile.exists();
+        File file = cold ? coldFileFor(filePath) : hotFile;
+        if (!file.exists()) {
+            return null;
+        }
+        long length = file.length();
+        long lastModified = file.lastModified();
+        HashEntry cached = hashCache.get(file.getPath());
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            hashCacheStats.hit();
+            return cached.hash;
+        }
+        hashCacheStats.miss();
+        String hash;
+        try (InputStream raw = Files.newInputStream(file.toPath());
+             InputStream input = cold ? new GZIPInputStream(raw) : raw) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            hash = HexFormat.of().formatHex(digest.digest());
+        }
+        hashCache.put(file.getPath(), new HashEntry(hash, length, lastModified));
+        return hash;
+    }
+
+    /**
+     * 메모리에 있는 바이트의 내용 해시를 계산합니다.
+     */
+    public static String contentHash(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    /**
+     * 사용자가 업로드한 첨부파일이 차지하는 디스크 바이트 수 (콜드 티어는 압축 후 크기)
+     */
+    public long getUserUsage(int userId) {
+        LongAdder usage = userUsage.get(userId);
+        return usage != null ? usage.sum() : 0;
+    }
+
+    /**
+     * 채팅방의 첨부파일이 차지하는 디스크 바이트 수 (콜드 티어는 압축 후 크기)
+     */
+    public long getRoomUsage(int roomId) {
+        LongAdder usage = roomUsage.get(roomId);
+        return usage != null ? usage.sum() : 0;
+    }
+
+    /**
+     * 유지보수 작업을 한 번 실행합니다. 예외가 나도 다음 주기는 계속 실행되도록 모두 잡습니다.
+     */
+    void runMaintenance() {
+        try {
+            if (!usageLoaded) {
+                loadUsage(); // 시작할 때 불러오지 못했으면 다시 시도
+            }
+            if (usageLoaded) {
+                sweepOrphans();
+            }
+            moveColdFiles();
+        } catch (RuntimeException e) {
+            log.error("Attachment maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    // 서버 시작 시 DB의 파일 메시지 목록과 파일 크기(stat)로 사용량을 계산 (디렉터리 탐색 없음)
+    // 이후 업로드는 recordUpload로 더해지므로, 파일 메시지 목록은 이때 한 번만 읽음
+    private void loadUsage() {
+        try {
+            for (Message message : messageStore.getAttachmentMessages()) {
+                File file = new File(message.getContent());
+                if (!file.exists()) {
+                    file = coldFileFor(message.getContent());
+                }
+                if (file.exists()) {
+                    addRecord(message.getContent(), new AttachmentRecord(message.getRoomId(), message.getSenderId(), file.length()));
+                }
+            }
+            usageLoaded = true;
+            log.info("Attachment usage loaded: {} files.", records.size());
+        } catch (RuntimeException e) {
+            log.error("Error loading attachment usage: {}", e.getMessage());
+        }
+    }
+
+    // 디렉터리를 한 번 훑으면서 집계에 없는 (어떤 메시지도 참조하지 않는) 파일을 바로 지움
+    private void sweepOrphans() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ORPHAN_GRACE_MINUTES);
+        Path root = uploadDir.toPath();
+        Path thumbnailRoot = root.resolve(THUMBNAIL_DIR_NAME);
+        Path coldRoot = coldDir.toPath();
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> paths = files.filter(path -> !path.startsWith(thumbnailRoot)).filter(Files::isRegularFile).iterator();
+            while (paths.hasNext()) {
+                Path path = paths.next();
+                String storagePath = path.startsWith(coldRoot) ? hotPathForCold(path) : toStoragePath(path);
+                // 업로드 직후 메시지 저장 전의 파일을 지우지 않도록 유예 시간을 둠
+                if (records.containsKey(storagePath) || path.toFile().lastModified() >= cutoff) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(path);
+                    deleted++;
+                } catch (IOException e) {
+                    log.error("Error deleting orphaned attachment {}: {}", path, e.getMessage());
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error scanning attachments for orphans: {}", e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} orphaned attachments.", deleted);
+        }
+    }
+
+    private void moveColdFiles() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(COLD_AFTER_DAYS);
+        int moved = 0;
+        for (String filePath : records.keySet()) {
+            File hotFile = new File(filePath);
+            if (!hotFile.exists() || hotFile.lastModified() >= cutoff) {
+                continue;
+            }
+            File coldFile = coldFileFor(filePath);
+            File tempFile = new File(coldFile.getPath() + ".tmp");
+            try {
+                coldFile.getParentFile().mkdirs();
+                try (InputStream input = Files.newInputStream(hotFile.toPath());
+                     OutputStream output = new GZIPOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+                    input.transferTo(output);
+                }
+                // 원본의 수정 시각을 유지하여 고아 파일 유예 판단에 사용
+                tempFile.setLastModified(hotFile.lastModified());
+                Files.move(tempFile.toPath(), coldFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                long hotSize = hotFile.length();
+                Files.delete(hotFile.toPath());
+                AttachmentRecord record = records.get(filePath);
+                if (record != null) {
+                    adjustUsage(record, coldFile.length() - hotSize);
+                    record.sizeBytes = coldFile.length();
+                }
+                moved++;
+            } catch (IOException e) {
+                log.error("Error moving attachment to cold tier {}: {}", filePath, e.getMessage());
+                tempFile.delete();
+            }
+        }
+        if (moved > 0) {
+            log.info("Moved {} attachments to cold tier.", moved);
+        }
+    }
+
+    private void addRecord(String filePath, AttachmentRecord record) {
+        // 같은 경로가 이미 집계되어 있으면 (같은 이름 재업로드, 시작 시 로드와 업로드 경합) 중복 집계하지 않음
+        if (records.putIfAbsent(filePath, record) == null) {
+            adjustUsage(record, record.sizeBytes);
+        }
+    }
+
+    private void adjustUsage(AttachmentRecord record, long deltaBytes) {
+        userUsage.computeIfAbsent(record.userId, id -> new LongAdder()).add(deltaBytes);
+        roomUsage.computeIfAbsent(record.roomId, id -> new LongAdder()).add(deltaBytes);
+    }
+
+    private File coldFileFor(String filePath) {
+        Path relative = uploadDir.toPath().relativize(new File(filePath).toPath());
+        return new File(coldDir, relative + COLD_SUFFIX);
+    }
+
+    private String hotPathForCold(Path coldPath) {
+        String relative = coldDir.toPath().relativize(coldPath).toString();
+        if (relative.endsWith(COLD_SUFFIX)) {
+            relative = relative.substring(0, relative.length() - COLD_SUFFIX.length());
+        }
+        return toStoragePath(uploadDir.toPath().resolve(relative));
+    }
+
+    // 메시지 content에 저장되는 형식과 같도록 '/' 구분자로 통일
+    private String toStoragePath(Path path) {
+        return path.toString().replace(File.separatorChar, '/');
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // 모든 JDK에 포함되어 있음
+        }
+    }
+
+    private static class HashEntry {
+        private final String hash;
+        private final long length;
+        private final long lastModified;
+
+        HashEntry(String hash, long length, long lastModified) {
+            this.hash = hash;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static class AttachmentRecord {
+        private final int roomId;
+        private final int userId;
+        private volatile long sizeBytes;
+
+        AttachmentRecord(int roomId, int userId, long sizeBytes) {
+            this.roomId = roomId;
+            this.userId = userId;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+}
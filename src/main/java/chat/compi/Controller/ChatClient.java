@@ -5,6 +5,8 @@ import chat.compi.Dto.ClientRequest;
 import chat.compi.Dto.ServerResponse;
 import chat.compi.Entity.MessageType;
 import chat.compi.Entity.User;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -12,56 +14,90 @@ import java.io.ObjectOutputStream;
 import java.net.Socket;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
 public class ChatClient {
+    private static final Logger log = Log.get(ChatClient.class);
+
     private static final String SERVER_IP = "localhost";
     private static final int SERVER_PORT = 12345;
+    // 읽음 처리를 모으는 시간. 사람이 느끼지 못할 만큼 짧게 두되 방을 열 때 들어오는 메시지는 한 번에 묶임
+    private static final long READ_BATCH_MILLIS = Long.getLong("compi.client.readBatchMillis", 200);
+
+    private final String serverIp;
+    private final int serverPort;
+    private final ThreadFactory receiverThreadFactory;
+    // 요청 쓰기 잠금. synchronized와 달리 가상 스레드가 소켓 쓰기를 기다리는 동안 캐리어 스레드를 붙잡지 않음
+    private final ReentrantLock sendLock = new ReentrantLock();
 
     private Socket socket;
     private ObjectOutputStream out;
     private ObjectInputStream in;
     private User currentUser;
+    private int systemRoomId = -1; // 로그인한 사용자의 시스템 채팅방 (BOOTSTRAP으로 받음)
+    private AttachmentCache attachmentCache; // 첫 다운로드 때 생성 (파일을 받지 않는 봇 클라이언트는 만들지 않음)
+    private MessageCache messageCache; // 처음 방을 열 때 생성 (로그인한 사용자별)
+    private final ReadTracker readTracker = new ReadTracker(this::markMessagesAsRead, READ_BATCH_MILLIS);
 
-    private final Map<ServerResponse.ResponseType, Consumer<ServerResponse>> responseListeners = new HashMap<>();
+    private final ClientEventBus eventBus = new ClientEventBus(); // 응답 종류별 구독자와 전달 방식
 
     // 메시지 큐 (비동기 처리를 위해)
-    private final BlockingQueue<ServerResponse> responseQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Received> responseQueue = new LinkedBlockingQueue<>();
 
     public ChatClient() {
         // 응답 리스너 초기화 (각 GUI 클래스에서 setResponseListener를 통해 등록)
+        this(SERVER_IP, SERVER_PORT, Thread::new);
+    }
+
+    /**
+     * 접속할 서버와 수신 스레드를 지정합니다. (부하 테스트 봇처럼 GUI 없이 여러 클라이언트를 띄울 때 사용)
+     * @param serverIp 서버 주소
+     * @param serverPort 서버 포트
+     * @param receiverThreadFactory 서버 응답 수신 스레드를 만들 팩토리 (예: 가상 스레드)
+     */
+    public ChatClient(String serverIp, int serverPort, ThreadFactory receiverThreadFactory) {
+        this.serverIp = serverIp;
+        this.serverPort = serverPort;
+        this.receiverThreadFactory = receiverThreadFactory;
     }
 
     // 서버 연결
     public boolean connect() {
         try {
-            socket = new Socket(SERVER_IP, SERVER_PORT);
+            socket = new Socket(serverIp, serverPort);
+            socket.setTcpNoDelay(true); // 요청은 작은 객체 하나씩이라 Nagle 지연(수십 ms)을 피함
             out = new ObjectOutputStream(socket.getOutputStream());
             in = new ObjectInputStream(socket.getInputStream());
-            System.out.println("Connected to chat server.");
+            log.info("Connected to chat server.");
 
             // 서버 응답을 지속적으로 수신하는 스레드 시작
-            new Thread(this::receiveResponses).start();
+            receiverThreadFactory.newThread(this::receiveResponses).start();
             return true;
         } catch (IOException e) {
-            System.err.println("Failed to connect to server: " + e.getMessage());
+            log.error("Failed to connect to server: {}", e.getMessage());
             return false;
         }
     }
 
     // 서버로 요청 전송
-    public synchronized void sendRequest(ClientRequest request) {
+    public void sendRequest(ClientRequest request) {
+        sendLock.lock();
         try {
             out.writeObject(request);
             out.flush();
         } catch (IOException e) {
-            System.err.println("Error sending request to server: " + e.getMessage());
+            log.error("Error sending request to server: {}", e.getMessage());
             disconnect(); // 연결 끊김 처리 추가
+        } finally {
+            sendLock.unlock();
         }
     }
 
@@ -70,11 +106,15 @@ public class ChatClient {
         try {
             while (socket.isConnected()) {
                 ServerResponse response = (ServerResponse) in.readObject();
-                responseQueue.put(response); // 'put' 메서드 사용
-                System.out.println("Received response: " + response.getType());
+                responseQueue.put(new Received(response, System.nanoTime())); // 받은 시각부터 대기 시간을 잼
+                log.debug("Received response: {}", response.getType());
             }
         } catch (IOException | ClassNotFoundException | InterruptedException e) {
-            System.err.println("Error receiving response from server: " + e.getMessage());
+            if (socket.isClosed()) {
+                log.debug("Response receiver stopped: {}", e.getMessage()); // disconnect()로 직접 닫은 경우
+            } else {
+                log.error("Error receiving response from server: {}", e.getMessage());
+            }
             disconnect();
         }
     }
@@ -83,29 +123,29 @@ public class ChatClient {
     public void processResponses() {
         while (true) {
             try {
-                ServerResponse response = responseQueue.take(); // 'take' 메서드 사용
-                Consumer<ServerResponse> listener = responseListeners.get(response.getType());
-                if (listener != null) {
-                    listener.accept(response);
-                } else {
-                    System.out.println("No listener for response type: " + response.getType());
-                }
+                Received received = responseQueue.take(); // 'take' 메서드 사용
+                eventBus.publish(received.response, received.receivedNanos);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                System.err.println("Response processing interrupted: " + e.getMessage());
+                log.error("Response processing interrupted: {}", e.getMessage());
                 break;
             }
         }
     }
 
-    // 응답 리스너 등록
+    // 응답 리스너 등록 (이 종류의 기존 리스너는 모두 이 리스너로 바뀜, 창마다 리스너를 넘겨받는 GUI용)
     public void setResponseListener(ServerResponse.ResponseType type, Consumer<ServerResponse> listener) {
-        responseListeners.put(type, listener);
+        eventBus.replace(type, listener);
+    }
+
+    // 기존 리스너는 두고 리스너를 추가 (해지 핸들을 닫으면 제거됨)
+    public ClientEventBus.Subscription subscribe(ServerResponse.ResponseType type, Consumer<ServerResponse> listener) {
+        return eventBus.subscribe(type, listener);
     }
 
-    // 새로운 메서드 추가: 특정 ResponseType에 등록된 리스너를 가져오는 메서드
-    public Consumer<ServerResponse> getResponseListener(ServerResponse.ResponseType type) {
-        return responseListeners.get(type);
+    // 응답 종류별 전달 방식 지정과 대기 시간 통계
+    public ClientEventBus getEventBus() {
+        return eventBus;
     }
 
     // 현재 로그인 사용자 설정
@@ -118,15 +158,31 @@ public class ChatClient {
         return currentUser;
     }
 
+    public void setSystemRoomId(int systemRoomId) {
+        this.systemRoomId = systemRoomId;
+    }
+
+    // 시스템 채팅방 ID (없으면 -1)
+    public int getSystemRoomId() {
+        return systemRoomId;
+    }
+
+    // 서버와 연결되어 있는지 (연결 후 끊기지 않았는지)
+    public boolean isConnected() {
+        return socket != null && socket.isConnected() && !socket.isClosed();
+    }
+
     // 연결 종료
     public void disconnect() {
+        readTracker.flush(); // 아직 모으는 중인 읽음 처리를 먼저 보냄
+        eventBus.shutdown();
         try {
             if (socket != null && !socket.isClosed()) {
                 socket.close();
-                System.out.println("Disconnected from chat server.");
+                log.info("Disconnected from chat server.");
             }
         } catch (IOException e) {
-            System.err.println("Error disconnecting from server: " + e.getMessage());
+            log.error("Error disconnecting from server: {}", e.getMessage());
         }
     }
 
@@ -179,6 +235,30 @@ public class ChatClient {
         sendRequest(new ClientRequest(ClientRequest.RequestType.GET_MESSAGES_IN_ROOM, data));
     }
 
+    /**
+     * 방별 순번이 sinceSeq보다 큰 메시지만 요청합니다. (누락 메시지 보충)
+     */
+    public void getMessagesInRoomSince(int roomId, long sinceSeq) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", roomId);
+        data.put("sinceSeq", sinceSeq);
+        sendRequest(new ClientRequest(ClientRequest.RequestType.GET_MESSAGES_IN_ROOM, data));
+    }
+
+    /**
+     * 메시지 캐시 동기화 요청. 캐시의 마지막 순번 뒤의 새 메시지와, syncVersion 뒤에 바뀐 이전 메시지만 받습니다.
+     * 서버가 그 버전의 변경 기록을 더 이상 갖고 있지 않으면 전체 목록이 옵니다.
+     * @param sinceSeq 캐시에 있는 마지막 방별 순번 (캐시가 비어 있으면 0)
+     * @param syncVersion 마지막으로 받은 동기화 버전 (받은 적이 없으면 0)
+     */
+    public void syncMessagesInRoom(int roomId, long sinceSeq, long syncVersion) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", roomId);
+        data.put("sinceSeq", sinceSeq);
+        data.put("syncVersion", syncVersion);
+        sendRequest(new ClientRequest(ClientRequest.RequestType.GET_MESSAGES_IN_ROOM, data));
+    }
+
     public void sendMessage(int roomId, String content, MessageType messageType, boolean isNotice) {
         Map<String, Object> data = new HashMap<>();
         data.put("roomId", roomId);
@@ -188,12 +268,29 @@ public class ChatClient {
         sendRequest(new ClientRequest(ClientRequest.RequestType.SEND_MESSAGE, data));
     }
 
-    public void markMessageAsRead(int messageId) {
+    public void markMessageAsRead(long messageId) {
         Map<String, Object> data = new HashMap<>();
         data.put("messageId", messageId);
         sendRequest(new ClientRequest(ClientRequest.RequestType.READ_MESSAGE, data));
     }
 
+    /**
+     * 한 방의 여러 메시지를 요청 하나로 읽음 처리합니다. 서버는 한 문장으로 기록하고 읽음 정보 갱신을 한 번만 보냅니다.
+     */
+    public void markMessagesAsRead(int roomId, List<Long> messageIds) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", roomId);
+        data.put("messageIds", new ArrayList<>(messageIds));
+        sendRequest(new ClientRequest(ClientRequest.RequestType.MARK_READ_BATCH, data));
+    }
+
+    /**
+     * 화면에 보인 메시지를 읽음으로 표시합니다. 짧은 시간 모았다가 방별로 markMessagesAsRead 한 번으로 보냅니다.
+     */
+    public void queueMessageRead(int roomId, long messageId) {
+        readTracker.markRead(roomId, messageId);
+    }
+
     public void inviteUserToRoom(int roomId, int userIdToInvite) {
         Map<String, Object> data = new HashMap<>();
         data.put("roomId", roomId);
@@ -224,9 +321,40 @@ public class ChatClient {
     public void downloadFile(String filePath) {
         Map<String, Object> data = new HashMap<>();
         data.put("filePath", filePath);
+        String cachedHash = getAttachmentCache().getHash(filePath);
+        if (cachedHash != null) {
+            data.put("ifNoneMatch", cachedHash); // 캐시와 같으면 서버는 FILE_NOT_MODIFIED만 응답
+        }
         sendRequest(new ClientRequest(ClientRequest.RequestType.DOWNLOAD_FILE, data));
     }
 
+    public void getStorageUsage(int roomId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", roomId);
+        sendRequest(new ClientRequest(ClientRequest.RequestType.GET_STORAGE_USAGE, data));
+    }
+
+    public synchronized AttachmentCache getAttachmentCache() {
+        if (attachmentCache == null) {
+            attachmentCache = AttachmentCache.createDefault();
+        }
+        return attachmentCache;
+    }
+
+    public synchronized MessageCache getMessageCache() {
+        if (messageCache == null) {
+            messageCache = MessageCache.createDefault(serverIp, serverPort, currentUser.getUserId());
+        }
+        return messageCache;
+    }
+
+    public void downloadThumbnail(int roomId, String thumbnailId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", roomId);
+        data.put("thumbnailId", thumbnailId);
+        sendRequest(new ClientRequest(ClientRequest.RequestType.DOWNLOAD_THUMBNAIL, data));
+    }
+
     public void setAwayStatus(boolean isAway) {
         Map<String, Object> data = new HashMap<>();
         data.put("isAway", isAway);
@@ -270,7 +398,7 @@ public class ChatClient {
     }
 
     // 새로운 markMessageAsNotice 헬퍼 메서드 (expiryTime 포함)
-    public void markMessageAsNotice(int messageId, boolean isNotice, LocalDateTime expiryTime) {
+    public void markMessageAsNotice(long messageId, boolean isNotice, LocalDateTime expiryTime) {
         Map<String, Object> data = new HashMap<>();
         data.put("messageId", messageId);
         data.put("isNotice", isNotice);
@@ -290,4 +418,15 @@ public class ChatClient {
         data.put("eventId", eventId);
         sendRequest(new ClientRequest(ClientRequest.RequestType.DELETE_SINGLE_TIMELINE_EVENT, data));
     }
-}
\ No newline at end of file
+
+    // 받은 응답과 받은 시각
+    private static final class Received {
+        private final ServerResponse response;
+        private final long receivedNanos;
+
+        Received(ServerResponse response, long receivedNanos) {
+            this.response = response;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+}
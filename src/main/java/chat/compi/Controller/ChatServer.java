@@ -1,12 +1,21 @@
 // ChatServer.java
 package chat.compi.Controller;
 
-import chat.compi.DB.DatabaseConnection;
+import chat.compi.DB.QueryStats;
 import chat.compi.Entity.*;
 import chat.compi.Dto.ServerResponse;
 import chat.compi.DB.ChatRoomDAO;
-import chat.compi.DB.MessageDAO;
+import chat.compi.DB.MessageStore;
+import chat.compi.DB.MessageStores;
+import chat.compi.DB.SchemaMigrator;
+import chat.compi.DB.MessagePersistenceQueue;
 import chat.compi.DB.UserDAO;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.BroadcastEvent;
+import chat.compi.Metrics.FlightRecording;
+import chat.compi.Metrics.LatencyHistogram;
+import chat.compi.Metrics.MetricsRegistry;
 
 import java.io.File;
 import java.io.IOException;
@@ -21,32 +30,48 @@ import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public class ChatServer {
+    private static final Logger log = Log.get(ChatServer.class);
+
     private static final int PORT = 12345;
     private ServerSocket serverSocket;
     private ConcurrentHashMap<Integer, ClientHandler> connectedClients;
     private UserDAO userDAO;
-    private MessageDAO messageDAO;
+    private MessageStore messageStore;
+    private MessagePersistenceQueue messagePersistenceQueue;
+    private final MessageChangeLog messageChangeLog = new MessageChangeLog(); // 클라이언트 캐시의 변경분 동기화용
     private ChatRoomDAO chatRoomDAO;
-    private ScheduledExecutorService scheduler;
+    private ScheduledThreadPoolExecutor scheduler;
+    private ThumbnailService thumbnailService;
+    private AttachmentStorage attachmentStorage;
+    private AdminServer adminServer;
 
     private static final String SYSTEM_USERNAME = "system_bot";
     private int systemUserId;
 
     public ChatServer() {
+        // 다른 DAO를 쓰기 전에 스키마를 최신 버전으로 맞춤
+        SchemaMigrator.migrateIfEnabled();
+
         connectedClients = new ConcurrentHashMap<>();
         userDAO = new UserDAO();
-        messageDAO = new MessageDAO();
+        messageStore = MessageStores.getDefault();
         chatRoomDAO = new ChatRoomDAO();
-        scheduler = Executors.newScheduledThreadPool(1);
+        scheduler = new ScheduledThreadPoolExecutor(1);
+
+        // 메시지는 쓰기 지연 큐를 통해 배치로 저장 (ID는 애플리케이션에서 할당)
+        messagePersistenceQueue = MessagePersistenceQueue.createDefault(messageStore);
+        messagePersistenceQueue.start();
 
         File uploadDir = new File("server_uploads");
         if (!uploadDir.exists()) {
             uploadDir.mkdirs();
         }
+        thumbnailService = new ThumbnailService(uploadDir, this::notifyThumbnailReady);
+        attachmentStorage = new AttachmentStorage(uploadDir, messageStore);
 
         ensureSystemUserExists();
     }
@@ -54,19 +79,19 @@ public class ChatServer {
     private void ensureSystemUserExists() {
         User systemUser = userDAO.getUserByUsername(SYSTEM_USERNAME);
         if (systemUser == null) {
-            System.out.println("System user '" + SYSTEM_USERNAME + "' not found. Registering new system user.");
+            log.info("System user '{}' not found. Registering new system user.", SYSTEM_USERNAME);
             boolean registered = userDAO.registerUser(SYSTEM_USERNAME, UUID.randomUUID().toString(), "시스템");
             if (!registered) {
-                System.err.println("CRITICAL ERROR: Failed to register system user. System messages might fail.");
+                log.error("CRITICAL ERROR: Failed to register system user. System messages might fail.");
             }
             systemUser = userDAO.getUserByUsername(SYSTEM_USERNAME);
         }
 
         if (systemUser != null) {
             this.systemUserId = systemUser.getUserId();
-            System.out.println("System messages will use user ID: " + this.systemUserId + " (username: " + SYSTEM_USERNAME + ")");
+            log.info("System messages will use user ID: {} (username: {})", this.systemUserId, SYSTEM_USERNAME);
         } else {
-            System.err.println("System user could not be found or created. System messages will likely fail due to foreign key constraint.");
+            log.error("System user could not be found or created. System messages will likely fail due to foreign key constraint.");
             this.systemUserId = -1;
         }
     }
@@ -83,7 +108,7 @@ public class ChatServer {
         ChatRoom systemChatRoom = chatRoomDAO.getOrCreateSystemChatRoomForUser(userId, systemUserId);
 
         if (systemChatRoom != null) {
-            List<Message> existingMessages = messageDAO.getMessagesInRoom(systemChatRoom.getRoomId());
+            List<Message> existingMessages = messageStore.getMessagesInRoom(systemChatRoom.getRoomId());
             if (existingMessages.isEmpty()) {
                 String systemMessageContent = getTimelineHelpMessage();
                 Message systemIntroMessage = new Message(
@@ -100,22 +125,25 @@ public class ChatServer {
                 // 현재 sendMessageToUser가 ensureUserSystemChatRoom을 재귀 호출하는 문제를 해결하기 위해
                 // 메시지 저장만 먼저 수행하고, 클라이언트가 연결된 경우에만 전송합니다.
 
-                Message savedMessage = messageDAO.saveMessage(systemIntroMessage); // 메시지 저장만
+                // 시스템 봇이 보낸 메시지는 저장과 함께 시스템 봇에 의해 읽음 처리
+                Message savedMessage = messagePersistenceQueue.save(systemIntroMessage, getSystemUserId()); // 메시지 저장만
                 if (savedMessage != null) {
                     ClientHandler handler = connectedClients.get(userId); // 사용자에게 연결된 핸들러를 가져옵니다.
                     if (handler != null) {
+                        if (!handler.getRoomIds().contains(systemChatRoom.getRoomId())) {
+                            handler.sendRoomAdded(systemChatRoom.getRoomId()); // 알림보다 방이 먼저 도착하도록
+                        }
                         Map<String, Object> data = new HashMap<>();
                         data.put("message", savedMessage);
                         data.put("senderId", savedMessage.getSenderId());
                         data.put("unreadRoomId", savedMessage.getRoomId()); // 시스템 메시지임을 알림
                         handler.sendResponse(new ServerResponse(ServerResponse.ResponseType.SYSTEM_NOTIFICATION, true, "System Notification", data));
-                        messageDAO.markMessageAsRead(savedMessage.getMessageId(), getSystemUserId()); // 시스템 봇이 보낸 메시지는 시스템 봇에 의해 읽음 처리
-                        System.out.println("Sent initial system help message to user " + userId + " in room " + systemChatRoom.getRoomId());
+                        log.debug("Sent initial system help message to user {} in room {}", userId, systemChatRoom.getRoomId());
                     } else {
-                        System.out.println("User " + userId + " is not connected. Initial system message saved to DB.");
+                        log.debug("User {} is not connected. Initial system message saved to DB.", userId);
                     }
                 } else {
-                    System.err.println("Failed to save initial system message for user " + userId);
+                    log.error("Failed to save initial system message for user {}", userId);
                 }
             }
         }
@@ -125,9 +153,10 @@ public class ChatServer {
     public void start() {
         try {
             serverSocket = new ServerSocket(PORT);
-            System.out.println("Chat Server started on port " + PORT);
+            log.info("Chat Server started on port {}", PORT);
+            FlightRecording.startIfEnabled();
 
-            System.out.println("Ensuring system chat rooms for all existing users...");
+            log.info("Ensuring system chat rooms for all existing users...");
             List<User> allUsers = userDAO.getAllUsers();
             for (User user : allUsers) {
                 if (user.getUserId() != systemUserId) {
@@ -137,10 +166,30 @@ public class ChatServer {
                     ensureUserSystemChatRoom(user.getUserId());
                 }
             }
-            System.out.println("System chat room setup complete for existing users.");
+            log.info("System chat room setup complete for existing users.");
 
             scheduler.scheduleAtFixedRate(this::checkUnreadMessages, 5, 5, TimeUnit.MINUTES);
             scheduler.scheduleAtFixedRate(this::clearExpiredNotices, 0, 1, TimeUnit.MINUTES);
+            attachmentStorage.start(); // 첨부파일 사용량 집계, 고아 파일 정리, 콜드 티어 이동
+            long queryReportMinutes = Long.getLong("compi.db.statsReportMinutes", 10);
+            if (queryReportMinutes > 0) {
+                scheduler.scheduleAtFixedRate(this::reportQueryStats, queryReportMinutes, queryReportMinutes, TimeUnit.MINUTES);
+            }
+            int adminPort = Integer.getInteger("compi.admin.port", 12380);
+            if (adminPort > 0) {
+                adminServer = new AdminServer(this, adminPort);
+                try {
+                    adminServer.start();
+                } catch (IOException e) {
+                    log.warn("Failed to start admin server on port {}: {}", adminPort, e.getMessage());
+                    adminServer = null;
+                }
+            }
+            MetricsRegistry.get().registerMBeans();
+            long metricsDumpMinutes = Long.getLong("compi.metrics.dumpMinutes", 5);
+            if (metricsDumpMinutes > 0) {
+                MetricsRegistry.get().startPeriodicDump(scheduler, metricsDumpMinutes);
+            }
 
             Timer timer = new Timer();
             timer.scheduleAtFixedRate(new TimerTask() {
@@ -155,7 +204,7 @@ public class ChatServer {
                             if (userId == getSystemUserId()) {
                                 continue;
                             }
-                            int unreadCount = messageDAO.getUnreadMessageCount(room.getRoomId(), userId);
+                            int unreadCount = messageStore.getUnreadMessageCount(room.getRoomId(), userId);
                             if (unreadCount > 0) {
                                 String notificationContent = String.format(
                                         "채팅방 '%s'에 안 읽은 메시지가 %d개 있습니다.",
@@ -180,12 +229,12 @@ public class ChatServer {
             }, 3600000, 3600000);
             while (true) {
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("New client connected: " + clientSocket.getInetAddress());
+                log.info("New client connected: {}", clientSocket.getInetAddress());
                 ClientHandler clientHandler = new ClientHandler(clientSocket, this);
                 new Thread(clientHandler).start();
             }
         } catch (IOException e) {
-            System.err.println("Server error: " + e.getMessage());
+            log.error("Server error: {}", e.getMessage());
             stop();
         }
     }
@@ -195,26 +244,36 @@ public class ChatServer {
             if (serverSocket != null) {
                 serverSocket.close();
             }
+            if (adminServer != null) {
+                adminServer.stop();
+            }
             if (scheduler != null && !scheduler.isShutdown()) {
                 scheduler.shutdown();
-                System.out.println("Scheduler shut down.");
+                log.info("Scheduler shut down.");
+            }
+            if (attachmentStorage != null) {
+                attachmentStorage.shutdown();
+            }
+            if (thumbnailService != null) {
+                thumbnailService.shutdown();
             }
-            System.out.println("Chat Server stopped.");
+            if (messagePersistenceQueue != null) {
+                messagePersistenceQueue.shutdown(); // 큐에 남은 메시지를 저장한 뒤 종료
+            }
+            FlightRecording.stop();
+            log.info("Chat Server stopped.");
         } catch (IOException e) {
-            System.err.println("Error stopping server: " + e.getMessage());
+            log.error("Error stopping server: {}", e.getMessage());
         }
     }
 
     public void addClient(int userId, ClientHandler clientHandler) {
         connectedClients.put(userId, clientHandler);
-        System.out.println("Client " + userId + " connected. Total clients: " + connectedClients.size());
+        log.info("Client {} connected. Total clients: {}", userId, connectedClients.size());
         User user = userDAO.getUserByUserId(userId);
         if (user != null) {
             notifyFriendStatusChange(user);
-            // 클라이언트가 연결될 때 시스템 채팅방을 보장하고 초기 메시지를 보냅니다.
-            // 이 시점에는 클라이언트 핸들러가 connectedClients 맵에 있으므로,
-            // ensureUserSystemChatRoom 내부에서 바로 메시지 전송을 시도할 수 있습니다.
-            ensureUserSystemChatRoom(userId);
+            // 시스템 채팅방과 초기 메시지는 로그인 처리(BOOTSTRAP 전송 뒤)에서 보장합니다.
         }
     }
 
@@ -222,7 +281,7 @@ public class ChatServer {
         if (connectedClients.containsKey(userId)) {
             connectedClients.remove(userId);
             userDAO.updateUserStatus(userId, UserStatus.OFFLINE);
-            System.out.println("Client " + userId + " disconnected. Total clients: " + connectedClients.size());
+            log.info("Client {} disconnected. Total clients: {}", userId, connectedClients.size());
             User user = userDAO.getUserByUserId(userId);
             if (user != null) {
                 user.setStatus(UserStatus.OFFLINE);
@@ -235,6 +294,47 @@ public class ChatServer {
         return connectedClients;
     }
 
+    ScheduledThreadPoolExecutor getScheduler() {
+        return scheduler;
+    }
+
+    public ThumbnailService getThumbnailService() {
+        return thumbnailService;
+    }
+
+    public MessagePersistenceQueue getMessagePersistenceQueue() {
+        return messagePersistenceQueue;
+    }
+
+    public MessageChangeLog getMessageChangeLog() {
+        return messageChangeLog;
+    }
+
+    public AttachmentStorage getAttachmentStorage() {
+        return attachmentStorage;
+    }
+
+    /**
+     * 썸네일 생성이 끝나면 해당 방의 접속 중인 참여자에게 썸네일 정보를 알립니다.
+     * 클라이언트는 이 정보로 DOWNLOAD_THUMBNAIL을 요청해 미리보기를 표시합니다.
+     * @param message 썸네일 정보가 채워진 파일 메시지
+     */
+    private void notifyThumbnailReady(Message message) {
+        messageChangeLog.record(message.getRoomId(), message.getMessageId());
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", message.getRoomId());
+        data.put("messageId", message.getMessageId());
+        data.put("thumbnailId", message.getThumbnailId());
+        data.put("thumbnailWidth", message.getThumbnailWidth());
+        data.put("thumbnailHeight", message.getThumbnailHeight());
+        for (User participant : chatRoomDAO.getParticipantsInRoom(message.getRoomId())) {
+            ClientHandler handler = connectedClients.get(participant.getUserId());
+            if (handler != null) {
+                handler.sendResponse(new ServerResponse(ServerResponse.ResponseType.THUMBNAIL_READY, true, "Thumbnail ready", data));
+            }
+        }
+    }
+
     public void notifyFriendStatusChange(User user) {
         List<User> friends = userDAO.getFriends(user.getUserId());
         for (User friend : friends) {
@@ -250,28 +350,49 @@ public class ChatServer {
         }
     }
 
-    public void broadcastMessageToRoom(Message message, int senderUserId) {
+    public Message broadcastMessageToRoom(Message message, int senderUserId) {
+        BroadcastEvent event = new BroadcastEvent();
+        event.begin();
         List<User> participants = chatRoomDAO.getParticipantsInRoom(message.getRoomId());
 
-        Message savedMessage = messageDAO.saveMessage(message);
-        if (savedMessage == null) {
-            System.err.println("Failed to save message to DB.");
-            return;
-        }
-
+        // 보낸 사람(시스템 메시지는 시스템 봇)의 읽음 처리는 메시지 저장과 같은 트랜잭션에서 수행
+        int readerUserId = -1;
         if (message.getMessageType() != MessageType.SYSTEM && senderUserId != -1) {
-            messageDAO.markMessageAsRead(savedMessage.getMessageId(), senderUserId);
+            readerUserId = senderUserId;
         } else if (message.getMessageType() == MessageType.SYSTEM && senderUserId == getSystemUserId()) {
-            messageDAO.markMessageAsRead(savedMessage.getMessageId(), getSystemUserId());
+            readerUserId = getSystemUserId();
         }
 
-        List<User> readers = messageDAO.getReadersForMessage(savedMessage.getMessageId());
-        savedMessage.setReaders(readers);
+        long saveStart = System.nanoTime();
+        Message savedMessage = messagePersistenceQueue.save(message, readerUserId);
+        event.saveNanos = System.nanoTime() - saveStart;
+        if (savedMessage == null) {
+            log.error("Failed to save message to DB.");
+            commitBroadcastEvent(event, message, participants.size(), 0);
+            return null;
+        }
 
-        int totalParticipantsInRoom = chatRoomDAO.getParticipantsInRoom(message.getRoomId()).size();
-        savedMessage.setUnreadCount(totalParticipantsInRoom - savedMessage.getReaders().size());
+        // 새 메시지를 읽은 사람은 보낸 사람뿐이므로 DB를 다시 조회하지 않고 채움
+        List<User> readers = new ArrayList<>();
+        if (readerUserId != -1) {
+            for (User participant : participants) {
+                if (participant.getUserId() == readerUserId) {
+                    readers.add(participant);
+                }
+            }
+            if (readers.isEmpty()) { // 참여자가 아닌 시스템 봇
+                User reader = userDAO.getUserByUserId(readerUserId);
+                if (reader != null) {
+                    readers.add(reader);
+                }
+            }
+        }
+        savedMessage.setReaders(readers);
+        savedMessage.setUnreadCount(participants.size() - readers.size());
 
 
+        long encodeStart = System.nanoTime();
+        int recipients = 0;
         for (User participant : participants) {
             ClientHandler handler = connectedClients.get(participant.getUserId());
             if (handler != null) {
@@ -282,11 +403,27 @@ public class ChatServer {
                     data.put("unreadRoomId", savedMessage.getRoomId()); // 시스템 메시지는 unreadRoomId로 처리
                 }
                 handler.sendResponse(new ServerResponse(ServerResponse.ResponseType.NEW_MESSAGE, true, "New message", data));
+                recipients++;
             }
         }
+        event.encodeNanos = System.nanoTime() - encodeStart;
+        commitBroadcastEvent(event, savedMessage, participants.size(), recipients);
 
         if (message.getMessageType() != MessageType.SYSTEM) {
-            updateUnreadCountsForRoom(message.getRoomId());
+            // DB를 다시 읽어 목록을 보내므로 커밋 이후에 실행 (enqueue 모드에서는 writer 커밋 후 비동기로)
+            messagePersistenceQueue.afterCommit(savedMessage, () -> updateUnreadCountsForRoom(message.getRoomId()));
+        }
+        return savedMessage;
+    }
+
+    private void commitBroadcastEvent(BroadcastEvent event, Message message, int participants, int recipients) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.roomId = message.getRoomId();
+            event.messageId = message.getMessageId();
+            event.participants = participants;
+            event.recipients = recipients;
+            event.commit();
         }
     }
 
@@ -294,23 +431,23 @@ public class ChatServer {
         ChatRoom updatedRoom = chatRoomDAO.getChatRoomById(roomId);
         if (updatedRoom == null) return;
 
-        List<User> participants = chatRoomDAO.getParticipantsInRoom(roomId);
-        for (User participant : participants) {
+        // 참여자 조회는 한 번만, 각 참여자에게는 바뀐 방 하나만 보냄
+        for (User participant : updatedRoom.getParticipants()) {
             ClientHandler handler = connectedClients.get(participant.getUserId());
             if (handler != null) {
-                handler.sendChatRoomList();
+                handler.sendRoomUpdated(updatedRoom);
             }
         }
     }
 
     private void checkUnreadMessages() {
-        System.out.println("Checking for unread messages...");
+        log.debug("Checking for unread messages...");
         List<ChatRoom> allRooms = getAllChatRoomsForUnreadCheck();
         LocalDateTime oneHourAgo = LocalDateTime.now().minus(1, ChronoUnit.HOURS);
 
         for (ChatRoom room : allRooms) {
             List<User> participants = chatRoomDAO.getParticipantsInRoom(room.getRoomId());
-            List<Message> messagesInRoom = messageDAO.getMessagesInRoom(room.getRoomId());
+            List<Message> messagesInRoom = messageStore.getMessagesInRoom(room.getRoomId());
 
             for (Message message : messagesInRoom) {
                 if (message.getMessageType() == MessageType.SYSTEM || message.getSentAt().isAfter(oneHourAgo)) {
@@ -322,7 +459,7 @@ public class ChatServer {
                         continue;
                     }
 
-                    boolean isRead = messageDAO.isMessageReadByUser(message.getMessageId(), participant.getUserId());
+                    boolean isRead = messageStore.isMessageReadByUser(message.getMessageId(), participant.getUserId());
 
                     if (!isRead) {
                         String notificationContent = String.format(
@@ -353,7 +490,7 @@ public class ChatServer {
             ClientHandler handler = connectedClients.get(participant.getUserId());
             if (handler != null) {
                 List<Message> messagesWithReadInfo = new ArrayList<>();
-                List<Message> messagesInRoom = messageDAO.getMessagesInRoom(roomId);
+                List<Message> messagesInRoom = messageStore.getMessagesInRoom(roomId);
 
                 for (Message msg : messagesInRoom) {
                     if (msg.getMessageType() == MessageType.SYSTEM) {
@@ -361,12 +498,13 @@ public class ChatServer {
                         continue;
                     }
 
-                    List<User> readers = messageDAO.getReadersForMessage(msg.getMessageId());
+                    List<User> readers = messageStore.getReadersForMessage(msg.getMessageId());
                     msg.setReaders(readers);
                     int totalParticipants = chatRoomDAO.getParticipantsInRoom(roomId).size();
                     msg.setUnreadCount(totalParticipants - readers.size());
                     messagesWithReadInfo.add(msg);
                 }
+                thumbnailService.applyTo(messagesWithReadInfo);
 
                 Map<String, Object> roomMessagesData = new HashMap<>();
                 roomMessagesData.put("roomId", roomId);
@@ -379,7 +517,7 @@ public class ChatServer {
     private List<ChatRoom> getAllChatRoomsForUnreadCheck() {
         List<ChatRoom> allRooms = new ArrayList<>();
         String sql = "SELECT room_id, room_name, created_at, is_group_chat FROM chat_rooms";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("ChatServer.getAllChatRoomsForUnreadCheck");
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
@@ -392,7 +530,7 @@ public class ChatServer {
                 allRooms.add(room);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting all chat rooms for unread check: " + e.getMessage());
+            log.error("Error getting all chat rooms for unread check: {}", e.getMessage());
         }
         return allRooms;
     }
@@ -405,23 +543,20 @@ public class ChatServer {
             if (systemChatRoom != null) {
                 message.setRoomId(systemChatRoom.getRoomId()); // 메시지의 room_id를 시스템 채팅방 ID로 설정합니다.
             } else {
-                System.err.println("CRITICAL ERROR: Could not get or create system chat room for user " + targetUserId + ". System message will not be saved.");
+                log.error("CRITICAL ERROR: Could not get or create system chat room for user {}. System message will not be saved.", targetUserId);
                 return; // 시스템 채팅방을 얻지 못하면 메시지 저장을 중단합니다.
             }
         }
 
         // 메시지 저장 로직은 무조건 수행
-        Message savedMessage = messageDAO.saveMessage(message);
+        // 시스템 메시지는 저장과 함께 시스템 봇에 의해 읽음 처리
+        int readerUserId = message.getMessageType() == MessageType.SYSTEM ? getSystemUserId() : -1;
+        Message savedMessage = messagePersistenceQueue.save(message, readerUserId);
         if (savedMessage == null) {
-            System.err.println("Failed to save message to DB. Not sending notification to client " + targetUserId);
+            log.error("Failed to save message to DB. Not sending notification to client {}", targetUserId);
             return;
         }
 
-        // 시스템 메시지는 시스템 봇에 의해 읽음 처리
-        if (message.getMessageType() == MessageType.SYSTEM) {
-            messageDAO.markMessageAsRead(savedMessage.getMessageId(), getSystemUserId());
-        }
-
         // 클라이언트가 연결되어 있는 경우에만 실시간으로 전송
         ClientHandler handler = connectedClients.get(targetUserId);
         if (handler != null) {
@@ -431,20 +566,36 @@ public class ChatServer {
             // 이 부분은 이미 savedMessage.getRoomId()를 사용하고 있으므로 별도 수정 필요 없음
             data.put("unreadRoomId", savedMessage.getRoomId()); // 시스템 메시지임을 알림 (클라이언트 측에서 시스템 채팅방 로드에 활용)
             handler.sendResponse(new ServerResponse(ServerResponse.ResponseType.SYSTEM_NOTIFICATION, true, "System Notification", data));
-            System.out.println("Sent system notification (real-time) to user " + targetUserId + " for room " + savedMessage.getRoomId());
+            log.debug("Sent system notification (real-time) to user {} for room {}", targetUserId, savedMessage.getRoomId());
         } else {
-            System.out.println("User " + targetUserId + " is not connected. System notification saved to DB.");
+            log.debug("User {} is not connected. System notification saved to DB.", targetUserId);
         }
     }
 
 
+    // 총 실행 시간이 긴 SQL 문장 상위 10개와 느린 쿼리 수를 출력
+    private void reportQueryStats() {
+        StringBuilder report = new StringBuilder();
+        report.append("Top SQL statements by total time (slow query threshold ").append(QueryStats.getSlowQueryThresholdMillis())
+                .append(" ms, ").append(QueryStats.getSlowQueries().size()).append(" recent slow queries):");
+        for (QueryStats.StatementStats stats : QueryStats.getTopByTotalTime(10)) {
+            LatencyHistogram.Snapshot latency = stats.getLatency();
+            report.append(String.format("%n  %-70s calls=%d total=%.1fms p50=%.2fms p99=%.2fms max=%.2fms rows=%d errors=%d",
+                    stats.getName(), stats.getExecutions(), stats.getTotalNanos() / 1e6,
+                    latency.getP50() / 1e6, latency.getP99() / 1e6, latency.getMax() / 1e6,
+                    stats.getRows(), stats.getErrors()));
+        }
+        log.info(report.toString());
+    }
+
     private void clearExpiredNotices() {
-        System.out.println("Checking and clearing expired notices...");
-        Set<Integer> affectedRoomIds = messageDAO.clearExpiredNotices();
+        log.debug("Checking and clearing expired notices...");
+        Set<Integer> affectedRoomIds = messageStore.clearExpiredNotices();
 
         if (!affectedRoomIds.isEmpty()) {
-            System.out.println("Cleared notices in rooms: " + affectedRoomIds + ". Notifying clients.");
+            log.info("Cleared notices in rooms: {}. Notifying clients.", affectedRoomIds);
             for (int roomId : affectedRoomIds) {
+                messageChangeLog.invalidateRoom(roomId); // 어떤 메시지인지 알 수 없으므로 방 전체를 다시 받게 함
                 List<User> participantsInRoom = chatRoomDAO.getParticipantsInRoom(roomId);
                 for (User participant : participantsInRoom) {
                     ClientHandler handler = connectedClients.get(participant.getUserId());
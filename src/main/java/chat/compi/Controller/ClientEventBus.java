@@ -0,0 +1,273 @@
+// ClientEventBus.java
+package chat.compi.Controller;
+
+import chat.compi.Dto.ServerResponse;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.LatencyHistogram;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 클라이언트가 받은 서버 응답을 구독자에게 나눠 주는 이벤트 버스.
+ *
+ * 응답 종류마다 구독자를 여러 개 둘 수 있다. 구독과 해지는 종류별 불변 목록을 CAS로 바꾸므로 잠금이 없고,
+ * 전달은 그 시점의 목록을 그대로 쓴다.
+ *
+ * 종류마다 전달 방식(Dispatch)을 정한다. 기본값 DIRECT는 응답 처리 루프에서 바로 부르는 이전 동작이다.
+ * 디스크 쓰기처럼 무거운 처리는 BACKGROUND로 작업 스레드(lane)에 보내 접속 상태 같은 다른 응답을 막지 않게 한다.
+ * 서로 순서가 중요한 종류(예: 새 메시지와 메시지 목록)는 같은 lane에 두어야 받은 순서대로 처리된다.
+ * 목록 전체를 다시 보내는 스냅샷 응답은 LATEST로 두면, 처리가 밀렸을 때 쌓인 것 중 마지막 하나만 처리한다.
+ *
+ * 응답을 받은 뒤 구독자가 불리기까지의 대기 시간과 구독자 실행 시간을 종류별 히스토그램으로 남긴다 (화면 지연 조사용).
+ * 히스토그램은 그 종류를 처음 전달할 때 만든다. 종류마다 전달하는 스레드가 하나뿐이라 stripe도 하나만 쓴다.
+ * 대기 시간이 compi.client.slowEventMillis(기본 200ms) 이상이면 로그를 남긴다.
+ */
+public class ClientEventBus {
+    private static final Logger log = Log.get(ClientEventBus.class);
+    private static final long SLOW_EVENT_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("compi.client.slowEventMillis", 200));
+    private static final ServerResponse.ResponseType[] TYPES = ServerResponse.ResponseType.values();
+
+    /**
+     * 구독자를 부르는 스레드
+     */
+    public enum Dispatch {
+        /** 발행한 스레드(응답 처리 루프)에서 바로 호출 */
+        DIRECT,
+        /** Swing 이벤트 스레드에서 호출 */
+        EDT,
+        /** lane 작업 스레드에서 받은 순서대로 호출 */
+        BACKGROUND,
+        /** lane 작업 스레드에서 호출하되, 차례가 오기 전에 같은 종류의 새 응답이 오면 이전 응답은 건너뜀 */
+        LATEST
+    }
+
+    /**
+     * 구독 해지 핸들
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final AtomicReferenceArray<List<Consumer<ServerResponse>>> subscribers = new AtomicReferenceArray<>(TYPES.length);
+    private final AtomicReferenceArray<Route> routes = new AtomicReferenceArray<>(TYPES.length);
+    private final AtomicReferenceArray<Event> latest = new AtomicReferenceArray<>(TYPES.length); // LATEST: 아직 전달하지 않은 마지막 응답
+    private final Map<String, ExecutorService> lanes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Timings> timings = new AtomicReferenceArray<>(TYPES.length); // 전달한 적 없는 종류는 null
+    private final LongAdder[] coalesced = new LongAdder[TYPES.length];
+
+    public ClientEventBus() {
+        for (int i = 0; i < TYPES.length; i++) {
+            subscribers.set(i, List.of());
+            routes.set(i, new Route(Dispatch.DIRECT, null));
+            coalesced[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 구독자를 추가합니다. 같은 종류의 다른 구독자는 그대로 둡니다.
+     * @return 해지 핸들
+     */
+    public Subscription subscribe(ServerResponse.ResponseType type, Consumer<ServerResponse> listener) {
+        int index = type.ordinal();
+        subscribers.getAndUpdate(index, current -> {
+            List<Consumer<ServerResponse>> updated = new ArrayList<>(current);
+            updated.add(listener);
+            return List.copyOf(updated);
+        });
+        return () -> subscribers.getAndUpdate(index, current -> {
+            List<Consumer<ServerResponse>> updated = new ArrayList<>(current);
+            for (int i = 0; i < updated.size(); i++) {
+                if (updated.get(i) == listener) {
+                    updated.remove(i);
+                    break;
+                }
+            }
+            return List.copyOf(updated);
+        });
+    }
+
+    /**
+     * 이 종류의 구독자를 모두 지우고 listener 하나로 바꿉니다. (null이면 모두 지움)
+     */
+    public void replace(ServerResponse.ResponseType type, Consumer<ServerResponse> listener) {
+        subscribers.set(type.ordinal(), listener != null ? List.of(listener) : List.of());
+    }
+
+    /**
+     * 전달 방식을 정합니다. BACKGROUND와 LATEST는 종류 이름의 lane을 씁니다.
+     */
+    public void setDispatch(ServerResponse.ResponseType type, Dispatch dispatch) {
+        setDispatch(type, dispatch, type.name());
+    }
+
+    /**
+     * 전달 방식과 lane을 정합니다. 같은 lane 이름을 쓰는 종류는 한 작업 스레드에서 받은 순서대로 처리됩니다.
+     * @param lane BACKGROUND, LATEST일 때의 작업 스레드 이름 (DIRECT, EDT에서는 무시)
+     */
+    public void setDispatch(ServerResponse.ResponseType type, Dispatch dispatch, String lane) {
+        boolean queued = dispatch == Dispatch.BACKGROUND || dispatch == Dispatch.LATEST;
+        routes.set(type.ordinal(), new Route(dispatch, queued ? lane : null));
+    }
+
+    public Dispatch getDispatch(ServerResponse.ResponseType type) {
+        return routes.get(type.ordinal()).dispatch;
+    }
+
+    /**
+     * 받은 응답을 전달 방식에 따라 구독자에게 보냅니다. 응답 처리 루프 한 곳에서만 호출합니다.
+     * @param receivedNanos 소켓에서 응답을 읽은 시각 (System.nanoTime), 대기 시간 측정의 시작점
+     */
+    public void publish(ServerResponse response, long receivedNanos) {
+        int index = response.getType().ordinal();
+        if (subscribers.get(index).isEmpty()) {
+            log.debug("No listener for response type: {}", response.getType());
+            return;
+        }
+        Event event = new Event(response, receivedNanos);
+        Route route = routes.get(index);
+        switch (route.dispatch) {
+            case DIRECT -> deliver(event);
+            case EDT -> SwingUtilities.invokeLater(() -> deliver(event));
+            case BACKGROUND -> lane(route.lane).execute(() -> deliver(event));
+            case LATEST -> {
+                if (latest.getAndSet(index, event) == null) {
+                    lane(route.lane).execute(() -> {
+                        Event newest = latest.getAndSet(index, null);
+                        if (newest != null) {
+                            deliver(newest);
+                        }
+                    });
+                } else {
+                    coalesced[index].increment(); // 아직 전달되지 않은 이전 응답을 대신함
+                }
+            }
+        }
+    }
+
+    private void deliver(Event event) {
+        ServerResponse.ResponseType type = event.response.getType();
+        int index = type.ordinal();
+        long start = System.nanoTime();
+        long waited = start - event.receivedNanos;
+        Timings typeTimings = timings.get(index);
+        if (typeTimings == null) {
+            timings.compareAndSet(index, null, new Timings());
+            typeTimings = timings.get(index);
+        }
+        typeTimings.queueLatency.record(waited);
+        if (waited >= SLOW_EVENT_NANOS) {
+            log.warn("Response {} waited {} ms before its listeners ran", type, TimeUnit.NANOSECONDS.toMillis(waited));
+        }
+        for (Consumer<ServerResponse> listener : subscribers.get(index)) {
+            try {
+                listener.accept(event.response);
+            } catch (RuntimeException e) {
+                // 구독자 하나의 오류로 응답 처리 루프나 다른 구독자가 멈추지 않도록
+                log.error("Listener for {} failed: {}", type, e.toString());
+            }
+        }
+        typeTimings.handlerTime.record(System.nanoTime() - start);
+    }
+
+    private ExecutorService lane(String name) {
+        return lanes.computeIfAbsent(name, laneName -> Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "client-events-" + laneName);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * 받은 뒤 구독자가 불리기까지의 대기 시간 (나노초)
+     */
+    public LatencyHistogram.Snapshot getQueueLatency(ServerResponse.ResponseType type) {
+        Timings typeTimings = timings.get(type.ordinal());
+        return typeTimings != null ? typeTimings.queueLatency.snapshot() : LatencyHistogram.Snapshot.EMPTY;
+    }
+
+    /**
+     * 구독자 전체의 실행 시간 (나노초)
+     */
+    public LatencyHistogram.Snapshot getHandlerTime(ServerResponse.ResponseType type) {
+        Timings typeTimings = timings.get(type.ordinal());
+        return typeTimings != null ? typeTimings.handlerTime.snapshot() : LatencyHistogram.Snapshot.EMPTY;
+    }
+
+    /**
+     * LATEST 방식에서 더 새로운 응답으로 대신해 건너뛴 응답 수
+     */
+    public long getCoalescedCount(ServerResponse.ResponseType type) {
+        return coalesced[type.ordinal()].sum();
+    }
+
+    /**
+     * 받은 적 있는 종류별 대기 시간과 실행 시간 요약 (ms, 대기 시간 p99 내림차순)
+     */
+    public String formatStats() {
+        List<ServerResponse.ResponseType> seen = new ArrayList<>();
+        for (ServerResponse.ResponseType type : TYPES) {
+            if (timings.get(type.ordinal()) != null) {
+                seen.add(type);
+            }
+        }
+        seen.sort((a, b) -> Long.compare(getQueueLatency(b).getP99(), getQueueLatency(a).getP99()));
+        StringBuilder sb = new StringBuilder(String.format("%-32s %-10s %8s %9s %9s %9s %11s %11s %9s%n",
+                "type", "dispatch", "count", "wait p50", "wait p99", "wait max", "handler p99", "handler max", "coalesced"));
+        for (ServerResponse.ResponseType type : seen) {
+            LatencyHistogram.Snapshot wait = getQueueLatency(type);
+            LatencyHistogram.Snapshot handler = getHandlerTime(type);
+            sb.append(String.format("%-32s %-10s %8d %9.1f %9.1f %9.1f %11.1f %11.1f %9d%n",
+                    type, getDispatch(type), wait.getCount(), millis(wait.getP50()), millis(wait.getP99()), millis(wait.getMax()),
+                    millis(handler.getP99()), millis(handler.getMax()), getCoalescedCount(type)));
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * lane 작업 스레드를 멈춥니다. 이미 넘겨받은 응답은 처리한 뒤 끝납니다.
+     */
+    public void shutdown() {
+        lanes.values().forEach(ExecutorService::shutdown);
+    }
+
+    private static final class Route {
+        private final Dispatch dispatch;
+        private final String lane;
+
+        Route(Dispatch dispatch, String lane) {
+            this.dispatch = dispatch;
+            this.lane = lane;
+        }
+    }
+
+    private static final class Timings {
+        private final LatencyHistogram queueLatency = new LatencyHistogram(1);
+        private final LatencyHistogram handlerTime = new LatencyHistogram(1);
+    }
+
+    private static final class Event {
+        private final ServerResponse response;
+        private final long receivedNanos;
+
+        Event(ServerResponse response, long receivedNanos) {
+            this.response = response;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+}
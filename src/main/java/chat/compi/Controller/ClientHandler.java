@@ -5,34 +5,66 @@ import chat.compi.Dto.ClientRequest;
 import chat.compi.Entity.*;
 import chat.compi.Dto.ServerResponse;
 import chat.compi.DB.ChatRoomDAO;
-import chat.compi.DB.MessageDAO;
+import chat.compi.DB.MessageStore;
+import chat.compi.DB.MessageStores;
 import chat.compi.DB.TimelineDAO;
 import chat.compi.DB.UserDAO;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.CountingOutputStream;
+import chat.compi.Metrics.FileTransferEvent;
+import chat.compi.Metrics.MetricsRegistry;
+import chat.compi.Metrics.RequestHandledEvent;
+import chat.compi.Metrics.RequestReceivedEvent;
 
 import java.io.*;
 import java.net.Socket;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class ClientHandler implements Runnable {
+    private static final Logger log = Log.get(ClientHandler.class);
+
     private Socket clientSocket;
     private ChatServer server;
     private ObjectInputStream in;
     private ObjectOutputStream out;
+    private CountingOutputStream countingOut; // 응답 종류별 전송 바이트 측정용
     private int userId = -1;
+    private Thread readerThread;
+    private boolean requestFailed; // 처리 중인 요청에 실패 응답을 보냈는지 (readerThread에서만 사용)
+
+    // 관리 엔드포인트(AdminServer)에서 읽는 연결 상태
+    private final long connectedAtMillis = System.currentTimeMillis();
+    private final AtomicInteger pendingWrites = new AtomicInteger(); // 쓰는 중이거나 쓰기 잠금을 기다리는 응답 수
+    private volatile long writeStartedNanos; // 진행 중인 쓰기 시작 시각 (없으면 0)
+    private volatile long bytesSent;
+    private volatile long requestsHandled;
+    private volatile long lastRequestAtMillis;
+    private volatile ClientRequest.RequestType currentRequestType;
+    private volatile Set<Integer> roomIds = Set.of(); // 클라이언트에 보낸 채팅방 목록의 방 ID (ROOM_ADDED/ROOM_REMOVED 반영)
+    private final Object roomIdsLock = new Object();
 
     private UserDAO userDAO;
-    private MessageDAO messageDAO;
+    private MessageStore messageStore;
     private ChatRoomDAO chatRoomDAO;
     private TimelineDAO timelineDAO;
 
@@ -40,29 +72,32 @@ public class ClientHandler implements Runnable {
         this.clientSocket = clientSocket;
         this.server = server;
         this.userDAO = new UserDAO();
-        this.messageDAO = new MessageDAO();
+        this.messageStore = MessageStores.getDefault();
         this.chatRoomDAO = new ChatRoomDAO();
         this.timelineDAO = new TimelineDAO();
         try {
-            out = new ObjectOutputStream(clientSocket.getOutputStream());
+            clientSocket.setTcpNoDelay(true); // 작은 응답이 Nagle/지연 ACK로 수십 ms씩 묶이지 않게 함
+            countingOut = new CountingOutputStream(clientSocket.getOutputStream());
+            out = new ObjectOutputStream(countingOut);
             in = new ObjectInputStream(clientSocket.getInputStream());
         } catch (IOException e) {
-            System.err.println("Error creating streams: " + e.getMessage());
+            log.error("Error creating streams: {}", e.getMessage());
             closeConnection();
         }
     }
 
     @Override
     public void run() {
+        readerThread = Thread.currentThread();
         try {
             while (clientSocket.isConnected()) {
                 ClientRequest request = (ClientRequest) in.readObject();
                 handleRequest(request);
             }
         } catch (EOFException e) {
-            System.out.println("Client " + (userId != -1 ? userId : "unknown") + " disconnected gracefully.");
+            log.info("Client {} disconnected gracefully.", userId != -1 ? userId : "unknown");
         } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Client " + (userId != -1 ? userId : "unknown") + " handler error: " + e.getMessage());
+            log.error("Client {} handler error: {}", userId != -1 ? userId : "unknown", e.getMessage());
         } finally {
             if (userId != -1) {
                 server.removeClient(userId);
@@ -71,7 +106,42 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    // 요청 종류별 처리 시간과 실패 여부를 기록 (JFR 녹화 중이면 이벤트로도 남김)
     private void handleRequest(ClientRequest request) {
+        RequestReceivedEvent received = new RequestReceivedEvent();
+        if (received.isEnabled()) {
+            received.requestType = request.getType().name();
+            received.userId = userId;
+            received.commit();
+        }
+        RequestHandledEvent handled = new RequestHandledEvent();
+        handled.begin();
+        long bytesBefore = bytesSent;
+        long start = System.nanoTime();
+        requestFailed = false;
+        currentRequestType = request.getType();
+        lastRequestAtMillis = System.currentTimeMillis();
+        try {
+            processRequest(request);
+        } catch (RuntimeException e) {
+            requestFailed = true;
+            throw e;
+        } finally {
+            currentRequestType = null;
+            requestsHandled++;
+            MetricsRegistry.get().recordRequest(request.getType(), System.nanoTime() - start, requestFailed);
+            handled.end();
+            if (handled.shouldCommit()) {
+                handled.requestType = request.getType().name();
+                handled.userId = userId; // 로그인 요청은 처리 후의 사용자
+                handled.failed = requestFailed;
+                handled.responseBytes = bytesSent - bytesBefore; // 다른 스레드가 보낸 알림도 포함될 수 있음
+                handled.commit();
+            }
+        }
+    }
+
+    private void processRequest(ClientRequest request) {
         Map<String, Object> responseData = new HashMap<>();
         ServerResponse response = null;
         boolean success;
@@ -84,16 +154,13 @@ public class ClientHandler implements Runnable {
                 if (loggedInUser != null) {
                     this.userId = loggedInUser.getUserId();
                     server.addClient(userId, this);
-                    responseData.put("user", loggedInUser);
-                    response = new ServerResponse(ServerResponse.ResponseType.LOGIN_SUCCESS, true, "Login successful", responseData);
-                    sendResponse(response);
-                    sendFriendList();
-                    sendChatRoomList();
-                    ChatRoom systemChatRoom = server.ensureUserSystemChatRoom(this.userId);
-                    if (systemChatRoom != null) {
-                        Map<String, Object> systemChatData = new HashMap<>();
-                        systemChatData.put("chatRooms", chatRoomDAO.getChatRoomsByUserId(this.userId));
-                        sendResponse(new ServerResponse(ServerResponse.ResponseType.CHAT_ROOMS_UPDATE, true, "System chat room added", systemChatData));
+                    if (sendBootstrap(loggedInUser)) {
+                        // 처음 로그인한 사용자의 안내 메시지는 BOOTSTRAP 뒤에 도착함
+                        server.ensureUserSystemChatRoom(this.userId);
+                    } else {
+                        // 클라이언트는 로그인 화면에 남으므로 접속 처리를 되돌림 (친구에게 오프라인 알림)
+                        server.removeClient(this.userId);
+                        this.userId = -1;
                     }
                 } else {
                     response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "Invalid username or password", null);
@@ -190,6 +257,14 @@ public class ClientHandler implements Runnable {
                     response = new ServerResponse(ServerResponse.ResponseType.SUCCESS, true, "Chat room created", responseData);
                     sendResponse(response);
 
+                    // 시스템 메시지보다 먼저 방을 알려야 클라이언트가 모르는 방의 메시지로 보지 않음
+                    for (User participant : chatRoomDAO.getParticipantsInRoom(createdOrFoundRoom.getRoomId())) {
+                        ClientHandler participantHandler = server.getConnectedClients().get(participant.getUserId());
+                        if (participantHandler != null && !participantHandler.getRoomIds().contains(createdOrFoundRoom.getRoomId())) {
+                            participantHandler.sendRoomAdded(createdOrFoundRoom.getRoomId());
+                        }
+                    }
+
                     if (isNewRoomCreated) {
                         List<User> currentParticipantsOfRoom = chatRoomDAO.getParticipantsInRoom(createdOrFoundRoom.getRoomId());
                         String participantNames = currentParticipantsOfRoom.stream()
@@ -199,13 +274,6 @@ public class ClientHandler implements Runnable {
                         Message creationSystemMessage = new Message(createdOrFoundRoom.getRoomId(), server.getSystemUserId(), "시스템", MessageType.SYSTEM, creationMessageContent, false);
                         server.broadcastMessageToRoom(creationSystemMessage, server.getSystemUserId());
                     }
-
-                    for (User participant : chatRoomDAO.getParticipantsInRoom(createdOrFoundRoom.getRoomId())) {
-                        ClientHandler participantHandler = server.getConnectedClients().get(participant.getUserId());
-                        if (participantHandler != null) {
-                            participantHandler.sendChatRoomList();
-                        }
-                    }
                 } else {
                     response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "Failed to create chat room", null);
                     sendResponse(response);
@@ -218,15 +286,43 @@ public class ClientHandler implements Runnable {
 
             case GET_MESSAGES_IN_ROOM:
                 int roomIdToGetMessages = (int) request.getData().get("roomId");
-                List<Message> messages = messageDAO.getMessagesInRoom(roomIdToGetMessages);
-                for (Message msg : messages) {
-                    List<User> readers = messageDAO.getReadersForMessage(msg.getMessageId());
-                    msg.setReaders(readers);
-                    int totalParticipants = chatRoomDAO.getParticipantsInRoom(roomIdToGetMessages).size();
-                    msg.setUnreadCount(totalParticipants - readers.size());
+                // sinceSeq가 있으면 그 순번 이후의 메시지만 보냄 (클라이언트의 누락 메시지 보충)
+                Number sinceSeqValue = (Number) request.getData().get("sinceSeq");
+                long sinceSeq = sinceSeqValue != null ? sinceSeqValue.longValue() : 0;
+                // syncVersion이 있으면 클라이언트 메시지 캐시의 동기화 요청: 그 버전 뒤에 바뀐 이전 메시지도 함께 보냄
+                Number syncVersionValue = (Number) request.getData().get("syncVersion");
+                MessageChangeLog changeLog = server.getMessageChangeLog();
+                long currentVersion = changeLog.currentVersion(); // 조회 전에 읽어 두어 조회 중의 변경은 다음 동기화에 포함
+                List<Long> changedIds = null;
+                if (syncVersionValue != null && sinceSeq > 0) {
+                    changedIds = changeLog.changedSince(roomIdToGetMessages, syncVersionValue.longValue());
+                    if (changedIds == null) {
+                        sinceSeq = 0; // 캐시 버전이 너무 오래되어 변경분을 알 수 없으므로 전체 목록을 보냄
+                    }
                 }
+                List<Message> messages = sinceSeq > 0
+                        ? messageStore.getMessagesInRoomSince(roomIdToGetMessages, sinceSeq)
+                        : messageStore.getMessagesInRoom(roomIdToGetMessages);
+                applyReadInfo(roomIdToGetMessages, messages);
                 responseData.put("roomId", roomIdToGetMessages);
                 responseData.put("messages", messages);
+                if (sinceSeq > 0) {
+                    responseData.put("sinceSeq", sinceSeq);
+                }
+                if (syncVersionValue != null) {
+                    responseData.put("syncVersion", currentVersion);
+                }
+                if (changedIds != null) {
+                    List<Message> changedMessages = new ArrayList<>();
+                    for (long changedId : changedIds) {
+                        Message changed = messageStore.getMessageById(changedId);
+                        if (changed != null && changed.getRoomSeq() <= sinceSeq) { // 더 새 메시지는 messages에 이미 있음
+                            changedMessages.add(changed);
+                        }
+                    }
+                    applyReadInfo(roomIdToGetMessages, changedMessages);
+                    responseData.put("changedMessages", changedMessages);
+                }
                 response = new ServerResponse(ServerResponse.ResponseType.ROOM_MESSAGES_UPDATE, true, "Messages loaded", responseData);
                 sendResponse(response);
                 break;
@@ -428,17 +524,23 @@ public class ClientHandler implements Runnable {
 
 
             case READ_MESSAGE:
-                int messageIdToRead = (int) request.getData().get("messageId");
-                int readStatus = messageDAO.markMessageAsReadStatus(messageIdToRead, this.userId);
+                long messageIdToRead = ((Number) request.getData().get("messageId")).longValue();
+                // enqueue 모드에서 아직 커밋되지 않은 메시지라면 읽음 기록(외래 키) 전에 커밋을 기다림
+                server.getMessagePersistenceQueue().awaitPersisted(messageIdToRead);
+                Message readMsg = messageStore.getMessageById(messageIdToRead);
+                if (readMsg == null || !isParticipant(readMsg.getRoomId())) {
+                    response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "Not a participant of this chat room", null);
+                    sendResponse(response);
+                    break;
+                }
+                int readStatus = messageStore.markMessageAsReadStatus(messageIdToRead, this.userId);
 
                 if (readStatus == 1) {
                     responseData.put("messageId", messageIdToRead);
                     response = new ServerResponse(ServerResponse.ResponseType.MESSAGE_READ_CONFIRM, true, "Message marked as read", responseData);
                     sendResponse(response);
-                    Message readMsg = messageDAO.getMessageById(messageIdToRead);
-                    if (readMsg != null) {
-                        server.updateUnreadCountsForRoom(readMsg.getRoomId());
-                    }
+                    server.getMessageChangeLog().record(readMsg.getRoomId(), messageIdToRead);
+                    server.updateUnreadCountsForRoom(readMsg.getRoomId());
                 } else if (readStatus == 0) {
                     responseData.put("messageId", messageIdToRead);
                     response = new ServerResponse(ServerResponse.ResponseType.MESSAGE_ALREADY_READ, true, "Message was already marked as read", responseData);
@@ -449,13 +551,52 @@ public class ClientHandler implements Runnable {
                 }
                 break;
 
+            case MARK_READ_BATCH:
+                int readRoomId = (int) request.getData().get("roomId");
+                // 참여하지 않은 방의 메시지를 읽음 처리하거나 그 방에 갱신을 퍼뜨리지 못하도록
+                if (!isParticipant(readRoomId)) {
+                    response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "Not a participant of this chat room", null);
+                    sendResponse(response);
+                    break;
+                }
+                List<Long> messageIdsToRead = new ArrayList<>();
+                for (Object id : (List<?>) request.getData().get("messageIds")) {
+                    messageIdsToRead.add(((Number) id).longValue());
+                }
+                for (long id : messageIdsToRead) {
+                    server.getMessagePersistenceQueue().awaitPersisted(id);
+                }
+                int markedCount = messageStore.markMessagesAsRead(readRoomId, messageIdsToRead, this.userId);
+
+                if (markedCount >= 0) {
+                    responseData.put("roomId", readRoomId);
+                    responseData.put("markedCount", markedCount);
+                    response = new ServerResponse(ServerResponse.ResponseType.MESSAGE_READ_CONFIRM, true, "Messages marked as read", responseData);
+                    sendResponse(response);
+                    if (markedCount > 0) {
+                        server.getMessageChangeLog().record(readRoomId, messageIdsToRead);
+                        // 묶음 전체에 대해 읽음 정보 갱신은 한 번만 보냄
+                        server.updateUnreadCountsForRoom(readRoomId);
+                    }
+                } else {
+                    response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "Failed to mark messages as read due to DB error", null);
+                    sendResponse(response);
+                }
+                break;
+
             case INVITE_USER_TO_ROOM:
                 int roomIdToInvite = (int) request.getData().get("roomId");
                 int userIdToInvite = (int) request.getData().get("userId");
                 if (chatRoomDAO.inviteUserToRoom(roomIdToInvite, userIdToInvite)) {
+                    server.getMessageChangeLog().invalidateRoom(roomIdToInvite); // 참여자 수가 바뀌어 모든 메시지의 안 읽은 수가 달라짐
                     response = new ServerResponse(ServerResponse.ResponseType.SUCCESS, true, "User invited to room", null);
                     sendResponse(response);
 
+                    ClientHandler invitedHandler = server.getConnectedClients().get(userIdToInvite);
+                    if (invitedHandler != null) {
+                        invitedHandler.sendRoomAdded(roomIdToInvite);
+                    }
+
                     User invitedUser = userDAO.getUserByUserId(userIdToInvite);
                     if (invitedUser != null) {
                         String inviteMessageContent = invitedUser.getNickname() + " 님이 입장했습니다.";
@@ -463,16 +604,15 @@ public class ClientHandler implements Runnable {
                         server.broadcastMessageToRoom(inviteSystemMessage, server.getSystemUserId());
                     }
 
-                    ClientHandler invitedHandler = server.getConnectedClients().get(userIdToInvite);
                     if (invitedHandler != null) {
-                        invitedHandler.sendChatRoomList();
-                        List<Message> previousMessages = messageDAO.getMessagesInRoom(roomIdToInvite);
+                        List<Message> previousMessages = messageStore.getMessagesInRoom(roomIdToInvite);
                         for (Message msg : previousMessages) {
-                            List<User> readers = messageDAO.getReadersForMessage(msg.getMessageId());
+                            List<User> readers = messageStore.getReadersForMessage(msg.getMessageId());
                             msg.setReaders(readers);
                             int totalParticipants = chatRoomDAO.getParticipantsInRoom(roomIdToInvite).size();
                             msg.setUnreadCount(totalParticipants - readers.size());
                         }
+                        server.getThumbnailService().applyTo(previousMessages);
                         Map<String, Object> roomMessagesData = new HashMap<>();
                         roomMessagesData.put("roomId", roomIdToInvite);
                         roomMessagesData.put("messages", previousMessages);
@@ -486,13 +626,14 @@ public class ClientHandler implements Runnable {
                 break;
 
             case MARK_AS_NOTICE:
-                int messageIdToMark = (int) request.getData().get("messageId");
+                long messageIdToMark = ((Number) request.getData().get("messageId")).longValue();
                 boolean markAsNotice = (boolean) request.getData().get("isNotice");
                 // LocalDateTime 처리: 클라이언트에서 LocalDateTime 객체로 보낼 것.
                 LocalDateTime expiryTime = (LocalDateTime) request.getData().get("expiryTime");
                 int roomIdForNotice = (int) request.getData().get("roomId");
 
-                if (messageDAO.updateMessageNoticeStatus(messageIdToMark, markAsNotice, expiryTime)) {
+                if (messageStore.updateMessageNoticeStatus(messageIdToMark, markAsNotice, expiryTime)) {
+                    server.getMessageChangeLog().record(roomIdForNotice, messageIdToMark);
                     responseData.put("messageId", messageIdToMark);
                     responseData.put("isNotice", markAsNotice);
                     responseData.put("roomId", roomIdForNotice);
@@ -514,7 +655,7 @@ public class ClientHandler implements Runnable {
 
             case GET_NOTICE_MESSAGES:
                 int noticeRoomId = (int) request.getData().get("roomId");
-                List<Message> noticeMessages = messageDAO.getNoticeMessagesInRoom(noticeRoomId);
+                List<Message> noticeMessages = messageStore.getNoticeMessagesInRoom(noticeRoomId);
                 responseData.put("noticeMessages", noticeMessages);
                 response = new ServerResponse(ServerResponse.ResponseType.NOTICE_LIST_UPDATE, true, "Notice messages loaded", responseData);
                 sendResponse(response);
@@ -525,9 +666,18 @@ public class ClientHandler implements Runnable {
                     String fileName = (String) request.getData().get("fileName");
                     byte[] fileBytes = (byte[]) request.getData().get("fileBytes");
                     int roomIdForFile = (int) request.getData().get("roomId");
-                    String filePath = "server_uploads/" + fileName;
-
-                    Files.write(Paths.get(filePath), fileBytes);
+                    FileTransferEvent uploadEvent = new FileTransferEvent();
+                    uploadEvent.begin();
+                    String filePath = server.getAttachmentStorage().store(fileName, fileBytes);
+                    uploadEvent.end();
+                    if (uploadEvent.shouldCommit()) {
+                        uploadEvent.direction = FileTransferEvent.UPLOAD;
+                        uploadEvent.filePath = filePath;
+                        uploadEvent.bytes = fileBytes.length;
+                        uploadEvent.roomId = roomIdForFile;
+                        uploadEvent.userId = this.userId;
+                        uploadEvent.commit();
+                    }
 
                     User senderFile = userDAO.getUserByUserId(this.userId);
                     if (senderFile == null) {
@@ -537,11 +687,16 @@ public class ClientHandler implements Runnable {
                     }
                     Message fileMessage = new Message(roomIdForFile, this.userId, senderFile.getNickname(),
                             MessageType.FILE, filePath, false);
-                    server.broadcastMessageToRoom(fileMessage, this.userId);
+                    Message savedFileMessage = server.broadcastMessageToRoom(fileMessage, this.userId);
+                    if (savedFileMessage != null) {
+                        server.getAttachmentStorage().recordUpload(filePath, roomIdForFile, this.userId, fileBytes.length);
+                    }
+                    // 메시지 저장이 끝난 뒤 이미지라면 백그라운드에서 썸네일 생성
+                    server.getThumbnailService().submit(savedFileMessage, filePath);
 
                     response = new ServerResponse(ServerResponse.ResponseType.FILE_UPLOAD_SUCCESS, true, "File uploaded successfully", null);
                 } catch (IOException e) {
-                    System.err.println("File upload failed: " + e.getMessage());
+                    log.error("File upload failed: {}", e.getMessage());
                     response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "File upload failed: " + e.getMessage(), null);
                 }
                 sendResponse(response);
@@ -550,22 +705,72 @@ public class ClientHandler implements Runnable {
             case DOWNLOAD_FILE:
                 try {
                     String filePath = (String) request.getData().get("filePath");
-                    File file = new File(filePath);
-                    if (file.exists()) {
-                        byte[] fileBytes = Files.readAllBytes(file.toPath());
-                        responseData.put("fileName", file.getName());
-                        responseData.put("fileBytes", fileBytes);
-                        response = new ServerResponse(ServerResponse.ResponseType.FILE_DOWNLOAD_SUCCESS, true, "File downloaded successfully", responseData);
+                    String ifNoneMatch = (String) request.getData().get("ifNoneMatch");
+                    AttachmentStorage attachmentStorage = server.getAttachmentStorage();
+                    FileTransferEvent downloadEvent = new FileTransferEvent();
+                    downloadEvent.begin();
+                    String contentHash = attachmentStorage.isManagedPath(filePath) ? attachmentStorage.contentHash(filePath) : null;
+                    if (contentHash != null) {
+                        responseData.put("filePath", filePath);
+                        responseData.put("fileName", new File(filePath).getName());
+                        responseData.put("contentHash", contentHash);
+                        if (contentHash.equals(ifNoneMatch)) {
+                            // 클라이언트 캐시에 같은 내용이 있으므로 파일 본문은 보내지 않음
+                            response = new ServerResponse(ServerResponse.ResponseType.FILE_NOT_MODIFIED, true, "File not modified", responseData);
+                            downloadEvent.notModified = true;
+                        } else {
+                            // 콜드 티어로 옮겨진 파일은 압축을 풀어서 전송
+                            byte[] fileBytes = attachmentStorage.read(filePath);
+                            responseData.put("fileBytes", fileBytes);
+                            response = new ServerResponse(ServerResponse.ResponseType.FILE_DOWNLOAD_SUCCESS, true, "File downloaded successfully", responseData);
+                            downloadEvent.bytes = fileBytes.length;
+                        }
+                        downloadEvent.end();
+                        if (downloadEvent.shouldCommit()) {
+                            downloadEvent.direction = FileTransferEvent.DOWNLOAD;
+                            downloadEvent.filePath = filePath;
+                            downloadEvent.userId = this.userId;
+                            downloadEvent.commit();
+                        }
                     } else {
                         response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "File not found on server", null);
                     }
                 } catch (IOException e) {
-                    System.err.println("File download failed: " + e.getMessage());
+                    log.error("File download failed: {}", e.getMessage());
                     response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "File download failed: " + e.getMessage(), null);
                 }
                 sendResponse(response);
                 break;
 
+            case DOWNLOAD_THUMBNAIL:
+                try {
+                    String thumbnailId = (String) request.getData().get("thumbnailId");
+                    byte[] thumbnailBytes = server.getThumbnailService().readThumbnail(thumbnailId);
+                    responseData.put("roomId", request.getData().get("roomId"));
+                    responseData.put("thumbnailId", thumbnailId);
+                    responseData.put("thumbnailBytes", thumbnailBytes);
+                    // 미리보기는 백그라운드 요청이므로 실패해도 FAIL(오류 팝업) 대신 success=false로 응답
+                    response = new ServerResponse(ServerResponse.ResponseType.THUMBNAIL_DOWNLOAD_SUCCESS, thumbnailBytes != null,
+                            thumbnailBytes != null ? "Thumbnail downloaded" : "Thumbnail not found on server", responseData);
+                } catch (IOException e) {
+                    log.error("Thumbnail download failed: {}", e.getMessage());
+                    response = new ServerResponse(ServerResponse.ResponseType.THUMBNAIL_DOWNLOAD_SUCCESS, false, "Thumbnail download failed: " + e.getMessage(), responseData);
+                }
+                sendResponse(response);
+                break;
+
+            case GET_STORAGE_USAGE:
+                responseData.put("userId", this.userId);
+                responseData.put("userBytes", server.getAttachmentStorage().getUserUsage(this.userId));
+                Integer usageRoomId = (Integer) request.getData().get("roomId");
+                if (usageRoomId != null && isParticipant(usageRoomId)) {
+                    responseData.put("roomId", usageRoomId);
+                    responseData.put("roomBytes", server.getAttachmentStorage().getRoomUsage(usageRoomId));
+                }
+                response = new ServerResponse(ServerResponse.ResponseType.STORAGE_USAGE, true, "Storage usage loaded", responseData);
+                sendResponse(response);
+                break;
+
             case SET_AWAY_STATUS:
                 boolean isAway = (boolean) request.getData().get("isAway");
                 UserStatus newStatus = isAway ? UserStatus.AWAY : UserStatus.ONLINE;
@@ -624,11 +829,12 @@ public class ClientHandler implements Runnable {
 
                 success = chatRoomDAO.leaveChatRoom(roomIdToLeave, this.userId);
                 if (success) {
+                    server.getMessageChangeLog().invalidateRoom(roomIdToLeave); // 참여자 수가 바뀌어 모든 메시지의 안 읽은 수가 달라짐
                     response = new ServerResponse(ServerResponse.ResponseType.SUCCESS, true, "Left chat room successfully.", null);
                     sendResponse(response);
 
                     server.notifyRoomParticipantsOfRoomUpdate(roomIdToLeave);
-                    sendChatRoomList();
+                    sendRoomRemoved(roomIdToLeave);
                 } else {
                     response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "Failed to leave chat room.", null);
                 }
@@ -637,9 +843,9 @@ public class ClientHandler implements Runnable {
 
             case RESEND_NOTIFICATION:
                 int renotifyRoomId = (int) request.getData().get("roomId"); // 원본 메시지가 있는 채팅방 ID
-                int renotifyMessageId = (int) request.getData().get("messageId"); // 원본 메시지 ID
+                long renotifyMessageId = ((Number) request.getData().get("messageId")).longValue(); // 원본 메시지 ID
 
-                Message originalMessage = messageDAO.getMessageById(renotifyMessageId); // 원본 메시지 조회
+                Message originalMessage = messageStore.getMessageById(renotifyMessageId); // 원본 메시지 조회
                 if (originalMessage == null) {
                     response = new ServerResponse(ServerResponse.ResponseType.FAIL, false, "원본 메시지를 찾을 수 없습니다.", null);
                     sendResponse(response);
@@ -665,7 +871,7 @@ public class ClientHandler implements Runnable {
 
                 for (User participant : roomParticipants) {
                     // 재알림 요청자이거나, 이미 메시지를 읽은 사용자에게는 알림을 보내지 않습니다.
-                    if (participant.getUserId() == this.userId || messageDAO.isMessageReadByUser(originalMessage.getMessageId(), participant.getUserId())) {
+                    if (participant.getUserId() == this.userId || messageStore.isMessageReadByUser(originalMessage.getMessageId(), participant.getUserId())) {
                         continue;
                     }
 
@@ -704,7 +910,7 @@ public class ClientHandler implements Runnable {
                     sendResponse(response);
                     break;
                 }
-                List<Message> systemChatMessages = messageDAO.getMessagesInRoom(systemRoom.getRoomId());
+                List<Message> systemChatMessages = messageStore.getMessagesInRoom(systemRoom.getRoomId());
 
                 responseData.put("messages", systemChatMessages);
                 responseData.put("unreadRoomId", systemRoom.getRoomId());
@@ -713,14 +919,15 @@ public class ClientHandler implements Runnable {
                 break;
 
             case CLEAR_EXPIRED_NOTICES: // 새로운 요청 타입 처리
-            // messageDAO.clearExpiredNotices()는 이제 Set<Integer>를 반환함
-            Set<Integer> affectedRoomIds = messageDAO.clearExpiredNotices(); // int clearedCount 대신 Set<Integer>로 받음
-            System.out.println("Cleared notices in rooms: " + affectedRoomIds);
+            // messageStore.clearExpiredNotices()는 이제 Set<Integer>를 반환함
+            Set<Integer> affectedRoomIds = messageStore.clearExpiredNotices(); // int clearedCount 대신 Set<Integer>로 받음
+            log.info("Cleared notices in rooms: {}", affectedRoomIds);
 
             // 만료된 공지가 정리된 각 방의 클라이언트에게 공지 목록 업데이트 알림을 보냄
             // (ChatServer의 clearExpiredNotices 로직과 동일하게 동작하도록 복사)
             if (!affectedRoomIds.isEmpty()) {
                 for (int roomId : affectedRoomIds) {
+                    server.getMessageChangeLog().invalidateRoom(roomId);
                     List<User> participantsInRoom = chatRoomDAO.getParticipantsInRoom(roomId);
                     for (User participant : participantsInRoom) {
                         ClientHandler handler = server.getConnectedClients().get(participant.getUserId());
@@ -820,14 +1027,120 @@ public class ClientHandler implements Runnable {
         }
     }
 
-    public synchronized void sendResponse(ServerResponse response) {
+    public void sendResponse(ServerResponse response) {
+        if (!response.isSuccess() && Thread.currentThread() == readerThread) {
+            requestFailed = true;
+        }
+        pendingWrites.incrementAndGet();
+        try {
+            writeResponse(response);
+        } finally {
+            pendingWrites.decrementAndGet();
+        }
+    }
+
+    private synchronized void writeResponse(ServerResponse response) {
+        writeStartedNanos = System.nanoTime();
         try {
+            long before = countingOut.getCount();
             out.writeObject(response);
             out.flush();
+            long bytes = countingOut.getCount() - before;
+            bytesSent += bytes;
+            MetricsRegistry.get().recordResponse(response.getType(), bytes);
         } catch (IOException e) {
-            System.err.println("Error sending response to client " + userId + ": " + e.getMessage());
+            log.error("Error sending response to client {}: {}", userId, e.getMessage());
             server.removeClient(userId);
+        } finally {
+            writeStartedNanos = 0;
+        }
+    }
+
+    /**
+     * 로그인 직후 화면에 필요한 정보(사용자, 친구와 접속 상태, 안 읽은 수가 채워진 채팅방 목록, 시스템 채팅방 ID)를
+     * BOOTSTRAP 응답 하나로 보냅니다.
+     * 세 조회는 서로 의존하지 않으므로 가상 스레드에서 동시에 실행합니다. 로그인 시간은 조회 시간의 합이 아니라 가장 느린 조회에 가깝습니다.
+     * 하나라도 실패하면(빈 목록과 구분되도록 예외를 던지는 DAO 조회를 씀) 끝나는 순서와 관계없이 바로 나머지를 취소하고,
+     * 취소한 조회가 끝난 뒤 FAIL을 보냅니다.
+     * @return BOOTSTRAP을 보냈으면 true
+     */
+    private boolean sendBootstrap(User user) {
+        int systemUserId = server.getSystemUserId();
+        List<User> friends = null;
+        List<ChatRoom> chatRooms = null;
+        ChatRoom systemChatRoom = null;
+        Throwable failure = null;
+        // close()가 모든 조회가 끝날 때까지 기다리므로, 실패 후 취소한 조회도 BOOTSTRAP/FAIL 응답보다 늦게 DB를 건드리지 않음
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<List<User>> friendsTask = query(() -> userDAO.loadFriends(userId), executor);
+            CompletableFuture<List<ChatRoom>> chatRoomsTask = query(() -> chatRoomDAO.loadChatRoomsByUserId(userId), executor);
+            CompletableFuture<ChatRoom> systemChatRoomTask = query(() ->
+                    userId != systemUserId ? chatRoomDAO.loadOrCreateSystemChatRoomForUser(userId, systemUserId) : null, executor);
+            // 모두 끝나거나, 먼저 하나가 실패하면 깨어남
+            CompletableFuture<Object> firstFailure = new CompletableFuture<>();
+            for (CompletableFuture<?> task : List.of(friendsTask, chatRoomsTask, systemChatRoomTask)) {
+                task.whenComplete((result, error) -> {
+                    if (error != null) {
+                        firstFailure.completeExceptionally(error);
+                    }
+                });
+            }
+            try {
+                CompletableFuture.anyOf(CompletableFuture.allOf(friendsTask, chatRoomsTask, systemChatRoomTask), firstFailure).get();
+                friends = friendsTask.join();
+                chatRooms = chatRoomsTask.join();
+                systemChatRoom = systemChatRoomTask.join();
+            } catch (ExecutionException e) {
+                executor.shutdownNow(); // 아직 실행 중인 조회를 중단 (close()가 중단된 조회가 끝나기를 기다림)
+                failure = e.getCause();
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (failure != null) {
+            log.error("Failed to build bootstrap for user {}: {}", userId, failure.toString());
+            sendResponse(new ServerResponse(ServerResponse.ResponseType.FAIL, false, "Failed to load initial data. Please log in again.", null));
+            return false;
+        }
+
+        int systemRoomId = systemChatRoom != null ? systemChatRoom.getRoomId() : -1;
+        if (systemRoomId != -1 && chatRooms.stream().noneMatch(room -> room.getRoomId() == systemRoomId)) {
+            // 목록 조회와 동시에 시스템 채팅방이 처음 만들어진 경우
+            ChatRoom createdRoom = chatRoomDAO.getChatRoomForUser(systemRoomId, userId);
+            if (createdRoom != null) {
+                chatRooms.add(0, createdRoom);
+            }
         }
+        synchronized (roomIdsLock) {
+            roomIds = chatRooms.stream().map(ChatRoom::getRoomId).collect(Collectors.toUnmodifiableSet());
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("user", user);
+        data.put("friends", friends);
+        data.put("chatRooms", chatRooms);
+        data.put("systemRoomId", systemRoomId);
+        sendResponse(new ServerResponse(ServerResponse.ResponseType.BOOTSTRAP, true, "Login successful", data));
+        return true;
+    }
+
+    // 이 사용자가 채팅방의 참여자인지 DB에서 확인
+    private boolean isParticipant(int roomId) {
+        return chatRoomDAO.getParticipantsInRoom(roomId).stream()
+                .anyMatch(participant -> participant.getUserId() == this.userId);
+    }
+
+    // 예외를 던지는 DAO 조회를 executor에서 실행. 실패하면 그 예외(SQLException 등)로 완료됨
+    private static <T> CompletableFuture<T> query(Callable<T> query, ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return query.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
     }
 
     private void sendFriendList() {
@@ -840,22 +1153,141 @@ public class ClientHandler implements Runnable {
     public void sendChatRoomList() {
         if (this.userId != -1) {
             List<ChatRoom> chatRooms = chatRoomDAO.getChatRoomsByUserId(this.userId);
+            synchronized (roomIdsLock) {
+                roomIds = chatRooms.stream().map(ChatRoom::getRoomId).collect(Collectors.toUnmodifiableSet());
+            }
             Map<String, Object> data = new HashMap<>();
             data.put("chatRooms", chatRooms);
             sendResponse(new ServerResponse(ServerResponse.ResponseType.CHAT_ROOMS_UPDATE, true, "Chat room list updated", data));
         } else {
-            System.err.println("Attempted to send chat room list for unauthenticated user.");
+            log.warn("Attempted to send chat room list for unauthenticated user.");
             sendResponse(new ServerResponse(ServerResponse.ResponseType.CHAT_ROOMS_UPDATE, false, "Not authenticated to get chat rooms.", new HashMap<>()));
         }
     }
 
+    /**
+     * 채팅방 하나를 클라이언트 목록에 추가합니다. (생성, 초대)
+     * 목록 전체 대신 그 방만 보냅니다. 이미 목록에 있으면 클라이언트가 항목을 바꿉니다.
+     */
+    public void sendRoomAdded(int roomId) {
+        if (this.userId == -1) {
+            return;
+        }
+        ChatRoom room = chatRoomDAO.getChatRoomForUser(roomId, this.userId);
+        if (room == null) {
+            log.warn("Room {} not found while sending ROOM_ADDED to user {}", roomId, userId);
+            return;
+        }
+        synchronized (roomIdsLock) {
+            Set<Integer> updated = new HashSet<>(roomIds);
+            updated.add(roomId);
+            roomIds = Set.copyOf(updated);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("chatRoom", room);
+        sendResponse(new ServerResponse(ServerResponse.ResponseType.ROOM_ADDED, true, "Chat room added", data));
+    }
+
+    /**
+     * 채팅방 하나를 클라이언트 목록에서 뺍니다. (나가기)
+     */
+    public void sendRoomRemoved(int roomId) {
+        synchronized (roomIdsLock) {
+            Set<Integer> updated = new HashSet<>(roomIds);
+            updated.remove(roomId);
+            roomIds = Set.copyOf(updated);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", roomId);
+        sendResponse(new ServerResponse(ServerResponse.ResponseType.ROOM_REMOVED, true, "Chat room removed", data));
+    }
+
+    /**
+     * 참여자가 바뀐 채팅방의 이름과 참여자만 보냅니다. 목록 순서와 안 읽은 수는 클라이언트 값을 그대로 둡니다.
+     * @param room 참여자가 채워진 채팅방 (DB에 저장된 이름, 1:1 방 이름은 사용자마다 여기서 붙임)
+     */
+    public void sendRoomUpdated(ChatRoom room) {
+        if (this.userId == -1) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", room.getRoomId());
+        data.put("roomName", ChatRoomDAO.displayRoomName(room.getRoomName(), room.isGroupChat(), room.getParticipants(), this.userId));
+        data.put("participants", room.getParticipants());
+        sendResponse(new ServerResponse(ServerResponse.ResponseType.ROOM_UPDATED, true, "Chat room updated", data));
+    }
+
+    // 메시지마다 읽은 사용자와 안 읽은 수, 썸네일 정보를 채움
+    private void applyReadInfo(int roomId, List<Message> messages) {
+        int totalParticipants = chatRoomDAO.getParticipantsInRoom(roomId).size();
+        for (Message msg : messages) {
+            List<User> readers = messageStore.getReadersForMessage(msg.getMessageId());
+            msg.setReaders(readers);
+            msg.setUnreadCount(totalParticipants - readers.size());
+        }
+        server.getThumbnailService().applyTo(messages);
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getRemoteAddress() {
+        return String.valueOf(clientSocket.getRemoteSocketAddress());
+    }
+
+    public long getConnectedAtMillis() {
+        return connectedAtMillis;
+    }
+
+    public long getRequestsHandled() {
+        return requestsHandled;
+    }
+
+    public long getLastRequestAtMillis() {
+        return lastRequestAtMillis;
+    }
+
+    /**
+     * 처리 중인 요청 종류, 처리 중이 아니면 null
+     */
+    public ClientRequest.RequestType getCurrentRequestType() {
+        return currentRequestType;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * 소켓에 쓰는 중이거나 쓰기를 기다리는 응답 수 (느린 클라이언트에 대한 출력 적체)
+     */
+    public int getPendingWrites() {
+        return pendingWrites.get();
+    }
+
+    /**
+     * 진행 중인 쓰기가 걸린 시간(ms), 쓰는 중이 아니면 0
+     */
+    public long getCurrentWriteMillis() {
+        long started = writeStartedNanos;
+        return started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    /**
+     * 이 사용자가 참여한 채팅방 ID (마지막으로 보낸 채팅방 목록 기준, DB를 조회하지 않음)
+     */
+    public Set<Integer> getRoomIds() {
+        return roomIds;
+    }
+
     private void closeConnection() {
         try {
             if (in != null) in.close();
             if (out != null) out.close();
             if (clientSocket != null) clientSocket.close();
         } catch (IOException e) {
-            System.err.println("Error closing client handler resources: " + e.getMessage());
+            log.error("Error closing client handler resources: {}", e.getMessage());
         }
     }
 
@@ -0,0 +1,541 @@
+// MessageCache.java
+package chat.compi.Controller;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+import chat.compi.Entity.UserStatus;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * 클라이언트 측 메시지 디스크 캐시.
+ * 방마다 client_cache/messages/(서버)/user-(ID)/room-(ID) 아래에 추가 전용 세그먼트 파일(segment-(세대).dat)과
+ * 작은 인덱스(index.properties: 현재 세그먼트, 유효 길이, 레코드 수, 동기화 버전)를 둔다.
+ *
+ * 레코드는 [길이][CRC32][종류][내용] 형식이다. 메시지 레코드는 읽은 사용자를 ID로만 적고, 사용자 정보는
+ * 세그먼트에 처음 나올 때(또는 바뀔 때) 사용자 레코드로 한 번 적는다.
+ * 같은 메시지가 다시 기록되면(읽음, 공지 변경) 뒤의 레코드가 이긴다.
+ * 인덱스의 유효 길이는 레코드를 다 쓴 뒤에 갱신하므로 쓰다 만 꼬리는 다음에 읽을 때 무시된다.
+ * 지난 레코드가 살아 있는 레코드보다 많이 쌓이면 다음 세대 세그먼트로 다시 쓴다.
+ *
+ * 방을 열면 캐시된 기록을 바로 보여 주고, 서버에는 마지막 순번(sinceSeq)과 동기화 버전(syncVersion)을 보내
+ * 그 뒤의 새 메시지와 바뀐 메시지만 받는다 (MessageChangeLog).
+ * 열려 있는 방만 메모리에 올려 두며, 화면이 메시지 객체를 고쳐도 변경 감지가 틀리지 않도록 디스크에 쓴 레코드의 CRC로 비교한다.
+ */
+public class MessageCache {
+    private static final Logger log = Log.get(MessageCache.class);
+
+    private static final String INDEX_FILE_NAME = "index.properties";
+    private static final int FORMAT_VERSION = 1;
+    private static final byte RECORD_USER = 1;
+    private static final byte RECORD_MESSAGE = 2;
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private final File cacheDir;
+    private final Map<Integer, Room> openRooms = new HashMap<>();
+
+    public MessageCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * 기본 위치(client_cache/messages/서버/user-ID)에 캐시를 만듭니다. 서버와 사용자마다 읽음 상태가 다르므로 따로 둡니다.
+     */
+    public static MessageCache createDefault(String serverIp, int serverPort, int userId) {
+        String server = (serverIp + "_" + serverPort).replaceAll("[^A-Za-z0-9._-]", "_");
+        return new MessageCache(new File(new File(new File("client_cache", "messages"), server), "user-" + userId));
+    }
+
+    /**
+     * 방의 캐시를 메모리에 올리고 캐시된 메시지를 방별 순번 순서로 반환합니다. (이미 열려 있으면 그대로 반환)
+     */
+    public synchronized List<Message> open(int roomId) {
+        Room room = openRooms.get(roomId);
+        if (room == null) {
+            room = load(roomId);
+            openRooms.put(roomId, room);
+        }
+        return room.messages();
+    }
+
+    /**
+     * 방의 메모리 상태를 내려놓습니다. 디스크 캐시는 그대로 남습니다.
+     */
+    public synchronized void close(int roomId) {
+        openRooms.remove(roomId);
+    }
+
+    /**
+     * 캐시에 있는 마지막 방별 순번 (동기화 요청의 sinceSeq). 방이 열려 있지 않거나 비어 있으면 0
+     */
+    public synchronized long getLastRoomSeq(int roomId) {
+        Room room = openRooms.get(roomId);
+        return room != null ? room.lastRoomSeq : 0;
+    }
+
+    /**
+     * 캐시 내용이 반영하고 있는 서버 변경 기록 버전 (동기화 요청의 syncVersion). 받은 적이 없으면 0
+     */
+    public synchronized long getSyncVersion(int roomId) {
+        Room room = openRooms.get(roomId);
+        return room != null ? room.syncVersion : 0;
+    }
+
+    /**
+     * 동기화 응답을 캐시에 반영하고 방의 전체 메시지 목록을 반환합니다.
+     * @param messages 새 메시지 (changedMessages가 null이면 방의 전체 목록)
+     * @param changedMessages 캐시에 있던 메시지 중 바뀐 메시지, 전체 목록 응답이면 null
+     * @param syncVersion 서버가 알려준 변경 기록 버전
+     */
+    public synchronized List<Message> applySync(int roomId, List<Message> messages, List<Message> changedMessages, long syncVersion) {
+        Room room = openRooms.get(roomId);
+        if (room == null) {
+            room = load(roomId); // 응답이 오기 전에 방을 닫았으면 디스크에만 반영
+        }
+        if (changedMessages == null) {
+            room.clear();
+            room.syncVersion = syncVersion;
+            rewrite(room, room.putAll(messages));
+        } else {
+            List<Encoded> dirty = room.putAll(changedMessages);
+            dirty.addAll(room.putAll(messages));
+            room.syncVersion = syncVersion;
+            append(room, dirty);
+        }
+        return room.messages();
+    }
+
+    /**
+     * 서버가 보낸 방의 전체 목록(읽음 정보 갱신 등)으로 열려 있는 방의 캐시를 갱신합니다.
+     * 동기화 버전은 그대로 두므로, 다음 동기화에서 이미 반영한 변경을 다시 받을 수는 있어도 놓치지는 않습니다.
+     */
+    public synchronized void update(int roomId, List<Message> messages) {
+        Room room = openRooms.get(roomId);
+        if (room == null || messages == null) {
+            return;
+        }
+        List<Encoded> dirty = room.putAll(messages);
+        if (!dirty.isEmpty()) {
+            append(room, dirty);
+        }
+    }
+
+    private Room load(int roomId) {
+        Room room = new Room(new File(cacheDir, "room-" + roomId));
+        File indexFile = new File(room.dir, INDEX_FILE_NAME);
+        if (!indexFile.exists()) {
+            return room;
+        }
+        Properties index = new Properties();
+        try (InputStream input = new FileInputStream(indexFile)) {
+            index.load(input);
+        } catch (IOException e) {
+            log.error("Error loading message cache index for room {}: {}", roomId, e.getMessage());
+            return room;
+        }
+        if (Integer.parseInt(index.getProperty("format", "0")) != FORMAT_VERSION) {
+            return room; // 형식이 바뀌었으면 처음부터 다시 받음
+        }
+        room.generation = Integer.parseInt(index.getProperty("segment", "0"));
+        room.syncVersion = Long.parseLong(index.getProperty("syncVersion", "0"));
+        long validBytes = Long.parseLong(index.getProperty("validBytes", "0"));
+
+        Map<Message, int[]> readerIds = new HashMap<>(); // 사용자 레코드를 다 읽은 뒤 한 번에 연결
+        long position = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(room.segmentFile())))) {
+            while (position < validBytes) {
+                int length = input.readInt();
+                int crc = input.readInt();
+                // 길이가 깨졌으면 CRC를 확인하기 전에 엉뚱한 크기의 배열을 만들게 되므로, 색인이 가리키는 범위 안인지 먼저 확인
+                if (length < 1 || position + 8 + length > validBytes) {
+                    log.warn("Corrupt message cache record length {} in room {} at {}. Ignoring the rest.", length, roomId, position);
+                    room.syncVersion = 0;
+                    break;
+                }
+                byte[] payload = new byte[length];
+                input.readFully(payload);
+                if (crc(payload) != crc) {
+                    log.warn("Corrupt message cache record in room {} at {}. Ignoring the rest.", roomId, position);
+                    room.syncVersion = 0; // 뒤쪽 변경을 잃었을 수 있으므로 다음 동기화는 전체 목록으로
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                if (record.readByte() == RECORD_USER) {
+                    User user = decodeUser(record);
+                    room.users.put(user.getUserId(), user);
+                } else {
+                    Message message = decodeMessage(record, readerIds);
+                    room.put(message, crc);
+                    room.records++;
+                }
+                position += 8 + length;
+            }
+        } catch (EOFException e) {
+            log.warn("Message cache segment for room {} is shorter than its index. Ignoring the rest.", roomId);
+            room.syncVersion = 0;
+        } catch (IOException | RuntimeException e) {
+            log.error("Error reading message cache for room {}: {}", roomId, e.getMessage());
+            room.clear();
+            room.syncVersion = 0;
+            return room;
+        }
+        for (Entry entry : room.byId.values()) {
+            int[] ids = readerIds.get(entry.message);
+            List<User> readers = new ArrayList<>(ids.length);
+            for (int userId : ids) {
+                readers.add(room.users.computeIfAbsent(userId, id -> new User(id, null, null, null)));
+            }
+            entry.message.setReaders(readers);
+        }
+        room.validBytes = position;
+        return room;
+    }
+
+    private void append(Room room, List<Encoded> dirty) {
+        if (dirty.isEmpty()) {
+            saveIndex(room); // 동기화 버전만 바뀜
+            return;
+        }
+        if (room.records + dirty.size() > Math.max(COMPACT_MIN_RECORDS, 2 * room.byId.size())) {
+            rewrite(room, room.encodeAll()); // 지난 레코드가 더 많으면 살아 있는 레코드만 새 세그먼트로
+            return;
+        }
+        try {
+            room.dir.mkdirs();
+            byte[] records = writeRecords(room, dirty);
+            try (RandomAccessFile file = new RandomAccessFile(room.segmentFile(), "rw")) {
+                file.setLength(room.validBytes); // 지난번에 쓰다 만 꼬리 제거
+                file.seek(room.validBytes);
+                file.write(records);
+            }
+            room.validBytes += records.length;
+            room.records += dirty.size();
+            saveIndex(room);
+        } catch (IOException e) {
+            log.error("Error writing message cache for room {}: {}", room.dir.getName(), e.getMessage());
+        }
+    }
+
+    // live는 방의 살아 있는 메시지 전부
+    private void rewrite(Room room, List<Encoded> live) {
+        File oldSegment = room.segmentFile();
+        room.generation++;
+        room.users.clear(); // 새 세그먼트에는 사용자 레코드를 다시 적음
+        try {
+            room.dir.mkdirs();
+            byte[] records = writeRecords(room, live);
+            try (OutputStream output = new FileOutputStream(room.segmentFile())) {
+                output.write(records);
+            }
+            room.validBytes = records.length;
+            room.records = live.size();
+            saveIndex(room);
+            oldSegment.delete();
+        } catch (IOException e) {
+            log.error("Error rewriting message cache for room {}: {}", room.dir.getName(), e.getMessage());
+        }
+    }
+
+    private void saveIndex(Room room) {
+        Properties index = new Properties();
+        index.setProperty("format", String.valueOf(FORMAT_VERSION));
+        index.setProperty("segment", String.valueOf(room.generation));
+        index.setProperty("validBytes", String.valueOf(room.validBytes));
+        index.setProperty("records", String.valueOf(room.records));
+        index.setProperty("syncVersion", String.valueOf(room.syncVersion));
+        room.dir.mkdirs();
+        File tempFile = new File(room.dir, INDEX_FILE_NAME + ".tmp");
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            index.store(output, "message cache segment index");
+        } catch (IOException e) {
+            log.error("Error saving message cache index: {}", e.getMessage());
+            return;
+        }
+        File indexFile = new File(room.dir, INDEX_FILE_NAME);
+        if (!tempFile.renameTo(indexFile)) { // 일부 OS는 덮어쓰는 rename을 허용하지 않음
+            indexFile.delete();
+            tempFile.renameTo(indexFile);
+        }
+    }
+
+    // 메시지 레코드 앞에 세그먼트에 아직 없는(또는 바뀐) 읽은 사용자의 사용자 레코드를 붙여 씀
+    private static byte[] writeRecords(Room room, List<Encoded> messages) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(records);
+        for (Encoded encoded : messages) {
+            if (encoded.message.getReaders() != null) {
+                for (User reader : encoded.message.getReaders()) {
+                    if (!sameUser(room.users.get(reader.getUserId()), reader)) {
+                        writeRecord(output, encodeUser(reader));
+                        room.users.put(reader.getUserId(), reader);
+                    }
+                }
+            }
+            writeRecord(output, encoded.payload);
+        }
+        return records.toByteArray();
+    }
+
+    private static void writeRecord(DataOutputStream output, byte[] payload) throws IOException {
+        output.writeInt(payload.length);
+        output.writeInt(crc(payload));
+        output.write(payload);
+    }
+
+    private static byte[] encodeMessage(Message message) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeByte(RECORD_MESSAGE);
+            output.writeLong(message.getMessageId());
+            output.writeLong(message.getRoomSeq());
+            output.writeInt(message.getRoomId());
+            output.writeInt(message.getSenderId());
+            writeString(output, message.getSenderNickname());
+            writeString(output, message.getMessageType() != null ? message.getMessageType().name() : null);
+            writeString(output, message.getContent());
+            writeTime(output, message.getSentAt());
+            output.writeBoolean(message.isNotice());
+            writeTime(output, message.getNoticeExpiryTime());
+            output.writeInt(message.getUnreadCount());
+            writeString(output, message.getThumbnailId());
+            output.writeInt(message.getThumbnailWidth());
+            output.writeInt(message.getThumbnailHeight());
+            List<User> readers = message.getReaders() != null ? message.getReaders() : List.of();
+            output.writeInt(readers.size());
+            for (User reader : readers) {
+                output.writeInt(reader.getUserId());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream은 IOException을 던지지 않음
+        }
+    }
+
+    private static Message decodeMessage(DataInputStream input, Map<Message, int[]> readerIds) throws IOException {
+        long messageId = input.readLong();
+        long roomSeq = input.readLong();
+        int roomId = input.readInt();
+        int senderId = input.readInt();
+        String senderNickname = readString(input);
+        String messageType = readString(input);
+        String content = readString(input);
+        LocalDateTime sentAt = readTime(input);
+        boolean isNotice = input.readBoolean();
+        LocalDateTime noticeExpiryTime = readTime(input);
+        Message message = new Message(messageId, roomId, senderId, senderNickname,
+                messageType != null ? MessageType.valueOf(messageType) : null, content, sentAt, isNotice, noticeExpiryTime);
+        message.setRoomSeq(roomSeq);
+        message.setUnreadCount(input.readInt());
+        message.setThumbnailId(readString(input));
+        message.setThumbnailWidth(input.readInt());
+        message.setThumbnailHeight(input.readInt());
+        int[] ids = new int[input.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = input.readInt();
+        }
+        readerIds.put(message, ids);
+        return message;
+    }
+
+    private static byte[] encodeUser(User user) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(RECORD_USER);
+        output.writeInt(user.getUserId());
+        writeString(output, user.getUsername());
+        writeString(output, user.getNickname());
+        writeString(output, user.getStatus() != null ? user.getStatus().name() : null);
+        return bytes.toByteArray();
+    }
+
+    private static User decodeUser(DataInputStream input) throws IOException {
+        int userId = input.readInt();
+        String username = readString(input);
+        String nickname = readString(input);
+        String status = readString(input);
+        return new User(userId, username, nickname, status != null ? UserStatus.valueOf(status) : null);
+    }
+
+    // 말풍선에 쓰이는 사용자 정보가 같은지 (접속 상태는 읽음 표시와 무관하므로 비교하지 않음)
+    private static boolean sameUser(User a, User b) {
+        return a != null && Objects.equals(a.getUsername(), b.getUsername()) && Objects.equals(a.getNickname(), b.getNickname());
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    // input은 레코드 하나(바이트 배열)를 읽는 스트림이므로 available()이 남은 바이트 수와 같음
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > input.available()) {
+            throw new IOException("String length " + length + " exceeds the record");
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream output, LocalDateTime time) throws IOException {
+        output.writeBoolean(time != null);
+        if (time != null) {
+            output.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            output.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC);
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 열려 있는 방의 캐시 상태
+     */
+    private static final class Room {
+        private final File dir;
+        private final Map<Long, Entry> byId = new HashMap<>();
+        private final Map<Integer, User> users = new HashMap<>(); // 현재 세그먼트에 사용자 레코드로 적힌 사용자
+        private long lastRoomSeq;
+        private long syncVersion;
+        private int generation;
+        private long validBytes;
+        private int records; // 세그먼트의 전체 메시지 레코드 수 (지난 레코드 포함)
+
+        Room(File dir) {
+            this.dir = dir;
+        }
+
+        File segmentFile() {
+            return new File(dir, "segment-" + generation + ".dat");
+        }
+
+        void put(Message message, int crc) {
+            byId.put(message.getMessageId(), new Entry(message, crc));
+            lastRoomSeq = Math.max(lastRoomSeq, message.getRoomSeq());
+        }
+
+        /**
+         * 캐시와 내용이 다른 메시지만 반영하고, 반영한 메시지(디스크에 새로 쓸 것)를 반환합니다.
+         * 로컬 알림처럼 서버 ID나 순번이 없는 메시지는 캐시하지 않습니다.
+         */
+        List<Encoded> putAll(List<Message> messages) {
+            List<Encoded> dirty = new ArrayList<>();
+            if (messages == null) {
+                return dirty;
+            }
+            for (Message message : messages) {
+                if (message.getMessageId() == 0 || message.getRoomSeq() <= 0) {
+                    continue;
+                }
+                byte[] payload = encodeMessage(message);
+                int crc = crc(payload);
+                Entry cached = byId.get(message.getMessageId());
+                if (cached == null || cached.crc != crc || readersChanged(message)) {
+                    put(message, crc);
+                    dirty.add(new Encoded(message, payload));
+                }
+            }
+            return dirty;
+        }
+
+        // 메시지 레코드에는 사용자 ID만 있으므로 닉네임 변경은 따로 확인
+        private boolean readersChanged(Message message) {
+            if (message.getReaders() != null) {
+                for (User reader : message.getReaders()) {
+                    if (!sameUser(users.get(reader.getUserId()), reader)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        List<Encoded> encodeAll() {
+            List<Encoded> live = new ArrayList<>(byId.size());
+            for (Message message : messages()) {
+                live.add(new Encoded(message, encodeMessage(message)));
+            }
+            return live;
+        }
+
+        void clear() {
+            byId.clear();
+            lastRoomSeq = 0;
+        }
+
+        List<Message> messages() {
+            List<Message> messages = new ArrayList<>(byId.size());
+            for (Entry entry : byId.values()) {
+                messages.add(entry.message);
+            }
+            messages.sort(Comparator.comparingLong(Message::getRoomSeq));
+            return messages;
+        }
+    }
+
+    private static final class Entry {
+        private final Message message;
+        private final int crc; // 디스크에 쓴 메시지 레코드의 CRC (변경 감지용)
+
+        Entry(Message message, int crc) {
+            this.message = message;
+            this.crc = crc;
+        }
+    }
+
+    // 디스크에 쓸 메시지와 인코딩한 레코드 내용 (변경 감지 때 만든 것을 그대로 씀)
+    private static final class Encoded {
+        private final Message message;
+        private final byte[] payload;
+
+        Encoded(Message message, byte[] payload) {
+            this.message = message;
+            this.payload = payload;
+        }
+    }
+}
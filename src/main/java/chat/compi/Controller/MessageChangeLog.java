@@ -0,0 +1,109 @@
+// MessageChangeLog.java
+package chat.compi.Controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 이미 저장된 메시지의 변경(읽음, 공지, 썸네일) 기록.
+ * 클라이언트 메시지 캐시는 마지막으로 받은 버전(syncVersion)을 보내고, 서버는 그 뒤에 바뀐 메시지만 다시 보낸다.
+ * 변경마다 1씩 증가하는 버전과 메시지 ID를 방별로 최근 MAX_CHANGES_PER_ROOM개까지 메모리에 보관한다.
+ *
+ * 버전은 서버 시작 시각(ms) * 1000에서 시작하므로 재시작해도 줄어들지 않는다.
+ * 보관 범위보다 오래된 버전(재시작 전 버전 포함)으로 묻거나 방 전체가 바뀐 경우(참여자 변경 등)에는
+ * changedSince가 null을 돌려 전체 목록을 보내게 한다.
+ */
+public class MessageChangeLog {
+    private static final int MAX_CHANGES_PER_ROOM = 4096;
+
+    private final long startVersion;
+    private long version;
+    private final Map<Integer, RoomChanges> rooms = new HashMap<>();
+
+    public MessageChangeLog() {
+        this(System.currentTimeMillis() * 1000);
+    }
+
+    MessageChangeLog(long startVersion) {
+        this.startVersion = startVersion;
+        this.version = startVersion;
+    }
+
+    /**
+     * 지금까지 기록된 마지막 버전. 메시지를 조회하기 전에 읽어 두면 조회 중의 변경은 다음 동기화에 다시 포함된다.
+     */
+    public synchronized long currentVersion() {
+        return version;
+    }
+
+    /**
+     * 메시지가 바뀌었음을 기록합니다. 저장소에 반영한 뒤에 호출해야 합니다.
+     */
+    public synchronized void record(int roomId, long messageId) {
+        RoomChanges changes = rooms.computeIfAbsent(roomId, id -> new RoomChanges(startVersion));
+        changes.add(++version, messageId);
+    }
+
+    public synchronized void record(int roomId, Collection<Long> messageIds) {
+        for (long messageId : messageIds) {
+            record(roomId, messageId);
+        }
+    }
+
+    /**
+     * 방의 모든 메시지가 바뀐 것으로 봅니다. 이전 버전을 가진 클라이언트는 다음 동기화에서 전체 목록을 받습니다.
+     */
+    public synchronized void invalidateRoom(int roomId) {
+        RoomChanges changes = rooms.computeIfAbsent(roomId, id -> new RoomChanges(startVersion));
+        changes.clear(++version);
+    }
+
+    /**
+     * sinceVersion 뒤에 바뀐 메시지 ID (변경 순서, 중복 없음).
+     * @return 기록이 그 버전까지 거슬러 올라가지 않으면 null (전체 목록을 보내야 함)
+     */
+    public synchronized List<Long> changedSince(int roomId, long sinceVersion) {
+        RoomChanges changes = rooms.get(roomId);
+        long coveredFrom = changes != null ? changes.coveredFrom : startVersion;
+        if (sinceVersion < coveredFrom || sinceVersion > version) {
+            return null;
+        }
+        if (changes == null) {
+            return List.of();
+        }
+        Set<Long> messageIds = new LinkedHashSet<>();
+        for (long[] entry : changes.entries) {
+            if (entry[0] > sinceVersion) {
+                messageIds.add(entry[1]);
+            }
+        }
+        return new ArrayList<>(messageIds);
+    }
+
+    private static final class RoomChanges {
+        private final ArrayDeque<long[]> entries = new ArrayDeque<>(); // {버전, 메시지 ID}
+        private long coveredFrom; // 이 버전 이후의 변경은 모두 entries에 있음
+
+        RoomChanges(long coveredFrom) {
+            this.coveredFrom = coveredFrom;
+        }
+
+        void add(long version, long messageId) {
+            entries.addLast(new long[]{version, messageId});
+            if (entries.size() > MAX_CHANGES_PER_ROOM) {
+                coveredFrom = entries.removeFirst()[0];
+            }
+        }
+
+        void clear(long version) {
+            entries.clear();
+            coveredFrom = version;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+// ReadTracker.java
+package chat.compi.Controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 클라이언트 측 읽음 처리 모음.
+ * 화면에 보인 메시지 ID를 짧은 시간(window) 동안 방별로 모았다가 방마다 MARK_READ_BATCH 요청 하나로 보낸다.
+ * 메시지마다 READ_MESSAGE를 보내면 서버가 요청마다 DB에 쓰고 방 전체의 읽음 정보를 다시 보내므로,
+ * 방을 열거나 메시지가 몰려 올 때 요청과 갱신이 메시지 수만큼 늘어난다.
+ * 이미 보낸 ID는 기억해 두어(최근 SENT_HISTORY개) 서버의 읽음 정보가 돌아오기 전에 다시 보내지 않는다.
+ * 한 요청에는 최대 MAX_IDS_PER_REQUEST개만 담고, 더 많으면 나눠 보낸다.
+ */
+public class ReadTracker {
+    private static final int SENT_HISTORY = 10_000;
+    static final int MAX_IDS_PER_REQUEST = 1000;
+
+    // 모든 클라이언트가 함께 쓰는 타이머 스레드 (전송 자체는 짧은 소켓 쓰기)
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "read-tracker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BiConsumer<Integer, List<Long>> sender;
+    private final long windowMillis;
+    private final Map<Integer, LinkedHashSet<Long>> pending = new HashMap<>(); // 방 ID -> 보낼 메시지 ID
+    private final LinkedHashSet<Long> sent = new LinkedHashSet<>();
+    private boolean flushScheduled;
+
+    /**
+     * @param sender 방 ID와 메시지 ID 목록을 받아 요청을 보내는 함수
+     * @param windowMillis 첫 ID가 들어온 뒤 보내기까지 모으는 시간
+     */
+    public ReadTracker(BiConsumer<Integer, List<Long>> sender, long windowMillis) {
+        this.sender = sender;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 메시지를 읽음으로 표시합니다. 실제 요청은 window가 지난 뒤 방별로 한 번에 나갑니다.
+     */
+    public synchronized void markRead(int roomId, long messageId) {
+        if (sent.contains(messageId)) {
+            return;
+        }
+        if (pending.computeIfAbsent(roomId, id -> new LinkedHashSet<>()).add(messageId) && !flushScheduled) {
+            flushScheduled = true;
+            SCHEDULER.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 모아 둔 읽음 처리를 바로 보냅니다. (연결 종료 전 등)
+     */
+    public void flush() {
+        Map<Integer, List<Long>> batches = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<Integer, LinkedHashSet<Long>> entry : pending.entrySet()) {
+                batches.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+                sent.addAll(entry.getValue());
+            }
+            pending.clear();
+            flushScheduled = false;
+            for (Iterator<Long> oldest = sent.iterator(); sent.size() > SENT_HISTORY; ) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        // 소켓 쓰기는 잠금 밖에서 (화면 스레드의 markRead를 막지 않도록)
+        batches.forEach((roomId, ids) -> {
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_REQUEST) {
+                sender.accept(roomId, ids.subList(from, Math.min(from + MAX_IDS_PER_REQUEST, ids.size())));
+            }
+        });
+    }
+}
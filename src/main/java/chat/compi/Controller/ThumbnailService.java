@@ -0,0 +1,270 @@
+// ThumbnailService.java
+package chat.compi.Controller;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.CacheStats;
+import chat.compi.Metrics.MetricsRegistry;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 업로드된 이미지 첨부파일의 썸네일을 백그라운드에서 생성하는 파이프라인.
+ * UPLOAD_FILE 메시지가 저장된 뒤 제출되며, 제한된 크기의 워커 풀에서 javax.imageio로 축소본을 만든다.
+ * 큐가 가득 차면 작업을 버리고 클라이언트는 기존처럼 다운로드 링크만 표시한다.
+ *
+ * 디코딩 전에 헤더의 가로세로 크기를 확인해, 픽셀 수가 compi.thumbnail.maxPixels(기본 4000만)를 넘는 이미지는
+ * 만들지 않는다 (작은 파일이 거대한 이미지로 풀리는 경우 방지). 큰 이미지는 썸네일 크기의 두 배 정도로 건너뛰며 읽는다.
+ * 메시지별 썸네일 정보는 최근에 쓴 compi.thumbnail.cacheEntries(기본 10000)개만 메모리에 둔다.
+ */
+public class ThumbnailService {
+    private static final Logger log = Log.get(ThumbnailService.class);
+
+    private static final int MAX_EDGE = 240; // 썸네일 긴 변의 최대 픽셀
+    private static final int WORKER_COUNT = 2;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long MAX_PIXELS = Long.getLong("compi.thumbnail.maxPixels", 40_000_000L);
+    private static final int CACHE_ENTRIES = Integer.getInteger("compi.thumbnail.cacheEntries", 10_000);
+    private static final Pattern THUMBNAIL_ID_PATTERN = Pattern.compile("\\d+\\.(jpg|png)");
+    private static final Thumbnail NONE = new Thumbnail(null, 0, 0); // 썸네일이 없는 메시지 (negative cache)
+
+    private final File thumbnailDir;
+    private final ThreadPoolExecutor executor;
+    // messageId -> 썸네일, 접근 순서 LRU (thumbnails로 동기화)
+    private final Map<Long, Thumbnail> thumbnails = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Thumbnail> eldest) {
+            return size() > CACHE_ENTRIES;
+        }
+    };
+    private final CacheStats cacheStats = MetricsRegistry.get().cache("thumbnail.info");
+    private final Consumer<Message> onThumbnailReady;
+
+    public ThumbnailService(File uploadDir, Consumer<Message> onThumbnailReady) {
+        this.thumbnailDir = new File(uploadDir, "thumbnails");
+        if (!thumbnailDir.exists()) {
+            thumbnailDir.mkdirs();
+        }
+        this.onThumbnailReady = onThumbnailReady;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> log.warn("Thumbnail queue is full. Skipping thumbnail generation."));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 저장이 완료된 파일 메시지에 대해 썸네일 생성을 예약합니다.
+     * @param savedMessage DB에 저장된 FILE/IMAGE 메시지 (messageId가 설정되어 있어야 함)
+     * @param filePath 서버에 저장된 원본 파일 경로
+     */
+    public void submit(Message savedMessage, String filePath) {
+        if (savedMessage == null || !isImageFileName(filePath)) {
+            return;
+        }
+        executor.execute(() -> generate(savedMessage, new File(filePath)));
+    }
+
+    private void generate(Message message, File source) {
+        try {
+            BufferedImage original = decode(source);
+            if (original == null) { // ImageIO가 읽을 수 없는 형식이거나 너무 큰 이미지
+                cache(message.getMessageId(), NONE);
+                return;
+            }
+
+            double scale = Math.min(1.0, (double) MAX_EDGE / Math.max(original.getWidth(), original.getHeight()));
+            int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+
+            // 투명도가 있는 이미지는 PNG, 나머지는 JPEG으로 저장
+            boolean hasAlpha = original.getColorModel().hasAlpha();
+            String format = hasAlpha ? "png" : "jpg";
+            BufferedImage scaled = new BufferedImage(width, height, hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = scaled.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2.drawImage(original, 0, 0, width, height, null);
+            g2.dispose();
+
+            String thumbnailId = message.getMessageId() + "." + format;
+            File target = new File(thumbnailDir, thumbnailId);
+            if (!ImageIO.write(scaled, format, target)) {
+                log.error("No ImageIO writer for thumbnail format: {}", format);
+                return;
+            }
+
+            Thumbnail thumbnail = new Thumbnail(thumbnailId, width, height);
+            cache(message.getMessageId(), thumbnail);
+            thumbnail.applyTo(message);
+            log.debug("Generated thumbnail {} ({}x{}) for message {}", thumbnailId, width, height, message.getMessageId());
+            onThumbnailReady.accept(message);
+        } catch (IOException | RuntimeException e) {
+            log.error("Thumbnail generation failed for message {}: {}", message.getMessageId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 메시지 목록의 파일 메시지에 썸네일 정보를 채웁니다.
+     * 메모리에 없으면 디스크의 썸네일 헤더만 읽어 크기를 확인하고 결과를 캐시합니다.
+     * @param messages 클라이언트로 보낼 메시지 목록
+     */
+    public void applyTo(List<Message> messages) {
+        for (Message message : messages) {
+            if (message.getMessageType() != MessageType.FILE && message.getMessageType() != MessageType.IMAGE) {
+                continue;
+            }
+            Thumbnail thumbnail;
+            synchronized (thumbnails) {
+                thumbnail = thumbnails.get(message.getMessageId());
+            }
+            if (thumbnail != null) {
+                cacheStats.hit();
+            } else {
+                cacheStats.miss();
+                thumbnail = loadFromDisk(message.getMessageId()); // 디스크 읽기는 잠금 밖에서
+                cache(message.getMessageId(), thumbnail);
+            }
+            thumbnail.applyTo(message);
+        }
+    }
+
+    private void cache(long messageId, Thumbnail thumbnail) {
+        synchronized (thumbnails) {
+            thumbnails.put(messageId, thumbnail);
+        }
+    }
+
+    // 헤더로 크기를 먼저 확인한 뒤 디코딩. 읽을 수 없거나 MAX_PIXELS를 넘으면 null
+    private BufferedImage decode(File source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if ((long) sourceWidth * sourceHeight > MAX_PIXELS) {
+                    log.warn("Image {} is {}x{}, over {} pixels. Skipping thumbnail.", source.getName(), sourceWidth, sourceHeight, MAX_PIXELS);
+                    return null;
+                }
+                // 썸네일보다 훨씬 큰 이미지는 픽셀을 건너뛰며 읽어 메모리를 줄임 (축소 품질을 위해 두 배 여유)
+                int step = Math.max(1, Math.max(sourceWidth, sourceHeight) / (MAX_EDGE * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Thumbnail loadFromDisk(long messageId) {
+        for (String format : new String[]{"jpg", "png"}) {
+            File file = new File(thumbnailDir, messageId + "." + format);
+            if (!file.exists()) {
+                continue;
+            }
+            try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (readers.hasNext()) {
+                    ImageReader reader = readers.next();
+                    try {
+                        reader.setInput(input);
+                        return new Thumbnail(file.getName(), reader.getWidth(0), reader.getHeight(0));
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Error reading thumbnail header {}: {}", file.getName(), e.getMessage());
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 썸네일 파일의 바이트를 읽습니다.
+     * @param thumbnailId 썸네일 ID (예: 123.jpg)
+     * @return 썸네일 바이트, 잘못된 ID이거나 파일이 없으면 null
+     */
+    public byte[] readThumbnail(String thumbnailId) throws IOException {
+        if (thumbnailId == null || !THUMBNAIL_ID_PATTERN.matcher(thumbnailId).matches()) {
+            return null; // 경로 조작 방지
+        }
+        File file = new File(thumbnailDir, thumbnailId);
+        return file.exists() ? Files.readAllBytes(file.toPath()) : null;
+    }
+
+    ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static boolean isImageFileName(String filePath) {
+        if (filePath == null) {
+            return false;
+        }
+        String lower = filePath.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png")
+                || lower.endsWith(".gif") || lower.endsWith(".bmp");
+    }
+
+    private static class Thumbnail {
+        private final String thumbnailId;
+        private final int width;
+        private final int height;
+
+        Thumbnail(String thumbnailId, int width, int height) {
+            this.thumbnailId = thumbnailId;
+            this.width = width;
+            this.height = height;
+        }
+
+        void applyTo(Message message) {
+            if (thumbnailId == null) {
+                return;
+            }
+            message.setThumbnailId(thumbnailId);
+            message.setThumbnailWidth(width);
+            message.setThumbnailHeight(height);
+        }
+    }
+}
@@ -3,14 +3,18 @@ package chat.compi.DB;
 import chat.compi.Entity.ChatRoom;
 import chat.compi.Entity.User;
 import chat.compi.Entity.UserStatus;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ChatRoomDAO {
+    private static final Logger log = Log.get(ChatRoomDAO.class);
 
     /**
      * 채팅방 생성
@@ -22,7 +26,7 @@ public class ChatRoomDAO {
      */
     public ChatRoom createChatRoom(String roomName, boolean isGroupChat, int creatorId, List<Integer> participantIds) {
         if (!isGroupChat && participantIds.size() != 2) {
-            System.err.println("Error: Private chat room must have exactly 2 participants.");
+            log.error("Error: Private chat room must have exactly 2 participants.");
             return null;
         }
 
@@ -34,7 +38,7 @@ public class ChatRoomDAO {
 
             ChatRoom existingRoom = getExistingPrivateChatRoom(user1Id, user2Id);
             if (existingRoom != null) {
-                System.out.println("Existing private chat room found: " + existingRoom.getRoomName());
+                log.debug("Existing private chat room found: {}", existingRoom.getRoomName());
                 return existingRoom;
             }
             UserDAO userDAO = new UserDAO();
@@ -42,7 +46,7 @@ public class ChatRoomDAO {
             User user2 = userDAO.getUserByUserId(user2Id);
             roomName = "DM: " + (user1 != null ? user1.getNickname() : user1Id) + ", " + (user2 != null ? user2.getNickname() : user2Id);
         } else if (isGroupChat && (roomName == null || roomName.trim().isEmpty())) {
-            System.err.println("Error: Group chat room must have a name.");
+            log.error("Error: Group chat room must have a name.");
             return null;
         }
 
@@ -52,7 +56,7 @@ public class ChatRoomDAO {
 
         Connection conn = null; // 트랜잭션 롤백을 위해 여기서 선언 (finally에서 닫힘)
         try {
-            conn = DatabaseConnection.getConnection(); // 새로운 연결 획득
+            conn = QueryStats.getConnection("ChatRoomDAO.createChatRoom"); // 새로운 연결 획득
             conn.setAutoCommit(false); // 트랜잭션 시작
 
             try (PreparedStatement roomPstmt = conn.prepareStatement(roomSql, Statement.RETURN_GENERATED_KEYS)) {
@@ -100,18 +104,18 @@ public class ChatRoomDAO {
 
             } // roomPstmt 자동 닫힘
         } catch (SQLException e) {
-            System.err.println("Error creating chat room: " + e.getMessage());
+            log.error("Error creating chat room: {}", e.getMessage());
             if (conn != null) {
                 try {
                     conn.rollback(); // 오류 발생 시 롤백
-                    System.err.println("Chat room creation transaction rolled back.");
+                    log.error("Chat room creation transaction rolled back.");
                 } catch (SQLException ex) {
-                    System.err.println("Rollback failed: " + ex.getMessage());
+                    log.error("Rollback failed: {}", ex.getMessage());
                 }
             }
             newRoom = null; // 생성 실패 시 null 반환
         } finally {
-            // 이 conn.close()는 DatabaseConnection.getConnection()이 새 연결을 줄 때만 유효
+            // 이 conn.close()는 QueryStats.getConnection("ChatRoomDAO.createChatRoom")이 새 연결을 줄 때만 유효
             // try-with-resources로 conn을 선언했으면 이 finally 블록은 필요 없음.
             // 현재는 conn을 try 밖에서 선언했으므로 필요.
             if (conn != null) {
@@ -119,7 +123,7 @@ public class ChatRoomDAO {
                     conn.setAutoCommit(true); // 오토커밋 모드 복원 (풀링 사용 시 중요)
                     conn.close(); // 연결 닫기
                 } catch (SQLException e) {
-                    System.err.println("Error closing connection in createChatRoom: " + e.getMessage());
+                    log.error("Error closing connection in createChatRoom: {}", e.getMessage());
                 }
             }
         }
@@ -130,9 +134,23 @@ public class ChatRoomDAO {
      * 특정 2인 간의 1:1 채팅방이 이미 존재하는지 조회
      * @param user1Id 사용자 1 ID
      * @param user2Id 사용자 2 ID
-     * @return 1:1 채팅방 객체 또는 null
+     * @return 1:1 채팅방 객체 또는 null (조회 실패 시에도 null)
      */
     public ChatRoom getExistingPrivateChatRoom(int user1Id, int user2Id) {
+        try {
+            return loadExistingPrivateChatRoom(user1Id, user2Id);
+        } catch (SQLException e) {
+            log.error("Error checking private chat room: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 특정 2인 간의 1:1 채팅방 조회. 없는 것과 조회 실패를 구분합니다.
+     * @return 1:1 채팅방 객체, 없으면 null
+     * @throws SQLException 조회 실패
+     */
+    public ChatRoom loadExistingPrivateChatRoom(int user1Id, int user2Id) throws SQLException {
         String sql = "SELECT cr.room_id, cr.room_name, cr.created_at, cr.is_group_chat " +
                 "FROM chat_rooms cr " +
                 "JOIN room_participants rp1 ON cr.room_id = rp1.room_id " +
@@ -141,7 +159,7 @@ public class ChatRoomDAO {
                 "AND rp1.user_id = ? AND rp2.user_id = ? " +
                 "AND (SELECT COUNT(*) FROM room_participants WHERE room_id = cr.room_id) = 2"; // 정확히 2명 참여
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.getExistingPrivateChatRoom");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, user1Id);
@@ -153,11 +171,9 @@ public class ChatRoomDAO {
                 LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
                 boolean isGroupChat = rs.getBoolean("is_group_chat");
                 ChatRoom existingRoom = new ChatRoom(roomId, roomName, createdAt, isGroupChat);
-                existingRoom.setParticipants(getParticipantsInRoom(roomId)); // 참여자 정보도 로드
+                existingRoom.setParticipants(loadParticipantsInRoom(roomId)); // 참여자 정보도 로드
                 return existingRoom;
             }
-        } catch (SQLException e) {
-            System.err.println("Error checking private chat room: " + e.getMessage());
         }
         return null;
     }
@@ -166,23 +182,38 @@ public class ChatRoomDAO {
     /**
      * 특정 사용자가 참여하고 있는 모든 채팅방 조회
      * @param userId 사용자 ID
-     * @return 채팅방 리스트
+     * @return 채팅방 리스트, 조회 실패 시 빈 리스트
      */
     public List<ChatRoom> getChatRoomsByUserId(int userId) {
-        List<ChatRoom> chatRooms = new ArrayList<>();
         if (userId <= 0) {
-            System.err.println("Invalid userId provided to getChatRoomsByUserId: " + userId + ". Returning empty list.");
-            return chatRooms;
+            log.error("Invalid userId provided to getChatRoomsByUserId: {}. Returning empty list.", userId);
+            return new ArrayList<>();
         }
+        try {
+            return loadChatRoomsByUserId(userId);
+        } catch (SQLException e) {
+            log.error("Error getting chat rooms by user ID: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 특정 사용자가 참여하고 있는 모든 채팅방 조회. 실패를 빈 목록과 구분해야 하는 곳(로그인 BOOTSTRAP)에서 사용합니다.
+     * @param userId 사용자 ID
+     * @return 채팅방 리스트
+     * @throws SQLException 채팅방 또는 참여자 조회 실패
+     */
+    public List<ChatRoom> loadChatRoomsByUserId(int userId) throws SQLException {
+        List<ChatRoom> chatRooms = new ArrayList<>();
 
         String sql = "SELECT cr.room_id, cr.room_name, cr.created_at, cr.is_group_chat " +
                 "FROM chat_rooms cr JOIN room_participants rp ON cr.room_id = rp.room_id " +
                 "WHERE rp.user_id = ? ORDER BY cr.last_message_at DESC";
 
-        // MessageDAO 인스턴스 생성
-        MessageDAO messageDAO = new MessageDAO(); // 추가
+        // 메시지 저장소 (안 읽은 메시지 수 조회)
+        MessageStore messageStore = MessageStores.getDefault();
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.getChatRoomsByUserId");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -192,41 +223,60 @@ public class ChatRoomDAO {
                     LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
                     boolean isGroupChat = rs.getBoolean("is_group_chat");
 
-                    List<User> participants = getParticipantsInRoom(roomId);
-
-                    if (!isGroupChat) {
-                        if (participants.size() == 2) {
-                            User user1 = participants.get(0);
-                            User user2 = participants.get(1);
-                            String otherUserName = "";
-                            if(user1.getUserId() == userId) {
-                                otherUserName = user2.getNickname();
-                            } else {
-                                otherUserName = user1.getNickname();
-                            }
-                            roomName = otherUserName + "님과의 1:1 대화";
-                        } else {
-                            roomName = "알 수 없는 1:1 대화방 (참여자 수 불일치)";
-                        }
-                    }
+                    List<User> participants = loadParticipantsInRoom(roomId);
+                    roomName = displayRoomName(roomName, isGroupChat, participants, userId);
 
                     ChatRoom room = new ChatRoom(roomId, roomName, createdAt, isGroupChat);
                     room.setParticipants(participants);
 
                     // 여기서 안 읽은 메시지 수를 설정합니다.
-                    int unreadCount = messageDAO.getUnreadMessageCount(roomId, userId);
+                    int unreadCount = messageStore.getUnreadMessageCount(roomId, userId);
                     room.setUnreadMessageCount(unreadCount); // 추가
 
                     chatRooms.add(room);
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting chat rooms by user ID: " + e.getMessage());
-            return new ArrayList<>();
         }
         return chatRooms;
     }
 
+    /**
+     * 특정 사용자가 보는 채팅방 하나 (채팅방 목록의 항목과 같은 형태: 1:1 방 이름, 참여자, 안 읽은 메시지 수)
+     * @param roomId 채팅방 ID
+     * @param userId 사용자 ID
+     * @return ChatRoom 객체 또는 null
+     */
+    public ChatRoom getChatRoomForUser(int roomId, int userId) {
+        ChatRoom room = getChatRoomById(roomId);
+        if (room == null) {
+            return null;
+        }
+        room.setRoomName(displayRoomName(room.getRoomName(), room.isGroupChat(), room.getParticipants(), userId));
+        room.setUnreadMessageCount(MessageStores.getDefault().getUnreadMessageCount(roomId, userId));
+        return room;
+    }
+
+    /**
+     * 사용자에게 보여줄 채팅방 이름. 1:1 채팅방은 상대방 닉네임으로 이름을 붙입니다.
+     * @param roomName DB에 저장된 방 이름
+     * @param isGroupChat 그룹 채팅 여부
+     * @param participants 참여자 목록
+     * @param userId 이름을 볼 사용자 ID
+     * @return 표시할 방 이름
+     */
+    public static String displayRoomName(String roomName, boolean isGroupChat, List<User> participants, int userId) {
+        if (isGroupChat) {
+            return roomName;
+        }
+        if (participants.size() != 2) {
+            return "알 수 없는 1:1 대화방 (참여자 수 불일치)";
+        }
+        User user1 = participants.get(0);
+        User user2 = participants.get(1);
+        String otherUserName = user1.getUserId() == userId ? user2.getNickname() : user1.getNickname();
+        return otherUserName + "님과의 1:1 대화";
+    }
+
     /**
      * 채팅방에 사용자 초대
      * @param roomId 채팅방 ID
@@ -236,33 +286,33 @@ public class ChatRoomDAO {
     public boolean inviteUserToRoom(int roomId, int userId) {
         // 이미 참여자인지 확인
         String checkSql = "SELECT COUNT(*) FROM room_participants WHERE room_id = ? AND user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.inviteUserToRoom");
              PreparedStatement checkPstmt = conn.prepareStatement(checkSql)) {
             checkPstmt.setInt(1, roomId);
             checkPstmt.setInt(2, userId);
             ResultSet rs = checkPstmt.executeQuery();
             if (rs.next() && rs.getInt(1) > 0) {
-                System.out.println("User " + userId + " is already a participant in room " + roomId);
+                log.debug("User {} is already a participant in room {}", userId, roomId);
                 return false; // 이미 참여 중
             }
         } catch (SQLException e) {
-            System.err.println("Error checking user in room: " + e.getMessage());
+            log.error("Error checking user in room: {}", e.getMessage());
             return false;
         }
 
         String insertSql = "INSERT INTO room_participants (room_id, user_id) VALUES (?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.inviteUserToRoom");
              PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
             pstmt.setInt(1, roomId);
             pstmt.setInt(2, userId);
             return pstmt.executeUpdate() > 0;
         }
         catch (SQLIntegrityConstraintViolationException e) {
-            System.err.println("Attempted to invite user " + userId + " to room " + roomId + " but they are already there or room does not exist.");
+            log.error("Attempted to invite user {} to room {} but they are already there or room does not exist.", userId, roomId);
             return false;
         }
         catch (SQLException e) {
-            System.err.println("Error inviting user to room: " + e.getMessage());
+            log.error("Error inviting user to room: {}", e.getMessage());
             return false;
         }
     }
@@ -270,13 +320,28 @@ public class ChatRoomDAO {
     /**
      * 특정 채팅방의 참여자 목록 조회
      * @param roomId 채팅방 ID
-     * @return 참여자 User 객체 리스트
+     * @return 참여자 User 객체 리스트, 조회 실패 시 빈 리스트
      */
     public List<User> getParticipantsInRoom(int roomId) {
+        try {
+            return loadParticipantsInRoom(roomId);
+        } catch (SQLException e) {
+            log.error("Error getting participants in room: {}", e.getMessage());
+            return new ArrayList<>(); // 빈 리스트 반환 (null 아님)
+        }
+    }
+
+    /**
+     * 특정 채팅방의 참여자 목록 조회
+     * @param roomId 채팅방 ID
+     * @return 참여자 User 객체 리스트
+     * @throws SQLException 조회 실패
+     */
+    public List<User> loadParticipantsInRoom(int roomId) throws SQLException {
         List<User> participants = new ArrayList<>();
         String sql = "SELECT u.user_id, u.username, u.nickname, u.status FROM room_participants rp JOIN users u ON rp.user_id = u.user_id WHERE rp.room_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection(); // 여기서 새로운 Connection을 얻음
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.getParticipantsInRoom"); // 여기서 새로운 Connection을 얻음
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             try (ResultSet rs = pstmt.executeQuery()) { // ResultSet도 try-with-resources로 관리
@@ -288,10 +353,8 @@ public class ChatRoomDAO {
                     participants.add(new User(userId, username, nickname, status));
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting participants in room: " + e.getMessage());
         }
-        return participants; // 빈 리스트 반환 (null 아님)
+        return participants;
     }
 
     /**
@@ -301,7 +364,7 @@ public class ChatRoomDAO {
      */
     public ChatRoom getChatRoomById(int roomId) {
         String sql = "SELECT room_id, room_name, created_at, is_group_chat FROM chat_rooms WHERE room_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.getChatRoomById");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             ResultSet rs = pstmt.executeQuery();
@@ -314,7 +377,7 @@ public class ChatRoomDAO {
                 return room;
             }
         } catch (SQLException e) {
-            System.err.println("Error getting chat room by ID: " + e.getMessage());
+            log.error("Error getting chat room by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -327,28 +390,66 @@ public class ChatRoomDAO {
      */
     public boolean leaveChatRoom(int roomId, int userId) {
         String sql = "DELETE FROM room_participants WHERE room_id = ? AND user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.leaveChatRoom");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             pstmt.setInt(2, userId);
             int affectedRows = pstmt.executeUpdate();
             return affectedRows > 0;
         } catch (SQLException e) {
-            System.err.println("Error leaving chat room: " + e.getMessage());
+            log.error("Error leaving chat room: {}", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * 방별 마지막 메시지 시각을 갱신합니다. (메시지가 DB 밖에 저장될 때 채팅방 정렬용)
+     * @param lastMessageAtByRoom 방 ID -> 마지막 메시지 시각
+     */
+    public void updateLastMessageAt(Map<Integer, LocalDateTime> lastMessageAtByRoom) {
+        String sql = "UPDATE chat_rooms SET last_message_at = ? WHERE room_id = ? AND (last_message_at IS NULL OR last_message_at < ?)";
+        try (Connection conn = QueryStats.getConnection("ChatRoomDAO.updateLastMessageAt");
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<Integer, LocalDateTime> entry : lastMessageAtByRoom.entrySet()) {
+                Timestamp lastMessageAt = Timestamp.valueOf(entry.getValue());
+                pstmt.setTimestamp(1, lastMessageAt);
+                pstmt.setInt(2, entry.getKey());
+                pstmt.setTimestamp(3, lastMessageAt);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        } catch (SQLException e) {
+            log.error("Error updating last message time: {}", e.getMessage());
+        }
+    }
+
     /**
      * 사용자별 시스템 채팅방을 조회하거나 생성합니다.
      * 이 채팅방은 해당 사용자와 시스템 봇 간의 1:1 채팅방입니다.
      * @param userId 사용자 ID
      * @param systemUserId 시스템 봇 사용자 ID
-     * @return 시스템 채팅방 객체
+     * @return 시스템 채팅방 객체, 조회나 생성에 실패하면 null
      */
     public ChatRoom getOrCreateSystemChatRoomForUser(int userId, int systemUserId) {
+        try {
+            return loadOrCreateSystemChatRoomForUser(userId, systemUserId);
+        } catch (SQLException e) {
+            log.error("Error getting system chat room for user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 사용자별 시스템 채팅방을 조회하거나 생성합니다. null을 반환하지 않습니다.
+     * 기존 방 조회가 실패했을 때 방을 하나 더 만들지 않도록, 조회 실패는 예외로 알립니다.
+     * @param userId 사용자 ID
+     * @param systemUserId 시스템 봇 사용자 ID
+     * @return 시스템 채팅방 객체
+     * @throws SQLException 조회 또는 생성 실패
+     */
+    public ChatRoom loadOrCreateSystemChatRoomForUser(int userId, int systemUserId) throws SQLException {
         // 시스템 봇과 사용자 간의 기존 1:1 채팅방을 찾습니다.
-        ChatRoom existingRoom = getExistingPrivateChatRoom(userId, systemUserId);
+        ChatRoom existingRoom = loadExistingPrivateChatRoom(userId, systemUserId);
         if (existingRoom != null) {
             return existingRoom;
         }
@@ -371,11 +472,10 @@ public class ChatRoomDAO {
 
         // createChatRoom 메서드를 사용하여 1:1 채팅방 생성 (isGroupChat = false)
         ChatRoom newRoom = createChatRoom(roomName, false, systemUserId, participants); // 시스템 봇이 생성자로
-        if (newRoom != null) {
-            System.out.println("Created system chat room for user " + userId + " with room ID: " + newRoom.getRoomId());
-        } else {
-            System.err.println("Failed to create system chat room for user " + userId);
+        if (newRoom == null) {
+            throw new SQLException("Failed to create system chat room for user " + userId);
         }
+        log.info("Created system chat room for user {} with room ID: {}", userId, newRoom.getRoomId());
         return newRoom;
     }
 }
\ No newline at end of file
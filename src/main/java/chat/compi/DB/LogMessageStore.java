@@ -0,0 +1,837 @@
+// LogMessageStore.java
+package chat.compi.DB;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+
+/**
+ * 로컬 파일 기반 메시지 저장소 (단일 노드, 테스트용).
+ * 메시지, 읽음 기록, 공지 상태 변경을 고정 크기 세그먼트 파일(segment-000000.log ...)에 순서대로 덧붙이고,
+ * 세그먼트는 메모리 매핑(MappedByteBuffer)으로 읽고 쓴다.
+ *
+ * 레코드 형식: [int 길이][byte 종류][내용][int CRC32]
+ * 한 번의 쓰기 작업(메시지 배치, 읽음 처리 등)은 COMMIT 레코드로 끝나며 force()로 디스크에 내린 뒤 반영된다.
+ * 시작할 때 로그를 처음부터 다시 읽어 메모리 상태를 만들고, 마지막 COMMIT 이후의 레코드(쓰다 만 배치)는 잘라낸다.
+ *
+ * 색인:
+ * - 메시지 레코드는 같은 방의 이전 메시지 위치를 담고 있어, 방의 메시지는 뒤에서부터 따라가며 읽는다.
+ * - 방별 희소 색인 (room, seq) -> 위치를 순번 SPARSE_INDEX_INTERVAL개마다 기록해 범위 조회의 시작점으로 쓴다.
+ * - 메시지 ID -> 위치, 읽은 사용자 목록은 메모리에 둔다.
+ * - 안 읽은 수는 방별 메시지 수, 사용자별 보낸 수와 (남의 메시지를) 읽은 수로 계산해 방을 훑지 않는다.
+ */
+public class LogMessageStore implements MessageStore, AutoCloseable {
+    private static final Logger log = Log.get(LogMessageStore.class);
+
+    private static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final int SPARSE_INDEX_INTERVAL = 32;
+
+    private static final byte RECORD_MESSAGE = 1;
+    private static final byte RECORD_READ = 2;
+    private static final byte RECORD_NOTICE = 3;
+    private static final byte RECORD_COMMIT = 4;
+
+    // 레코드 시작 위치 기준 오프셋
+    private static final int TYPE_OFFSET = 4;
+    private static final int PAYLOAD_OFFSET = 5;
+    private static final int RECORD_OVERHEAD = 4 + 1 + 4; // 길이 + 종류 + CRC
+
+    // 메시지 레코드 내용의 고정 필드 오프셋
+    private static final int MSG_ID = 0;
+    private static final int MSG_ROOM_ID = 8;
+    private static final int MSG_ROOM_SEQ = 12;
+    private static final int MSG_PREV_POSITION = 20;
+    private static final int MSG_SENDER_ID = 28;
+    private static final int MSG_SENT_SECONDS = 32;
+    private static final int MSG_SENT_NANOS = 40;
+    private static final int MSG_IS_NOTICE = 44;
+    private static final int MSG_EXPIRY_SECONDS = 45;
+    private static final int MSG_EXPIRY_NANOS = 53;
+    private static final int MSG_VARIABLE = 57;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long NO_POSITION = -1;
+
+    private final File directory;
+    private final int segmentBytes;
+    private final IntFunction<User> userLookup;
+    private final Consumer<Map<Integer, LocalDateTime>> roomActivityListener;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>();
+
+    // 로그를 다시 읽어 만드는 메모리 상태
+    private final Map<Long, MessageMeta> messagesById = new HashMap<>();
+    private final Map<Integer, RoomIndex> rooms = new HashMap<>();
+    private final Map<Long, NoticeState> notices = new HashMap<>(); // 공지로 지정된 적이 있는 메시지
+    private final TreeMap<Long, Integer> systemMessages = new TreeMap<>(); // SYSTEM 메시지 ID -> 보낸 사람 ID
+
+    /**
+     * @param directory 세그먼트 파일을 둘 디렉터리
+     * @param segmentBytes 세그먼트 하나의 크기
+     * @param userLookup 읽은 사용자 ID를 User로 바꾸는 함수 (없는 사용자는 null 반환)
+     * @param roomActivityListener 배치 저장 후 방별 마지막 메시지 시각을 받는 콜백 (chat_rooms.last_message_at 갱신용), null 가능
+     */
+    public LogMessageStore(File directory, int segmentBytes, IntFunction<User> userLookup,
+                           Consumer<Map<Integer, LocalDateTime>> roomActivityListener) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.userLookup = userLookup;
+        this.roomActivityListener = roomActivityListener;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create message log directory: " + directory);
+        }
+        recover();
+    }
+
+    public LogMessageStore(File directory, IntFunction<User> userLookup) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, userLookup, null);
+    }
+
+    @Override
+    public long getMaxRoomSeq(int roomId) {
+        lock.readLock().lock();
+        try {
+            RoomIndex room = rooms.get(roomId);
+            return room != null ? room.lastSeq : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveMessagesBatch(List<Message> messages, List<Integer> readerIds) throws SQLException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Map<Integer, LocalDateTime> lastMessageAtByRoom = new HashMap<>();
+        lock.writeLock().lock();
+        long batchStart = currentPosition();
+        try {
+            // 배치 안에서 같은 방 메시지끼리도 이전 위치로 연결되도록 방별 마지막 위치/순번을 따로 추적
+            Map<Integer, long[]> roomTails = new HashMap<>(); // roomId -> {마지막 순번, 마지막 위치}
+            List<Long> positions = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                if (messagesById.containsKey(message.getMessageId())) {
+                    throw new SQLException("Duplicate message id: " + message.getMessageId());
+                }
+                long[] tail = roomTails.computeIfAbsent(message.getRoomId(), roomId -> {
+                    RoomIndex room = rooms.get(roomId);
+                    return room != null ? new long[]{room.lastSeq, room.lastPosition} : new long[]{0, NO_POSITION};
+                });
+                if (message.getRoomSeq() <= tail[0]) {
+                    throw new SQLException("Room sequence must increase: room " + message.getRoomId()
+                            + ", seq " + message.getRoomSeq() + " <= " + tail[0]);
+                }
+                long position = append(RECORD_MESSAGE, encodeMessage(message, tail[1]));
+                tail[0] = message.getRoomSeq();
+                tail[1] = position;
+                positions.add(position);
+                if (readerIds.get(i) != -1) {
+                    append(RECORD_READ, encodeRead(message.getMessageId(), readerIds.get(i)));
+                }
+                lastMessageAtByRoom.merge(message.getRoomId(), message.getSentAt(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+            commit();
+
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                applyMessage(message.getMessageId(), message.getRoomId(), message.getRoomSeq(), message.getSenderId(),
+                        message.getMessageType(), message.isNotice(), message.getNoticeExpiryTime(), positions.get(i));
+                if (readerIds.get(i) != -1) {
+                    addReader(messagesById.get(message.getMessageId()), readerIds.get(i));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            truncateTo(batchStart);
+            throw new SQLException("Failed to append messages to log: " + e.getMessage(), e);
+        } catch (SQLException e) {
+            truncateTo(batchStart);
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (roomActivityListener != null) {
+            roomActivityListener.accept(lastMessageAtByRoom);
+        }
+    }
+
+    @Override
+    public List<Message> getMessagesInRoom(int roomId) {
+        return getMessagesInRoomSince(roomId, 0);
+    }
+
+    @Override
+    public List<Message> getMessagesInRoomSince(int roomId, long sinceSeq) {
+        return getMessagesInRoomRange(roomId, sinceSeq, Long.MAX_VALUE);
+    }
+
+    /**
+     * 방별 순번이 (fromSeqExclusive, toSeqInclusive] 범위인 메시지를 순번 순서로 조회합니다.
+     * 희소 색인에서 toSeqInclusive 이상인 가장 가까운 위치부터 이전 메시지를 따라가며 읽고, fromSeqExclusive에 닿으면 멈춥니다.
+     * 그래서 읽는 레코드는 범위 안의 메시지와 색인 간격 이하의 앞부분뿐입니다.
+     */
+    public List<Message> getMessagesInRoomRange(int roomId, long fromSeqExclusive, long toSeqInclusive) {
+        lock.readLock().lock();
+        try {
+            RoomIndex room = rooms.get(roomId);
+            if (room == null || fromSeqExclusive >= Math.min(toSeqInclusive, room.lastSeq)) {
+                return new ArrayList<>(); // 범위에 메시지가 없음 (이미 최신인 증분 조회)
+            }
+            long position;
+            if (toSeqInclusive >= room.lastSeq) {
+                position = room.lastPosition;
+            } else {
+                Map.Entry<Long, Long> start = room.sparseIndex.ceilingEntry(toSeqInclusive);
+                position = start != null ? start.getValue() : room.lastPosition;
+            }
+            long expected = Math.min(toSeqInclusive, room.lastSeq) - Math.max(0, fromSeqExclusive);
+            List<Message> messages = new ArrayList<>((int) Math.min(expected, 1024));
+            while (position != NO_POSITION) {
+                long seq = readLong(position, MSG_ROOM_SEQ);
+                if (seq <= fromSeqExclusive) {
+                    break;
+                }
+                if (seq <= toSeqInclusive) {
+                    messages.add(readMessage(position));
+                }
+                position = readLong(position, MSG_PREV_POSITION);
+            }
+            Collections.reverse(messages);
+            return messages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int markMessageAsReadStatus(long messageId, int userId) {
+        lock.writeLock().lock();
+        long start = currentPosition();
+        try {
+            MessageMeta meta = messagesById.get(messageId);
+            if (meta == null) {
+                return -1;
+            }
+            if (meta.readers.contains(userId)) {
+                return 0;
+            }
+            append(RECORD_READ, encodeRead(messageId, userId));
+            commit();
+            addReader(meta, userId);
+            return 1;
+        } catch (IOException e) {
+            log.error("Error marking message as read: {}", e.getMessage());
+            truncateTo(start);
+            return -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int markMessagesAsRead(int roomId, List<Long> messageIds, int userId) {
+        lock.writeLock().lock();
+        long start = currentPosition();
+        try {
+            Set<MessageMeta> marked = new HashSet<>();
+            for (Long messageId : messageIds) {
+                MessageMeta meta = messagesById.get(messageId);
+                if (meta == null || meta.roomId != roomId || meta.readers.contains(userId) || !marked.add(meta)) {
+                    continue;
+                }
+                append(RECORD_READ, encodeRead(messageId, userId));
+            }
+            if (!marked.isEmpty()) {
+                commit(); // 묶음 전체를 한 번에 fsync
+            }
+            for (MessageMeta meta : marked) {
+                addReader(meta, userId);
+            }
+            return marked.size();
+        } catch (IOException e) {
+            log.error("Error marking messages as read: {}", e.getMessage());
+            truncateTo(start);
+            return -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int getReadCountForMessage(long messageId) {
+        lock.readLock().lock();
+        try {
+            MessageMeta meta = messagesById.get(messageId);
+            return meta != null ? meta.readers.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getUnreadMessageCount(int roomId, int userId) {
+        lock.readLock().lock();
+        try {
+            RoomIndex room = rooms.get(roomId);
+            if (room == null) {
+                return 0;
+            }
+            return room.messageCount - room.sentCounts.getOrDefault(userId, 0) - room.readCounts.getOrDefault(userId, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Message> getNoticeMessagesInRoom(int roomId) {
+        lock.readLock().lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Message> noticeMessages = new ArrayList<>();
+            for (Map.Entry<Long, NoticeState> entry : notices.entrySet()) {
+                NoticeState notice = entry.getValue();
+                if (notice.roomId == roomId && notice.isNotice && (notice.expiryTime == null || notice.expiryTime.isAfter(now))) {
+                    noticeMessages.add(readMessage(messagesById.get(entry.getKey()).position));
+                }
+            }
+            noticeMessages.sort(Comparator.comparing(Message::getSentAt).reversed());
+            return noticeMessages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Message getMessageById(long messageId) {
+        lock.readLock().lock();
+        try {
+            MessageMeta meta = messagesById.get(messageId);
+            return meta != null ? readMessage(meta.position) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isMessageReadByUser(long messageId, int userId) {
+        lock.readLock().lock();
+        try {
+            MessageMeta meta = messagesById.get(messageId);
+            return meta != null && meta.readers.contains(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> getReadersForMessage(long messageId) {
+        List<Integer> readerIds;
+        lock.readLock().lock();
+        try {
+            MessageMeta meta = messagesById.get(messageId);
+            readerIds = meta != null ? new ArrayList<>(meta.readers) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<User> readers = new ArrayList<>();
+        for (int readerId : readerIds) {
+            User reader = userLookup.apply(readerId);
+            if (reader != null) {
+                readers.add(reader);
+            }
+        }
+        return readers;
+    }
+
+    @Override
+    public boolean updateMessageNoticeStatus(long messageId, boolean isNotice, LocalDateTime expiryTime) {
+        lock.writeLock().lock();
+        long start = currentPosition();
+        try {
+            MessageMeta meta = messagesById.get(messageId);
+            if (meta == null) {
+                return false;
+            }
+            LocalDateTime storedExpiry = isNotice ? expiryTime : null; // 공지 해제 시 만료 시간도 지움
+            append(RECORD_NOTICE, encodeNotice(messageId, isNotice, storedExpiry));
+            commit();
+            notices.put(messageId, new NoticeState(meta.roomId, isNotice, storedExpiry));
+            return true;
+        } catch (IOException e) {
+            log.error("Error updating message notice status for message ID {}: {}", messageId, e.getMessage());
+            truncateTo(start);
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<Integer> clearExpiredNotices() {
+        Set<Integer> affectedRoomIds = new HashSet<>();
+        lock.writeLock().lock();
+        long start = currentPosition();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> expired = new ArrayList<>();
+            for (Map.Entry<Long, NoticeState> entry : notices.entrySet()) {
+                NoticeState notice = entry.getValue();
+                if (notice.isNotice && notice.expiryTime != null && !notice.expiryTime.isAfter(now)) {
+                    expired.add(entry.getKey());
+                }
+            }
+            if (expired.isEmpty()) {
+                return affectedRoomIds;
+            }
+            for (long messageId : expired) {
+                append(RECORD_NOTICE, encodeNotice(messageId, false, null));
+            }
+            commit();
+            for (long messageId : expired) {
+                NoticeState notice = notices.get(messageId);
+                affectedRoomIds.add(notice.roomId);
+                notices.put(messageId, new NoticeState(notice.roomId, false, null));
+            }
+            log.info("{} expired notices marked as non-notice.", expired.size());
+        } catch (IOException e) {
+            log.error("Error clearing expired notices: {}", e.getMessage());
+            truncateTo(start);
+            affectedRoomIds.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return affectedRoomIds;
+    }
+
+    @Override
+    public List<Message> getUnreadSystemMessagesForUser(int userId, int systemUserId) {
+        lock.readLock().lock();
+        try {
+            List<Message> unreadSystemMessages = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : systemMessages.entrySet()) {
+                MessageMeta meta = messagesById.get(entry.getKey());
+                if (entry.getValue() == systemUserId && !meta.readers.contains(userId)) {
+                    unreadSystemMessages.add(readMessage(meta.position));
+                }
+            }
+            return unreadSystemMessages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Message> getAttachmentMessages() {
+        lock.readLock().lock();
+        try {
+            List<Message> attachmentMessages = new ArrayList<>();
+            for (MessageMeta meta : messagesById.values()) {
+                if (meta.messageType == MessageType.FILE || meta.messageType == MessageType.IMAGE) {
+                    attachmentMessages.add(readMessage(meta.position));
+                }
+            }
+            return attachmentMessages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 로그 쓰기
+
+    private long append(byte type, byte[] payload) throws IOException {
+        int recordBytes = RECORD_OVERHEAD + payload.length;
+        if (recordBytes + 4 > segmentBytes) { // 끝 표시(길이 0)를 쓸 자리를 남김
+            throw new IOException("Record of " + recordBytes + " bytes does not fit in a segment of " + segmentBytes + " bytes");
+        }
+        Segment segment = activeSegment();
+        if (segment.writePosition + recordBytes + 4 > segmentBytes) {
+            segment = openSegment(segments.size());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+
+        int offset = segment.writePosition;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(offset, recordBytes - 4);
+        buffer.put(offset + TYPE_OFFSET, type);
+        buffer.put(offset + PAYLOAD_OFFSET, payload);
+        buffer.putInt(offset + PAYLOAD_OFFSET + payload.length, (int) crc.getValue());
+        segment.writePosition += recordBytes;
+        segment.dirty = true;
+        return toPosition(segment.index, offset);
+    }
+
+    // COMMIT 레코드를 쓰고 변경된 세그먼트를 디스크에 내림
+    private void commit() throws IOException {
+        append(RECORD_COMMIT, new byte[0]);
+        for (Segment segment : segments) {
+            if (segment.dirty) {
+                segment.buffer.force();
+                segment.dirty = false;
+            }
+        }
+    }
+
+    private long currentPosition() {
+        Segment segment = activeSegment();
+        return toPosition(segment.index, segment.writePosition);
+    }
+
+    // 실패한 쓰기 작업을 되돌림: 그 뒤에 만든 세그먼트는 지우고, 쓴 영역은 0으로 채움
+    private void truncateTo(long position) {
+        int segmentIndex = (int) (position >>> 32);
+        int offset = (int) position;
+        while (segments.size() > segmentIndex + 1) {
+            Segment removed = segments.remove(segments.size() - 1);
+            removed.close();
+            if (!removed.file.delete()) {
+                log.error("Could not delete message log segment: {}", removed.file);
+            }
+        }
+        Segment segment = segments.get(segmentIndex);
+        for (int i = offset; i < segment.writePosition; i++) {
+            segment.buffer.put(i, (byte) 0);
+        }
+        segment.writePosition = offset;
+    }
+
+    private Segment activeSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private Segment openSegment(int index) throws IOException {
+        File file = new File(directory, String.format("segment-%06d.log", index));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() < segmentBytes) {
+                raf.setLength(segmentBytes);
+            }
+            FileChannel channel = raf.getChannel();
+            Segment segment = new Segment(index, file, raf, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 복구: 로그를 처음부터 읽어 메모리 상태를 만든다
+
+    private void recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.matches("segment-\\d{6}\\.log"));
+        int segmentCount = files != null ? files.length : 0;
+        if (segmentCount == 0) {
+            openSegment(0);
+            return;
+        }
+        for (int i = 0; i < segmentCount; i++) {
+            openSegment(i);
+        }
+
+        List<Long> uncommitted = new ArrayList<>(); // 마지막 COMMIT 이후 읽은 레코드 위치
+        long committedEnd = 0;
+        int recovered = 0;
+        for (Segment segment : segments) {
+            int offset = 0;
+            while (offset + 4 <= segmentBytes) {
+                int length = segment.buffer.getInt(offset);
+                if (length <= 0 || offset + 4 + length > segmentBytes || !checksumMatches(segment, offset, length)) {
+                    break; // 끝 표시 또는 쓰다 만 레코드
+                }
+                long position = toPosition(segment.index, offset);
+                offset += 4 + length;
+                if (segment.buffer.get(toOffset(position) + TYPE_OFFSET) == RECORD_COMMIT) {
+                    for (long recordPosition : uncommitted) {
+                        applyRecord(recordPosition);
+                    }
+                    recovered += uncommitted.size();
+                    uncommitted.clear();
+                    committedEnd = toPosition(segment.index, offset);
+                } else {
+                    uncommitted.add(position);
+                }
+            }
+            segment.writePosition = offset;
+        }
+        if (!uncommitted.isEmpty()) {
+            log.error("Discarding {} uncommitted records from message log.", uncommitted.size());
+        }
+        truncateTo(committedEnd);
+        segments.get(segments.size() - 1).buffer.force();
+        log.info("Message log recovered: {} records, {} messages in {} segments.", recovered, messagesById.size(), segments.size());
+    }
+
+    private boolean checksumMatches(Segment segment, int offset, int length) {
+        int dataLength = length - 4; // 종류 + 내용
+        byte[] data = new byte[dataLength];
+        segment.buffer.get(offset + TYPE_OFFSET, data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue() == segment.buffer.getInt(offset + TYPE_OFFSET + dataLength);
+    }
+
+    private void applyRecord(long position) {
+        MappedByteBuffer buffer = segments.get((int) (position >>> 32)).buffer;
+        int offset = toOffset(position) + PAYLOAD_OFFSET;
+        switch (buffer.get(toOffset(position) + TYPE_OFFSET)) {
+            case RECORD_MESSAGE:
+                applyMessage(buffer.getLong(offset + MSG_ID), buffer.getInt(offset + MSG_ROOM_ID),
+                        buffer.getLong(offset + MSG_ROOM_SEQ), buffer.getInt(offset + MSG_SENDER_ID),
+                        MessageType.valueOf(readString(buffer, offset + MSG_VARIABLE)),
+                        buffer.get(offset + MSG_IS_NOTICE) != 0,
+                        readTime(buffer, offset + MSG_EXPIRY_SECONDS, offset + MSG_EXPIRY_NANOS), position);
+                break;
+            case RECORD_READ:
+                MessageMeta meta = messagesById.get(buffer.getLong(offset));
+                if (meta != null) {
+                    addReader(meta, buffer.getInt(offset + 8));
+                }
+                break;
+            case RECORD_NOTICE:
+                long messageId = buffer.getLong(offset);
+                MessageMeta noticeMeta = messagesById.get(messageId);
+                if (noticeMeta != null) {
+                    notices.put(messageId, new NoticeState(noticeMeta.roomId, buffer.get(offset + 8) != 0,
+                            readTime(buffer, offset + 9, offset + 17)));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void applyMessage(long messageId, int roomId, long roomSeq, int senderId, MessageType messageType,
+                              boolean isNotice, LocalDateTime noticeExpiryTime, long position) {
+        messagesById.put(messageId, new MessageMeta(position, roomId, senderId, messageType));
+        RoomIndex room = rooms.computeIfAbsent(roomId, id -> new RoomIndex());
+        if (room.sparseIndex.isEmpty() || roomSeq % SPARSE_INDEX_INTERVAL == 0) {
+            room.sparseIndex.put(roomSeq, position);
+        }
+        room.lastSeq = roomSeq;
+        room.lastPosition = position;
+        room.messageCount++;
+        room.sentCounts.merge(senderId, 1, Integer::sum);
+        if (isNotice) {
+            notices.put(messageId, new NoticeState(roomId, true, noticeExpiryTime));
+        }
+        if (messageType == MessageType.SYSTEM) {
+            systemMessages.put(messageId, senderId);
+        }
+    }
+
+    // 읽은 사용자를 추가하고, 남의 메시지를 처음 읽었으면 방의 읽은 수를 올림 (안 읽은 수 계산용)
+    private void addReader(MessageMeta meta, int userId) {
+        if (meta.readers.add(userId) && meta.senderId != userId) {
+            rooms.get(meta.roomId).readCounts.merge(userId, 1, Integer::sum);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 레코드 인코딩/디코딩
+
+    private static byte[] encodeMessage(Message message, long prevPosition) {
+        byte[] type = message.getMessageType().name().getBytes(StandardCharsets.UTF_8);
+        byte[] nickname = message.getSenderNickname() != null ? message.getSenderNickname().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] content = message.getContent() != null ? message.getContent().getBytes(StandardCharsets.UTF_8) : null;
+        ByteBuffer buffer = ByteBuffer.allocate(MSG_VARIABLE + 2 + type.length
+                + 2 + (nickname != null ? nickname.length : 0)
+                + 4 + (content != null ? content.length : 0));
+        buffer.putLong(message.getMessageId());
+        buffer.putInt(message.getRoomId());
+        buffer.putLong(message.getRoomSeq());
+        buffer.putLong(prevPosition);
+        buffer.putInt(message.getSenderId());
+        putTime(buffer, message.getSentAt());
+        buffer.put((byte) (message.isNotice() ? 1 : 0));
+        putTime(buffer, message.getNoticeExpiryTime());
+        buffer.putShort((short) type.length).put(type);
+        buffer.putShort((short) (nickname != null ? nickname.length : -1));
+        if (nickname != null) {
+            buffer.put(nickname);
+        }
+        buffer.putInt(content != null ? content.length : -1);
+        if (content != null) {
+            buffer.put(content);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] encodeRead(long messageId, int userId) {
+        return ByteBuffer.allocate(12).putLong(messageId).putInt(userId).array();
+    }
+
+    private static byte[] encodeNotice(long messageId, boolean isNotice, LocalDateTime expiryTime) {
+        ByteBuffer buffer = ByteBuffer.allocate(21).putLong(messageId).put((byte) (isNotice ? 1 : 0));
+        putTime(buffer, expiryTime);
+        return buffer.array();
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        buffer.putLong(time != null ? time.toEpochSecond(ZoneOffset.UTC) : NO_TIME);
+        buffer.putInt(time != null ? time.getNano() : 0);
+    }
+
+    private Message readMessage(long position) {
+        MappedByteBuffer buffer = segments.get((int) (position >>> 32)).buffer;
+        int offset = toOffset(position) + PAYLOAD_OFFSET;
+        long messageId = buffer.getLong(offset + MSG_ID);
+
+        int cursor = offset + MSG_VARIABLE;
+        String type = readString(buffer, cursor);
+        cursor += 2 + buffer.getShort(cursor);
+        String nickname = readString(buffer, cursor);
+        cursor += 2 + Math.max(0, buffer.getShort(cursor));
+        int contentLength = buffer.getInt(cursor);
+        String content = null;
+        if (contentLength >= 0) {
+            byte[] bytes = new byte[contentLength];
+            buffer.get(cursor + 4, bytes);
+            content = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // 공지 상태는 나중에 바뀔 수 있으므로 메모리의 최신 상태를 우선 사용
+        boolean isNotice = buffer.get(offset + MSG_IS_NOTICE) != 0;
+        LocalDateTime expiryTime = readTime(buffer, offset + MSG_EXPIRY_SECONDS, offset + MSG_EXPIRY_NANOS);
+        NoticeState notice = notices.get(messageId);
+        if (notice != null) {
+            isNotice = notice.isNotice;
+            expiryTime = notice.expiryTime;
+        }
+        Message message = new Message(messageId, buffer.getInt(offset + MSG_ROOM_ID), buffer.getInt(offset + MSG_SENDER_ID),
+                nickname, MessageType.valueOf(type), content,
+                readTime(buffer, offset + MSG_SENT_SECONDS, offset + MSG_SENT_NANOS), isNotice, expiryTime);
+        message.setRoomSeq(buffer.getLong(offset + MSG_ROOM_SEQ));
+        return message;
+    }
+
+    private long readLong(long position, int fieldOffset) {
+        return segments.get((int) (position >>> 32)).buffer.getLong(toOffset(position) + PAYLOAD_OFFSET + fieldOffset);
+    }
+
+    private static String readString(MappedByteBuffer buffer, int offset) {
+        short length = buffer.getShort(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime readTime(MappedByteBuffer buffer, int secondsOffset, int nanosOffset) {
+        long seconds = buffer.getLong(secondsOffset);
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, buffer.getInt(nanosOffset), ZoneOffset.UTC);
+    }
+
+    private static long toPosition(int segmentIndex, int offset) {
+        return ((long) segmentIndex << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int toOffset(long position) {
+        return (int) position;
+    }
+
+    private static class Segment {
+        private final int index;
+        private final File file;
+        private final RandomAccessFile raf;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private boolean dirty;
+
+        Segment(int index, File file, RandomAccessFile raf, MappedByteBuffer buffer) {
+            this.index = index;
+            this.file = file;
+            this.raf = raf;
+            this.buffer = buffer;
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                raf.close();
+            } catch (IOException e) {
+                log.error("Error closing message log segment {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static class MessageMeta {
+        private final long position;
+        private final int roomId;
+        private final int senderId;
+        private final MessageType messageType;
+        private final Set<Integer> readers = new HashSet<>(4);
+
+        MessageMeta(long position, int roomId, int senderId, MessageType messageType) {
+            this.position = position;
+            this.roomId = roomId;
+            this.senderId = senderId;
+            this.messageType = messageType;
+        }
+    }
+
+    private static class RoomIndex {
+        private final TreeMap<Long, Long> sparseIndex = new TreeMap<>(); // 방별 순번 -> 레코드 위치
+        private long lastSeq;
+        private long lastPosition = NO_POSITION;
+        private int messageCount;
+        private final Map<Integer, Integer> sentCounts = new HashMap<>(); // 사용자 ID -> 보낸 메시지 수
+        private final Map<Integer, Integer> readCounts = new HashMap<>(); // 사용자 ID -> 읽은 남의 메시지 수
+    }
+
+    private static class NoticeState {
+        private final int roomId;
+        private final boolean isNotice;
+        private final LocalDateTime expiryTime;
+
+        NoticeState(int roomId, boolean isNotice, LocalDateTime expiryTime) {
+            this.roomId = roomId;
+            this.isNotice = isNotice;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
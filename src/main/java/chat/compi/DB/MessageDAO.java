@@ -5,64 +5,126 @@ import chat.compi.Entity.Message;
 import chat.compi.Entity.MessageType;
 import chat.compi.Entity.User;
 import chat.compi.Entity.UserStatus;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-public class MessageDAO {
+/**
+ * MySQL(JDBC) 기반 메시지 저장소
+ */
+public class MessageDAO implements MessageStore {
+    private static final Logger log = Log.get(MessageDAO.class);
+
+    // markMessagesAsRead 한 문장의 IN 목록 최대 크기 (MySQL 자리표시자 한도 65,535보다 충분히 작게)
+    private static final int READ_BATCH_SIZE = 1000;
+
+    /**
+     * 특정 채팅방에서 가장 큰 방별 순번 조회 (방별 순번 할당 시작값)
+     * @param roomId 채팅방 ID
+     * @return 최대 room_seq, 메시지가 없으면 0
+     */
+    @Override
+    public long getMaxRoomSeq(int roomId) throws SQLException {
+        String sql = "SELECT COALESCE(MAX(room_seq), 0) FROM messages WHERE room_id = ?";
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getMaxRoomSeq");
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, roomId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
 
     /**
-     * 메시지 저장
-     * @param message 저장할 Message 객체
-     * @return 저장 성공 여부
+     * ID가 미리 할당된 메시지들을 한 번의 트랜잭션으로 저장합니다. (그룹 커밋)
+     * 메시지는 다중 행 INSERT 한 번으로, 방별 last_message_at은 방마다 한 번씩,
+     * 보낸 사람의 읽음 표시는 다중 행 INSERT IGNORE 한 번으로 처리합니다.
+     * @param messages messageId, roomSeq, sentAt이 설정된 메시지 리스트
+     * @param readerIds 메시지별 읽음 처리할 사용자 ID (-1이면 없음), messages와 같은 순서
+     * @throws SQLException 저장 실패 시 (전체 롤백)
      */
-    public Message saveMessage(Message message) {
-        String sql = "INSERT INTO messages (room_id, sender_id, message_type, content, is_notice, notice_expiry_time) VALUES (?, ?, ?, ?, ?, ?)";
-        String updateRoomLastMessageSql = "UPDATE chat_rooms SET last_message_at = ? WHERE room_id = ?";
+    @Override
+    public void saveMessagesBatch(List<Message> messages, List<Integer> readerIds) throws SQLException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        StringBuilder insertSql = new StringBuilder(
+                "INSERT INTO messages (message_id, room_id, room_seq, sender_id, message_type, content, sent_at, is_notice, notice_expiry_time) VALUES ");
+        for (int i = 0; i < messages.size(); i++) {
+            insertSql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        // 방별 마지막 메시지 시각 (같은 방 메시지가 여러 개여도 UPDATE는 한 번)
+        Map<Integer, LocalDateTime> lastMessageAtByRoom = new HashMap<>();
+        List<long[]> reads = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            lastMessageAtByRoom.merge(message.getRoomId(), message.getSentAt(), (a, b) -> a.isAfter(b) ? a : b);
+            if (readerIds.get(i) != -1) {
+                reads.add(new long[]{message.getMessageId(), readerIds.get(i)});
+            }
+        }
+
+        try (Connection conn = QueryStats.getConnection("MessageDAO.saveMessagesBatch")) {
             conn.setAutoCommit(false); // 트랜잭션 시작
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(insertSql.toString())) {
+                    int index = 1;
+                    for (Message message : messages) {
+                        pstmt.setLong(index++, message.getMessageId());
+                        pstmt.setInt(index++, message.getRoomId());
+                        pstmt.setLong(index++, message.getRoomSeq());
+                        pstmt.setInt(index++, message.getSenderId());
+                        pstmt.setString(index++, message.getMessageType().name());
+                        pstmt.setString(index++, message.getContent());
+                        pstmt.setTimestamp(index++, Timestamp.valueOf(message.getSentAt()));
+                        pstmt.setBoolean(index++, message.isNotice());
+                        if (message.getNoticeExpiryTime() != null) {
+                            pstmt.setTimestamp(index++, Timestamp.valueOf(message.getNoticeExpiryTime()));
+                        } else {
+                            pstmt.setNull(index++, Types.TIMESTAMP);
+                        }
+                    }
+                    pstmt.executeUpdate();
+                }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setInt(1, message.getRoomId());
-                pstmt.setInt(2, message.getSenderId());
-                pstmt.setString(3, message.getMessageType().name());
-                pstmt.setString(4, message.getContent());
-                pstmt.setBoolean(5, message.isNotice());
-                if (message.getNoticeExpiryTime() != null) {
-                    pstmt.setTimestamp(6, Timestamp.valueOf(message.getNoticeExpiryTime()));
-                } else {
-                    pstmt.setNull(6, Types.TIMESTAMP);
+                try (PreparedStatement updatePstmt = conn.prepareStatement("UPDATE chat_rooms SET last_message_at = ? WHERE room_id = ?")) {
+                    for (Map.Entry<Integer, LocalDateTime> entry : lastMessageAtByRoom.entrySet()) {
+                        updatePstmt.setTimestamp(1, Timestamp.valueOf(entry.getValue()));
+                        updatePstmt.setInt(2, entry.getKey());
+                        updatePstmt.addBatch();
+                    }
+                    updatePstmt.executeBatch();
                 }
-                int affectedRows = pstmt.executeUpdate();
 
-                if (affectedRows > 0) {
-                    ResultSet rs = pstmt.getGeneratedKeys();
-                    if (rs.next()) {
-                        message.setMessageId(rs.getInt(1)); // 생성된 메시지 ID 설정
+                if (!reads.isEmpty()) {
+                    StringBuilder readSql = new StringBuilder("INSERT IGNORE INTO message_reads (message_id, user_id) VALUES ");
+                    for (int i = 0; i < reads.size(); i++) {
+                        readSql.append(i == 0 ? "" : ", ").append("(?, ?)");
+                    }
+                    try (PreparedStatement readPstmt = conn.prepareStatement(readSql.toString())) {
+                        int index = 1;
+                        for (long[] read : reads) {
+                            readPstmt.setLong(index++, read[0]);
+                            readPstmt.setInt(index++, (int) read[1]);
+                        }
+                        readPstmt.executeUpdate();
                     }
-                } else {
-                    conn.rollback();
-                    return null;
                 }
-            }
 
-            try (PreparedStatement updatePstmt = conn.prepareStatement(updateRoomLastMessageSql)) {
-                updatePstmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-                updatePstmt.setInt(2, message.getRoomId());
-                updatePstmt.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-
-            conn.commit();
-            return message;
-        } catch (SQLException e) {
-            System.err.println("Error saving message and updating chat room last_message_at: " + e.getMessage());
-            e.printStackTrace();
-            return null;
         }
     }
 
@@ -71,17 +133,30 @@ public class MessageDAO {
      * @param roomId 채팅방 ID
      * @return 메시지 리스트
      */
+    @Override
     public List<Message> getMessagesInRoom(int roomId) {
+        return getMessagesInRoomSince(roomId, 0);
+    }
+
+    /**
+     * 특정 채팅방에서 방별 순번이 sinceSeq보다 큰 메시지만 조회 (증분 동기화, 누락 메시지 보충)
+     * @param roomId 채팅방 ID
+     * @param sinceSeq 클라이언트가 마지막으로 받은 방별 순번 (0이면 전체)
+     * @return room_seq 순서의 메시지 리스트
+     */
+    @Override
+    public List<Message> getMessagesInRoomSince(int roomId, long sinceSeq) {
         List<Message> messages = new ArrayList<>();
-        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time " + // 컬럼명 수정
+        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time, m.room_seq " + // 컬럼명 수정
                 "FROM messages m JOIN users u ON m.sender_id = u.user_id " +
-                "WHERE m.room_id = ? ORDER BY m.sent_at ASC";
-        try (Connection conn = DatabaseConnection.getConnection();
+                "WHERE m.room_id = ? AND m.room_seq > ? ORDER BY m.room_seq ASC, m.message_id ASC"; // sent_at은 초 단위라 같은 초의 메시지 순서가 섞일 수 있음
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getMessagesInRoomSince");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
+            pstmt.setLong(2, sinceSeq);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                int messageId = rs.getInt("message_id");
+                long messageId = rs.getLong("message_id");
                 int rId = rs.getInt("room_id");
                 int senderId = rs.getInt("sender_id");
                 String senderNickname = rs.getString("sender_nickname");
@@ -92,10 +167,12 @@ public class MessageDAO {
                 Timestamp expiryTs = rs.getTimestamp("notice_expiry_time"); // 컬럼명 수정
                 LocalDateTime noticeExpiryTime = (expiryTs != null) ? expiryTs.toLocalDateTime() : null;
 
-                messages.add(new Message(messageId, rId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime));
+                Message message = new Message(messageId, rId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime);
+                message.setRoomSeq(rs.getLong("room_seq"));
+                messages.add(message);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting messages in room: " + e.getMessage());
+            log.error("Error getting messages in room: {}", e.getMessage());
         }
         return messages;
     }
@@ -104,29 +181,71 @@ public class MessageDAO {
      * 메시지 읽음 처리
      * @param messageId 메시지 ID
      * @param userId 읽은 사용자 ID
-     * @return 성공 여부
+     * @return 새로 읽음 처리되면 1, 이미 읽었으면 0, 오류(없는 메시지 등)면 -1
      */
-    public int markMessageAsReadStatus(int messageId, int userId) {
+    @Override
+    public int markMessageAsReadStatus(long messageId, int userId) {
         String sql = "INSERT IGNORE INTO message_reads (message_id, user_id) VALUES (?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("MessageDAO.markMessageAsReadStatus");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, messageId);
+            pstmt.setLong(1, messageId);
             pstmt.setInt(2, userId);
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows > 0) {
                 return 1;
-            } else {
-                return 0;
+            }
+            // INSERT IGNORE는 외래 키 오류도 무시하므로, 없는 메시지인지 따로 확인
+            try (PreparedStatement existsPstmt = conn.prepareStatement("SELECT 1 FROM messages WHERE message_id = ?")) {
+                existsPstmt.setLong(1, messageId);
+                try (ResultSet rs = existsPstmt.executeQuery()) {
+                    return rs.next() ? 0 : -1;
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error marking message as read: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error marking message as read", e);
             return -1;
         }
     }
 
-    public boolean markMessageAsRead(int messageId, int userId) {
-        return markMessageAsReadStatus(messageId, userId) > 0;
+    /**
+     * 한 채팅방의 여러 메시지를 한 번에 읽음 처리
+     * 방에 속한 메시지만 골라 INSERT ... SELECT로 넣으므로 다른 방이나 없는 메시지는 무시됩니다.
+     * ID가 많으면 READ_BATCH_SIZE개씩 나눠 같은 연결에서 여러 문장으로 넣습니다.
+     * @return 새로 읽음 처리된 메시지 수, 오류면 -1
+     */
+    @Override
+    public int markMessagesAsRead(int roomId, List<Long> messageIds, int userId) {
+        if (messageIds.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = QueryStats.getConnection("MessageDAO.markMessagesAsRead")) {
+            int marked = 0;
+            for (int from = 0; from < messageIds.size(); from += READ_BATCH_SIZE) {
+                marked += insertReads(conn, roomId, messageIds.subList(from, Math.min(from + READ_BATCH_SIZE, messageIds.size())), userId);
+            }
+            return marked;
+        } catch (SQLException e) {
+            log.error("Error marking messages as read", e);
+            return -1;
+        }
+    }
+
+    private int insertReads(Connection conn, int roomId, List<Long> messageIds, int userId) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "INSERT IGNORE INTO message_reads (message_id, user_id) SELECT message_id, ? FROM messages WHERE room_id = ? AND message_id IN (");
+        for (int i = 0; i < messageIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            pstmt.setInt(index++, userId);
+            pstmt.setInt(index++, roomId);
+            for (Long messageId : messageIds) {
+                pstmt.setLong(index++, messageId);
+            }
+            return pstmt.executeUpdate();
+        }
     }
 
     /**
@@ -134,17 +253,18 @@ public class MessageDAO {
      * @param messageId 메시지 ID
      * @return 읽은 사용자 수
      */
-    public int getReadCountForMessage(int messageId) {
+    @Override
+    public int getReadCountForMessage(long messageId) {
         String sql = "SELECT COUNT(*) FROM message_reads WHERE message_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getReadCountForMessage");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, messageId);
+            pstmt.setLong(1, messageId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting read count for message: " + e.getMessage());
+            log.error("Error getting read count for message: {}", e.getMessage());
         }
         return 0;
     }
@@ -155,19 +275,21 @@ public class MessageDAO {
      * @param userId 사용자 ID
      * @return 안 읽은 메시지 수
      */
+    @Override
     public int getUnreadMessageCount(int roomId, int userId) {
-        String sql = "SELECT COUNT(*) FROM messages m LEFT JOIN message_reads mr ON m.message_id = mr.message_id WHERE m.room_id = ? AND mr.user_id IS NULL AND m.sender_id != ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "SELECT COUNT(*) FROM messages m LEFT JOIN message_reads mr ON m.message_id = mr.message_id AND mr.user_id = ? " +
+                "WHERE m.room_id = ? AND mr.user_id IS NULL AND m.sender_id != ?";
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getUnreadMessageCount");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, roomId);
-            pstmt.setInt(2, userId);
+            pstmt.setInt(1, userId); // 해당 사용자의 읽음 기록만 조인
+            pstmt.setInt(2, roomId);
+            pstmt.setInt(3, userId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 return rs.getInt(1);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting unread message count: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting unread message count", e);
         }
         return 0;
     }
@@ -177,18 +299,19 @@ public class MessageDAO {
      * @param roomId 공지 메시지를 조회할 채팅방 ID
      * @return 공지 메시지 리스트
      */
+    @Override
     public List<Message> getNoticeMessagesInRoom(int roomId) {
         List<Message> notices = new ArrayList<>();
         // notice_expiry_time이 현재 시간보다 미래이거나 NULL인 공지만 조회
-        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time " + // 컬럼명 수정
+        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time, m.room_seq " + // 컬럼명 수정
                 "FROM messages m JOIN users u ON m.sender_id = u.user_id " +
                 "WHERE m.is_notice = TRUE AND m.room_id = ? AND (m.notice_expiry_time IS NULL OR m.notice_expiry_time > NOW()) ORDER BY m.sent_at DESC";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getNoticeMessagesInRoom");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    int messageId = rs.getInt("message_id");
+                    long messageId = rs.getLong("message_id");
                     int rId = rs.getInt("room_id");
                     int senderId = rs.getInt("sender_id");
                     String senderNickname = rs.getString("sender_nickname");
@@ -199,23 +322,26 @@ public class MessageDAO {
                     Timestamp expiryTs = rs.getTimestamp("notice_expiry_time"); // 컬럼명 수정
                     LocalDateTime noticeExpiryTime = (expiryTs != null) ? expiryTs.toLocalDateTime() : null;
 
-                    notices.add(new Message(messageId, rId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime));
+                    Message message = new Message(messageId, rId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime);
+                    message.setRoomSeq(rs.getLong("room_seq"));
+                    notices.add(message);
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting notice messages for room " + roomId + ": " + e.getMessage());
+            log.error("Error getting notice messages for room {}: {}", roomId, e.getMessage());
         }
         return notices;
     }
 
-    public Message getMessageById(int messageId) {
+    @Override
+    public Message getMessageById(long messageId) {
         // notice_expiry_time 컬럼 조회에 추가
-        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time " + // 컬럼명 수정
+        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time, m.room_seq " + // 컬럼명 수정
                 "FROM messages m JOIN users u ON m.sender_id = u.user_id " +
                 "WHERE m.message_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getMessageById");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, messageId);
+            pstmt.setLong(1, messageId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 int rId = rs.getInt("room_id");
@@ -228,10 +354,12 @@ public class MessageDAO {
                 Timestamp expiryTs = rs.getTimestamp("notice_expiry_time"); // 컬럼명 수정
                 LocalDateTime noticeExpiryTime = (expiryTs != null) ? expiryTs.toLocalDateTime() : null;
 
-                return new Message(messageId, rId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime);
+                Message message = new Message(messageId, rId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime);
+                message.setRoomSeq(rs.getLong("room_seq"));
+                return message;
             }
         } catch (SQLException e) {
-            System.err.println("Error getting message by ID: " + e.getMessage());
+            log.error("Error getting message by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -242,18 +370,19 @@ public class MessageDAO {
      * @param userId 사용자 ID
      * @return 읽었으면 true, 아니면 false
      */
-    public boolean isMessageReadByUser(int messageId, int userId) {
+    @Override
+    public boolean isMessageReadByUser(long messageId, int userId) {
         String sql = "SELECT COUNT(*) FROM message_reads WHERE message_id = ? AND user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("MessageDAO.isMessageReadByUser");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, messageId);
+            pstmt.setLong(1, messageId);
             pstmt.setInt(2, userId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 return rs.getInt(1) > 0;
             }
         } catch (SQLException e) {
-            System.err.println("Error checking if message is read by user: " + e.getMessage());
+            log.error("Error checking if message is read by user: {}", e.getMessage());
         }
         return false;
     }
@@ -263,14 +392,15 @@ public class MessageDAO {
      * @param messageId 메시지 ID
      * @return 읽은 사용자 User 객체 리스트
      */
-    public List<User> getReadersForMessage(int messageId) {
+    @Override
+    public List<User> getReadersForMessage(long messageId) {
         List<User> readers = new ArrayList<>();
         String sql = "SELECT u.user_id, u.username, u.nickname, u.status " +
                 "FROM message_reads mr JOIN users u ON mr.user_id = u.user_id " +
                 "WHERE mr.message_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getReadersForMessage");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, messageId);
+            pstmt.setLong(1, messageId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     int userId = rs.getInt("user_id");
@@ -281,7 +411,7 @@ public class MessageDAO {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting readers for message " + messageId + ": " + e.getMessage());
+            log.error("Error getting readers for message {}: {}", messageId, e.getMessage());
         }
         return readers;
     }
@@ -293,9 +423,10 @@ public class MessageDAO {
      * @param expiryTime 공지 만료 시간 (isNotice가 true일 때만 유효, null이면 만료 시간 없음)
      * @return 업데이트 성공 여부
      */
-    public boolean updateMessageNoticeStatus(int messageId, boolean isNotice, LocalDateTime expiryTime) {
+    @Override
+    public boolean updateMessageNoticeStatus(long messageId, boolean isNotice, LocalDateTime expiryTime) {
         String sql = "UPDATE messages SET is_notice = ?, notice_expiry_time = ? WHERE message_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("MessageDAO.updateMessageNoticeStatus");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setBoolean(1, isNotice);
             if (isNotice && expiryTime != null) {
@@ -303,10 +434,10 @@ public class MessageDAO {
             } else {
                 pstmt.setNull(2, Types.TIMESTAMP); // 공지 해제 시 또는 만료 시간 지정 안 할 시 NULL
             }
-            pstmt.setInt(3, messageId);
+            pstmt.setLong(3, messageId);
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating message notice status for message ID " + messageId + ": " + e.getMessage());
+            log.error("Error updating message notice status for message ID {}: {}", messageId, e.getMessage());
             return false;
         }
     }
@@ -316,12 +447,13 @@ public class MessageDAO {
      * 이 메서드는 주기적으로 호출되어야 합니다.
      * @return 상태가 변경된 공지가 속했던 방 ID 리스트
      */
+    @Override
     public Set<Integer> clearExpiredNotices() { // Set<Integer> 반환하도록 변경
         Set<Integer> affectedRoomIds = new HashSet<>();
         String selectSql = "SELECT DISTINCT room_id FROM messages WHERE is_notice = TRUE AND notice_expiry_time IS NOT NULL AND notice_expiry_time <= NOW()";
         String updateSql = "UPDATE messages SET is_notice = FALSE, notice_expiry_time = NULL WHERE is_notice = TRUE AND notice_expiry_time IS NOT NULL AND notice_expiry_time <= NOW()";
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = QueryStats.getConnection("MessageDAO.clearExpiredNotices")) {
             conn.setAutoCommit(false); // 트랜잭션 시작
 
             // 먼저 영향을 받는 room_id들을 조회
@@ -336,14 +468,13 @@ public class MessageDAO {
             try (PreparedStatement updatePstmt = conn.prepareStatement(updateSql)) {
                 int affectedRows = updatePstmt.executeUpdate();
                 if (affectedRows > 0) {
-                    System.out.println(affectedRows + " expired notices marked as non-notice.");
+                    log.info("{} expired notices marked as non-notice.", affectedRows);
                 }
             }
 
             conn.commit(); // 모든 작업 성공 시 커밋
         } catch (SQLException e) {
-            System.err.println("Error clearing expired notices: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error clearing expired notices", e);
             // 롤백은 Connection 닫히면 자동으로 됨 (try-with-resources)
         }
         return affectedRoomIds; // 영향을 받은 방 ID 목록 반환
@@ -357,21 +488,22 @@ public class MessageDAO {
      * @param systemUserId ChatServer의 시스템 사용자 ID
      * @return 미열람 시스템 메시지 리스트
      */
+    @Override
     public List<Message> getUnreadSystemMessagesForUser(int userId, int systemUserId) {
         List<Message> unreadSystemMessages = new ArrayList<>();
-        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time " + // 컬럼명 수정
+        String sql = "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time, m.room_seq " + // 컬럼명 수정
                 "FROM messages m " +
                 "JOIN users u ON m.sender_id = u.user_id " +
                 "LEFT JOIN message_reads mr ON m.message_id = mr.message_id AND mr.user_id = ? " +
                 "WHERE m.message_type = 'SYSTEM' AND mr.user_id IS NULL AND m.sender_id = ? " +
-                "ORDER BY m.sent_at ASC";
-        try (Connection conn = DatabaseConnection.getConnection();
+                "ORDER BY m.message_id ASC"; // 메시지 ID는 시간 순서로 증가
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getUnreadSystemMessagesForUser");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             pstmt.setInt(2, systemUserId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    int messageId = rs.getInt("message_id");
+                    long messageId = rs.getLong("message_id");
                     int roomId = rs.getInt("room_id");
                     int senderId = rs.getInt("sender_id");
                     String senderNickname = rs.getString("sender_nickname");
@@ -381,12 +513,38 @@ public class MessageDAO {
                     boolean isNotice = rs.getBoolean("is_notice");
                     Timestamp expiryTs = rs.getTimestamp("notice_expiry_time"); // 컬럼명 수정
                     LocalDateTime noticeExpiryTime = (expiryTs != null) ? expiryTs.toLocalDateTime() : null;
-                    unreadSystemMessages.add(new Message(messageId, roomId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime));
+                    Message message = new Message(messageId, roomId, senderId, senderNickname, messageType, content, sentAt, isNotice, noticeExpiryTime);
+                    message.setRoomSeq(rs.getLong("room_seq"));
+                    unreadSystemMessages.add(message);
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting unread system messages for user " + userId + ": " + e.getMessage());
+            log.error("Error getting unread system messages for user {}: {}", userId, e.getMessage());
         }
         return unreadSystemMessages;
     }
-}
\ No newline at end of file
+
+    /**
+     * 첨부파일을 참조하는 모든 FILE/IMAGE 메시지 조회 (첨부파일 저장소 유지보수용)
+     * 닉네임 조인 없이 방 ID, 보낸 사람 ID, 파일 경로만 채웁니다.
+     * @return 첨부파일 메시지 리스트
+     */
+    @Override
+    public List<Message> getAttachmentMessages() {
+        List<Message> attachmentMessages = new ArrayList<>();
+        String sql = "SELECT message_id, room_id, sender_id, message_type, content, sent_at, is_notice " +
+                "FROM messages WHERE message_type IN ('FILE', 'IMAGE')";
+        try (Connection conn = QueryStats.getConnection("MessageDAO.getAttachmentMessages");
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                attachmentMessages.add(new Message(rs.getLong("message_id"), rs.getInt("room_id"), rs.getInt("sender_id"), null,
+                        MessageType.valueOf(rs.getString("message_type")), rs.getString("content"),
+                        rs.getTimestamp("sent_at").toLocalDateTime(), rs.getBoolean("is_notice")));
+            }
+        } catch (SQLException e) {
+            log.error("Error getting attachment messages: {}", e.getMessage());
+        }
+        return attachmentMessages;
+    }
+}
@@ -0,0 +1,91 @@
+// MessageIdGenerator.java
+package chat.compi.DB;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 메시지 ID와 방별 순번을 DB 왕복 없이 메모리에서 할당한다.
+ *
+ * 메시지 ID (64비트, 시간 순서): [41비트 epoch 이후 밀리초][10비트 노드 ID][12비트 밀리초 내 순번]
+ * - 노드 ID는 -Dcompi.nodeId (0~1023, 기본 0), 서버를 여러 대 띄울 때 서로 다르게 지정한다.
+ * - 시계가 뒤로 가도 마지막으로 쓴 시각을 계속 사용하므로 ID는 항상 증가한다.
+ *
+ * 방별 순번 (room_seq): 방마다 1부터 1씩 증가한다. 방의 첫 메시지 때 DB의 최대값을 한 번 읽어 시작한다.
+ */
+public class MessageIdGenerator {
+    private static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final MessageStore messageStore;
+    private final ConcurrentHashMap<Integer, AtomicLong> roomSequences = new ConcurrentHashMap<>();
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    public MessageIdGenerator(long nodeId, MessageStore messageStore) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.messageStore = messageStore;
+    }
+
+    /**
+     * 시스템 프로퍼티 compi.nodeId로 노드 ID를 정해 생성합니다.
+     */
+    public static MessageIdGenerator createDefault(MessageStore messageStore) {
+        return new MessageIdGenerator(Long.getLong("compi.nodeId", 0L), messageStore);
+    }
+
+    /**
+     * 새 메시지 ID를 할당합니다.
+     */
+    public synchronized long nextId() {
+        long timestamp = Math.max(System.currentTimeMillis() - EPOCH_MILLIS, lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) { // 같은 밀리초에 4096개를 넘으면 다음 밀리초 값을 사용
+                timestamp++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * 방의 다음 순번을 할당합니다.
+     * @param roomId 채팅방 ID
+     * @return 1부터 시작하는 방별 순번
+     */
+    public long nextRoomSeq(int roomId) throws SQLException {
+        return loadRoomSequence(roomId).incrementAndGet();
+    }
+
+    /**
+     * 방의 순번을 아직 읽지 않았다면 DB에서 최대값을 읽어 둡니다. 이후 nextRoomSeq는 DB에 가지 않습니다.
+     * 순번 할당을 잠금 안에서 할 때, DB 왕복을 잠금 밖으로 빼기 위해 먼저 부릅니다.
+     */
+    public void loadRoomSeq(int roomId) throws SQLException {
+        loadRoomSequence(roomId);
+    }
+
+    private AtomicLong loadRoomSequence(int roomId) throws SQLException {
+        AtomicLong roomSequence = roomSequences.get(roomId);
+        if (roomSequence == null) {
+            AtomicLong loaded = new AtomicLong(messageStore.getMaxRoomSeq(roomId));
+            roomSequence = roomSequences.putIfAbsent(roomId, loaded);
+            if (roomSequence == null) {
+                roomSequence = loaded;
+            }
+        }
+        return roomSequence;
+    }
+}
@@ -0,0 +1,323 @@
+// MessagePersistenceQueue.java
+package chat.compi.DB;
+
+import chat.compi.Entity.Message;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 메시지 쓰기 지연(write-behind) 저장 단계.
+ * 메시지를 큐에 넣는 즉시 애플리케이션에서 ID, 방별 순번, 전송 시각을 할당하고 (MessageIdGenerator),
+ * 단일 writer 스레드가 큐에 쌓인 메시지를 모아 다중 행 INSERT + 커밋 한 번으로 저장한다 (그룹 커밋).
+ *
+ * 내구성 모드 (-Dcompi.persistence.durability):
+ * - commit (기본): save()가 커밋될 때까지 기다린 뒤 반환한다. 클라이언트는 DB에 저장된 메시지만 받는다.
+ * - enqueue: save()가 큐에 넣자마자 반환한다. 팬아웃이 빠르지만 커밋 전에 서버가 죽으면 메시지가 유실될 수 있다.
+ */
+public class MessagePersistenceQueue {
+    private static final Logger log = Log.get(MessagePersistenceQueue.class);
+
+    public enum Durability { COMMIT, ENQUEUE }
+
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("compi.persistence.maxBatchSize", 500);
+    private static final long RETRY_DELAY_MILLIS = 200;
+    // save()/awaitPersisted()가 커밋을 기다리는 최대 시간. DB가 멈춰도 클라이언트 스레드가 무한히 묶이지 않도록
+    private static final long COMMIT_TIMEOUT_MILLIS = Long.getLong("compi.persistence.commitTimeoutMillis", 10_000L);
+
+    private final MessageStore messageStore;
+    private final Durability durability;
+    private final LinkedBlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<Message>> pending = new ConcurrentHashMap<>(); // 커밋 대기 중인 messageId
+    private final MessageIdGenerator idGenerator;
+    private final ExecutorService postCommitExecutor;
+    private final Thread writerThread;
+    private volatile boolean running;
+
+    // 통계 (벤치마크, 로그용)
+    private final AtomicLong committedMessages = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+
+    public MessagePersistenceQueue(MessageStore messageStore, Durability durability) {
+        this.messageStore = messageStore;
+        this.durability = durability;
+        this.idGenerator = MessageIdGenerator.createDefault(messageStore);
+        this.writerThread = new Thread(this::writeLoop, "message-writer");
+        this.writerThread.setDaemon(true);
+        this.postCommitExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "message-post-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 시스템 프로퍼티 compi.persistence.durability(commit|enqueue)에 따라 큐를 만듭니다.
+     */
+    public static MessagePersistenceQueue createDefault(MessageStore messageStore) {
+        String mode = System.getProperty("compi.persistence.durability", "commit");
+        Durability durability = "enqueue".equalsIgnoreCase(mode) ? Durability.ENQUEUE : Durability.COMMIT;
+        return new MessagePersistenceQueue(messageStore, durability);
+    }
+
+    /**
+     * writer 스레드를 시작합니다.
+     */
+    public void start() {
+        running = true;
+        writerThread.start();
+        log.info("Message persistence queue started (durability: {}).", durability);
+    }
+
+    /**
+     * 남은 메시지를 모두 저장한 뒤 writer 스레드를 종료합니다.
+     */
+    public void shutdown() {
+        synchronized (this) { // enqueue()가 running 확인과 큐 삽입 사이에 있으면 끝날 때까지 기다림
+            running = false;
+        }
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        postCommitExecutor.shutdown();
+    }
+
+    /**
+     * 메시지를 큐에 넣습니다. 반환 전에 messageId, roomSeq, sentAt이 설정됩니다.
+     * @param message 저장할 메시지
+     * @param readerUserId 함께 읽음 처리할 사용자 ID (보낸 사람 등), 없으면 -1
+     * @return 커밋되면 완료되는 Future (실패 시 예외로 완료)
+     */
+    public CompletableFuture<Message> enqueue(Message message, int readerUserId) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Message persistence queue is not running"));
+        }
+        CompletableFuture<Message> future = new CompletableFuture<>();
+        // 방의 첫 메시지면 DB에서 시작 순번을 읽어 둠. DB 왕복 동안 다른 방의 메시지가 기다리지 않도록 잠금 밖에서
+        try {
+            idGenerator.loadRoomSeq(message.getRoomId());
+        } catch (SQLException e) {
+            log.error("Error loading room sequence for room {}: {}", message.getRoomId(), e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+        // 순번 할당과 큐 삽입을 묶어서, 같은 방의 메시지가 순번 순서대로 커밋되게 함
+        synchronized (this) {
+            if (!running) { // 잠금 밖에서 확인한 뒤 shutdown()이 끼어든 경우. writer 스레드가 이미 끝났을 수 있음
+                return CompletableFuture.failedFuture(new IllegalStateException("Message persistence queue is not running"));
+            }
+            try {
+                message.setRoomSeq(idGenerator.nextRoomSeq(message.getRoomId())); // 위에서 읽어 두었으므로 DB에 가지 않음
+            } catch (SQLException e) {
+                log.error("Error loading room sequence for room {}: {}", message.getRoomId(), e.getMessage());
+                return CompletableFuture.failedFuture(e);
+            }
+            message.setMessageId(idGenerator.nextId());
+            message.setSentAt(LocalDateTime.now());
+            pending.put(message.getMessageId(), future);
+            queue.add(new PendingWrite(message, readerUserId, future));
+        }
+        return future;
+    }
+
+    /**
+     * 내구성 모드에 맞게 메시지를 저장합니다.
+     * commit 모드에서는 커밋을 기다리고, enqueue 모드에서는 큐에 넣은 즉시 반환합니다.
+     * @return ID가 할당된 메시지, 저장 실패 또는 커밋 대기 시간 초과 시 null (commit 모드)
+     */
+    public Message save(Message message, int readerUserId) {
+        CompletableFuture<Message> future = enqueue(message, readerUserId);
+        if (durability == Durability.ENQUEUE) {
+            return future.isCompletedExceptionally() ? null : message;
+        }
+        return await(future, message.getMessageId());
+    }
+
+    /**
+     * 메시지가 커밋된 뒤 작업을 실행합니다. 이미 커밋되었으면 호출한 스레드에서 바로 실행합니다.
+     * 커밋 후 DB를 다시 읽는 작업(안 읽은 수 갱신 등)에 사용합니다.
+     */
+    public void afterCommit(Message message, Runnable action) {
+        CompletableFuture<Message> future = pending.get(message.getMessageId());
+        if (future == null) {
+            action.run();
+        } else {
+            future.thenRunAsync(action, postCommitExecutor);
+        }
+    }
+
+    /**
+     * 아직 커밋되지 않은 메시지라면 커밋될 때까지 기다립니다. (읽음 처리 등 외래 키가 필요한 작업 전)
+     */
+    public void awaitPersisted(long messageId) {
+        CompletableFuture<Message> future = pending.get(messageId);
+        if (future != null) {
+            await(future, messageId);
+        }
+    }
+
+    // 커밋을 최대 COMMIT_TIMEOUT_MILLIS 동안 기다림. 실패나 시간 초과면 null
+    private Message await(CompletableFuture<Message> future, long messageId) {
+        try {
+            return future.get(COMMIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return null; // 저장 실패는 writer 스레드에서 이미 로그를 남김
+        } catch (TimeoutException e) {
+            log.warn("Timed out after {} ms waiting for message {} to commit (queue depth: {})",
+                    COMMIT_TIMEOUT_MILLIS, messageId, queue.size());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getCommittedMessages() {
+        return committedMessages.get();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    public long getFailedMessages() {
+        return failedMessages.get();
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // 이전 커밋이 진행되는 동안 쌓인 메시지를 한 번에 가져감 (별도의 대기 시간 없음)
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, new IllegalStateException("Message writer was interrupted"));
+                break;
+            } catch (RuntimeException e) {
+                // flush()가 놓친 예외로 writer 스레드가 죽으면 커밋을 기다리는 스레드가 모두 멈추므로, 배치만 실패시키고 계속
+                log.error("Unexpected error in message writer", e);
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+        // shutdown() 대기 시간 초과나 인터럽트로 끝났을 때 남은 메시지가 영원히 대기하지 않도록 실패 처리
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            fail(remaining, new IllegalStateException("Message persistence queue stopped"));
+            log.error("Message writer stopped with {} unsaved messages", remaining.size());
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) throws InterruptedException {
+        Exception lastError = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                save(batch);
+                return;
+            } catch (SQLException | RuntimeException e) {
+                lastError = e;
+                log.error("Error saving message batch of {} (attempt {}): {}", batch.size(), attempt + 1, e.getMessage());
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+        if (batch.size() == 1) {
+            fail(batch, lastError);
+            log.error("Dropped message {} after retries", batch.get(0).message.getMessageId());
+            return;
+        }
+
+        // 잘못된 행 하나 때문에 배치 전체가 실패했을 수 있으므로, 반씩 나눠 다시 저장해 실패하는 행만 버린다
+        List<Long> dropped = new ArrayList<>();
+        int middle = batch.size() / 2;
+        bisect(batch.subList(0, middle), dropped);
+        bisect(batch.subList(middle, batch.size()), dropped);
+        if (!dropped.isEmpty()) {
+            log.error("Dropped {} of {} messages from a failed batch: {}", dropped.size(), batch.size(), dropped);
+        }
+    }
+
+    // 방 안의 순번 순서를 지키도록 앞쪽 절반부터 저장
+    private void bisect(List<PendingWrite> writes, List<Long> dropped) {
+        try {
+            save(writes);
+        } catch (SQLException | RuntimeException e) {
+            if (writes.size() == 1) {
+                fail(writes, e);
+                dropped.add(writes.get(0).message.getMessageId());
+                return;
+            }
+            int middle = writes.size() / 2;
+            bisect(writes.subList(0, middle), dropped);
+            bisect(writes.subList(middle, writes.size()), dropped);
+        }
+    }
+
+    private void save(List<PendingWrite> writes) throws SQLException {
+        List<Message> messages = new ArrayList<>(writes.size());
+        List<Integer> readerIds = new ArrayList<>(writes.size());
+        for (PendingWrite write : writes) {
+            messages.add(write.message);
+            readerIds.add(write.readerUserId);
+        }
+        messageStore.saveMessagesBatch(messages, readerIds);
+        committedBatches.incrementAndGet();
+        committedMessages.addAndGet(writes.size());
+        for (PendingWrite write : writes) {
+            pending.remove(write.message.getMessageId());
+            write.future.complete(write.message);
+        }
+    }
+
+    private void fail(List<PendingWrite> writes, Exception error) {
+        for (PendingWrite write : writes) {
+            pending.remove(write.message.getMessageId());
+            if (write.future.completeExceptionally(error)) { // 이미 커밋/실패 처리된 항목은 다시 세지 않음
+                failedMessages.incrementAndGet();
+            }
+        }
+    }
+
+    private static class PendingWrite {
+        private final Message message;
+        private final int readerUserId;
+        private final CompletableFuture<Message> future;
+
+        PendingWrite(Message message, int readerUserId, CompletableFuture<Message> future) {
+            this.message = message;
+            this.readerUserId = readerUserId;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+// MessageStore.java
+package chat.compi.DB;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.User;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 메시지 저장소 인터페이스.
+ * MySQL(JDBC) 구현인 MessageDAO와 로컬 로그 파일 구현인 LogMessageStore가 있으며,
+ * 서버가 사용할 구현은 MessageStores.getDefault()가 -Dcompi.messageStore 값(jdbc|log)으로 정한다.
+ */
+public interface MessageStore {
+
+    /**
+     * 특정 채팅방에서 가장 큰 방별 순번 조회 (방별 순번 할당 시작값)
+     * @param roomId 채팅방 ID
+     * @return 최대 room_seq, 메시지가 없으면 0
+     */
+    long getMaxRoomSeq(int roomId) throws SQLException;
+
+    /**
+     * ID가 미리 할당된 메시지들을 한 번에 저장합니다. 일부만 저장되는 일은 없습니다.
+     * @param messages messageId, roomSeq, sentAt이 설정된 메시지 리스트
+     * @param readerIds 메시지별 읽음 처리할 사용자 ID (-1이면 없음), messages와 같은 순서
+     * @throws SQLException 저장 실패 시
+     */
+    void saveMessagesBatch(List<Message> messages, List<Integer> readerIds) throws SQLException;
+
+    /**
+     * 특정 채팅방의 메시지를 방별 순번 순서로 조회
+     * @param roomId 채팅방 ID
+     * @return 메시지 리스트
+     */
+    List<Message> getMessagesInRoom(int roomId);
+
+    /**
+     * 특정 채팅방에서 방별 순번이 sinceSeq보다 큰 메시지만 조회 (증분 동기화, 누락 메시지 보충)
+     * @param roomId 채팅방 ID
+     * @param sinceSeq 클라이언트가 마지막으로 받은 방별 순번 (0이면 전체)
+     * @return room_seq 순서의 메시지 리스트
+     */
+    List<Message> getMessagesInRoomSince(int roomId, long sinceSeq);
+
+    /**
+     * 메시지 읽음 처리
+     * @param messageId 메시지 ID
+     * @param userId 읽은 사용자 ID
+     * @return 새로 읽음 처리되면 1, 이미 읽었으면 0, 오류(없는 메시지 등)면 -1
+     */
+    int markMessageAsReadStatus(long messageId, int userId);
+
+    default boolean markMessageAsRead(long messageId, int userId) {
+        return markMessageAsReadStatus(messageId, userId) > 0;
+    }
+
+    /**
+     * 한 채팅방의 여러 메시지를 한 번에 읽음 처리 (한 문장/한 번의 커밋)
+     * 다른 방의 메시지, 없는 메시지, 이미 읽은 메시지는 건너뜁니다.
+     * @param roomId 채팅방 ID
+     * @param messageIds 읽은 메시지 ID 목록
+     * @param userId 읽은 사용자 ID
+     * @return 새로 읽음 처리된 메시지 수, 오류면 -1
+     */
+    int markMessagesAsRead(int roomId, List<Long> messageIds, int userId);
+
+    /**
+     * 특정 메시지를 읽은 사용자 수 조회
+     * @param messageId 메시지 ID
+     * @return 읽은 사용자 수
+     */
+    int getReadCountForMessage(long messageId);
+
+    /**
+     * 특정 채팅방에서 사용자가 아직 읽지 않은 메시지 수 조회 (본인이 보낸 메시지 제외)
+     * @param roomId 채팅방 ID
+     * @param userId 사용자 ID
+     * @return 안 읽은 메시지 수
+     */
+    int getUnreadMessageCount(int roomId, int userId);
+
+    /**
+     * 특정 채팅방의 유효한 공지 메시지를 최신순으로 조회
+     * @param roomId 공지 메시지를 조회할 채팅방 ID
+     * @return 공지 메시지 리스트
+     */
+    List<Message> getNoticeMessagesInRoom(int roomId);
+
+    /**
+     * 메시지 ID로 메시지 조회
+     * @param messageId 메시지 ID
+     * @return 메시지, 없으면 null
+     */
+    Message getMessageById(long messageId);
+
+    /**
+     * 특정 메시지를 특정 사용자가 읽었는지 여부 확인
+     * @param messageId 메시지 ID
+     * @param userId 사용자 ID
+     * @return 읽었으면 true, 아니면 false
+     */
+    boolean isMessageReadByUser(long messageId, int userId);
+
+    /**
+     * 특정 메시지를 읽은 사용자 목록 조회
+     * @param messageId 메시지 ID
+     * @return 읽은 사용자 User 객체 리스트
+     */
+    List<User> getReadersForMessage(long messageId);
+
+    /**
+     * 특정 메시지의 공지 상태 및 만료 시간을 업데이트합니다.
+     * @param messageId 메시지 ID
+     * @param isNotice 공지 여부 (true: 공지로 설정, false: 공지 해제)
+     * @param expiryTime 공지 만료 시간 (isNotice가 true일 때만 유효, null이면 만료 시간 없음)
+     * @return 업데이트 성공 여부
+     */
+    boolean updateMessageNoticeStatus(long messageId, boolean isNotice, LocalDateTime expiryTime);
+
+    /**
+     * 만료된 공지 메시지의 공지 상태를 해제하고, 해당 공지가 속했던 방 ID 목록을 반환합니다.
+     * @return 상태가 변경된 공지가 속했던 방 ID 집합
+     */
+    Set<Integer> clearExpiredNotices();
+
+    /**
+     * 특정 사용자가 아직 읽지 않은 시스템 메시지를 오래된 순으로 조회
+     * @param userId 사용자 ID
+     * @param systemUserId ChatServer의 시스템 사용자 ID
+     * @return 미열람 시스템 메시지 리스트
+     */
+    List<Message> getUnreadSystemMessagesForUser(int userId, int systemUserId);
+
+    /**
+     * 첨부파일을 참조하는 모든 FILE/IMAGE 메시지 조회 (첨부파일 저장소 유지보수용)
+     * @return 첨부파일 메시지 리스트 (방 ID, 보낸 사람 ID, 파일 경로는 항상 채워짐)
+     */
+    List<Message> getAttachmentMessages();
+}
@@ -0,0 +1,92 @@
+// MessageStores.java
+package chat.compi.DB;
+
+import chat.compi.Entity.User;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.CacheStats;
+import chat.compi.Metrics.MetricsRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 서버 전체가 공유하는 메시지 저장소를 만든다.
+ *
+ * -Dcompi.messageStore      : jdbc (기본, MessageDAO) | log (LogMessageStore)
+ * -Dcompi.logStore.dir      : log 저장소 디렉터리 (기본 message_log)
+ * -Dcompi.logStore.segmentMb: log 세그먼트 크기 (기본 64MB)
+ *
+ * log 저장소를 써도 사용자/채팅방 정보는 DB에 있으므로, 읽은 사용자 조회는 UserDAO로 하고
+ * 방별 마지막 메시지 시각(채팅방 목록 정렬용)은 별도 스레드에서 chat_rooms에 반영한다.
+ * 읽은 사용자 정보는 캐시하며, UserDAO가 사용자 정보를 바꾸면 userChanged로 그 항목을 지운다.
+ */
+public final class MessageStores {
+    private static final Logger log = Log.get(MessageStores.class);
+
+    private static MessageStore defaultStore;
+    private static final ConcurrentHashMap<Integer, User> readerCache = new ConcurrentHashMap<>();
+
+    private MessageStores() {
+    }
+
+    public static synchronized MessageStore getDefault() {
+        if (defaultStore == null) {
+            defaultStore = create(System.getProperty("compi.messageStore", "jdbc"));
+        }
+        return defaultStore;
+    }
+
+    /**
+     * 사용자 정보(상태, 닉네임 등)가 바뀌었을 때 부릅니다. 캐시된 읽은 사용자 정보를 지워 다음 조회 때 다시 읽게 합니다.
+     */
+    static void userChanged(int userId) {
+        readerCache.remove(userId);
+    }
+
+    private static MessageStore create(String type) {
+        if (!"log".equalsIgnoreCase(type)) {
+            return new MessageDAO();
+        }
+        File directory = new File(System.getProperty("compi.logStore.dir", "message_log"));
+        long segmentBytes = Integer.getInteger("compi.logStore.segmentMb", 64) * 1024L * 1024L;
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) { // 세그먼트 하나는 메모리 매핑 한 번(2GB 미만)으로 다룸
+            throw new IllegalArgumentException("compi.logStore.segmentMb must be between 1 and 2047: " + segmentBytes / (1024 * 1024));
+        }
+
+        UserDAO userDAO = new UserDAO();
+        CacheStats userCacheStats = MetricsRegistry.get().cache("logStore.reader");
+        ChatRoomDAO chatRoomDAO = new ChatRoomDAO();
+        ExecutorService roomActivityExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-activity-updater");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            LogMessageStore store = new LogMessageStore(directory, (int) segmentBytes,
+                    userId -> {
+                        User user = readerCache.get(userId);
+                        if (user != null) {
+                            userCacheStats.hit();
+                        } else {
+                            userCacheStats.miss();
+                            user = userDAO.getUserByUserId(userId);
+                            if (user != null) {
+                                readerCache.put(userId, user);
+                            }
+                        }
+                        return user;
+                    },
+                    lastMessageAtByRoom -> roomActivityExecutor.execute(() -> chatRoomDAO.updateLastMessageAt(lastMessageAtByRoom)));
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "message-log-close"));
+            log.info("Using log message store at {}", directory.getAbsolutePath());
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open message log at " + directory, e);
+        }
+    }
+}
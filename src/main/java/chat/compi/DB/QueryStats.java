@@ -0,0 +1,440 @@
+// QueryStats.java
+package chat.compi.DB;
+
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import chat.compi.Metrics.DbStatementEvent;
+import chat.compi.Metrics.LatencyHistogram;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 문장별 실행 통계와 느린 쿼리 로그.
+ *
+ * DAO는 DatabaseConnection.getConnection() 대신 getConnection("DAO.메서드")로 연결을 얻는다.
+ * 돌려받은 연결은 얇은 프록시로, 연결 획득 시간과 그 연결에서 만든 문장의 실행 시간, 처리한 행 수, 오류를
+ * "DAO.메서드 동사 테이블" 이름(예: "MessageDAO.getUnreadMessageCount SELECT messages")으로 기록한다.
+ *
+ * -Dcompi.db.url(과 compi.db.user, compi.db.password)이 있으면 DatabaseConnection 대신 그 DB에 연결한다.
+ * (벤치마크/부하 테스트용 DB를 운영 설정과 따로 지정할 때 사용)
+ *
+ * 느린 쿼리: 실행 시간이 임계값(-Dcompi.db.slowQueryMillis, 기본 200ms, 실행 중 변경 가능) 이상이면
+ * 로그를 남기고 최근 SLOW_QUERY_LOG_SIZE개를 메모리에 보관한다.
+ */
+public final class QueryStats {
+    private static final Logger log = Log.get(QueryStats.class);
+
+    public static final String CONNECTION_ACQUIRE = "connection.acquire";
+    private static final int SLOW_QUERY_LOG_SIZE = 100;
+
+    private static final ConcurrentHashMap<String, StatementStats> STATS = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedDeque<SlowQuery> SLOW_QUERIES = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger SLOW_QUERY_COUNT = new AtomicInteger();
+    private static final AtomicInteger OPEN_CONNECTIONS = new AtomicInteger();
+    private static final AtomicInteger PEAK_OPEN_CONNECTIONS = new AtomicInteger();
+    private static volatile long slowQueryThresholdNanos =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("compi.db.slowQueryMillis", 200));
+
+    private QueryStats() {
+    }
+
+    /**
+     * 통계를 기록하는 연결을 얻습니다.
+     * @param label 호출한 곳 (예: "MessageDAO.getMessagesInRoomSince"), 문장 이름의 앞부분이 됨
+     */
+    public static Connection getConnection(String label) throws SQLException {
+        long start = System.nanoTime();
+        Connection conn;
+        try {
+            conn = openConnection();
+        } catch (SQLException e) {
+            stats(CONNECTION_ACQUIRE).errors.increment();
+            throw e;
+        }
+        stats(CONNECTION_ACQUIRE).record(System.nanoTime() - start, 0);
+        return wrap(conn, label);
+    }
+
+    /**
+     * 통계 없이 DB 연결을 엽니다. compi.db.url이 있으면 그 주소로, 없으면 DatabaseConnection 설정으로 연결합니다.
+     */
+    static Connection openConnection() throws SQLException {
+        String url = System.getProperty("compi.db.url");
+        if (url != null && !url.isEmpty()) {
+            return DriverManager.getConnection(url, System.getProperty("compi.db.user"), System.getProperty("compi.db.password"));
+        }
+        return DatabaseConnection.getConnection();
+    }
+
+    static Connection wrap(Connection conn, String label) {
+        int open = OPEN_CONNECTIONS.incrementAndGet();
+        PEAK_OPEN_CONNECTIONS.accumulateAndGet(open, Math::max);
+        return (Connection) Proxy.newProxyInstance(QueryStats.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conn, label));
+    }
+
+    /**
+     * 문장 하나의 실행 결과를 기록합니다. (프록시를 쓰지 않는 코드에서 직접 기록할 때)
+     */
+    public static void record(String name, long elapsedNanos, long rows, String sql) {
+        stats(name).record(elapsedNanos, rows);
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            logSlowQuery(name, elapsedNanos, rows, sql);
+        }
+    }
+
+    public static void recordError(String name) {
+        stats(name).errors.increment();
+    }
+
+    /**
+     * 모든 문장의 통계를 이름 순으로 반환합니다.
+     */
+    public static Map<String, StatementStats> getAll() {
+        return Collections.unmodifiableMap(new TreeMap<>(STATS));
+    }
+
+    /**
+     * 총 실행 시간이 긴 순으로 상위 문장을 반환합니다. (N+1 반복 조회는 개별 시간은 짧아도 여기서 위로 올라옴)
+     */
+    public static List<StatementStats> getTopByTotalTime(int limit) {
+        List<StatementStats> sorted = new ArrayList<>(STATS.values());
+        sorted.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    /**
+     * 최근 느린 쿼리를 최신순으로 반환합니다.
+     */
+    public static List<SlowQuery> getSlowQueries() {
+        return new ArrayList<>(SLOW_QUERIES);
+    }
+
+    public static long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    public static void setSlowQueryThresholdMillis(long thresholdMillis) {
+        slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    /**
+     * 지금 열려 있는(얻은 뒤 아직 닫지 않은) 연결 수
+     */
+    public static int getOpenConnections() {
+        return OPEN_CONNECTIONS.get();
+    }
+
+    public static int getPeakOpenConnections() {
+        return PEAK_OPEN_CONNECTIONS.get();
+    }
+
+    /**
+     * 통계와 느린 쿼리 로그를 모두 지웁니다.
+     */
+    public static void reset() {
+        STATS.clear();
+        SLOW_QUERIES.clear();
+        SLOW_QUERY_COUNT.set(0);
+    }
+
+    private static StatementStats stats(String name) {
+        StatementStats stats = STATS.get(name);
+        return stats != null ? stats : STATS.computeIfAbsent(name, StatementStats::new);
+    }
+
+    private static void logSlowQuery(String name, long elapsedNanos, long rows, String sql) {
+        SlowQuery slowQuery = new SlowQuery(name, TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0, rows, sql, LocalDateTime.now());
+        SLOW_QUERIES.addFirst(slowQuery);
+        if (SLOW_QUERY_COUNT.incrementAndGet() > SLOW_QUERY_LOG_SIZE) {
+            SLOW_QUERIES.pollLast();
+            SLOW_QUERY_COUNT.decrementAndGet();
+        }
+        log.warn("Slow query: {} took {} ms ({} rows)", name, String.format("%.1f", slowQuery.getMillis()), rows);
+    }
+
+    /**
+     * SQL의 동사와 대상 테이블로 짧은 이름을 만듭니다. (예: "SELECT messages", "INSERT message_reads")
+     */
+    static String describe(String sql) {
+        String[] tokens = sql.trim().split("\\s+");
+        if (tokens.length == 0) {
+            return "?";
+        }
+        String verb = tokens[0].toUpperCase();
+        String keyword;
+        switch (verb) {
+            case "SELECT":
+            case "DELETE":
+                keyword = "FROM";
+                break;
+            case "INSERT":
+            case "REPLACE":
+                keyword = "INTO";
+                break;
+            case "UPDATE":
+                return tokens.length > 1 ? verb + " " + tokens[1] : verb;
+            default:
+                return verb;
+        }
+        for (int i = 1; i < tokens.length - 1; i++) {
+            if (tokens[i].equalsIgnoreCase(keyword)) {
+                return verb + " " + tokens[i + 1];
+            }
+        }
+        return verb;
+    }
+
+    /**
+     * 문장 하나의 누적 통계
+     */
+    public static class StatementStats {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        StatementStats(String name) {
+            this.name = name;
+        }
+
+        void record(long elapsedNanos, long rowCount) {
+            latency.record(elapsedNanos);
+            totalNanos.add(elapsedNanos);
+            rows.add(rowCount);
+        }
+
+        public String getName() { return name; }
+
+        public long getExecutions() { return latency.getCount(); }
+
+        public long getRows() { return rows.sum(); }
+
+        public long getErrors() { return errors.sum(); }
+
+        public long getTotalNanos() { return totalNanos.sum(); }
+
+        public LatencyHistogram.Snapshot getLatency() { return latency.snapshot(); }
+    }
+
+    /**
+     * 느린 쿼리 로그 항목
+     */
+    public static class SlowQuery {
+        private final String name;
+        private final double millis;
+        private final long rows;
+        private final String sql;
+        private final LocalDateTime at;
+
+        SlowQuery(String name, double millis, long rows, String sql, LocalDateTime at) {
+            this.name = name;
+            this.millis = millis;
+            this.rows = rows;
+            this.sql = sql;
+            this.at = at;
+        }
+
+        public String getName() { return name; }
+
+        public double getMillis() { return millis; }
+
+        public long getRows() { return rows; }
+
+        public String getSql() { return sql; }
+
+        public LocalDateTime getAt() { return at; }
+    }
+
+    // ---------------------------------------------------------------------
+    // JDBC 프록시: prepareStatement/createStatement로 만든 문장을 감싸고, 실행 메서드만 시간을 잰다.
+
+    // JFR 녹화 중일 때만 이벤트 내용을 채워 기록 (기간은 end()까지의 실행 구간만)
+    private static void commitEvent(DbStatementEvent event, String name, String sql, long rows) {
+        if (event.shouldCommit()) {
+            event.name = name;
+            event.sql = sql;
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final String label;
+        private boolean closed;
+
+        ConnectionHandler(Connection target, String label) {
+            this.target = target;
+            this.label = label;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("close") && !closed) {
+                closed = true;
+                OPEN_CONNECTIONS.decrementAndGet();
+            }
+            Object result = QueryStats.invoke(target, method, args);
+            if (result instanceof PreparedStatement && methodName.equals("prepareStatement")) {
+                String sql = (String) args[0];
+                return Proxy.newProxyInstance(QueryStats.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                        new StatementHandler((Statement) result, label, sql));
+            }
+            if (result instanceof Statement && methodName.equals("createStatement")) {
+                return Proxy.newProxyInstance(QueryStats.class.getClassLoader(), new Class<?>[]{Statement.class},
+                        new StatementHandler((Statement) result, label, null));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String label;
+        private final String preparedSql;
+        private ResultSetHandler openResultSet; // 끝까지 읽지 않고 닫지도 않은 ResultSet은 문장을 닫을 때 기록
+
+        StatementHandler(Statement target, String label, String preparedSql) {
+            this.target = target;
+            this.label = label;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (!methodName.startsWith("execute")) {
+                if (methodName.equals("close")) {
+                    finishOpenResultSet();
+                }
+                return QueryStats.invoke(target, method, args);
+            }
+            finishOpenResultSet();
+            String sql = preparedSql != null ? preparedSql : (args != null && args.length > 0 ? (String) args[0] : "?");
+            String name = label + " " + describe(sql);
+            DbStatementEvent event = new DbStatementEvent();
+            event.begin();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryStats.invoke(target, method, args);
+            } catch (SQLException e) {
+                recordError(name);
+                event.end();
+                event.failed = true;
+                commitEvent(event, name, sql, 0);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            event.end();
+
+            if (result instanceof ResultSet) {
+                // 조회 행 수는 ResultSet을 다 읽거나 닫을 때 기록
+                openResultSet = new ResultSetHandler((ResultSet) result, name, elapsed, sql, event);
+                return Proxy.newProxyInstance(QueryStats.class.getClassLoader(), new Class<?>[]{ResultSet.class}, openResultSet);
+            }
+            long rows = rowCount(result);
+            record(name, elapsed, rows, sql);
+            commitEvent(event, name, sql, rows);
+            return result;
+        }
+
+        private void finishOpenResultSet() {
+            if (openResultSet != null) {
+                openResultSet.finish();
+                openResultSet = null;
+            }
+        }
+
+        private static long rowCount(Object result) {
+            if (result instanceof Integer) {
+                return Math.max(0, (Integer) result);
+            }
+            if (result instanceof Long) {
+                return Math.max(0, (Long) result);
+            }
+            if (result instanceof int[]) {
+                long total = 0;
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            return 0;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final String name;
+        private final long executeNanos;
+        private final String sql;
+        private final DbStatementEvent event;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, String name, long executeNanos, String sql, DbStatementEvent event) {
+            this.target = target;
+            this.name = name;
+            this.executeNanos = executeNanos;
+            this.sql = sql;
+            this.event = event;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("close")) {
+                finish();
+            }
+            Object result = QueryStats.invoke(target, method, args);
+            if (methodName.equals("next")) {
+                if ((Boolean) result) {
+                    rows++;
+                } else {
+                    finish();
+                }
+            }
+            return result;
+        }
+
+        private void finish() {
+            if (!recorded) {
+                recorded = true;
+                record(name, executeNanos, rows, sql);
+                commitEvent(event, name, sql, rows);
+            }
+        }
+    }
+}
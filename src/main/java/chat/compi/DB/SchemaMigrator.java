@@ -0,0 +1,237 @@
+// SchemaMigrator.java
+package chat.compi.DB;
+
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 클래스패스의 db/migration/V<번호>__<설명>.sql 파일을 번호 순서대로 한 번씩 적용한다.
+ * 적용한 버전은 schema_version 테이블에 기록한다.
+ *
+ * 마이그레이션 규칙:
+ * - 문장은 줄 끝의 ';'로 나누고, '--'로 시작하는 줄은 주석으로 건너뛴다.
+ * - 한 마이그레이션은 하나의 연결에서 실행된다 (SET FOREIGN_KEY_CHECKS 같은 세션 설정이 유지됨).
+ * - MySQL DDL은 자동 커밋되므로 중간에 실패하면 일부만 적용된 채로 남는다. 그래서 스크립트는 다시 실행해도
+ *   안전하게 작성하고, 이미 있는 테이블/컬럼/인덱스 오류(1050, 1060, 1061)와 이미 없는 인덱스/컬럼을 지우는 오류(1091)는
+ *   적용된 것으로 보고 넘어간다.
+ *   (schema_version이 생기기 전에 V2를 직접 적용한 DB도 이렇게 따라잡는다)
+ *
+ * 서버 시작 시 실행되며, -Dcompi.schema.autoMigrate=false로 끌 수 있다.
+ */
+public class SchemaMigrator {
+    private static final Logger log = Log.get(SchemaMigrator.class);
+
+    private static final String MIGRATION_PATH = "db/migration";
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Set<Integer> ALREADY_APPLIED_ERRORS = Set.of(
+            1050, // Table already exists
+            1060, // Duplicate column name
+            1061, // Duplicate key name
+            1091  // Can't DROP; check that column/key exists
+    );
+
+    /**
+     * 설정이 꺼져 있지 않으면 마이그레이션을 적용합니다. 실패하면 서버를 계속 띄울 수 없으므로 예외를 던집니다.
+     */
+    public static void migrateIfEnabled() {
+        if (!Boolean.parseBoolean(System.getProperty("compi.schema.autoMigrate", "true"))) {
+            log.info("Schema migration disabled (compi.schema.autoMigrate=false).");
+            return;
+        }
+        try {
+            int applied = new SchemaMigrator().migrate();
+            log.info("Schema is up to date ({} migrations applied).", applied);
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Schema migration failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 아직 적용되지 않은 마이그레이션을 순서대로 적용합니다.
+     * @return 이번에 적용한 마이그레이션 수
+     */
+    public int migrate() throws SQLException, IOException {
+        TreeMap<Integer, Migration> migrations = findMigrations();
+        int appliedCount = 0;
+        try (Connection conn = QueryStats.openConnection()) {
+            ensureVersionTable(conn);
+            Set<Integer> appliedVersions = getAppliedVersions(conn);
+            for (Migration migration : migrations.values()) {
+                if (appliedVersions.contains(migration.version)) {
+                    continue;
+                }
+                long start = System.currentTimeMillis();
+                apply(conn, migration);
+                recordVersion(conn, migration, System.currentTimeMillis() - start);
+                log.info("Applied schema migration V{} ({})", migration.version, migration.description);
+                appliedCount++;
+            }
+        }
+        return appliedCount;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : parseStatements(migration.script)) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_APPLIED_ERRORS.contains(e.getErrorCode())) {
+                        throw new SQLException("V" + migration.version + " failed at: " + sql + " (" + e.getMessage() + ")", e.getSQLState(), e.getErrorCode(), e);
+                    }
+                    log.info("V{}: skipping already applied statement ({})", migration.version, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void ensureVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY, " +
+                    "description VARCHAR(255) NOT NULL, " +
+                    "applied_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "execution_ms BIGINT NOT NULL)");
+        }
+    }
+
+    private Set<Integer> getAppliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private void recordVersion(Connection conn, Migration migration, long executionMillis) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO schema_version (version, description, execution_ms) VALUES (?, ?, ?)")) {
+            pstmt.setInt(1, migration.version);
+            pstmt.setString(2, migration.description);
+            pstmt.setLong(3, executionMillis);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 클래스패스(디렉터리 또는 jar)에서 마이그레이션 파일을 찾아 버전 순으로 반환합니다.
+     */
+    static TreeMap<Integer, Migration> findMigrations() throws IOException {
+        List<String> fileNames = new ArrayList<>();
+        Enumeration<URL> locations = SchemaMigrator.class.getClassLoader().getResources(MIGRATION_PATH);
+        while (locations.hasMoreElements()) {
+            URL location = locations.nextElement();
+            if ("jar".equals(location.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) location.openConnection();
+                connection.setUseCaches(false); // 공유 JarFile을 닫지 않도록 별도로 연다
+                try (JarFile jar = connection.getJarFile()) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(MIGRATION_PATH + "/")) {
+                            fileNames.add(name.substring(MIGRATION_PATH.length() + 1));
+                        }
+                    }
+                }
+            } else {
+                try {
+                    String[] names = new File(location.toURI()).list();
+                    if (names != null) {
+                        fileNames.addAll(List.of(names));
+                    }
+                } catch (URISyntaxException e) {
+                    throw new IOException("Invalid migration location: " + location, e);
+                }
+            }
+        }
+
+        TreeMap<Integer, Migration> migrations = new TreeMap<>();
+        for (String fileName : fileNames) {
+            Matcher matcher = MIGRATION_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                continue;
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            Migration migration = new Migration(version, matcher.group(2).replace('_', ' '), readScript(fileName));
+            Migration duplicate = migrations.put(version, migration);
+            if (duplicate != null && !duplicate.script.equals(migration.script)) {
+                throw new IOException("Duplicate schema migration version: V" + version);
+            }
+        }
+        return migrations;
+    }
+
+    private static String readScript(String fileName) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(MIGRATION_PATH + "/" + fileName)) {
+            if (in == null) {
+                throw new IOException("Migration not found: " + fileName);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 스크립트를 실행할 문장 단위로 나눕니다. (주석 줄 제거, 줄 끝의 ';'에서 분리)
+     */
+    static List<String> parseStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(trimmed);
+            }
+        }
+        if (current.length() > 0) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    static class Migration {
+        final int version;
+        final String description;
+        final String script;
+
+        Migration(int version, String description, String script) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package chat.compi.DB;
 
 import chat.compi.Entity.TimelineEvent;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -8,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class TimelineDAO {
+    private static final Logger log = Log.get(TimelineDAO.class);
 
     /**
      * 타임라인 이벤트 저장 (새로운 오버로드 메서드)
@@ -21,7 +24,7 @@ public class TimelineDAO {
      */
     public boolean saveTimelineEvent(int roomId, int userId, String command, String description, String eventType, String eventName) {
         String sql = "INSERT INTO timeline_events (room_id, user_id, command, description, event_type, event_name) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("TimelineDAO.saveTimelineEvent");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             pstmt.setInt(2, userId);
@@ -31,7 +34,7 @@ public class TimelineDAO {
             pstmt.setString(6, eventName);
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error saving timeline event with type and name: " + e.getMessage());
+            log.error("Error saving timeline event with type and name: {}", e.getMessage());
             return false;
         }
     }
@@ -46,7 +49,7 @@ public class TimelineDAO {
         String sql = "SELECT te.event_id, te.room_id, te.user_id, u.nickname, te.command, te.description, te.event_time, te.event_type, te.event_name " +
                 "FROM timeline_events te JOIN users u ON te.user_id = u.user_id " +
                 "WHERE te.room_id = ? ORDER BY te.event_time ASC";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("TimelineDAO.getTimelineEventsInRoom");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             ResultSet rs = pstmt.executeQuery();
@@ -63,7 +66,7 @@ public class TimelineDAO {
                 events.add(new TimelineEvent(eventId, rId, uId, nickname, command, description, eventTime, eventType, eventName));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting timeline events: " + e.getMessage());
+            log.error("Error getting timeline events: {}", e.getMessage());
         }
         return events;
     }
@@ -76,13 +79,13 @@ public class TimelineDAO {
      */
     public int deleteTimelineEventsByProjectName(int roomId, String projectName) {
         String sql = "DELETE FROM timeline_events WHERE room_id = ? AND event_name = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("TimelineDAO.deleteTimelineEventsByProjectName");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             pstmt.setString(2, projectName);
             return pstmt.executeUpdate();
         } catch (SQLException e) {
-            System.err.println("Error deleting timeline events by project name: " + e.getMessage());
+            log.error("Error deleting timeline events by project name: {}", e.getMessage());
             return 0;
         }
     }
@@ -96,7 +99,7 @@ public class TimelineDAO {
      */
     public boolean isProjectNameExist(int roomId, String projectName) {
         String sql = "SELECT COUNT(*) FROM timeline_events WHERE room_id = ? AND event_name = ? AND event_type = 'PROJECT_START'";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("TimelineDAO.isProjectNameExist");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             pstmt.setString(2, projectName);
@@ -105,7 +108,7 @@ public class TimelineDAO {
                 return rs.getInt(1) > 0;
             }
         } catch (SQLException e) {
-            System.err.println("Error checking project name existence: " + e.getMessage());
+            log.error("Error checking project name existence: {}", e.getMessage());
         }
         return false;
     }
@@ -118,13 +121,13 @@ public class TimelineDAO {
      */
     public boolean updateTimelineEventDescription(int eventId, String newDescription) {
         String sql = "UPDATE timeline_events SET description = ? WHERE event_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("TimelineDAO.updateTimelineEventDescription");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, newDescription);
             pstmt.setInt(2, eventId);
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating timeline event description for event ID " + eventId + ": " + e.getMessage());
+            log.error("Error updating timeline event description for event ID {}: {}", eventId, e.getMessage());
             return false;
         }
     }
@@ -136,12 +139,12 @@ public class TimelineDAO {
      */
     public int deleteTimelineEventById(int eventId) {
         String sql = "DELETE FROM timeline_events WHERE event_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("TimelineDAO.deleteTimelineEventById");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, eventId);
             return pstmt.executeUpdate();
         } catch (SQLException e) {
-            System.err.println("Error deleting timeline event by ID " + eventId + ": " + e.getMessage());
+            log.error("Error deleting timeline event by ID {}: {}", eventId, e.getMessage());
             return 0;
         }
     }
@@ -155,7 +158,7 @@ public class TimelineDAO {
         String sql = "SELECT te.event_id, te.room_id, te.user_id, u.nickname, te.command, te.description, te.event_time, te.event_type, te.event_name " +
                 "FROM timeline_events te JOIN users u ON te.user_id = u.user_id " +
                 "WHERE te.event_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("TimelineDAO.getTimelineEventById");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, eventId);
             ResultSet rs = pstmt.executeQuery();
@@ -171,7 +174,7 @@ public class TimelineDAO {
                 return new TimelineEvent(eventId, rId, uId, nickname, command, description, eventTime, eventType, eventName);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting timeline event by ID: " + e.getMessage());
+            log.error("Error getting timeline event by ID: {}", e.getMessage());
         }
         return null;
     }
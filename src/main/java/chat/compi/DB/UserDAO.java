@@ -2,6 +2,8 @@ package chat.compi.DB;
 
 import chat.compi.Entity.User;
 import chat.compi.Entity.UserStatus;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -9,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class UserDAO {
+    private static final Logger log = Log.get(UserDAO.class);
 
     /**
      * 사용자 등록 (회원가입)
@@ -20,7 +23,7 @@ public class UserDAO {
     public boolean registerUser(String username, String password, String nickname) {
         // String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt()); // 비밀번호 해싱 부분 제거
         String sql = "INSERT INTO users (username, password, nickname, status) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.registerUser");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
             pstmt.setString(2, password); // 평문 비밀번호 저장
@@ -29,9 +32,9 @@ public class UserDAO {
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
             if (e.getErrorCode() == 1062) { // Duplicate entry for key 'username'
-                System.err.println("Registration failed: Username '" + username + "' already exists.");
+                log.error("Registration failed: Username '{}' already exists.", username);
             } else {
-                System.err.println("Error registering user: " + e.getMessage());
+                log.error("Error registering user: {}", e.getMessage());
             }
             return false;
         }
@@ -45,7 +48,7 @@ public class UserDAO {
      */
     public User loginUser(String username, String password) {
         String sql = "SELECT user_id, username, password, nickname, status FROM users WHERE username = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.loginUser");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
@@ -60,7 +63,7 @@ public class UserDAO {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error logging in user: " + e.getMessage());
+            log.error("Error logging in user: {}", e.getMessage());
         }
         return null;
     }
@@ -73,14 +76,18 @@ public class UserDAO {
      */
     public boolean updateUserStatus(int userId, UserStatus status) {
         String sql = "UPDATE users SET status = ?, last_login_time = ? WHERE user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.updateUserStatus");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, status.name());
             pstmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
             pstmt.setInt(3, userId);
-            return pstmt.executeUpdate() > 0;
+            boolean updated = pstmt.executeUpdate() > 0;
+            if (updated) {
+                MessageStores.userChanged(userId);
+            }
+            return updated;
         } catch (SQLException e) {
-            System.err.println("Error updating user status: " + e.getMessage());
+            log.error("Error updating user status: {}", e.getMessage());
             return false;
         }
     }
@@ -92,7 +99,7 @@ public class UserDAO {
      */
     public User getUserByUserId(int userId) {
         String sql = "SELECT user_id, username, nickname, status, last_login_time FROM users WHERE user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.getUserByUserId");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
@@ -105,7 +112,7 @@ public class UserDAO {
                 return new User(userId, username, nickname, status, lastLoginTime);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting user by ID: " + e.getMessage());
+            log.error("Error getting user by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -117,7 +124,7 @@ public class UserDAO {
      */
     public User getUserByUsername(String username) {
         String sql = "SELECT user_id, username, nickname, status, last_login_time FROM users WHERE username = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.getUserByUsername");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
@@ -130,7 +137,7 @@ public class UserDAO {
                 return new User(userId, username, nickname, status, lastLoginTime);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting user by username: " + e.getMessage());
+            log.error("Error getting user by username: {}", e.getMessage());
         }
         return null;
     }
@@ -142,7 +149,7 @@ public class UserDAO {
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
         String sql = "SELECT user_id, username, nickname, status, last_login_time FROM users";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.getAllUsers");
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
@@ -155,7 +162,7 @@ public class UserDAO {
                 users.add(new User(userId, username, nickname, status, lastLoginTime));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting all users: " + e.getMessage());
+            log.error("Error getting all users: {}", e.getMessage());
         }
         return users;
     }
@@ -169,12 +176,12 @@ public class UserDAO {
     public boolean addFriend(int userId, int friendId) {
         // 이미 친구인지 확인
         if (isFriend(userId, friendId)) {
-            System.out.println("Already friends.");
+            log.info("Already friends.");
             return false;
         }
 
         String sql = "INSERT INTO friends (user_id, friend_id) VALUES (?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.addFriend");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             conn.setAutoCommit(false); // 트랜잭션 시작
 
@@ -190,7 +197,7 @@ public class UserDAO {
             conn.commit(); // 커밋
             return true;
         } catch (SQLException e) {
-            System.err.println("Error adding friend: " + e.getMessage());
+            log.error("Error adding friend: {}", e.getMessage());
             return false;
         }
     }
@@ -203,7 +210,7 @@ public class UserDAO {
      */
     public boolean isFriend(int userId, int friendId) {
         String sql = "SELECT COUNT(*) FROM friends WHERE user_id = ? AND friend_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.isFriend");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             pstmt.setInt(2, friendId);
@@ -212,7 +219,7 @@ public class UserDAO {
                 return rs.getInt(1) > 0;
             }
         } catch (SQLException e) {
-            System.err.println("Error checking friend status: " + e.getMessage());
+            log.error("Error checking friend status: {}", e.getMessage());
         }
         return false;
     }
@@ -220,12 +227,27 @@ public class UserDAO {
     /**
      * 사용자 친구 목록 조회
      * @param userId 사용자 ID
-     * @return 친구 User 객체 리스트
+     * @return 친구 User 객체 리스트, 조회 실패 시 빈 리스트
      */
     public List<User> getFriends(int userId) {
+        try {
+            return loadFriends(userId);
+        } catch (SQLException e) {
+            log.error("Error getting friends: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 사용자 친구 목록 조회. 실패를 빈 목록과 구분해야 하는 곳(로그인 BOOTSTRAP)에서 사용합니다.
+     * @param userId 사용자 ID
+     * @return 친구 User 객체 리스트
+     * @throws SQLException 조회 실패
+     */
+    public List<User> loadFriends(int userId) throws SQLException {
         List<User> friends = new ArrayList<>();
         String sql = "SELECT u.user_id, u.username, u.nickname, u.status FROM friends f JOIN users u ON f.friend_id = u.user_id WHERE f.user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = QueryStats.getConnection("UserDAO.getFriends");
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
@@ -236,8 +258,6 @@ public class UserDAO {
                 UserStatus status = UserStatus.valueOf(rs.getString("status"));
                 friends.add(new User(friendId, username, nickname, status));
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting friends: " + e.getMessage());
         }
         return friends;
     }
@@ -10,9 +10,9 @@ public class ClientRequest implements Serializable {
         LOGIN, REGISTER, LOGOUT,
         GET_FRIEND_LIST, ADD_FRIEND, REMOVE_FRIEND,
         CREATE_CHAT_ROOM, INVITE_USER_TO_ROOM, GET_CHAT_ROOMS, GET_MESSAGES_IN_ROOM,
-        SEND_MESSAGE, READ_MESSAGE,
+        SEND_MESSAGE, READ_MESSAGE, MARK_READ_BATCH,
         GET_NOTICE_MESSAGES, GET_TIMELINE_EVENTS,
-        UPLOAD_FILE, DOWNLOAD_FILE,
+        UPLOAD_FILE, DOWNLOAD_FILE, DOWNLOAD_THUMBNAIL, GET_STORAGE_USAGE,
         SET_AWAY_STATUS, // 자리비움 상태 설정
         LEAVE_CHAT_ROOM,
         MARK_AS_NOTICE, RESEND_NOTIFICATION,
@@ -8,12 +8,14 @@ public class ServerResponse implements Serializable {
 
     public enum ResponseType {
         SUCCESS, FAIL,
-        LOGIN_SUCCESS, REGISTER_SUCCESS,
+        BOOTSTRAP, REGISTER_SUCCESS,
         FRIEND_LIST_UPDATE, FRIEND_STATUS_UPDATE,
         CHAT_ROOMS_UPDATE, ROOM_MESSAGES_UPDATE,
+        ROOM_ADDED, ROOM_REMOVED, ROOM_UPDATED,
         NEW_MESSAGE, MESSAGE_READ_CONFIRM,
         NOTICE_LIST_UPDATE, TIMELINE_UPDATE,
-        FILE_UPLOAD_SUCCESS, FILE_DOWNLOAD_SUCCESS,
+        FILE_UPLOAD_SUCCESS, FILE_DOWNLOAD_SUCCESS, FILE_NOT_MODIFIED,
+        THUMBNAIL_READY, THUMBNAIL_DOWNLOAD_SUCCESS, STORAGE_USAGE,
         SYSTEM_NOTIFICATION,
         MESSAGE_MARKED_AS_NOTICE_SUCCESS,
         MESSAGE_ALREADY_READ,
@@ -38,6 +40,10 @@ public class ServerResponse implements Serializable {
         return type;
     }
 
+    public boolean isSuccess() {
+        return success;
+    }
+
     public String getMessage() {
         return message;
     }
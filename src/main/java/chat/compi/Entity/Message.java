@@ -6,8 +6,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public class Message implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private int messageId;
+    private static final long serialVersionUID = 2L; // 2: messageId int -> long, roomSeq 추가
+    private long messageId; // 시간 순서로 증가하는 64비트 ID (MessageIdGenerator)
+    private long roomSeq; // 방별로 1씩 증가하는 순번 (정렬, 누락 감지, 증분 조회용)
     private int roomId;
     private int senderId;
     private String senderNickname;
@@ -18,6 +19,9 @@ public class Message implements Serializable {
     private int unreadCount;
     private List<User> readers;
     private LocalDateTime noticeExpiryTime; // 새로 추가: 공지 유효 기간
+    private String thumbnailId; // 이미지 첨부파일의 썸네일 ID (서버 썸네일 파이프라인이 생성)
+    private int thumbnailWidth;
+    private int thumbnailHeight;
 
     public Message(int roomId, int senderId, String senderNickname, MessageType messageType, String content, boolean isNotice) {
         this.roomId = roomId;
@@ -30,7 +34,7 @@ public class Message implements Serializable {
     }
 
     // DB에서 불러올 때 사용하는 생성자
-    public Message(int messageId, int roomId, int senderId, String senderNickname, MessageType messageType, String content, LocalDateTime sentAt, boolean isNotice) {
+    public Message(long messageId, int roomId, int senderId, String senderNickname, MessageType messageType, String content, LocalDateTime sentAt, boolean isNotice) {
         this.messageId = messageId;
         this.roomId = roomId;
         this.senderId = senderId;
@@ -42,7 +46,7 @@ public class Message implements Serializable {
     }
 
     // DB에서 불러올 때 사용하는 생성자 (noticeExpiryTime 포함)
-    public Message(int messageId, int roomId, int senderId, String senderNickname, MessageType messageType, String content, LocalDateTime sentAt, boolean isNotice, LocalDateTime noticeExpiryTime) {
+    public Message(long messageId, int roomId, int senderId, String senderNickname, MessageType messageType, String content, LocalDateTime sentAt, boolean isNotice, LocalDateTime noticeExpiryTime) {
         this.messageId = messageId;
         this.roomId = roomId;
         this.senderId = senderId;
@@ -56,8 +60,10 @@ public class Message implements Serializable {
 
 
     // Getters and Setters
-    public int getMessageId() { return messageId; }
-    public void setMessageId(int messageId) { this.messageId = messageId; }
+    public long getMessageId() { return messageId; }
+    public void setMessageId(long messageId) { this.messageId = messageId; }
+    public long getRoomSeq() { return roomSeq; }
+    public void setRoomSeq(long roomSeq) { this.roomSeq = roomSeq; }
     public int getRoomId() { return roomId; }
     public void setRoomId(int roomId) { this.roomId = roomId; }
     public int getSenderId() { return senderId; }
@@ -92,6 +98,14 @@ public class Message implements Serializable {
         this.noticeExpiryTime = noticeExpiryTime;
     }
 
+    // 썸네일 정보 Getter and Setter
+    public String getThumbnailId() { return thumbnailId; }
+    public void setThumbnailId(String thumbnailId) { this.thumbnailId = thumbnailId; }
+    public int getThumbnailWidth() { return thumbnailWidth; }
+    public void setThumbnailWidth(int thumbnailWidth) { this.thumbnailWidth = thumbnailWidth; }
+    public int getThumbnailHeight() { return thumbnailHeight; }
+    public void setThumbnailHeight(int thumbnailHeight) { this.thumbnailHeight = thumbnailHeight; }
+
     @Override
     public String toString() {
         return "[" + sentAt.format(java.time.format.DateTimeFormatter.ofPattern("HH:mm")) + "] " +
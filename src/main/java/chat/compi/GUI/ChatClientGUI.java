@@ -2,10 +2,14 @@
 package chat.compi.GUI;
 
 import chat.compi.Controller.ChatClient;
+import chat.compi.Controller.ClientEventBus;
 import chat.compi.Dto.ClientRequest;
 import chat.compi.Dto.ServerResponse;
 import chat.compi.Entity.*;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 import javax.swing.*;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
@@ -17,7 +21,6 @@ import java.nio.file.Files;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -31,6 +34,8 @@ import javax.swing.event.HyperlinkEvent;
 
 @SuppressWarnings("unchecked")
 public class ChatClientGUI extends JFrame {
+    private static final Logger log = Log.get(ChatClientGUI.class);
+
     private ChatClient chatClient;
     private User currentUser;
 
@@ -47,6 +52,10 @@ public class ChatClientGUI extends JFrame {
 
     private Map<Integer, ChatRoomDialog> openChatRoomDialogs;
 
+    // 모르는 방의 메시지가 오면 채팅방 목록을 다시 받되, 몰려 와도 간격마다 한 번만 요청
+    private static final int ROOM_LIST_REFRESH_MILLIS = 1000;
+    private final Timer roomListRefreshTimer = new Timer(ROOM_LIST_REFRESH_MILLIS, e -> chatClient.getChatRooms());
+
     private int pendingPrivateChatUserId = -1;
 
     private JFrame noticeFrame;
@@ -73,7 +82,10 @@ public class ChatClientGUI extends JFrame {
         return timelineFrame;
     }
 
-    public ChatClientGUI(ChatClient client) {
+    /**
+     * @param bootstrap 로그인 응답 (친구 목록과 채팅방 목록이 들어 있으므로 따로 요청하지 않음)
+     */
+    public ChatClientGUI(ChatClient client, ServerResponse bootstrap) {
         this.chatClient = client;
         this.currentUser = client.getCurrentUser();
         setTitle("Java Chat Client - " + currentUser.getNickname() + "(" + currentUser.getUsername() + ")");
@@ -99,22 +111,28 @@ public class ChatClientGUI extends JFrame {
             }
         });
 
+        roomListRefreshTimer.setRepeats(false);
         setupResponseListeners();
         initComponents();
 
-        chatClient.getFriendList();
-        chatClient.getChatRooms();
+        handleFriendListUpdate(bootstrap);
+        handleChatRoomsUpdate(bootstrap);
 
         initNoticeFrame();
         initTimelineFrame();
     }
 
     private void handleMessageReadConfirm(ServerResponse response) {
-        System.out.println("DEBUG: Message read confirmed from server. Message ID: " + response.getData().get("messageId"));
+        Map<String, Object> data = response.getData();
+        if (data.containsKey("markedCount")) {
+            log.debug("Read batch confirmed from server. Room ID: {}, newly read: {}", data.get("roomId"), data.get("markedCount"));
+        } else {
+            log.debug("Message read confirmed from server. Message ID: {}", data.get("messageId"));
+        }
     }
 
     private void handleMessageAlreadyRead(ServerResponse response) {
-        System.out.println("DEBUG: Message " + response.getData().get("messageId") + " was already read. No action needed.");
+        log.debug("Message {} was already read. No action needed.", response.getData().get("messageId"));
     }
 
     private void handleTimelineEventUpdatedSuccess(ServerResponse response) {
@@ -134,12 +152,18 @@ public class ChatClientGUI extends JFrame {
         chatClient.setResponseListener(ServerResponse.ResponseType.FRIEND_LIST_UPDATE, this::handleFriendListUpdate);
         chatClient.setResponseListener(ServerResponse.ResponseType.FRIEND_STATUS_UPDATE, this::handleFriendStatusUpdate);
         chatClient.setResponseListener(ServerResponse.ResponseType.CHAT_ROOMS_UPDATE, this::handleChatRoomsUpdate);
+        chatClient.setResponseListener(ServerResponse.ResponseType.ROOM_ADDED, this::handleRoomAdded);
+        chatClient.setResponseListener(ServerResponse.ResponseType.ROOM_REMOVED, this::handleRoomRemoved);
+        chatClient.setResponseListener(ServerResponse.ResponseType.ROOM_UPDATED, this::handleRoomUpdated);
         chatClient.setResponseListener(ServerResponse.ResponseType.NEW_MESSAGE, this::handleNewMessage);
         chatClient.setResponseListener(ServerResponse.ResponseType.FAIL, this::handleServerFailure);
         chatClient.setResponseListener(ServerResponse.ResponseType.NOTICE_LIST_UPDATE, this::handleNoticeListUpdate);
         chatClient.setResponseListener(ServerResponse.ResponseType.TIMELINE_UPDATE, this::handleTimelineUpdate);
         chatClient.setResponseListener(ServerResponse.ResponseType.FILE_UPLOAD_SUCCESS, this::handleFileUploadSuccess);
         chatClient.setResponseListener(ServerResponse.ResponseType.FILE_DOWNLOAD_SUCCESS, this::handleFileDownloadSuccess);
+        chatClient.setResponseListener(ServerResponse.ResponseType.FILE_NOT_MODIFIED, this::handleFileNotModified);
+        chatClient.setResponseListener(ServerResponse.ResponseType.THUMBNAIL_READY, this::handleThumbnailReady);
+        chatClient.setResponseListener(ServerResponse.ResponseType.THUMBNAIL_DOWNLOAD_SUCCESS, this::handleThumbnailDownloadSuccess);
         chatClient.setResponseListener(ServerResponse.ResponseType.SYSTEM_NOTIFICATION, this::handleSystemNotification);
         chatClient.setResponseListener(ServerResponse.ResponseType.ROOM_MESSAGES_UPDATE, this::handleRoomMessagesUpdate);
         chatClient.setResponseListener(ServerResponse.ResponseType.SUCCESS, this::handleGeneralSuccessResponse);
@@ -150,6 +174,17 @@ public class ChatClientGUI extends JFrame {
         chatClient.setResponseListener(ServerResponse.ResponseType.TIMELINE_EVENT_DELETE_FAIL, this::handleTimelineEventDeleteFail);
         chatClient.setResponseListener(ServerResponse.ResponseType.TIMELINE_EVENT_UPDATED_SUCCESS, this::handleTimelineEventUpdatedSuccess); // 새로 추가
         chatClient.setResponseListener(ServerResponse.ResponseType.TIMELINE_EVENT_UPDATED_FAIL, this::handleTimelineEventUpdatedFail); // 새로 추가
+
+        // 메시지 캐시 디스크 쓰기 등 무거운 처리는 "messages" 작업 스레드에서 (접속 상태, 채팅방 목록 응답을 막지 않음).
+        // 화면에 메시지를 붙이는 순서가 바뀌지 않도록 채팅방 메시지 관련 응답은 모두 같은 스레드에 둠
+        ClientEventBus eventBus = chatClient.getEventBus();
+        eventBus.setDispatch(ServerResponse.ResponseType.NEW_MESSAGE, ClientEventBus.Dispatch.BACKGROUND, "messages");
+        eventBus.setDispatch(ServerResponse.ResponseType.ROOM_MESSAGES_UPDATE, ClientEventBus.Dispatch.BACKGROUND, "messages");
+        eventBus.setDispatch(ServerResponse.ResponseType.SYSTEM_NOTIFICATION, ClientEventBus.Dispatch.BACKGROUND, "messages");
+        eventBus.setDispatch(ServerResponse.ResponseType.THUMBNAIL_READY, ClientEventBus.Dispatch.BACKGROUND, "messages");
+        // 한 화면을 통째로 바꾸는 스냅샷 응답: 밀리면 마지막 것만 그림
+        eventBus.setDispatch(ServerResponse.ResponseType.NOTICE_LIST_UPDATE, ClientEventBus.Dispatch.LATEST);
+        eventBus.setDispatch(ServerResponse.ResponseType.TIMELINE_UPDATE, ClientEventBus.Dispatch.LATEST);
     }
 
     private void initComponents() {
@@ -247,11 +282,11 @@ public class ChatClientGUI extends JFrame {
         openChatRoomDialog(room, -1);
     }
 
-    private void openChatRoomDialog(ChatRoom room, int targetMessageId) {
-        System.out.println("openChatRoomDialog called for room ID: " + room.getRoomId() + ", name: " + room.getRoomName() + ", targetMessageId: " + targetMessageId);
+    private void openChatRoomDialog(ChatRoom room, long targetMessageId) {
+        log.debug("openChatRoomDialog called for room ID: {}, name: {}, targetMessageId: {}", room.getRoomId(), room.getRoomName(), targetMessageId);
         ChatRoomDialog dialog = openChatRoomDialogs.get(room.getRoomId());
         if (dialog == null) {
-            System.out.println("  Dialog for room " + room.getRoomId() + " not found in map. Creating new dialog.");
+            log.debug("  Dialog for room {} not found in map. Creating new dialog.", room.getRoomId());
             dialog = new ChatRoomDialog(this, chatClient, room);
             openChatRoomDialogs.put(room.getRoomId(), dialog);
             dialog.addWindowListener(new WindowAdapter() {
@@ -259,17 +294,17 @@ public class ChatClientGUI extends JFrame {
                 public void windowClosed(WindowEvent e) {
                     openChatRoomDialogs.remove(room.getRoomId());
                     chatRoomList.clearSelection();
-                    System.out.println("  ChatRoomDialog for room " + room.getRoomId() + " closed and removed from map. Map size: " + openChatRoomDialogs.size());
+                    log.debug("  ChatRoomDialog for room {} closed and removed from map. Map size: {}", room.getRoomId(), openChatRoomDialogs.size());
                 }
             });
         } else {
-            System.out.println("  Dialog for room " + room.getRoomId() + " found in map. Re-using existing dialog.");
+            log.debug("  Dialog for room {} found in map. Re-using existing dialog.", room.getRoomId());
             dialog.updateChatRoomInfo(room);
         }
         dialog.setVisible(true);
         dialog.toFront();
         dialog.loadMessages(targetMessageId);
-        System.out.println("Opened chat room dialog for room ID: " + room.getRoomId() + " (" + room.getRoomName() + ")");
+        log.debug("Opened chat room dialog for room ID: {} ({})", room.getRoomId(), room.getRoomName());
     }
 
     private void handleFriendListUpdate(ServerResponse response) {
@@ -302,26 +337,26 @@ public class ChatClientGUI extends JFrame {
 
     private void handleChatRoomCreationSuccessLogic(ServerResponse response) {
         ChatRoom createdOrFoundRoom = (ChatRoom) response.getData().get("chatRoom");
-        System.out.println("Chat room operation successful: " + createdOrFoundRoom.getRoomName() + ", Room ID: " + createdOrFoundRoom.getRoomId());
-        System.out.println("  Is Group Chat: " + createdOrFoundRoom.isGroupChat());
-        System.out.println("  Participants: " + createdOrFoundRoom.getParticipants().stream().map(User::getNickname).collect(Collectors.joining(", ")));
+        log.debug("Chat room operation successful: {}, Room ID: {}", createdOrFoundRoom.getRoomName(), createdOrFoundRoom.getRoomId());
+        log.debug("  Is Group Chat: {}", createdOrFoundRoom.isGroupChat());
+        log.debug("  Participants: {}", createdOrFoundRoom.getParticipants().stream().map(User::getNickname).collect(Collectors.joining(", ")));
 
         SwingUtilities.invokeLater(() -> {
-            System.out.println("Attempting to open chat room for newly created/found room: " + createdOrFoundRoom.getRoomId());
+            log.debug("Attempting to open chat room for newly created/found room: {}", createdOrFoundRoom.getRoomId());
             openChatRoomDialog(createdOrFoundRoom);
 
             for (int i = 0; i < chatRoomListModel.size(); i++) {
                 if (chatRoomListModel.getElementAt(i).getRoomId() == createdOrFoundRoom.getRoomId()) {
                     chatRoomList.setSelectedIndex(i);
                     chatRoomList.ensureIndexIsVisible(i);
-                    System.out.println("  Selected chat room in list: " + createdOrFoundRoom.getRoomName());
+                    log.debug("  Selected chat room in list: {}", createdOrFoundRoom.getRoomName());
                     break;
                 }
             }
         });
 
         pendingPrivateChatUserId = -1;
-        System.out.println("  pendingPrivateChatUserId reset to: " + pendingPrivateChatUserId);
+        log.debug("  pendingPrivateChatUserId reset to: {}", pendingPrivateChatUserId);
     }
 
     private void handleChatRoomsUpdate(ServerResponse response) {
@@ -329,7 +364,7 @@ public class ChatClientGUI extends JFrame {
             List<ChatRoom> updatedChatRooms = (List<ChatRoom>) response.getData().get("chatRooms");
 
             if (updatedChatRooms == null) {
-                System.err.println("Received null chatRooms list from server. Returning empty list.");
+                log.error("Received null chatRooms list from server. Returning empty list.");
                 updatedChatRooms = new ArrayList<>();
             }
 
@@ -346,7 +381,7 @@ public class ChatClientGUI extends JFrame {
                 ChatRoomDialog dialog = openChatRoomDialogs.remove(roomId);
                 if (dialog != null) {
                     dialog.dispose();
-                    System.out.println("Closed chat room dialog for room ID: " + roomId + " as it's no longer in the updated list.");
+                    log.debug("Closed chat room dialog for room ID: {} as it's no longer in the updated list.", roomId);
                 }
             }
 
@@ -378,6 +413,69 @@ public class ChatClientGUI extends JFrame {
         });
     }
 
+    // 새로 만들었거나 초대받은 방: 최근 메시지가 있는 방이므로 목록 맨 위에 넣음 (이미 있으면 그 자리에서 교체)
+    private void handleRoomAdded(ServerResponse response) {
+        SwingUtilities.invokeLater(() -> {
+            ChatRoom addedRoom = (ChatRoom) response.getData().get("chatRoom");
+            int index = indexOfRoom(addedRoom.getRoomId());
+            if (index != -1) {
+                chatRoomListModel.set(index, addedRoom);
+            } else {
+                chatRoomListModel.add(0, addedRoom);
+            }
+            ChatRoomDialog dialog = openChatRoomDialogs.get(addedRoom.getRoomId());
+            if (dialog != null) {
+                dialog.updateChatRoomInfo(addedRoom);
+            }
+            log.debug("Chat room {} added to the list.", addedRoom.getRoomId());
+        });
+    }
+
+    private void handleRoomRemoved(ServerResponse response) {
+        SwingUtilities.invokeLater(() -> {
+            int roomId = (int) response.getData().get("roomId");
+            int index = indexOfRoom(roomId);
+            if (index != -1) {
+                chatRoomListModel.remove(index);
+            }
+            ChatRoomDialog dialog = openChatRoomDialogs.remove(roomId);
+            if (dialog != null) {
+                dialog.dispose();
+                log.debug("Closed chat room dialog for room ID: {} as it was removed from the list.", roomId);
+            }
+        });
+    }
+
+    // 참여자가 바뀐 방: 이름과 참여자만 바꾸고 목록 순서는 그대로 둠
+    private void handleRoomUpdated(ServerResponse response) {
+        SwingUtilities.invokeLater(() -> {
+            int roomId = (int) response.getData().get("roomId");
+            int index = indexOfRoom(roomId);
+            if (index == -1) {
+                log.debug("ROOM_UPDATED for unknown room {}. Scheduling a list refresh.", roomId);
+                requestRoomListRefresh();
+                return;
+            }
+            ChatRoom room = chatRoomListModel.getElementAt(index);
+            room.setRoomName((String) response.getData().get("roomName"));
+            room.setParticipants((List<User>) response.getData().get("participants"));
+            chatRoomListModel.set(index, room); // 바뀐 이름을 다시 그림
+            ChatRoomDialog dialog = openChatRoomDialogs.get(roomId);
+            if (dialog != null) {
+                dialog.updateChatRoomInfo(room);
+            }
+        });
+    }
+
+    private int indexOfRoom(int roomId) {
+        for (int i = 0; i < chatRoomListModel.size(); i++) {
+            if (chatRoomListModel.getElementAt(i).getRoomId() == roomId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private void handleNewMessage(ServerResponse response) {
         SwingUtilities.invokeLater(() -> {
             Message newMessage = (Message) response.getData().get("message");
@@ -385,42 +483,82 @@ public class ChatClientGUI extends JFrame {
             int messageRoomId = (unreadRoomIdInteger != null) ? unreadRoomIdInteger.intValue() : newMessage.getRoomId();
 
             ChatRoomDialog dialog = openChatRoomDialogs.get(messageRoomId);
+            ChatRoom room = moveRoomToTop(messageRoomId, newMessage, dialog != null);
             if (dialog != null) {
-                System.out.println("Appending new message to existing dialog for room: " + messageRoomId);
-                dialog.appendMessageToChatArea(newMessage);
+                log.debug("Appending new message to existing dialog for room: {}", messageRoomId);
+                dialog.receiveNewMessage(newMessage);
             } else {
-                System.out.println("New message received for room " + messageRoomId + ", dialog not open. Content: " + newMessage.getContent());
-                chatClient.getChatRooms();
-                if (newMessage.getMessageType() == MessageType.SYSTEM) {
-                    ChatRoom systemChatRoom = null;
-                    for (int i = 0; i < chatRoomListModel.size(); i++) {
-                        ChatRoom room = chatRoomListModel.getElementAt(i);
-                        if (room.getRoomId() == messageRoomId) {
-                            systemChatRoom = room;
-                            break;
-                        }
-                    }
-                    if (systemChatRoom != null) {
-                        openChatRoomDialog(systemChatRoom);
-                    } else {
-                        System.err.println("System chat room with ID " + messageRoomId + " not found in chatRoomListModel after chatRooms update.");
-                    }
+                log.debug("New message received for room {}, dialog not open. Content: {}", messageRoomId, newMessage.getContent());
+                if (room == null) {
+                    log.debug("Room {} is not in the chat room list yet. Scheduling a list refresh.", messageRoomId);
+                    requestRoomListRefresh();
+                } else if (newMessage.getMessageType() == MessageType.SYSTEM) {
+                    openChatRoomDialog(room);
                 }
             }
-            if (newMessage.getMessageType() != MessageType.SYSTEM) {
-                chatClient.getChatRooms();
-            }
         });
     }
 
+    /**
+     * 새 메시지가 온 방을 목록 맨 위로 옮기고(서버의 last_message_at 내림차순과 같은 순서) 안 읽은 수를 고칩니다.
+     * 서버에 목록 전체를 다시 요청하지 않습니다.
+     * @return 목록에 있는 방, 모르는 방이면 null
+     */
+    private ChatRoom moveRoomToTop(int roomId, Message message, boolean dialogOpen) {
+        for (int i = 0; i < chatRoomListModel.size(); i++) {
+            ChatRoom room = chatRoomListModel.getElementAt(i);
+            if (room.getRoomId() != roomId) {
+                continue;
+            }
+            if (dialogOpen) {
+                room.setUnreadMessageCount(0); // 열린 방의 메시지는 바로 읽음 처리됨
+            } else if (message.getSenderId() != currentUser.getUserId() && message.getMessageType() != MessageType.SYSTEM) {
+                room.setUnreadMessageCount(room.getUnreadMessageCount() + 1);
+            }
+            boolean selected = chatRoomList.getSelectedIndex() == i;
+            if (i > 0) {
+                chatRoomListModel.remove(i);
+                chatRoomListModel.add(0, room);
+            } else {
+                chatRoomListModel.set(0, room); // 안 읽은 수만 바뀐 경우 다시 그림
+            }
+            if (selected) {
+                chatRoomList.setSelectedIndex(0);
+            }
+            return room;
+        }
+        return null;
+    }
+
+    // 여러 번 불려도 ROOM_LIST_REFRESH_MILLIS 뒤에 한 번만 GET_CHAT_ROOMS를 보냄
+    private void requestRoomListRefresh() {
+        if (!roomListRefreshTimer.isRunning()) {
+            roomListRefreshTimer.start();
+        }
+    }
+
     private void handleRoomMessagesUpdate(ServerResponse response) {
+        Map<String, Object> data = response.getData();
+        int roomId = (int) data.get("roomId");
+        List<Message> received = (List<Message>) data.get("messages");
+        // 메시지 캐시는 "messages" 작업 스레드에서 갱신 (디스크 쓰기로 화면 스레드와 다른 응답 처리를 막지 않음)
+        boolean cacheSync = data.containsKey("syncVersion");
+        if (cacheSync) {
+            received = chatClient.getMessageCache().applySync(roomId, received,
+                    (List<Message>) data.get("changedMessages"), ((Number) data.get("syncVersion")).longValue());
+        } else if (!data.containsKey("sinceSeq")) {
+            chatClient.getMessageCache().update(roomId, received);
+        }
+        List<Message> messages = received;
         SwingUtilities.invokeLater(() -> {
-            int roomId = (int) response.getData().get("roomId");
             ChatRoomDialog dialog = openChatRoomDialogs.get(roomId);
             if (dialog != null) {
-                List<Message> messages = (List<Message>) response.getData().get("messages");
-                System.out.println("Updating messages in dialog for room: " + roomId + ", message count: " + (messages != null ? messages.size() : 0));
-                dialog.displayMessages(messages);
+                log.debug("Updating messages in dialog for room: {}, message count: {}", roomId, (messages != null ? messages.size() : 0));
+                if (!cacheSync && data.containsKey("sinceSeq")) {
+                    dialog.appendMessagesSince(messages); // 누락 메시지 보충 (증분 응답)
+                } else {
+                    dialog.displayMessages(messages);
+                }
             }
         });
     }
@@ -433,7 +571,7 @@ public class ChatClientGUI extends JFrame {
 
     private void handleNoticeListUpdate(ServerResponse response) {
         SwingUtilities.invokeLater(() -> {
-            System.out.println("Received response: NOTICE_LIST_UPDATE"); // 로그 추가
+            log.debug("Received response: NOTICE_LIST_UPDATE"); // 로그 추가
 
             Integer updatedRoomId = (Integer) response.getData().get("roomId");
             List<Message> notices = (List<Message>) response.getData().get("noticeMessages"); // 이 데이터는 서버가 getNoticeMessages 요청에 대한 응답으로만 보냄
@@ -489,11 +627,30 @@ public class ChatClientGUI extends JFrame {
     }
 
     private void handleFileDownloadSuccess(ServerResponse response) {
+        String fileName = (String) response.getData().get("fileName");
+        byte[] fileBytes = (byte[]) response.getData().get("fileBytes");
+        chatClient.getAttachmentCache().put((String) response.getData().get("filePath"),
+                (String) response.getData().get("contentHash"), fileBytes);
+        saveDownloadedFile(fileName, fileBytes);
+    }
+
+    private void handleFileNotModified(ServerResponse response) {
+        String fileName = (String) response.getData().get("fileName");
+        byte[] fileBytes = chatClient.getAttachmentCache().get((String) response.getData().get("contentHash"));
+        if (fileBytes == null) {
+            // 응답을 기다리는 사이 캐시에서 밀려난 경우 조건 없이 다시 요청
+            log.info("Cached attachment evicted. Downloading again: {}", fileName);
+            chatClient.getAttachmentCache().invalidate((String) response.getData().get("filePath"));
+            chatClient.downloadFile((String) response.getData().get("filePath"));
+            return;
+        }
+        log.debug("Attachment served from local cache: {}", fileName);
+        saveDownloadedFile(fileName, fileBytes);
+    }
+
+    private void saveDownloadedFile(String fileName, byte[] fileBytes) {
         SwingUtilities.invokeLater(() -> {
             try {
-                String fileName = (String) response.getData().get("fileName");
-                byte[] fileBytes = (byte[]) response.getData().get("fileBytes");
-
                 JFileChooser fileChooser = new JFileChooser();
                 fileChooser.setSelectedFile(new File(fileName));
                 int userSelection = fileChooser.showSaveDialog(this);
@@ -509,6 +666,34 @@ public class ChatClientGUI extends JFrame {
         });
     }
 
+    private void handleThumbnailReady(ServerResponse response) {
+        SwingUtilities.invokeLater(() -> {
+            int roomId = (int) response.getData().get("roomId");
+            ChatRoomDialog dialog = openChatRoomDialogs.get(roomId);
+            if (dialog != null) {
+                dialog.onThumbnailReady((long) response.getData().get("messageId"),
+                        (String) response.getData().get("thumbnailId"),
+                        (int) response.getData().get("thumbnailWidth"),
+                        (int) response.getData().get("thumbnailHeight"));
+            }
+        });
+    }
+
+    private void handleThumbnailDownloadSuccess(ServerResponse response) {
+        byte[] thumbnailBytes = (byte[]) response.getData().get("thumbnailBytes");
+        Integer roomId = (Integer) response.getData().get("roomId");
+        if (thumbnailBytes == null || roomId == null) {
+            log.debug("Thumbnail not available: {}", response.getMessage());
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            ChatRoomDialog dialog = openChatRoomDialogs.get(roomId);
+            if (dialog != null) {
+                dialog.onThumbnailDownloaded((String) response.getData().get("thumbnailId"), thumbnailBytes);
+            }
+        });
+    }
+
     private void handleSystemNotification(ServerResponse response) {
         SwingUtilities.invokeLater(() -> {
             Message notificationMessage = (Message) response.getData().get("message");
@@ -516,19 +701,19 @@ public class ChatClientGUI extends JFrame {
             int messageRoomId = (unreadRoomIdInteger != null) ? unreadRoomIdInteger.intValue() : notificationMessage.getRoomId();
 
             if (notificationMessage == null) {
-                System.err.println("Error: Received SYSTEM_NOTIFICATION with null message object.");
+                log.error("Error: Received SYSTEM_NOTIFICATION with null message object.");
                 return;
             }
 
             ChatRoomDialog dialog = openChatRoomDialogs.get(messageRoomId);
             if (dialog != null) {
-                System.out.println("Appending system message to existing dialog for room: " + messageRoomId);
+                log.debug("Appending system message to existing dialog for room: {}", messageRoomId);
                 dialog.appendMessageToChatArea(notificationMessage);
                 if (notificationMessage.getMessageId() != 0) {
-                    chatClient.markMessageAsRead(notificationMessage.getMessageId());
+                    chatClient.queueMessageRead(notificationMessage.getRoomId(), notificationMessage.getMessageId());
                 }
             } else {
-                System.out.println("New system message received for room " + messageRoomId + ", dialog not open. Attempting to open.");
+                log.debug("New system message received for room {}, dialog not open. Attempting to open.", messageRoomId);
                 ChatRoom systemChatRoom = null;
                 for (int i = 0; i < chatRoomListModel.size(); i++) {
                     ChatRoom room = chatRoomListModel.getElementAt(i);
@@ -541,15 +726,15 @@ public class ChatClientGUI extends JFrame {
                 if (systemChatRoom != null) {
                     openChatRoomDialog(systemChatRoom);
                 } else {
-                    System.err.println("System chat room with ID " + messageRoomId + " not found in chatRoomListModel. Requesting chat rooms update.");
-                    chatClient.getChatRooms();
+                    log.error("System chat room with ID {} not found in chatRoomListModel. Requesting chat rooms update.", messageRoomId);
+                    requestRoomListRefresh();
                 }
             }
         });
     }
 
     private void handleGeneralSuccessResponse(ServerResponse response) {
-        System.out.println("handleGeneralSuccessResponse called. Message: " + response.getMessage() + ", Data keys: " + (response.getData() != null ? response.getData().keySet() : "none"));
+        log.debug("handleGeneralSuccessResponse called. Message: {}, Data keys: {}", response.getMessage(), (response.getData() != null ? response.getData().keySet() : "none"));
 
         if (response.getData() != null && response.getData().containsKey("chatRoom")) {
             handleChatRoomCreationSuccessLogic(response);
@@ -560,13 +745,13 @@ public class ChatClientGUI extends JFrame {
         } else if (response.getMessage().equals("프로젝트가 종료되었습니다.")) {
             // Nothing specific to do here, as timeline update is handled by TIMELINE_UPDATE response
         } else if (response.getMessage().contains("expired notices cleared")) {
-            System.out.println(response.getMessage());
+            log.info(response.getMessage());
         }
     }
 
     private void handleMessageMarkedAsNoticeSuccess(ServerResponse response) {
         SwingUtilities.invokeLater(() -> {
-            int messageId = (int) response.getData().get("messageId");
+            long messageId = (long) response.getData().get("messageId");
             boolean isNotice = (boolean) response.getData().get("isNotice");
             int roomId = (int) response.getData().get("roomId");
 
@@ -633,9 +818,9 @@ public class ChatClientGUI extends JFrame {
                     try {
                         String[] parts = description.substring("notice://".length()).split("/");
                         int roomId = Integer.parseInt(parts[0]);
-                        int messageId = Integer.parseInt(parts[1]);
+                        long messageId = Long.parseLong(parts[1]);
 
-                        System.out.println("Clicked notice: Room ID " + roomId + ", Message ID " + messageId);
+                        log.debug("Clicked notice: Room ID {}, Message ID {}", roomId, messageId);
 
                         ChatRoom targetRoom = null;
                         for (int i = 0; i < chatRoomListModel.size(); i++) {
@@ -651,11 +836,11 @@ public class ChatClientGUI extends JFrame {
                             noticeFrame.setVisible(false);
                         } else {
                             JOptionPane.showMessageDialog(noticeFrame, "해당 공지가 속한 채팅방을 찾을 수 없습니다.", "오류", JOptionPane.ERROR_MESSAGE);
-                            chatClient.getChatRooms();
+                            requestRoomListRefresh();
                         }
 
                     } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
-                        System.err.println("Invalid notice link format: " + description + " - " + ex.getMessage());
+                        log.error("Invalid notice link format: {} - {}", description, ex.getMessage());
                     }
                 }
             }
@@ -699,8 +884,7 @@ public class ChatClientGUI extends JFrame {
                 noticeEditorKit.insertHTML(noticeDoc, noticeDoc.getLength(), htmlContent.toString(), 0, 0, null);
                 noticeArea.setCaretPosition(0);
             } catch (BadLocationException | IOException e) {
-                System.err.println("Error updating notice area: " + e.getMessage());
-                e.printStackTrace();
+                log.error("Error updating notice area", e);
             }
         });
     }
@@ -759,7 +943,7 @@ public class ChatClientGUI extends JFrame {
                             try {
                                 eventId = Integer.parseInt(eventIdStr);
                             } catch (NumberFormatException ex) {
-                                System.err.println("Invalid event ID in HTML: " + eventIdStr);
+                                log.error("Invalid event ID in HTML: {}", eventIdStr);
                             }
                         }
                         currentElement = currentElement.getParentElement();
@@ -887,8 +1071,7 @@ public class ChatClientGUI extends JFrame {
                 timelineEditorKit.insertHTML(timelineDoc, timelineDoc.getLength(), htmlContent.toString(), 0, 0, null);
                 timelineArea.setCaretPosition(0);
             } catch (BadLocationException | IOException e) {
-                System.err.println("Error updating timeline area: " + e.getMessage());
-                e.printStackTrace();
+                log.error("Error updating timeline area", e);
             }
         });
     }
@@ -958,6 +1141,15 @@ public class ChatClientGUI extends JFrame {
         });
         settingsMenu.add(logoutItem);
 
+        JMenuItem eventStatsItem = new JMenuItem("응답 처리 지연 통계");
+        eventStatsItem.addActionListener(e -> {
+            JTextArea statsArea = new JTextArea(chatClient.getEventBus().formatStats(), 20, 110);
+            statsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            statsArea.setEditable(false);
+            JOptionPane.showMessageDialog(this, new JScrollPane(statsArea), "응답 처리 지연 (ms)", JOptionPane.PLAIN_MESSAGE);
+        });
+        settingsMenu.add(eventStatsItem);
+
         settingsMenu.show(settingsToggleButton, 0, settingsToggleButton.getHeight());
     }
 
@@ -994,8 +1186,10 @@ public class ChatClientGUI extends JFrame {
         allUsersList.setCellRenderer(new ChatClientGUI.FriendListCellRenderer());
         allUsersList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
 
-        Consumer<ServerResponse> originalFriendListUpdateListener = chatClient.getResponseListener(ServerResponse.ResponseType.FRIEND_LIST_UPDATE);
-        chatClient.setResponseListener(ServerResponse.ResponseType.FRIEND_LIST_UPDATE, res -> {
+        // 메인 화면의 친구 목록 리스너는 그대로 두고, 다음 친구 목록 응답 하나만 이 대화상자에서도 받음
+        ClientEventBus.Subscription[] friendListSubscription = new ClientEventBus.Subscription[1];
+        friendListSubscription[0] = chatClient.subscribe(ServerResponse.ResponseType.FRIEND_LIST_UPDATE, res -> {
+            friendListSubscription[0].close();
             SwingUtilities.invokeLater(() -> {
                 List<User> friends = (List<User>) res.getData().get("friends");
                 allUsersModel.clear();
@@ -1005,7 +1199,6 @@ public class ChatClientGUI extends JFrame {
                             .forEach(allUsersModel::addElement);
                 }
             });
-            chatClient.setResponseListener(ServerResponse.ResponseType.FRIEND_LIST_UPDATE, originalFriendListUpdateListener);
         });
         chatClient.sendRequest(new ClientRequest(ClientRequest.RequestType.GET_FRIEND_LIST, null));
 
@@ -2,10 +2,14 @@
 package chat.compi.GUI;
 
 import chat.compi.Controller.ChatClient;
+import chat.compi.Controller.MessageCache;
 import chat.compi.Dto.ClientRequest;
 import chat.compi.Dto.ServerResponse;
 import chat.compi.Entity.*;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 
+import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
@@ -15,25 +19,36 @@ import javax.swing.text.Element;
 import javax.swing.text.html.HTMLDocument;
 import javax.swing.text.html.HTMLEditorKit;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.time.LocalDateTime; // LocalDateTime 임포트
 import java.time.format.DateTimeFormatter; // DateTimeFormatter 임포트
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.Enumeration;
 
 @SuppressWarnings("unchecked")
 public class ChatRoomDialog extends JDialog {
+    private static final Logger log = Log.get(ChatRoomDialog.class);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    // 대화방 하나가 보관하는 말풍선 HTML 수 (넘으면 가장 오래 쓰지 않은 것부터 버림)
+    private static final int RENDER_CACHE_SIZE = Integer.getInteger("compi.gui.renderCacheSize", 5000);
+
     private ChatClient chatClient;
     private ChatRoom chatRoom;
     private User currentUser;
@@ -42,6 +57,10 @@ public class ChatRoomDialog extends JDialog {
     private HTMLEditorKit editorKit;
     private HTMLDocument doc;
 
+    // -Dcompi.gui.messageView=list이면 HTML 문서 대신 보이는 메시지만 그리는 가상 목록을 사용 (이때 chatArea는 null)
+    private MessageListView messageListView;
+    private boolean listScrollPending = false;
+
     private JTextField messageInput;
     private JButton sendButton;
     private JButton fileAttachButton;
@@ -49,11 +68,41 @@ public class ChatRoomDialog extends JDialog {
     private JLabel roomNameLabel;
 
     // 스크롤할 메시지 ID 임시 저장 필드
-    private int pendingScrollMessageId = -1;
+    private long pendingScrollMessageId = -1;
 
     // JScrollPane 인스턴스를 저장하여 스크롤바 상태를 직접 확인
     private JScrollPane chatScrollPane;
 
+    // 마지막으로 표시한 방별 순번, 순번이 건너뛴 채 도착한 메시지 (누락 감지용)
+    private long lastRoomSeq = 0;
+    private final TreeMap<Long, Message> outOfOrderMessages = new TreeMap<>();
+    private boolean gapRequested = false;
+
+    // 현재 화면에 표시된 메시지 목록 (썸네일 도착 시 다시 그리기 위해 보관)
+    private final List<Message> displayedMessages = new ArrayList<>();
+
+    // 메시지 ID -> HTML 문서의 말풍선 div (삽입/교체할 때 갱신, 문서를 비우면 초기화)
+    // Element의 시작/끝 위치는 문서가 바뀌면 함께 움직이므로 위치는 쓸 때 Element에서 읽음
+    private final Map<Long, Element> messageElements = new HashMap<>();
+
+    // 메시지 ID -> 마지막으로 만든 말풍선 HTML과 그때의 모양 관련 값 (값이 같으면 다시 만들지 않음)
+    // 전체 목록을 다시 붙이거나 썸네일 도착으로 다시 그릴 때 바뀌지 않은 메시지는 HTML을 재사용함
+    private final Map<Long, RenderedMessage> renderCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RenderedMessage> eldest) {
+            return size() > RENDER_CACHE_SIZE;
+        }
+    };
+
+    // 썸네일 ID -> 로컬 임시 파일 URL, 중복 다운로드 방지용 요청 목록
+    private final Map<String, String> thumbnailUrls = new HashMap<>();
+    private final Set<String> requestedThumbnails = new HashSet<>();
+    private final Map<String, Image> thumbnailImages = new HashMap<>(); // 가상 목록용 디코딩된 썸네일
+    private static File thumbnailTempDir;
+
+    // 여러 썸네일이 연달아 도착할 때 다시 그리기를 한 번으로 합치는 타이머
+    private final Timer thumbnailRefreshTimer = new Timer(150, e -> rerenderMessages());
+
     public ChatRoom getChatRoom() {
         return chatRoom;
     }
@@ -71,11 +120,17 @@ public class ChatRoomDialog extends JDialog {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosed(WindowEvent e) {
-                System.out.println("ChatRoomDialog for room " + chatRoom.getRoomId() + " disposed.");
+                chatClient.getMessageCache().close(chatRoom.getRoomId());
+                renderCache.clear();
+                log.debug("ChatRoomDialog for room {} disposed.", chatRoom.getRoomId());
             }
         });
 
         initComponents();
+        thumbnailRefreshTimer.setRepeats(false);
+        if (messageListView != null) {
+            return; // 가상 목록은 클릭/우클릭을 MessageListView.Actions로 넘겨줌
+        }
         chatArea.addHyperlinkListener(e -> {
             if (e.getEventType() == javax.swing.event.HyperlinkEvent.EventType.ACTIVATED) {
                 if (e.getDescription() != null && e.getDescription().startsWith("server_uploads")) {
@@ -90,87 +145,73 @@ public class ChatRoomDialog extends JDialog {
             @Override
             public void mouseReleased(MouseEvent e) {
                 if (e.isPopupTrigger()) {
-                    int pos = chatArea.viewToModel(e.getPoint());
-                    HTMLDocument doc = (HTMLDocument) chatArea.getDocument();
-                    Element element = doc.getCharacterElement(pos);
-
-                    Integer messageId = null;
-                    Boolean isMessageNotice = null;
-
-                    Element currentElement = element;
-                    while (currentElement != null && (messageId == null || isMessageNotice == null)) {
-                        AttributeSet attrs = currentElement.getAttributes();
-                        String msgIdStr = (String) attrs.getAttribute("data-message-id");
-                        String isNoticeStr = (String) attrs.getAttribute("data-is-notice");
-
-                        if (msgIdStr != null) {
-                            try {
-                                messageId = Integer.parseInt(msgIdStr);
-                            } catch (NumberFormatException ex) {
-                                System.err.println("Invalid message ID in HTML: " + msgIdStr);
-                            }
+                    Element element = messageElementAt(chatArea.viewToModel(e.getPoint()));
+                    if (element != null) {
+                        AttributeSet attrs = element.getAttributes();
+                        try {
+                            long messageId = Long.parseLong((String) attrs.getAttribute("data-message-id"));
+                            boolean isMessageNotice = Boolean.parseBoolean((String) attrs.getAttribute("data-is-notice"));
+                            showMessageMenu(e.getComponent(), e.getX(), e.getY(), messageId, isMessageNotice);
+                        } catch (NumberFormatException ex) {
+                            log.error("Invalid message ID in HTML: {}", attrs.getAttribute("data-message-id"));
                         }
-                        if (isNoticeStr != null) {
-                            isMessageNotice = Boolean.parseBoolean(isNoticeStr);
-                        }
-                        currentElement = currentElement.getParentElement();
-                    }
-
-                    if (messageId != null) {
-                        final int finalMessageId = messageId;
-                        final boolean finalIsMessageNotice = (isMessageNotice != null && isMessageNotice);
-
-                        JPopupMenu popupMenu = new JPopupMenu();
-                        JMenuItem noticeItem = new JMenuItem("공지 설정");
-                        JMenuItem removeNoticeItem = new JMenuItem("공지 해제");
-                        JMenuItem renotifyItem = new JMenuItem("재알림");
-
-                        noticeItem.addActionListener(ev -> {
-                            // 부모 프레임(ChatClientGUI)을 가져와서 전달
-                            JFrame parentFrame = (JFrame) SwingUtilities.getWindowAncestor(ChatRoomDialog.this);
-                            LocalDateTime selectedDateTime = showDateTimePickerDialog(parentFrame); // 이 부분을 수정
-                            if (selectedDateTime != null) {
-                                Map<String, Object> data = new HashMap<>();
-                                data.put("messageId", finalMessageId);
-                                data.put("isNotice", true);
-                                data.put("roomId", chatRoom.getRoomId());
-                                data.put("expiryTime", selectedDateTime);
-                                chatClient.sendRequest(new ClientRequest(ClientRequest.RequestType.MARK_AS_NOTICE, data));
-                            }
-                        });
-
-                        removeNoticeItem.addActionListener(ev -> {
-                            Map<String, Object> data = new HashMap<>();
-                            data.put("messageId", finalMessageId);
-                            data.put("isNotice", false);
-                            data.put("roomId", chatRoom.getRoomId());
-                            data.put("expiryTime", null);
-                            chatClient.sendRequest(new ClientRequest(ClientRequest.RequestType.MARK_AS_NOTICE, data));
-                        });
-
-                        renotifyItem.addActionListener(ev -> {
-                            Map<String, Object> data = new HashMap<>();
-                            data.put("roomId", chatRoom.getRoomId());
-                            data.put("messageId", finalMessageId);
-                            chatClient.sendRequest(new ClientRequest(ClientRequest.RequestType.RESEND_NOTIFICATION, data));
-                            JOptionPane.showMessageDialog(ChatRoomDialog.this, "재알림 요청을 서버로 보냈습니다.", "재알림", JOptionPane.INFORMATION_MESSAGE);
-                        });
-
-                        removeNoticeItem.setEnabled(finalIsMessageNotice);
-                        noticeItem.setEnabled(!finalIsMessageNotice);
-
-                        popupMenu.add(noticeItem);
-                        popupMenu.add(removeNoticeItem);
-                        popupMenu.add(renotifyItem);
-                        popupMenu.show(e.getComponent(), e.getX(), e.getY());
                     } else {
-                        System.out.println("DEBUG: Right-click not on a message with ID.");
+                        log.debug("Right-click not on a message with ID.");
                     }
                 }
             }
         });
     }
 
+    /**
+     * 메시지 우클릭 메뉴 (공지 설정/해제, 재알림). HTML 뷰와 가상 목록 뷰가 함께 사용합니다.
+     */
+    private void showMessageMenu(Component invoker, int x, int y, long messageId, boolean isMessageNotice) {
+        JPopupMenu popupMenu = new JPopupMenu();
+        JMenuItem noticeItem = new JMenuItem("공지 설정");
+        JMenuItem removeNoticeItem = new JMenuItem("공지 해제");
+        JMenuItem renotifyItem = new JMenuItem("재알림");
+
+        noticeItem.addActionListener(ev -> {
+            // 부모 프레임(ChatClientGUI)을 가져와서 전달
+            JFrame parentFrame = (JFrame) SwingUtilities.getWindowAncestor(ChatRoomDialog.this);
+            LocalDateTime selectedDateTime = showDateTimePickerDialog(parentFrame); // 이 부분을 수정
+            if (selectedDateTime != null) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("messageId", messageId);
+                data.put("isNotice", true);
+                data.put("roomId", chatRoom.getRoomId());
+                data.put("expiryTime", selectedDateTime);
+                chatClient.sendRequest(new ClientRequest(ClientRequest.RequestType.MARK_AS_NOTICE, data));
+            }
+        });
+
+        removeNoticeItem.addActionListener(ev -> {
+            Map<String, Object> data = new HashMap<>();
+            data.put("messageId", messageId);
+            data.put("isNotice", false);
+            data.put("roomId", chatRoom.getRoomId());
+            data.put("expiryTime", null);
+            chatClient.sendRequest(new ClientRequest(ClientRequest.RequestType.MARK_AS_NOTICE, data));
+        });
+
+        renotifyItem.addActionListener(ev -> {
+            Map<String, Object> data = new HashMap<>();
+            data.put("roomId", chatRoom.getRoomId());
+            data.put("messageId", messageId);
+            chatClient.sendRequest(new ClientRequest(ClientRequest.RequestType.RESEND_NOTIFICATION, data));
+            JOptionPane.showMessageDialog(ChatRoomDialog.this, "재알림 요청을 서버로 보냈습니다.", "재알림", JOptionPane.INFORMATION_MESSAGE);
+        });
+
+        removeNoticeItem.setEnabled(isMessageNotice);
+        noticeItem.setEnabled(!isMessageNotice);
+
+        popupMenu.add(noticeItem);
+        popupMenu.add(removeNoticeItem);
+        popupMenu.add(renotifyItem);
+        popupMenu.show(invoker, x, y);
+    }
+
     private JPanel createNumberInputPanel(JTextField textField, int min, int max) {
         JPanel panel = new JPanel(new BorderLayout());
         JButton plusButton = new JButton("+");
@@ -322,7 +363,7 @@ public class ChatRoomDialog extends JDialog {
             });
             popupMenu.add(leaveRoomMenuItem);
 
-            if (!chatRoom.isGroupChat() && chatRoom.getRoomName().startsWith("시스템 메시지 for")) {
+            if (chatRoom.getRoomId() == chatClient.getSystemRoomId()) {
                 leaveRoomMenuItem.setEnabled(false); // 시스템 채팅방일 경우 비활성화
                 leaveRoomMenuItem.setText("채팅방 나가기 (시스템 채팅방)"); // 텍스트 변경
             }
@@ -336,13 +377,34 @@ public class ChatRoomDialog extends JDialog {
         JPanel centerPanel = new JPanel(new BorderLayout());
         centerPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
 
-        chatArea = new JEditorPane();
-        editorKit = new HTMLEditorKit();
-        chatArea.setEditorKit(editorKit);
-        doc = (HTMLDocument) chatArea.getDocument();
-        chatArea.setEditable(false);
-        JScrollPane chatScrollPane = new JScrollPane(chatArea);
-        centerPanel.add(chatScrollPane, BorderLayout.CENTER);
+        if ("list".equals(System.getProperty("compi.gui.messageView"))) {
+            messageListView = new MessageListView(currentUser.getUserId(), new MessageListView.Actions() {
+                @Override
+                public void openFile(String filePath) {
+                    downloadFile(filePath, new File(filePath).getName());
+                }
+
+                @Override
+                public void showMessageMenu(Message message, Component invoker, int x, int y) {
+                    ChatRoomDialog.this.showMessageMenu(invoker, x, y, message.getMessageId(), message.isNotice());
+                }
+
+                @Override
+                public Image thumbnail(Message message) {
+                    return getThumbnailImage(message);
+                }
+            });
+            chatScrollPane = new JScrollPane(messageListView);
+            centerPanel.add(chatScrollPane, BorderLayout.CENTER);
+        } else {
+            chatArea = new JEditorPane();
+            editorKit = new HTMLEditorKit();
+            chatArea.setEditorKit(editorKit);
+            doc = (HTMLDocument) chatArea.getDocument();
+            chatArea.setEditable(false);
+            chatScrollPane = new JScrollPane(chatArea);
+            centerPanel.add(chatScrollPane, BorderLayout.CENTER);
+        }
 
         JPanel inputPanel = new JPanel(new BorderLayout(5, 5));
         messageInput = new JTextField();
@@ -366,16 +428,23 @@ public class ChatRoomDialog extends JDialog {
         loadMessages(-1); // 기본 호출 (스크롤 메시지 ID 없음)
     }
 
-    public void loadMessages(int messageIdToScroll) { // messageIdToScroll 인자 추가
-        this.pendingScrollMessageId = messageIdToScroll; // 메시지 ID 저장
-        chatClient.getMessagesInRoom(chatRoom.getRoomId());
+    public void loadMessages(long messageIdToScroll) { // messageIdToScroll 인자 추가
+        // 디스크 캐시에 있는 기록을 먼저 그리고, 서버에는 그 뒤의 새 메시지와 바뀐 메시지만 요청
+        MessageCache cache = chatClient.getMessageCache();
+        int roomId = chatRoom.getRoomId();
+        List<Message> cached = cache.open(roomId);
+        if (!cached.isEmpty()) {
+            displayMessages(cached);
+        }
+        this.pendingScrollMessageId = messageIdToScroll; // 메시지 ID 저장 (대상이 새 메시지일 수 있으므로 동기화 응답 후 스크롤)
+        chatClient.syncMessagesInRoom(roomId, cache.getLastRoomSeq(roomId), cache.getSyncVersion(roomId));
     }
 
     public void updateChatRoomInfo(ChatRoom updatedRoom) {
         this.chatRoom = updatedRoom;
         setTitle(chatRoom.getRoomName());
         roomNameLabel.setText("<html><b>" + chatRoom.getRoomName() + "</b> (참여자: " + chatRoom.getParticipants().size() + "명)</html>");
-        System.out.println("ChatRoomDialog for room " + chatRoom.getRoomId() + " updated. New participant count: " + chatRoom.getParticipants().size());
+        log.debug("ChatRoomDialog for room {} updated. New participant count: {}", chatRoom.getRoomId(), chatRoom.getParticipants().size());
     }
 
     private void sendMessage() {
@@ -470,37 +539,37 @@ public class ChatRoomDialog extends JDialog {
         JOptionPane.showMessageDialog(this, "파일 다운로드 요청됨. 서버 응답을 기다립니다.", "정보", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    /**
+     * 방의 전체 메시지 목록(ROOM_MESSAGES_UPDATE)을 표시합니다.
+     * 서버는 메시지나 읽음이 생길 때마다 전체 목록을 다시 보내므로, 이미 표시한 목록이 새 목록의 앞부분과 같으면
+     * 읽음/공지 상태가 바뀐 메시지만 제자리에서 고치고 새 메시지만 뒤에 붙입니다 (전체를 다시 그리지 않음).
+     * @param messages 방별 순번 순서의 전체 메시지
+     */
     public void displayMessages(List<Message> messages) {
         // 현재 스크롤 위치 저장 (최하단 여부 판단용)
         boolean wasAtBottom = isUserAtBottom();
+        Point viewPosition = chatScrollPane != null ? chatScrollPane.getViewport().getViewPosition() : null;
 
-        try {
-            doc.remove(0, doc.getLength());
-        } catch (BadLocationException e) {
-            System.err.println("Error clearing messages: " + e.getMessage());
-        }
+        List<Message> incoming = messages != null ? messages : List.of();
+        if (!patchMessages(incoming)) {
+            if (messageListView != null) {
+                messageListView.setMessages(List.of());
+            } else {
+                clearDocument();
+            }
+            displayedMessages.clear();
 
-        if (messages != null) {
-            for (Message message : messages) {
+            lastRoomSeq = 0;
+            for (Message message : incoming) {
                 appendMessageToChatArea(message);
-
-                // 현재 사용자가 보낸 메시지가 아니고,
-                // 이 메시지를 읽은 사용자 목록에 현재 사용자가 포함되어 있지 않다면 읽음 처리 요청
-                boolean alreadyReadByMe = false;
-                if (message.getReaders() != null) {
-                    for (User reader : message.getReaders()) {
-                        if (reader.getUserId() == currentUser.getUserId()) {
-                            alreadyReadByMe = true;
-                            break;
-                        }
-                    }
-                }
-
-                if (message.getSenderId() != currentUser.getUserId() && !alreadyReadByMe) {
-                    chatClient.markMessageAsRead(message.getMessageId());
-                }
+                lastRoomSeq = Math.max(lastRoomSeq, message.getRoomSeq());
+                markAsReadIfNeeded(message);
             }
         }
+        // 전체 목록에 이미 포함된 메시지는 버리고, 그 뒤에 이어지는 메시지만 붙임
+        outOfOrderMessages.headMap(lastRoomSeq, true).clear();
+        gapRequested = false;
+        appendInOrderMessages();
 
         // 모든 메시지 로드 후 스크롤 로직
         SwingUtilities.invokeLater(() -> {
@@ -509,116 +578,526 @@ public class ChatRoomDialog extends JDialog {
                 pendingScrollMessageId = -1; // 스크롤 요청 처리 후 초기화
             } else if (wasAtBottom) { // 새로운 메시지가 로드될 때만 (채팅방 열 때는 모든 메시지 로드 후 최하단)
                 // 이전에 최하단에 있었다면 새로운 메시지 도착 시에도 최하단으로 스크롤
-                chatArea.setCaretPosition(doc.getLength());
+                scrollToBottom();
+            } else if (viewPosition != null) {
+                // 사용자가 위로 스크롤한 상태이므로 자동 스크롤하지 않고 보던 위치를 유지
+                chatScrollPane.getViewport().setViewPosition(viewPosition);
             }
-            // else (wasAtBottom이 false인 경우): 사용자가 위로 스크롤한 상태이므로 자동 스크롤하지 않음
         });
     }
 
+    /**
+     * 표시 중인 메시지와 새 목록을 ID로 맞춰 보고, 달라진 메시지만 고치고 새 메시지는 뒤에 붙입니다.
+     * 표시 중인 목록이 새 목록의 앞부분과 ID 순서가 다르면(삭제, 로컬 알림 메시지 등) 아무것도 하지 않습니다.
+     * @return 부분 갱신을 했으면 true, 전체를 다시 그려야 하면 false
+     */
+    private boolean patchMessages(List<Message> messages) {
+        int displayed = displayedMessages.size();
+        if (displayed == 0 || messages.size() < displayed) {
+            return false;
+        }
+        for (int i = 0; i < displayed; i++) {
+            if (messages.get(i).getMessageId() != displayedMessages.get(i).getMessageId()) {
+                return false;
+            }
+        }
+
+        int patched = 0;
+        long maxRoomSeq = 0;
+        for (int i = 0; i < displayed; i++) {
+            Message current = displayedMessages.get(i);
+            Message updated = messages.get(i);
+            if (updated.getThumbnailId() == null && current.getThumbnailId() != null) {
+                // THUMBNAIL_READY로 받은 썸네일 정보는 목록 응답에 없을 수 있음
+                updated.setThumbnailId(current.getThumbnailId());
+                updated.setThumbnailWidth(current.getThumbnailWidth());
+                updated.setThumbnailHeight(current.getThumbnailHeight());
+            }
+            if (!sameRendering(current, updated)) {
+                if (messageListView != null) {
+                    messageListView.setMessage(i, updated);
+                } else {
+                    Element element = messageElements.get(updated.getMessageId());
+                    if (element == null) {
+                        return false;
+                    }
+                    try {
+                        int start = element.getStartOffset();
+                        doc.setOuterHTML(element, messageHtml(updated));
+                        indexMessageElement(updated.getMessageId(), start);
+                    } catch (BadLocationException | IOException e) {
+                        log.error("Error updating message {}: {}", updated.getMessageId(), e.getMessage());
+                        return false;
+                    }
+                }
+                patched++;
+            }
+            displayedMessages.set(i, updated);
+            maxRoomSeq = Math.max(maxRoomSeq, updated.getRoomSeq());
+            markAsReadIfNeeded(updated);
+        }
+        for (int i = displayed; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            appendMessageToChatArea(message);
+            maxRoomSeq = Math.max(maxRoomSeq, message.getRoomSeq());
+            markAsReadIfNeeded(message);
+        }
+        lastRoomSeq = maxRoomSeq;
+        log.debug("Room {}: patched {} of {} displayed messages, appended {}",
+                chatRoom.getRoomId(), patched, displayed, messages.size() - displayed);
+        return true;
+    }
+
+    // 말풍선 모양에 영향을 주는 값(읽음, 미열람 수, 공지, 내용, 썸네일)이 같은지
+    private static boolean sameRendering(Message a, Message b) {
+        return a.isNotice() == b.isNotice()
+                && a.getUnreadCount() == b.getUnreadCount()
+                && a.getMessageType() == b.getMessageType()
+                && Objects.equals(a.getContent(), b.getContent())
+                && Objects.equals(a.getThumbnailId(), b.getThumbnailId())
+                && sameReaders(a.getReaders(), b.getReaders());
+    }
+
+    private static boolean sameReaders(List<User> a, List<User> b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).getUserId() != b.get(i).getUserId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 말풍선 HTML을 만든 때의 모양 관련 값 (sameRendering이 비교하는 값과 보낸 사람, 시각, 썸네일 파일).
+     * 읽은 사람은 sameRendering과 같이 ID 순서로 비교합니다.
+     */
+    private static final class RenderKey {
+        private final int senderId;
+        private final String senderNickname;
+        private final LocalDateTime sentAt;
+        private final MessageType messageType;
+        private final boolean notice;
+        private final int unreadCount;
+        private final String content;
+        private final String thumbnailUrl; // 아직 로컬에 없으면 null
+        private final int thumbnailWidth;
+        private final int thumbnailHeight;
+        private final int[] readerIds;
+
+        RenderKey(Message message, String thumbnailUrl) {
+            this.senderId = message.getSenderId();
+            this.senderNickname = message.getSenderNickname();
+            this.sentAt = message.getSentAt();
+            this.messageType = message.getMessageType();
+            this.notice = message.isNotice();
+            this.unreadCount = message.getUnreadCount();
+            this.content = message.getContent();
+            this.thumbnailUrl = thumbnailUrl;
+            this.thumbnailWidth = message.getThumbnailWidth();
+            this.thumbnailHeight = message.getThumbnailHeight();
+            List<User> readers = message.getReaders();
+            if (readers == null) {
+                this.readerIds = null;
+            } else {
+                this.readerIds = new int[readers.size()];
+                for (int i = 0; i < readerIds.length; i++) {
+                    readerIds[i] = readers.get(i).getUserId();
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RenderKey)) {
+                return false;
+            }
+            RenderKey other = (RenderKey) o;
+            return senderId == other.senderId
+                    && notice == other.notice
+                    && unreadCount == other.unreadCount
+                    && thumbnailWidth == other.thumbnailWidth
+                    && thumbnailHeight == other.thumbnailHeight
+                    && messageType == other.messageType
+                    && Objects.equals(sentAt, other.sentAt)
+                    && Objects.equals(senderNickname, other.senderNickname)
+                    && Objects.equals(content, other.content)
+                    && Objects.equals(thumbnailUrl, other.thumbnailUrl)
+                    && Arrays.equals(readerIds, other.readerIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(senderId, notice, unreadCount, messageType, content, thumbnailUrl) * 31 + Arrays.hashCode(readerIds);
+        }
+    }
+
+    private static final class RenderedMessage {
+        private final RenderKey key;
+        private final String html;
+
+        RenderedMessage(RenderKey key, String html) {
+            this.key = key;
+            this.html = html;
+        }
+    }
+
+    // 메시지 말풍선을 모두 지우고 ID 색인도 비움
+    private void clearDocument() {
+        try {
+            doc.remove(0, doc.getLength());
+        } catch (BadLocationException e) {
+            log.error("Error clearing messages: {}", e.getMessage());
+        }
+        messageElements.clear();
+    }
+
+    /**
+     * 문서 위치를 포함하는 메시지 말풍선 div. 글자 요소에서 부모 쪽으로 올라가므로 문서 크기와 상관없이 몇 단계면 찾습니다.
+     * @return data-message-id가 있는 div, 메시지 밖이면 null
+     */
+    private Element messageElementAt(int offset) {
+        Element element = doc.getCharacterElement(offset);
+        while (element != null && !element.getAttributes().isDefined("data-message-id")) {
+            element = element.getParentElement();
+        }
+        return element;
+    }
+
+    private void indexMessageElement(long messageId, int offset) {
+        Element element = messageElementAt(offset);
+        if (element != null) {
+            messageElements.put(messageId, element);
+        }
+    }
+
+    /**
+     * 실시간으로 받은 새 메시지를 방별 순번 순서대로 추가합니다.
+     * 이미 표시한 순번은 무시하고, 중간 순번이 빠져 있으면 뒤의 메시지는 보관한 채
+     * 마지막으로 받은 순번 이후의 메시지만 서버에 다시 요청합니다.
+     * @param message 새 메시지
+     */
+    public void receiveNewMessage(Message message) {
+        if (message.getRoomSeq() == 0) { // 순번이 없는 메시지는 그대로 표시
+            appendMessageToChatArea(message);
+            return;
+        }
+        if (message.getRoomSeq() <= lastRoomSeq) {
+            return; // 이미 표시한 메시지
+        }
+        outOfOrderMessages.put(message.getRoomSeq(), message);
+        appendInOrderMessages();
+        if (!outOfOrderMessages.isEmpty() && !gapRequested) {
+            log.info("Message gap detected in room {}: expected seq {} but got {}. Requesting messages since {}",
+                    chatRoom.getRoomId(), lastRoomSeq + 1, outOfOrderMessages.firstKey(), lastRoomSeq);
+            gapRequested = true;
+            chatClient.getMessagesInRoomSince(chatRoom.getRoomId(), lastRoomSeq);
+        }
+    }
+
+    /**
+     * GET_MESSAGES_IN_ROOM의 증분 응답(sinceSeq 이후 메시지)을 기존 목록 뒤에 붙입니다.
+     * 서버 응답을 기준으로 삼아, 응답에도 없는 순번(저장 실패로 버려진 메시지 등)은 건너뜁니다.
+     * 그러지 않으면 빠진 순번 뒤의 메시지가 계속 보관만 되고 새 메시지마다 다시 요청하게 됩니다.
+     * @param messages 방별 순번 순서의 메시지
+     */
+    public void appendMessagesSince(List<Message> messages) {
+        gapRequested = false;
+        if (messages != null) {
+            for (Message message : messages) {
+                if (message.getRoomSeq() > lastRoomSeq) {
+                    outOfOrderMessages.put(message.getRoomSeq(), message);
+                }
+            }
+        }
+        appendInOrderMessages();
+        while (!outOfOrderMessages.isEmpty()) {
+            log.warn("Messages {}..{} in room {} are missing on the server. Skipping them.",
+                    lastRoomSeq + 1, outOfOrderMessages.firstKey() - 1, chatRoom.getRoomId());
+            lastRoomSeq = outOfOrderMessages.firstKey() - 1;
+            appendInOrderMessages();
+        }
+    }
+
+    // 마지막 순번 바로 다음 순번부터 연속된 메시지만 화면에 추가
+    private void appendInOrderMessages() {
+        while (!outOfOrderMessages.isEmpty()
+                && (lastRoomSeq == 0 || outOfOrderMessages.firstKey() == lastRoomSeq + 1)) {
+            Message next = outOfOrderMessages.pollFirstEntry().getValue();
+            lastRoomSeq = next.getRoomSeq();
+            appendMessageToChatArea(next);
+            markAsReadIfNeeded(next);
+        }
+    }
+
+    // 현재 사용자가 보낸 메시지가 아니고,
+    // 이 메시지를 읽은 사용자 목록에 현재 사용자가 포함되어 있지 않다면 읽음 처리 요청
+    // (요청은 ChatClient가 짧게 모아 방별로 한 번에 보냄)
+    private void markAsReadIfNeeded(Message message) {
+        boolean alreadyReadByMe = false;
+        if (message.getReaders() != null) {
+            for (User reader : message.getReaders()) {
+                if (reader.getUserId() == currentUser.getUserId()) {
+                    alreadyReadByMe = true;
+                    break;
+                }
+            }
+        }
+
+        if (message.getSenderId() != currentUser.getUserId() && !alreadyReadByMe) {
+            chatClient.queueMessageRead(chatRoom.getRoomId(), message.getMessageId());
+        }
+    }
+
     public void appendMessageToChatArea(Message message) {
         if (message == null) {
             return;
         }
+        displayedMessages.add(message);
 
         // 새로운 메시지가 추가되기 전의 스크롤 위치를 확인
         // 만약 사용자 자신의 메시지이거나, 현재 스크롤이 최하단에 있다면 자동 스크롤해야 함.
         boolean shouldAutoScroll = (message.getSenderId() == currentUser.getUserId() || isUserAtBottom());
 
+        if (messageListView != null) {
+            messageListView.addMessage(message);
+            // 메시지를 한꺼번에 붙일 때 스크롤 요청이 메시지 수만큼 쌓이지 않도록 하나로 합침
+            if (shouldAutoScroll && !listScrollPending) {
+                listScrollPending = true;
+                SwingUtilities.invokeLater(() -> {
+                    listScrollPending = false;
+                    scrollToBottom();
+                });
+            }
+            return;
+        }
+
         try {
-            String backgroundColor;
-            String fontWeight = "normal";
-            String fontStyle = "normal";
-            String textColor = "black";
-            String prefix = "";
-            String suffix = "";
-            String outerDivAlign;
-            String innerBubbleMargin;
-
-            if (message.getSenderId() == currentUser.getUserId()) {
-                backgroundColor = "#DCF8C6";
-                outerDivAlign = "text-align: right;";
-                innerBubbleMargin = "margin-left: 15%;";
+            editorKit.insertHTML(doc, doc.getLength(), messageHtml(message), 0, 0, null);
+            indexMessageElement(message.getMessageId(), doc.getLength() - 1); // 마지막 글자는 방금 넣은 말풍선 안에 있음
+
+            // 메시지 추가 후 자동 스크롤 조건
+            if (shouldAutoScroll) {
+                SwingUtilities.invokeLater(this::scrollToBottom);
+            }
+
+        } catch (BadLocationException | IOException e) {
+            log.error("Error appending message to chat area", e);
+        }
+    }
+
+    /**
+     * 메시지 하나의 말풍선 HTML (바깥 div에 data-message-id, data-is-notice를 붙임).
+     * 모양에 영향을 주는 값이 마지막으로 만든 때와 같으면 보관해 둔 HTML을 그대로 돌려줍니다.
+     */
+    private String messageHtml(Message message) {
+        String thumbnailUrl = message.getThumbnailId() != null ? thumbnailUrls.get(message.getThumbnailId()) : null;
+        RenderKey key = new RenderKey(message, thumbnailUrl);
+        RenderedMessage cached = renderCache.get(message.getMessageId());
+        if (cached != null && cached.key.equals(key)) {
+            return cached.html;
+        }
+        String html = renderMessageHtml(message);
+        renderCache.put(message.getMessageId(), new RenderedMessage(key, html));
+        return html;
+    }
+
+    private String renderMessageHtml(Message message) {
+        boolean mine = message.getSenderId() == currentUser.getUserId();
+        String backgroundColor;
+        String fontWeight = "normal";
+        String fontStyle = "normal";
+        String textColor = "black";
+        String prefix = "";
+        String suffix = "";
+        String outerDivAlign;
+        String innerBubbleMargin;
+
+        if (mine) {
+            backgroundColor = "#DCF8C6";
+            outerDivAlign = "text-align: right;";
+            innerBubbleMargin = "margin-left: 15%;";
+        } else {
+            backgroundColor = "#E5E5EA";
+            outerDivAlign = "text-align: left;";
+            innerBubbleMargin = "margin-right: 15%;";
+        }
+
+        if (message.isNotice()) {
+            backgroundColor = "#FFF2CC";
+            textColor = "red";
+            fontWeight = "bold";
+            prefix = "<span style='color: red;'>[공지] </span>";
+            outerDivAlign = "text-align: center;";
+            innerBubbleMargin = "margin-left: auto; margin-right: auto;";
+        }
+
+        String contentToShow = message.getContent();
+        String time = message.getSentAt().format(TIME_FORMAT);
+        String timestampAndSender;
+
+        if (message.getMessageType() == MessageType.SYSTEM) {
+            fontStyle = "italic";
+            textColor = "gray";
+            prefix = "<span style='color: gray;'>[시스템] </span>";
+            outerDivAlign = "text-align: center;";
+            innerBubbleMargin = "margin-left: auto; margin-right: auto;";
+            timestampAndSender = time;
+        } else if (message.getMessageType() == MessageType.FILE || message.getMessageType() == MessageType.IMAGE) {
+            if (message.getContent() != null && !message.getContent().trim().isEmpty()) {
+                String fileName = new File(message.getContent()).getName();
+                contentToShow = getThumbnailHtml(message) +
+                        "<a href='" + message.getContent() + "'>" + fileName + " (클릭하여 다운로드)</a>";
             } else {
-                backgroundColor = "#E5E5EA";
-                outerDivAlign = "text-align: left;";
-                innerBubbleMargin = "margin-right: 15%;";
-            }
-
-            if (message.isNotice()) {
-                backgroundColor = "#FFF2CC";
-                textColor = "red";
-                fontWeight = "bold";
-                prefix = "<span style='color: red;'>[공지] </span>";
-                outerDivAlign = "text-align: center;";
-                innerBubbleMargin = "margin-left: auto; margin-right: auto;";
-            }
-
-            String contentToShow = message.getContent();
-            String timestampAndSender;
-
-            if (message.getMessageType() == MessageType.SYSTEM) {
-                fontStyle = "italic";
-                textColor = "gray";
-                prefix = "<span style='color: gray;'>[시스템] </span>";
-                outerDivAlign = "text-align: center;";
-                innerBubbleMargin = "margin-left: auto; margin-right: auto;";
-                timestampAndSender = message.getSentAt().format(DateTimeFormatter.ofPattern("HH:mm"));
-            } else if (message.getMessageType() == MessageType.FILE || message.getMessageType() == MessageType.IMAGE) {
-                if (message.getContent() != null && !message.getContent().trim().isEmpty()) {
-                    String fileName = new File(message.getContent()).getName();
-                    contentToShow = "<a href='" + message.getContent() + "'>" + fileName + " (클릭하여 다운로드)</a>";
-                } else {
-                    contentToShow = "[잘못된 파일 링크]";
-                }
-                timestampAndSender = (message.getSenderId() == currentUser.getUserId()) ?
-                        message.getSentAt().format(DateTimeFormatter.ofPattern("HH:mm")) :
-                        message.getSentAt().format(DateTimeFormatter.ofPattern("HH:mm")) + " " + message.getSenderNickname();
-            } else { // TEXT 또는 COMMAND 메시지 (COMMAND는 이제 TEXT처럼 처리)
-                timestampAndSender = (message.getSenderId() == currentUser.getUserId()) ?
-                        message.getSentAt().format(DateTimeFormatter.ofPattern("HH:mm")) :
-                        message.getSentAt().format(DateTimeFormatter.ofPattern("HH:mm")) + " " + message.getSenderNickname();
-            }
-
-            if (message.getMessageType() != MessageType.SYSTEM && message.getReaders() != null) {
-                List<String> readerNicknames = message.getReaders().stream()
-                        .filter(reader -> reader.getUserId() != message.getSenderId())
-                        .map(User::getNickname)
-                        .collect(Collectors.toList());
-
-                if (!readerNicknames.isEmpty()) {
-                    suffix = " <span style='font-size: 0.7em; color: #666;'>읽음: " + String.join(", ", readerNicknames) + "</span>";
-                } else {
-                    if (message.getSenderId() == currentUser.getUserId() && message.getUnreadCount() > 0) {
-                        suffix = " <span style='font-size: 0.8em; color: gray;'>(" + message.getUnreadCount() + "명 미열람)</span>";
+                contentToShow = "[잘못된 파일 링크]";
+            }
+            timestampAndSender = mine ? time : time + " " + message.getSenderNickname();
+        } else { // TEXT 또는 COMMAND 메시지 (COMMAND는 이제 TEXT처럼 처리)
+            timestampAndSender = mine ? time : time + " " + message.getSenderNickname();
+        }
+
+        if (message.getMessageType() != MessageType.SYSTEM && message.getReaders() != null) {
+            StringBuilder readerNicknames = new StringBuilder();
+            for (User reader : message.getReaders()) {
+                if (reader.getUserId() != message.getSenderId()) {
+                    if (readerNicknames.length() > 0) {
+                        readerNicknames.append(", ");
                     }
+                    readerNicknames.append(reader.getNickname());
                 }
             }
-            String htmlMessage = String.format(
-                    "<div data-message-id='%d' data-is-notice='%b' style='clear: both; margin-bottom: 5px; %s'>" + // data-is-notice 추가
-                            "<div style='display: inline-block; background-color: %s; padding: 8px 12px; border-radius: 10px; max-width: 70%%; word-wrap: break-word; %s'>" +
-                            "<span style='color: #888; font-size: 0.8em; display: block; %s'>%s</span>" +
-                            "<span style='font-weight: %s; color: %s; font-style: %s; display: block;'>%s%s%s</span>" +
-                            "</div></div>",
-                    message.getMessageId(),
-                    message.isNotice(), // isNotice 값 추가
-                    outerDivAlign,
-                    backgroundColor,
-                    innerBubbleMargin,
-                    (message.getSenderId() == currentUser.getUserId() || message.getMessageType() == MessageType.SYSTEM || message.isNotice() ? "text-align: right;" : "text-align: left;"),
-                    timestampAndSender,
-                    fontWeight, textColor, fontStyle, prefix, contentToShow, suffix
-            );
-
-            editorKit.insertHTML(doc, doc.getLength(), htmlMessage, 0, 0, null);
 
-            // 메시지 추가 후 자동 스크롤 조건
-            if (shouldAutoScroll) {
-                SwingUtilities.invokeLater(() -> chatArea.setCaretPosition(doc.getLength()));
+            if (readerNicknames.length() > 0) {
+                suffix = " <span style='font-size: 0.7em; color: #666;'>읽음: " + readerNicknames + "</span>";
+            } else {
+                if (mine && message.getUnreadCount() > 0) {
+                    suffix = " <span style='font-size: 0.8em; color: gray;'>(" + message.getUnreadCount() + "명 미열람)</span>";
+                }
+            }
+        }
+        String headerAlign = mine || message.getMessageType() == MessageType.SYSTEM || message.isNotice() ? "text-align: right;" : "text-align: left;";
+        return new StringBuilder(512)
+                .append("<div data-message-id='").append(message.getMessageId())
+                .append("' data-is-notice='").append(message.isNotice())
+                .append("' style='clear: both; margin-bottom: 5px; ").append(outerDivAlign).append("'>")
+                .append("<div style='display: inline-block; background-color: ").append(backgroundColor)
+                .append("; padding: 8px 12px; border-radius: 10px; max-width: 70%; word-wrap: break-word; ").append(innerBubbleMargin).append("'>")
+                .append("<span style='color: #888; font-size: 0.8em; display: block; ").append(headerAlign).append("'>").append(timestampAndSender).append("</span>")
+                .append("<span style='font-weight: ").append(fontWeight).append("; color: ").append(textColor)
+                .append("; font-style: ").append(fontStyle).append("; display: block;'>")
+                .append(prefix).append(contentToShow).append(suffix).append("</span>")
+                .append("</div></div>")
+                .toString();
+    }
+
+    /**
+     * 썸네일이 있는 파일 메시지의 미리보기 HTML을 만듭니다.
+     * 아직 로컬에 썸네일이 없으면 한 번만 서버에 요청하고, 도착하면 다시 그립니다.
+     * @param message 파일 메시지
+     * @return 미리보기 img 태그 또는 빈 문자열
+     */
+    private String getThumbnailHtml(Message message) {
+        String thumbnailId = message.getThumbnailId();
+        if (thumbnailId == null) {
+            return "";
+        }
+        String url = thumbnailUrls.get(thumbnailId);
+        if (url == null) {
+            if (requestedThumbnails.add(thumbnailId)) {
+                chatClient.downloadThumbnail(chatRoom.getRoomId(), thumbnailId);
             }
+            return "";
+        }
+        return String.format("<a href='%s'><img src='%s' width='%d' height='%d' border='0'></a><br>",
+                message.getContent(), url, message.getThumbnailWidth(), message.getThumbnailHeight());
+    }
 
-        } catch (BadLocationException | IOException e) {
-            System.err.println("Error appending message to chat area: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * 가상 목록에 그릴 썸네일 이미지. 아직 없으면 한 번만 서버에 요청하고 null을 반환합니다.
+     */
+    private Image getThumbnailImage(Message message) {
+        String thumbnailId = message.getThumbnailId();
+        Image image = thumbnailImages.get(thumbnailId);
+        if (image == null && requestedThumbnails.add(thumbnailId)) {
+            chatClient.downloadThumbnail(chatRoom.getRoomId(), thumbnailId);
+        }
+        return image;
+    }
+
+    /**
+     * 서버에서 썸네일 생성이 끝났다는 알림을 받았을 때 호출됩니다.
+     */
+    public void onThumbnailReady(long messageId, String thumbnailId, int width, int height) {
+        for (Message message : displayedMessages) {
+            if (message.getMessageId() == messageId) {
+                message.setThumbnailId(thumbnailId);
+                message.setThumbnailWidth(width);
+                message.setThumbnailHeight(height);
+                if (requestedThumbnails.add(thumbnailId)) {
+                    chatClient.downloadThumbnail(chatRoom.getRoomId(), thumbnailId);
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * 썸네일 바이트를 임시 파일로 저장하고 미리보기가 보이도록 다시 그립니다.
+     */
+    public void onThumbnailDownloaded(String thumbnailId, byte[] thumbnailBytes) {
+        if (messageListView != null) { // 가상 목록은 파일 URL 대신 이미지를 직접 그림
+            try {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnailBytes));
+                if (image != null) {
+                    thumbnailImages.put(thumbnailId, image);
+                    thumbnailRefreshTimer.restart();
+                }
+            } catch (IOException e) {
+                log.error("Error decoding thumbnail {}: {}", thumbnailId, e.getMessage());
+            }
+            return;
+        }
+        try {
+            if (thumbnailTempDir == null) {
+                thumbnailTempDir = Files.createTempDirectory("compi-thumbnails").toFile();
+                thumbnailTempDir.deleteOnExit();
+            }
+            File thumbnailFile = new File(thumbnailTempDir, thumbnailId);
+            Files.write(thumbnailFile.toPath(), thumbnailBytes);
+            thumbnailFile.deleteOnExit();
+            thumbnailUrls.put(thumbnailId, thumbnailFile.toURI().toURL().toString());
+            thumbnailRefreshTimer.restart();
+        } catch (IOException e) {
+            log.error("Error saving thumbnail {}: {}", thumbnailId, e.getMessage());
+        }
+    }
+
+    /**
+     * 현재 표시 중인 메시지를 읽음 처리 요청 없이 다시 그립니다. 스크롤 위치는 유지합니다.
+     */
+    private void rerenderMessages() {
+        if (messageListView != null) {
+            messageListView.refreshAll();
+            return;
+        }
+        List<Message> messages = new ArrayList<>(displayedMessages);
+        JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, chatArea);
+        Point viewPosition = scrollPane != null ? scrollPane.getViewport().getViewPosition() : null;
+        clearDocument();
+        displayedMessages.clear();
+        for (Message message : messages) {
+            appendMessageToChatArea(message);
+        }
+        if (viewPosition != null) {
+            SwingUtilities.invokeLater(() -> scrollPane.getViewport().setViewPosition(viewPosition));
         }
     }
 
@@ -627,6 +1106,9 @@ public class ChatRoomDialog extends JDialog {
      * @return 최하단에 스크롤되어 있다면 true, 그렇지 않다면 false
      */
     private boolean isUserAtBottom() {
+        if (messageListView != null) {
+            return messageListView.isAtBottom();
+        }
         if (chatScrollPane == null) {
             return true; // 스크롤 패인이 없으면 항상 최하단으로 가정 (초기 로딩 시)
         }
@@ -639,103 +1121,76 @@ public class ChatRoomDialog extends JDialog {
     }
 
 
+    private void scrollToBottom() {
+        if (messageListView != null) {
+            messageListView.scrollToBottom();
+        } else {
+            chatArea.setCaretPosition(doc.getLength());
+        }
+    }
+
     /**
      * 특정 메시지 ID로 채팅창을 스크롤합니다.
-     * 이 메서드는 JEditorPane의 HTML 문서에서 해당 메시지 ID를 가진 요소를 찾아 스크롤합니다.
+     * 메시지 ID 색인(messageElements)에서 말풍선 요소를 바로 찾아 스크롤합니다 (문서 전체를 훑지 않음).
      * @param messageId 스크롤할 메시지의 ID
      */
-    public void scrollToMessage(int messageId) {
-        final int targetMessageId = messageId;
-        final int maxRetries = 10;
-        final int retryDelay = 50;
-
-        Timer retryTimer = new Timer(retryDelay, new ActionListener() {
-            private int currentRetry = 0;
-
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                currentRetry++;
-                System.out.println("scrollToMessage: Retrying for ID " + targetMessageId + ", attempt " + currentRetry);
-
-                HTMLDocument doc = (HTMLDocument) chatArea.getDocument();
-                Element targetElement = findElementById(doc.getDefaultRootElement(), targetMessageId);
-
-                if (targetElement != null) {
-                    try {
-                        Rectangle rect = chatArea.modelToView(targetElement.getStartOffset());
-                        if (rect != null) {
-                            JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, chatArea);
-                            if (scrollPane != null) {
-                                JViewport viewport = scrollPane.getViewport();
-                                Point currentView = viewport.getViewPosition();
-                                Point newViewPosition = new Point(currentView.x, rect.y);
-                                viewport.setViewPosition(newViewPosition);
-                            } else {
-                                chatArea.scrollRectToVisible(rect);
-                            }
-
-                            chatArea.setSelectionStart(targetElement.getStartOffset());
-                            chatArea.setSelectionEnd(targetElement.getEndOffset());
-                            Timer selectionTimer = new Timer(500000, ev -> {
-                                chatArea.setSelectionStart(doc.getLength());
-                                chatArea.setSelectionEnd(doc.getLength());
-                                // 여기서 강제 스크롤 코드를 제거합니다.
-                                // chatArea.setCaretPosition(doc.getLength()); // 이 라인을 제거하세요!
-                            });
-                            selectionTimer.setRepeats(false);
-                            selectionTimer.start();
-
-                            System.out.println("Scrolled to message ID: " + targetMessageId + " after " + currentRetry + " retries.");
-                            ((Timer) e.getSource()).stop();
-                        }
-                    } catch (BadLocationException ex) {
-                        System.err.println("Error scrolling to message during retry: " + ex.getMessage());
-                        ((Timer) e.getSource()).stop();
-                    }
-                } else if (currentRetry >= maxRetries) {
-                    System.out.println("scrollToMessage: Message with ID " + targetMessageId + " not found after " + maxRetries + " attempts. Giving up.");
-                    ((Timer) e.getSource()).stop();
-                }
+    public void scrollToMessage(long messageId) {
+        if (messageListView != null) { // 가상 목록은 ID로 행을 바로 찾으므로 기다릴 필요 없음
+            int row = messageListView.indexOf(messageId);
+            if (row >= 0) {
+                messageListView.scrollToIndex(row);
+            } else {
+                log.debug("scrollToMessage: Message with ID {} not found.", messageId);
             }
-        });
-        retryTimer.setRepeats(true);
-        retryTimer.start();
+            return;
+        }
+        scrollToMessageElement(messageId, 0);
     }
 
-    /**
-     * HTML 문서에서 특정 data-message-id를 가진 Element를 재귀적으로 찾는 헬퍼 메서드.
-     * JEditorPane의 HTMLDocument 구조는 복잡할 수 있으므로, 모든 자식 요소를 탐색합니다.
-     * @param element 현재 탐색 중인 Element
-     * @param messageId 찾으려는 메시지 ID
-     * @return 찾은 Element 또는 null
-     */
-    private Element findElementById(Element element, int messageId) {
-        if (element == null) {
-            return null;
-        }
+    // 색인에서 말풍선을 찾아 스크롤. 다이얼로그가 막 열려 아직 배치 전이면 modelToView가 null이므로 잠시 뒤 다시 시도
+    private void scrollToMessageElement(long messageId, int attempt) {
+        final int maxRetries = 10;
+        final int retryDelay = 50;
 
-        // 현재 Element가 찾고 있는 메시지 div인지 확인
-        AttributeSet attrs = element.getAttributes();
-        String msgIdStr = (String) attrs.getAttribute("data-message-id");
-        if (msgIdStr != null) {
-            try {
-                if (Integer.parseInt(msgIdStr) == messageId) {
-                    return element; // 찾았으면 반환
+        Element targetElement = messageElements.get(messageId);
+        if (targetElement == null) {
+            log.debug("scrollToMessage: Message with ID {} is not displayed.", messageId);
+            return;
+        }
+        try {
+            Rectangle rect = chatArea.modelToView(targetElement.getStartOffset());
+            if (rect == null) {
+                if (attempt < maxRetries) {
+                    Timer retryTimer = new Timer(retryDelay, e -> scrollToMessageElement(messageId, attempt + 1));
+                    retryTimer.setRepeats(false);
+                    retryTimer.start();
+                } else {
+                    log.debug("scrollToMessage: Message with ID {} not laid out after {} attempts. Giving up.", messageId, maxRetries);
                 }
-            } catch (NumberFormatException e) {
-                // 유효하지 않은 ID 형식, 무시하고 계속 탐색
+                return;
             }
-        }
-
-        // 자식 Element들을 재귀적으로 탐색
-        for (int i = 0; i < element.getElementCount(); i++) {
-            Element child = element.getElement(i);
-            Element found = findElementById(child, messageId);
-            if (found != null) {
-                return found; // 자식에서 찾았으면 반환
+            JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, chatArea);
+            if (scrollPane != null) {
+                JViewport viewport = scrollPane.getViewport();
+                Point currentView = viewport.getViewPosition();
+                viewport.setViewPosition(new Point(currentView.x, rect.y));
+            } else {
+                chatArea.scrollRectToVisible(rect);
             }
+
+            chatArea.setSelectionStart(targetElement.getStartOffset());
+            chatArea.setSelectionEnd(targetElement.getEndOffset());
+            Timer selectionTimer = new Timer(500000, ev -> {
+                chatArea.setSelectionStart(doc.getLength());
+                chatArea.setSelectionEnd(doc.getLength());
+            });
+            selectionTimer.setRepeats(false);
+            selectionTimer.start();
+
+            log.debug("Scrolled to message ID: {} after {} retries.", messageId, attempt);
+        } catch (BadLocationException ex) {
+            log.error("Error scrolling to message: {}", ex.getMessage());
         }
-        return null; // 못 찾음
     }
 
 
@@ -2,12 +2,14 @@ package chat.compi.GUI;
 
 import chat.compi.Controller.ChatClient;
 import chat.compi.Dto.ServerResponse;
+import chat.compi.Logging.Log;
 import chat.compi.Entity.User;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent; // ActionEvent 임포트 추가
 import java.awt.event.ActionListener; // ActionListener 임포트 추가
+import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -35,7 +37,7 @@ public class LoginGUI extends JFrame {
         responseProcessor = Executors.newSingleThreadExecutor();
         responseProcessor.submit(chatClient::processResponses);
 
-        chatClient.setResponseListener(ServerResponse.ResponseType.LOGIN_SUCCESS, this::handleLoginSuccess);
+        chatClient.setResponseListener(ServerResponse.ResponseType.BOOTSTRAP, this::handleBootstrap);
         chatClient.setResponseListener(ServerResponse.ResponseType.FAIL, this::handleLoginOrRegisterFail);
         // REGISTER_SUCCESS 리스너는 LoginGUI에서는 더 이상 필요하지 않음. RegisterGUI에서 처리.
         // chatClient.setResponseListener(ServerResponse.ResponseType.REGISTER_SUCCESS, this::handleRegisterSuccess);
@@ -88,13 +90,21 @@ public class LoginGUI extends JFrame {
         chatClient.login(username, password);
     }
 
-    private void handleLoginSuccess(ServerResponse response) {
+    private void handleBootstrap(ServerResponse response) {
         User user = (User) response.getData().get("user");
         chatClient.setCurrentUser(user);
-        SwingUtilities.invokeLater(() -> {
-            new ChatClientGUI(chatClient).setVisible(true); // ChatClientGUI 열기
-            this.dispose(); // 로그인 창 닫기
-        });
+        chatClient.setSystemRoomId((int) response.getData().get("systemRoomId"));
+        try {
+            // 메인 화면이 응답 리스너를 등록할 때까지 다음 응답을 처리하지 않음 (BOOTSTRAP 바로 뒤의 알림을 놓치지 않도록)
+            SwingUtilities.invokeAndWait(() -> {
+                new ChatClientGUI(chatClient, response).setVisible(true); // 친구와 채팅방 목록을 채워서 ChatClientGUI 열기
+                this.dispose(); // 로그인 창 닫기
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            Log.get(LoginGUI.class).error("Failed to open main window: {}", e.getCause().toString());
+        }
     }
 
     private void handleLoginOrRegisterFail(ServerResponse response) {
@@ -105,6 +115,7 @@ public class LoginGUI extends JFrame {
 
 
     public static void main(String[] args) {
+        Log.setAppName("compi-client");
         SwingUtilities.invokeLater(() -> new LoginGUI().setVisible(true));
     }
 }
\ No newline at end of file
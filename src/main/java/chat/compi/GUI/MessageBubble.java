@@ -0,0 +1,319 @@
+// MessageBubble.java
+package chat.compi.GUI;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+
+import javax.swing.UIManager;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextHitInfo;
+import java.awt.font.TextLayout;
+import java.io.File;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MessageListView에서 메시지 하나를 그리는 말풍선.
+ * 주어진 폭에 맞춰 줄바꿈까지 끝낸 결과를 보관하므로, 보이는 행만 만들어 두고 그릴 때마다 재사용한다.
+ * 색, 정렬, 접두어, 읽음 표시는 ChatRoomDialog.appendMessageToChatArea의 HTML과 같다.
+ */
+final class MessageBubble {
+    private static final Color OWN_BACKGROUND = new Color(0xDC, 0xF8, 0xC6);
+    private static final Color OTHER_BACKGROUND = new Color(0xE5, 0xE5, 0xEA);
+    private static final Color NOTICE_BACKGROUND = new Color(0xFF, 0xF2, 0xCC);
+    private static final Color HEADER_COLOR = new Color(0x88, 0x88, 0x88);
+    private static final Color READERS_COLOR = new Color(0x66, 0x66, 0x66);
+    private static final Color LINK_COLOR = new Color(0x00, 0x00, 0xEE);
+    private static final Color THUMBNAIL_PLACEHOLDER = new Color(0xD0, 0xD0, 0xD0);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    static final int MARGIN_BOTTOM = 5;
+    private static final int PADDING_X = 12;
+    static final int PADDING_Y = 8;
+    private static final int SIDE_MARGIN = 4;
+    private static final int ARC = 20;
+    private static final int THUMBNAIL_GAP = 4;
+
+    private enum Align { LEFT, CENTER, RIGHT }
+
+    private final Color background;
+    private final Align align;
+    private final Rectangle bubble; // 행 위쪽 기준 좌표
+    private final TextLayout header;
+    private final boolean headerRight;
+    private final Image thumbnail;
+    private final Rectangle thumbnailBounds; // 썸네일 자리가 없으면 null
+    private final List<TextLayout> lines = new ArrayList<>();
+    private final List<Integer> lineStarts = new ArrayList<>(); // 본문 전체 문자열 기준 줄 시작 위치
+    private final int linkStart;
+    private final int linkEnd;
+    private final int textWidth;
+
+    /**
+     * @param width 목록 폭 (말풍선은 그 70%까지)
+     * @param thumbnail 로컬에 있는 썸네일 이미지, 아직 없으면 null (크기를 알면 자리만 잡아 둠)
+     */
+    MessageBubble(Message message, int currentUserId, Image thumbnail, int width, Font font, FontRenderContext frc) {
+        boolean mine = message.getSenderId() == currentUserId;
+        boolean system = message.getMessageType() == MessageType.SYSTEM;
+        boolean file = message.getMessageType() == MessageType.FILE || message.getMessageType() == MessageType.IMAGE;
+
+        Color textColor = Color.BLACK;
+        String prefix = "";
+        Font bodyFont = font;
+        Align bubbleAlign = mine ? Align.RIGHT : Align.LEFT;
+        Color bubbleBackground = mine ? OWN_BACKGROUND : OTHER_BACKGROUND;
+        if (message.isNotice()) {
+            bubbleBackground = NOTICE_BACKGROUND;
+            textColor = Color.RED;
+            bodyFont = font.deriveFont(Font.BOLD);
+            prefix = "[공지] ";
+            bubbleAlign = Align.CENTER;
+        }
+        if (system) {
+            textColor = Color.GRAY;
+            bodyFont = font.deriveFont(Font.ITALIC);
+            prefix = "[시스템] ";
+            bubbleAlign = Align.CENTER;
+        }
+        this.background = bubbleBackground;
+        this.align = bubbleAlign;
+        this.headerRight = mine || system || message.isNotice();
+
+        // 머리글: 시간 (다른 사람 메시지는 보낸 사람 닉네임 포함)
+        String time = message.getSentAt() != null ? message.getSentAt().format(TIME_FORMAT) : "";
+        String headerText = (mine || system) ? time : time + " " + message.getSenderNickname();
+        Font smallFont = font.deriveFont(font.getSize2D() * 0.8f);
+        this.header = headerText.isBlank() ? null : layout(headerText, smallFont, HEADER_COLOR, frc);
+
+        // 본문: 접두어 + 내용(파일이면 다운로드 링크) + 읽음 표시
+        String content = message.getContent();
+        boolean validFile = file && content != null && !content.trim().isEmpty();
+        String mainText;
+        if (file) {
+            mainText = validFile ? new File(content).getName() + " (클릭하여 다운로드)" : "[잘못된 파일 링크]";
+        } else {
+            mainText = content != null ? content : "";
+        }
+        String suffix = "";
+        Font suffixFont = smallFont;
+        Color suffixColor = Color.GRAY;
+        if (!system && message.getReaders() != null) {
+            List<String> readerNicknames = new ArrayList<>();
+            for (User reader : message.getReaders()) {
+                if (reader.getUserId() != message.getSenderId()) {
+                    readerNicknames.add(reader.getNickname());
+                }
+            }
+            if (!readerNicknames.isEmpty()) {
+                suffix = " 읽음: " + String.join(", ", readerNicknames);
+                suffixFont = font.deriveFont(font.getSize2D() * 0.7f);
+                suffixColor = READERS_COLOR;
+            } else if (mine && message.getUnreadCount() > 0) {
+                suffix = " (" + message.getUnreadCount() + "명 미열람)";
+            }
+        }
+
+        String body = prefix + mainText + suffix;
+        if (body.isEmpty()) {
+            body = " "; // 빈 문자열은 줄을 만들 수 없음
+        }
+        AttributedString text = new AttributedString(body);
+        text.addAttribute(TextAttribute.FONT, bodyFont);
+        text.addAttribute(TextAttribute.FOREGROUND, textColor);
+        int mainStart = prefix.length();
+        int mainEnd = mainStart + mainText.length();
+        if (!suffix.isEmpty()) {
+            text.addAttribute(TextAttribute.FONT, suffixFont, mainEnd, body.length());
+            text.addAttribute(TextAttribute.FOREGROUND, suffixColor, mainEnd, body.length());
+        }
+        if (validFile) {
+            text.addAttribute(TextAttribute.FOREGROUND, LINK_COLOR, mainStart, mainEnd);
+            text.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON, mainStart, mainEnd);
+            this.linkStart = mainStart;
+            this.linkEnd = mainEnd;
+        } else {
+            this.linkStart = -1;
+            this.linkEnd = -1;
+        }
+
+        int maxTextWidth = Math.max(40, (int) (width * 0.7) - 2 * PADDING_X);
+        int widest = header != null ? (int) Math.ceil(header.getAdvance()) : 0;
+
+        // 썸네일은 크기를 알면 이미지가 도착하기 전에도 자리를 잡아 두어 행 높이가 바뀌지 않게 함
+        Rectangle thumbnailSize = null;
+        if (validFile && message.getThumbnailId() != null && message.getThumbnailWidth() > 0 && message.getThumbnailHeight() > 0) {
+            double scale = Math.min(1.0, (double) maxTextWidth / message.getThumbnailWidth());
+            thumbnailSize = new Rectangle(0, 0, (int) (message.getThumbnailWidth() * scale), (int) (message.getThumbnailHeight() * scale));
+            widest = Math.max(widest, thumbnailSize.width);
+        }
+        this.thumbnail = thumbnail;
+
+        // 줄바꿈: 내용 안의 개행은 문단 구분으로, 문단 안에서는 폭에 맞춰 나눔
+        AttributedCharacterIterator iterator = text.getIterator();
+        int paragraphStart = 0;
+        int length = iterator.getEndIndex();
+        while (paragraphStart < length) {
+            int newline = body.indexOf('\n', paragraphStart);
+            int paragraphEnd = newline >= 0 ? newline : length;
+            if (paragraphEnd == paragraphStart) { // 빈 줄
+                AttributedString blank = new AttributedString(" ");
+                blank.addAttribute(TextAttribute.FONT, bodyFont);
+                addLine(new TextLayout(blank.getIterator(), frc), paragraphStart);
+            } else {
+                LineBreakMeasurer measurer = new LineBreakMeasurer(
+                        new AttributedString(iterator, paragraphStart, paragraphEnd).getIterator(), frc);
+                while (measurer.getPosition() < paragraphEnd - paragraphStart) {
+                    int start = paragraphStart + measurer.getPosition();
+                    addLine(measurer.nextLayout(maxTextWidth), start);
+                }
+            }
+            paragraphStart = paragraphEnd + 1;
+        }
+        for (TextLayout line : lines) {
+            widest = Math.max(widest, (int) Math.ceil(line.getAdvance()));
+        }
+        this.textWidth = widest;
+
+        int height = PADDING_Y;
+        if (header != null) {
+            height += lineHeight(header);
+        }
+        if (thumbnailSize != null) {
+            thumbnailSize.y = height;
+            height += thumbnailSize.height + THUMBNAIL_GAP;
+        }
+        for (TextLayout line : lines) {
+            height += lineHeight(line);
+        }
+        height += PADDING_Y;
+
+        int bubbleWidth = textWidth + 2 * PADDING_X;
+        int bubbleX;
+        switch (align) {
+            case RIGHT:
+                bubbleX = width - SIDE_MARGIN - bubbleWidth;
+                break;
+            case CENTER:
+                bubbleX = (width - bubbleWidth) / 2;
+                break;
+            default:
+                bubbleX = SIDE_MARGIN;
+        }
+        this.bubble = new Rectangle(Math.max(0, bubbleX), 0, bubbleWidth, height);
+        if (thumbnailSize != null) {
+            thumbnailSize.x = alignedX(thumbnailSize.width);
+            this.thumbnailBounds = thumbnailSize;
+        } else {
+            this.thumbnailBounds = null;
+        }
+    }
+
+    /**
+     * 행 높이 (말풍선 아래 여백 포함).
+     */
+    int height() {
+        return bubble.height + MARGIN_BOTTOM;
+    }
+
+    void paint(Graphics2D g, int top, boolean highlighted) {
+        g.setColor(background);
+        g.fillRoundRect(bubble.x, top, bubble.width, bubble.height, ARC, ARC);
+        if (highlighted) {
+            g.setColor(UIManager.getColor("textHighlight") != null ? UIManager.getColor("textHighlight") : Color.BLUE);
+            g.drawRoundRect(bubble.x, top, bubble.width - 1, bubble.height - 1, ARC, ARC);
+        }
+
+        int y = top + PADDING_Y;
+        if (header != null) {
+            int x = headerRight ? bubble.x + PADDING_X + textWidth - (int) Math.ceil(header.getAdvance()) : bubble.x + PADDING_X;
+            header.draw(g, x, y + header.getAscent());
+            y += lineHeight(header);
+        }
+        if (thumbnailBounds != null) {
+            int thumbnailTop = top + thumbnailBounds.y;
+            if (thumbnail != null) {
+                g.drawImage(thumbnail, thumbnailBounds.x, thumbnailTop, thumbnailBounds.width, thumbnailBounds.height, null);
+            } else {
+                g.setColor(THUMBNAIL_PLACEHOLDER);
+                g.fillRect(thumbnailBounds.x, thumbnailTop, thumbnailBounds.width, thumbnailBounds.height);
+            }
+            y = thumbnailTop + thumbnailBounds.height + THUMBNAIL_GAP;
+        }
+        for (TextLayout line : lines) {
+            line.draw(g, alignedX((int) Math.ceil(line.getAdvance())), y + line.getAscent());
+            y += lineHeight(line);
+        }
+    }
+
+    boolean contains(int x, int y) {
+        return bubble.contains(x, y);
+    }
+
+    /**
+     * 행 안의 (x, y)가 파일 링크나 썸네일 위인지 확인합니다.
+     */
+    boolean isLinkAt(int x, int y) {
+        if (linkStart < 0) {
+            return false;
+        }
+        if (thumbnailBounds != null && thumbnailBounds.contains(x, y)) {
+            return true;
+        }
+        int lineTop = PADDING_Y + (header != null ? lineHeight(header) : 0);
+        if (thumbnailBounds != null) {
+            lineTop = thumbnailBounds.y + thumbnailBounds.height + THUMBNAIL_GAP;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            TextLayout line = lines.get(i);
+            int lineBottom = lineTop + lineHeight(line);
+            if (y >= lineTop && y < lineBottom) {
+                int lineX = alignedX((int) Math.ceil(line.getAdvance()));
+                if (x < lineX || x > lineX + line.getAdvance()) {
+                    return false;
+                }
+                TextHitInfo hit = line.hitTestChar(x - lineX, y - lineTop - line.getAscent());
+                int index = lineStarts.get(i) + hit.getCharIndex();
+                return index >= linkStart && index < linkEnd;
+            }
+            lineTop = lineBottom;
+        }
+        return false;
+    }
+
+    private void addLine(TextLayout line, int start) {
+        lines.add(line);
+        lineStarts.add(start);
+    }
+
+    // 말풍선 안에서 본문 정렬 (바깥 div의 text-align과 같음)
+    private int alignedX(int contentWidth) {
+        int left = bubble.x + PADDING_X;
+        switch (align) {
+            case RIGHT:
+                return left + textWidth - contentWidth;
+            case CENTER:
+                return left + (textWidth - contentWidth) / 2;
+            default:
+                return left;
+        }
+    }
+
+    private static TextLayout layout(String text, Font font, Color color, FontRenderContext frc) {
+        AttributedString attributed = new AttributedString(text);
+        attributed.addAttribute(TextAttribute.FONT, font);
+        attributed.addAttribute(TextAttribute.FOREGROUND, color);
+        return new TextLayout(attributed.getIterator(), frc);
+    }
+
+    private static int lineHeight(TextLayout layout) {
+        return (int) Math.ceil(layout.getAscent() + layout.getDescent() + layout.getLeading());
+    }
+}
@@ -0,0 +1,341 @@
+// MessageListView.java
+package chat.compi.GUI;
+
+import chat.compi.Entity.Message;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 채팅 메시지를 가상 목록으로 보여주는 뷰 (JScrollPane 안에 넣어 사용).
+ * HTML 문서에 메시지를 모두 넣는 대신 메시지 목록만 들고 있다가, 화면에 보이는 행만 말풍선으로 만들어 그린다.
+ *
+ * 행 높이는 메시지마다 다르다. 아직 그려 보지 않은 행은 한 줄짜리 말풍선 높이로 어림하고,
+ * 처음 보일 때 실제 높이를 재서 RowHeights에 반영한다. 그래서 메시지 수와 상관없이
+ * 방을 열거나 스크롤할 때 드는 일은 보이는 행 수에 비례한다.
+ */
+public class MessageListView extends JComponent implements Scrollable {
+
+    /**
+     * 말풍선 클릭, 우클릭 메뉴, 썸네일 이미지를 채팅방 다이얼로그에 맡기는 콜백.
+     */
+    public interface Actions {
+        /** 파일 링크나 썸네일을 눌렀을 때 (filePath는 메시지 내용의 서버 경로) */
+        void openFile(String filePath);
+
+        /** 말풍선을 우클릭했을 때 */
+        void showMessageMenu(Message message, Component invoker, int x, int y);
+
+        /** 로컬에 있는 썸네일 이미지. 아직 없으면 null을 반환하고, 도착하면 {@link #refreshAll()}을 호출해야 함 */
+        Image thumbnail(Message message);
+    }
+
+    private static final int BUBBLE_CACHE_SIZE = 256;
+    private static final int UNIT_INCREMENT = 16;
+    private static final int BOTTOM_TOLERANCE = 50; // ChatRoomDialog.isUserAtBottom과 같은 오차
+    // paintComponent의 힌트(안티앨리어싱 켬, 소수 글자 폭 끔)와 같아야 잰 폭과 그린 폭이 일치함
+    private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, false);
+
+    private final int currentUserId;
+    private final Actions actions;
+    private final List<Message> messages = new ArrayList<>();
+    private final Map<Long, Integer> indexById = new HashMap<>();
+    private final RowHeights heights = new RowHeights();
+    private final BitSet measured = new BitSet(); // 현재 폭에서 실제 높이를 잰 행
+
+    // 최근에 그린 행의 말풍선 (행 번호 -> 말풍선). 보이는 행 수보다 넉넉하면 스크롤할 때 다시 만들 일이 거의 없음
+    private final Map<Integer, MessageBubble> bubbles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, MessageBubble> eldest) {
+            return size() > BUBBLE_CACHE_SIZE;
+        }
+    };
+
+    private int layoutWidth = -1;
+    private int estimatedRowHeight = -1;
+    private int highlightedRow = -1;
+
+    public MessageListView(int currentUserId, Actions actions) {
+        this.currentUserId = currentUserId;
+        this.actions = actions;
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setFont(UIManager.getFont("EditorPane.font")); // HTML 뷰(JEditorPane)와 같은 기본 글꼴
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                showPopupIfTriggered(e);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                showPopupIfTriggered(e);
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) {
+                    return;
+                }
+                int row = rowAt(e.getPoint());
+                if (row >= 0 && bubble(row).isLinkAt(e.getX(), e.getY() - heights.top(row))) {
+                    actions.openFile(messages.get(row).getContent());
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                int row = rowAt(e.getPoint());
+                boolean link = row >= 0 && bubble(row).isLinkAt(e.getX(), e.getY() - heights.top(row));
+                setCursor(link ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+    }
+
+    /**
+     * 표시할 메시지 목록을 통째로 바꿉니다.
+     */
+    public void setMessages(List<Message> newMessages) {
+        messages.clear();
+        indexById.clear();
+        bubbles.clear();
+        measured.clear();
+        highlightedRow = -1;
+        for (Message message : newMessages) {
+            indexById.put(message.getMessageId(), messages.size());
+            messages.add(message);
+        }
+        heights.reset(messages.size(), estimatedRowHeight());
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * 목록 끝에 메시지를 추가합니다. 행 높이는 처음 보일 때 잽니다.
+     */
+    public void addMessage(Message message) {
+        indexById.put(message.getMessageId(), messages.size());
+        messages.add(message);
+        heights.add(estimatedRowHeight());
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * 행의 메시지를 바꿉니다 (읽음, 공지 상태 변경 등). 그 행만 다음에 보일 때 다시 잽니다.
+     */
+    public void setMessage(int row, Message message) {
+        Message previous = messages.set(row, message);
+        if (previous.getMessageId() != message.getMessageId()) {
+            indexById.remove(previous.getMessageId());
+            indexById.put(message.getMessageId(), row);
+        }
+        bubbles.remove(row);
+        measured.clear(row);
+        repaint();
+    }
+
+    /**
+     * 모든 행을 다시 그립니다 (썸네일 도착 등). 높이는 지금 값을 유지하다가 보일 때 다시 잽니다.
+     */
+    public void refreshAll() {
+        bubbles.clear();
+        measured.clear();
+        repaint();
+    }
+
+    public int getMessageCount() {
+        return messages.size();
+    }
+
+    /**
+     * 메시지 ID의 행 번호, 없으면 -1.
+     */
+    public int indexOf(long messageId) {
+        Integer index = indexById.get(messageId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 행이 화면 맨 위에 오도록 스크롤하고 테두리로 표시합니다.
+     */
+    public void scrollToIndex(int row) {
+        if (row < 0 || row >= messages.size()) {
+            return;
+        }
+        int viewHeight = viewportHeight();
+        measureRows(row, heights.top(row) + viewHeight);
+        highlightedRow = row;
+        scrollTo(Math.min(heights.top(row), Math.max(0, heights.total() - viewHeight)));
+    }
+
+    public void scrollToBottom() {
+        if (messages.isEmpty()) {
+            return;
+        }
+        // 끝에서부터 화면 높이만큼 실제 높이를 재야 마지막 메시지가 잘리지 않음
+        int viewHeight = viewportHeight();
+        int covered = 0;
+        for (int row = messages.size() - 1; row >= 0 && covered < viewHeight; row--) {
+            bubble(row);
+            covered += heights.get(row);
+        }
+        scrollTo(Math.max(0, heights.total() - viewHeight));
+    }
+
+    public boolean isAtBottom() {
+        Rectangle visible = getVisibleRect();
+        return visible.y + visible.height >= heights.total() - BOTTOM_TOLERANCE;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        return new Dimension(layoutWidth > 0 ? layoutWidth : 0, heights.total());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            Rectangle clip = g2.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g2.setColor(getBackground());
+            g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            int totalBefore = heights.total();
+            int clipBottom = clip.y + clip.height;
+            for (int row = heights.rowAt(clip.y); row >= 0 && row < messages.size(); row++) {
+                int top = heights.top(row);
+                if (top >= clipBottom) {
+                    break;
+                }
+                bubble(row).paint(g2, top, row == highlightedRow);
+            }
+            if (heights.total() != totalBefore) {
+                revalidate(); // 잰 높이가 어림값과 달라 전체 높이가 바뀜
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(400, 300);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return UNIT_INCREMENT;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return Math.max(UNIT_INCREMENT, visibleRect.height - UNIT_INCREMENT);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // 메시지가 적으면 뷰포트 높이를 채워 빈 곳도 흰 배경으로 그림
+        return getParent() instanceof JViewport && getParent().getHeight() > heights.total();
+    }
+
+    // 행의 말풍선. 폭이 바뀌었거나 처음 보이는 행이면 새로 만들고 실제 높이를 반영
+    private MessageBubble bubble(int row) {
+        int width = getWidth();
+        if (width != layoutWidth) {
+            layoutWidth = width;
+            bubbles.clear();
+            measured.clear(); // 지금 높이는 다음에 잴 때까지 어림값으로 사용
+        }
+        MessageBubble bubble = bubbles.get(row);
+        if (bubble == null) {
+            Message message = messages.get(row);
+            Image thumbnail = message.getThumbnailId() != null ? actions.thumbnail(message) : null;
+            bubble = new MessageBubble(message, currentUserId, thumbnail, Math.max(width, 1), getFont(), FONT_RENDER_CONTEXT);
+            bubbles.put(row, bubble);
+            if (!measured.get(row)) {
+                measured.set(row);
+                heights.set(row, bubble.height());
+            }
+        }
+        return bubble;
+    }
+
+    // top부터 bottomY까지 보이게 될 행의 실제 높이를 미리 잼
+    private void measureRows(int firstRow, int bottomY) {
+        for (int row = firstRow; row < messages.size() && heights.top(row) < bottomY; row++) {
+            bubble(row);
+        }
+    }
+
+    private void scrollTo(int y) {
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        revalidate();
+        if (viewport == null) {
+            repaint();
+            return;
+        }
+        viewport.validate(); // 바뀐 전체 높이를 바로 반영해야 끝까지 스크롤됨
+        viewport.setViewPosition(new Point(0, y));
+        repaint();
+    }
+
+    private int viewportHeight() {
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        return viewport != null ? viewport.getExtentSize().height : getVisibleRect().height;
+    }
+
+    private int rowAt(Point point) {
+        int row = heights.rowAt(point.y);
+        if (row < 0 || point.y >= heights.total()) {
+            return -1;
+        }
+        return bubble(row).contains(point.x, point.y - heights.top(row)) ? row : -1;
+    }
+
+    private void showPopupIfTriggered(MouseEvent e) {
+        if (!e.isPopupTrigger()) {
+            return;
+        }
+        int row = rowAt(e.getPoint());
+        if (row >= 0) {
+            actions.showMessageMenu(messages.get(row), e.getComponent(), e.getX(), e.getY());
+        }
+    }
+
+    private int estimatedRowHeight() {
+        if (estimatedRowHeight < 0) {
+            // 머리글 한 줄 + 본문 한 줄짜리 말풍선
+            Font font = getFont();
+            FontMetrics body = getFontMetrics(font);
+            FontMetrics header = getFontMetrics(font.deriveFont(font.getSize2D() * 0.8f));
+            estimatedRowHeight = 2 * MessageBubble.PADDING_Y + header.getHeight() + body.getHeight() + MessageBubble.MARGIN_BOTTOM;
+        }
+        return estimatedRowHeight;
+    }
+}
@@ -0,0 +1,108 @@
+// RowHeights.java
+package chat.compi.GUI;
+
+import java.util.Arrays;
+
+/**
+ * 가상 목록의 행 높이와 누적 위치 (Fenwick 트리).
+ * 행 하나의 높이를 바꾸거나 끝에 행을 붙이는 것, 행의 y 위치와 y 위치의 행을 찾는 것이 모두 O(log n)이라
+ * 메시지가 10만 개여도 보이는 행을 잴 때마다 전체 위치를 다시 계산하지 않는다.
+ */
+final class RowHeights {
+    private int[] heights = new int[16];
+    private int[] tree = new int[17]; // 1부터 시작하는 누적 합
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 모든 행을 지우고 count개의 행을 같은 높이로 채웁니다. O(n)
+     */
+    void reset(int count, int height) {
+        ensureCapacity(count);
+        Arrays.fill(heights, 0, count, height);
+        Arrays.fill(tree, 0);
+        size = count;
+        for (int i = 1; i <= count; i++) {
+            tree[i] += height;
+            int parent = i + (i & -i);
+            if (parent <= count) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    void add(int height) {
+        ensureCapacity(size + 1);
+        int node = ++size;
+        heights[node - 1] = height;
+        tree[node] = height + prefix(node - 1) - prefix(node - (node & -node));
+    }
+
+    int get(int row) {
+        return heights[row];
+    }
+
+    void set(int row, int height) {
+        int delta = height - heights[row];
+        if (delta == 0) {
+            return;
+        }
+        heights[row] = height;
+        for (int node = row + 1; node <= size; node += node & -node) {
+            tree[node] += delta;
+        }
+    }
+
+    /**
+     * 행의 위쪽 y 위치 (앞선 행 높이의 합). row == size이면 전체 높이입니다.
+     */
+    int top(int row) {
+        return prefix(row);
+    }
+
+    int total() {
+        return prefix(size);
+    }
+
+    /**
+     * y 위치를 포함하는 행. 범위를 벗어나면 첫 행 또는 마지막 행, 행이 없으면 -1입니다.
+     */
+    int rowAt(int y) {
+        if (size == 0) {
+            return -1;
+        }
+        if (y < 0) {
+            return 0;
+        }
+        // top(row) <= y인 가장 큰 row를 트리를 따라 내려가며 찾음
+        int node = 0;
+        int remaining = y;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = node + step;
+            if (next <= size && tree[next] <= remaining) {
+                node = next;
+                remaining -= tree[next];
+            }
+        }
+        return Math.min(node, size - 1);
+    }
+
+    private int prefix(int count) {
+        int sum = 0;
+        for (int node = count; node > 0; node -= node & -node) {
+            sum += tree[node];
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > heights.length) {
+            int newLength = Math.max(capacity, heights.length * 2);
+            heights = Arrays.copyOf(heights, newLength);
+            tree = Arrays.copyOf(tree, newLength + 1);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+// AsyncAppender.java
+package chat.compi.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 링 버퍼에 쌓인 로그를 백그라운드 스레드("async-logger") 하나가 꺼내 파일(과 콘솔)에 쓴다.
+ * 로그를 남기는 스레드는 버퍼에 넣기만 하므로 파일/콘솔 I/O나 잠금을 기다리지 않는다.
+ *
+ * 버퍼가 가득 차면 DEBUG/INFO는 버리고(개수를 세어 나중에 경고로 남김), WARN/ERROR는 자리가 날 때까지 기다린다.
+ * JVM 종료 시 남은 로그를 모두 쓰고 닫는다.
+ */
+final class AsyncAppender {
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final RingBuffer<LogEvent> buffer;
+    private final RollingFileWriter fileWriter;
+    private final boolean console;
+    private final boolean json;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    AsyncAppender(int bufferSize, File file, long maxFileBytes, int maxFiles, boolean console, boolean json) {
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.fileWriter = file != null ? new RollingFileWriter(file, maxFileBytes, maxFiles) : null;
+        this.console = console;
+        this.json = json;
+        this.thread = new Thread(this::drainLoop, "async-logger");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "async-logger-shutdown"));
+    }
+
+    void append(LogEvent event) {
+        if (!running && !thread.isAlive()) { // 종료 처리 후에 남기는 로그는 바로 출력
+            System.err.print(formatText(event));
+            return;
+        }
+        if (buffer.offer(event)) {
+            return;
+        }
+        if (event.level.compareTo(Level.WARN) < 0 || !running) {
+            dropped.increment();
+            return;
+        }
+        while (!buffer.offer(event)) { // 경고/오류는 잃지 않도록 기록 스레드를 기다림
+            LockSupport.unpark(thread);
+            Thread.yield();
+        }
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    int getPending() {
+        return buffer.size();
+    }
+
+    /**
+     * 남은 로그를 모두 쓰고 기록 스레드를 멈춥니다.
+     */
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        long reportedDropped = 0;
+        boolean dirty = false;
+        while (true) {
+            LogEvent event = buffer.poll();
+            if (event != null) {
+                write(event);
+                dirty = true;
+                continue;
+            }
+            long droppedNow = dropped.sum();
+            if (droppedNow != reportedDropped) {
+                write(new LogEvent(Level.WARN, "AsyncAppender",
+                        "{} log events dropped because the log buffer was full", new Object[]{droppedNow - reportedDropped}, null));
+                reportedDropped = droppedNow;
+                dirty = true;
+            }
+            if (dirty) {
+                flush();
+                dirty = false;
+            }
+            if (!running && buffer.size() == 0) {
+                break;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        try {
+            if (fileWriter != null) {
+                fileWriter.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing log file: " + e.getMessage());
+        }
+    }
+
+    private void write(LogEvent event) {
+        String line = json ? formatJson(event) : formatText(event);
+        if (fileWriter != null) {
+            try {
+                fileWriter.write(line);
+            } catch (IOException e) {
+                System.err.println("Error writing log file: " + e.getMessage());
+            }
+        }
+        if (console) {
+            (event.level.compareTo(Level.WARN) >= 0 ? System.err : System.out).print(line);
+        }
+    }
+
+    private void flush() {
+        if (fileWriter != null) {
+            try {
+                fileWriter.flush();
+            } catch (IOException e) {
+                System.err.println("Error flushing log file: " + e.getMessage());
+            }
+        }
+        if (console) {
+            System.out.flush();
+            System.err.flush();
+        }
+    }
+
+    static String formatText(LogEvent event) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(TIMESTAMP.format(Instant.ofEpochMilli(event.timestampMillis))).append(' ');
+        String level = event.level.name();
+        sb.append(level);
+        for (int i = level.length(); i < 5; i++) {
+            sb.append(' ');
+        }
+        sb.append(" [").append(event.threadName).append("] ").append(event.loggerName).append(" - ").append(event.message());
+        sb.append(System.lineSeparator());
+        if (event.throwable != null) {
+            StringWriter stackTrace = new StringWriter();
+            event.throwable.printStackTrace(new PrintWriter(stackTrace));
+            sb.append(stackTrace);
+        }
+        return sb.toString();
+    }
+
+    static String formatJson(LogEvent event) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("{\"ts\":\"").append(Instant.ofEpochMilli(event.timestampMillis)).append('"');
+        sb.append(",\"level\":\"").append(event.level.name()).append('"');
+        sb.append(",\"thread\":");
+        appendJsonString(sb, event.threadName);
+        sb.append(",\"logger\":");
+        appendJsonString(sb, event.loggerName);
+        sb.append(",\"msg\":");
+        appendJsonString(sb, event.message());
+        if (event.throwable != null) {
+            StringWriter stackTrace = new StringWriter();
+            event.throwable.printStackTrace(new PrintWriter(stackTrace));
+            sb.append(",\"error\":");
+            appendJsonString(sb, stackTrace.toString());
+        }
+        sb.append('}').append('\n');
+        return sb.toString();
+    }
+
+    private static void appendJsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,9 @@
+// Level.java
+package chat.compi.Logging;
+
+/**
+ * 로그 수준. 설정한 수준보다 낮은 로그는 호출한 곳에서 바로 버린다.
+ */
+public enum Level {
+    DEBUG, INFO, WARN, ERROR, OFF
+}
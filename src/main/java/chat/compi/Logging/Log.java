@@ -0,0 +1,98 @@
+// Log.java
+package chat.compi.Logging;
+
+import java.io.File;
+
+/**
+ * 비동기 로거 설정과 생성.
+ *
+ * -Dcompi.log.level      : DEBUG | INFO (기본) | WARN | ERROR | OFF
+ * -Dcompi.log.file       : 로그 파일 (기본 logs/<앱 이름>.log, 빈 문자열이면 파일에 쓰지 않음)
+ * -Dcompi.log.maxFileMb  : 파일 하나의 최대 크기 (기본 10MB)
+ * -Dcompi.log.maxFiles   : 돌려 쓸 파일 수 (기본 5)
+ * -Dcompi.log.console    : 콘솔에도 출력할지 (기본 true, 기록 스레드가 출력)
+ * -Dcompi.log.format     : text (기본) | json (한 줄에 JSON 객체 하나)
+ * -Dcompi.log.bufferSize : 링 버퍼 크기, 2의 거듭제곱 (기본 8192)
+ *
+ * 기록 스레드는 처음 로그를 남길 때 시작하므로, 앱 이름은 main에서 가장 먼저 setAppName으로 정한다.
+ */
+public final class Log {
+    private static volatile Level level = parseLevel(System.getProperty("compi.log.level", "INFO"));
+    private static volatile String appName = "compi";
+    private static volatile AsyncAppender appender;
+
+    private Log() {
+    }
+
+    public static Logger get(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    public static Logger get(String name) {
+        return new Logger(name);
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * 기본 로그 파일 이름(logs/<appName>.log)을 정합니다. 첫 로그보다 먼저 호출해야 적용됩니다.
+     */
+    public static void setAppName(String name) {
+        appName = name;
+    }
+
+    /**
+     * 버퍼가 가득 차서 버린 로그 수
+     */
+    public static long getDroppedEvents() {
+        AsyncAppender current = appender;
+        return current != null ? current.getDropped() : 0;
+    }
+
+    /**
+     * 아직 쓰지 않은 로그 수 (대략적인 값)
+     */
+    public static int getPendingEvents() {
+        AsyncAppender current = appender;
+        return current != null ? current.getPending() : 0;
+    }
+
+    static void append(LogEvent event) {
+        AsyncAppender current = appender;
+        if (current == null) {
+            current = startAppender();
+        }
+        current.append(event);
+    }
+
+    private static synchronized AsyncAppender startAppender() {
+        if (appender == null) {
+            String fileName = System.getProperty("compi.log.file", "logs/" + appName + ".log");
+            AsyncAppender newAppender = new AsyncAppender(
+                    Integer.getInteger("compi.log.bufferSize", 8192),
+                    fileName.isEmpty() ? null : new File(fileName),
+                    Long.getLong("compi.log.maxFileMb", 10) * 1024 * 1024,
+                    Integer.getInteger("compi.log.maxFiles", 5),
+                    Boolean.parseBoolean(System.getProperty("compi.log.console", "true")),
+                    "json".equalsIgnoreCase(System.getProperty("compi.log.format", "text")));
+            newAppender.start();
+            appender = newAppender;
+        }
+        return appender;
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + value + "', using INFO.");
+            return Level.INFO;
+        }
+    }
+}
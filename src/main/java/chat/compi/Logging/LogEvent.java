@@ -0,0 +1,44 @@
+// LogEvent.java
+package chat.compi.Logging;
+
+/**
+ * 링 버퍼로 넘기는 로그 한 건. 메시지 조립({} 치환)은 기록 스레드에서 한다.
+ */
+final class LogEvent {
+    final long timestampMillis;
+    final Level level;
+    final String loggerName;
+    final String threadName;
+    final String format;
+    final Object[] args;
+    final Throwable throwable;
+
+    LogEvent(Level level, String loggerName, String format, Object[] args, Throwable throwable) {
+        this.timestampMillis = System.currentTimeMillis();
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = Thread.currentThread().getName();
+        this.format = format;
+        this.args = args;
+        this.throwable = throwable;
+    }
+
+    /**
+     * format의 {}를 순서대로 인자로 바꾼 메시지
+     */
+    String message() {
+        if (args == null || args.length == 0 || format == null) {
+            return String.valueOf(format);
+        }
+        StringBuilder sb = new StringBuilder(format.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while (argIndex < args.length && (placeholder = format.indexOf("{}", start)) >= 0) {
+            sb.append(format, start, placeholder).append(args[argIndex++]);
+            start = placeholder + 2;
+        }
+        sb.append(format, start, format.length());
+        return sb.toString();
+    }
+}
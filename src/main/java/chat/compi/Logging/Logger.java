@@ -0,0 +1,98 @@
+// Logger.java
+package chat.compi.Logging;
+
+/**
+ * 클래스별 로거. Log.get(클래스)로 얻는다.
+ *
+ * 메시지의 {}는 인자로 순서대로 바뀌며, 치환은 기록 스레드에서 하므로 인자는 로그를 남긴 뒤에 바뀌지 않는 값이어야 한다.
+ * 수준이 꺼져 있으면 인자를 조립하지 않고 바로 반환하므로, 자주 호출되는 곳에서는 문자열을 직접 이어 붙이지 말고 {}를 쓴다.
+ */
+public final class Logger {
+    private final String name;
+
+    Logger(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(Log.getLevel()) >= 0 && level != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null, null);
+    }
+
+    public void debug(String format, Object arg) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, format, new Object[]{arg}, null);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, format, new Object[]{arg1, arg2}, null);
+        }
+    }
+
+    public void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args, null);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null, null);
+    }
+
+    public void info(String format, Object arg) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, format, new Object[]{arg}, null);
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, format, new Object[]{arg1, arg2}, null);
+        }
+    }
+
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, args, null);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null, null);
+    }
+
+    public void warn(String format, Object... args) {
+        log(Level.WARN, format, args, null);
+    }
+
+    public void warn(String message, Throwable throwable) {
+        log(Level.WARN, message, null, throwable);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, null, null);
+    }
+
+    public void error(String format, Object... args) {
+        log(Level.ERROR, format, args, null);
+    }
+
+    public void error(String message, Throwable throwable) {
+        log(Level.ERROR, message, null, throwable);
+    }
+
+    private void log(Level level, String format, Object[] args, Throwable throwable) {
+        if (isEnabled(level)) {
+            Log.append(new LogEvent(level, name, format, args, throwable));
+        }
+    }
+}
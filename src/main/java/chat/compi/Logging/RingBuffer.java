@@ -0,0 +1,81 @@
+// RingBuffer.java
+package chat.compi.Logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 잠금 없는 고정 크기 링 버퍼 (여러 생산자, 소비자 하나).
+ * 칸마다 순번을 두어 생산자는 tail을 CAS로 차지한 뒤 값을 쓰고 순번을 올려 공개한다.
+ * 소비자는 순번이 맞는 칸만 읽으므로 쓰기가 끝나지 않은 칸을 읽지 않는다.
+ */
+final class RingBuffer<E> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // 소비자 스레드에서만 사용
+
+    RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 값을 넣습니다. 버퍼가 가득 차 있으면 넣지 않고 false를 반환합니다.
+     */
+    boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                return false; // 소비자가 아직 이 칸을 비우지 않음
+            }
+            // difference > 0: 다른 생산자가 먼저 차지함, 다시 시도
+        }
+        slots[index] = element;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * 값을 하나 꺼냅니다. 비어 있으면 null을 반환합니다. 소비자 스레드 하나에서만 호출해야 합니다.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E element = (E) slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, head + slots.length);
+        head++;
+        return element;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * 대략적인 대기 개수 (다른 스레드에서 읽으면 정확하지 않을 수 있음)
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,81 @@
+// RollingFileWriter.java
+package chat.compi.Logging;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 크기 기준으로 돌려 쓰는 로그 파일.
+ * 현재 파일이 maxBytes를 넘으면 name.log -> name.log.1 -> ... -> name.log.(maxFiles-1) 순으로 밀고 가장 오래된 파일은 지운다.
+ * 기록 스레드 하나에서만 사용한다.
+ */
+final class RollingFileWriter {
+    private final File file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private OutputStream out;
+    private long size;
+
+    RollingFileWriter(File file, long maxBytes, int maxFiles) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    void write(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (out == null) {
+            open();
+        } else if (size > 0 && size + bytes.length > maxBytes) {
+            roll();
+        }
+        out.write(bytes);
+        size += bytes.length;
+    }
+
+    void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void open() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        size = file.length();
+        out = new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024);
+    }
+
+    private void roll() throws IOException {
+        close();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File source = i == 1 ? file : rolledFile(i - 1);
+            if (source.exists()) {
+                Files.move(source.toPath(), rolledFile(i).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles == 1) {
+            Files.deleteIfExists(file.toPath());
+        }
+        open();
+    }
+
+    File rolledFile(int index) {
+        return new File(file.getPath() + "." + index);
+    }
+}
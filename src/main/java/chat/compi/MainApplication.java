@@ -2,11 +2,14 @@ package chat.compi;
 
 import chat.compi.Controller.ChatServer;
 import chat.compi.GUI.LoginGUI;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
 
 import javax.swing.*;
 
 @SuppressWarnings("unchecked")
 public class MainApplication {
+	private static final Logger log = Log.get(MainApplication.class);
 
 	public static void main(String[] args) {
 		// 1. 서버 스레드 시작
@@ -25,7 +28,7 @@ public class MainApplication {
 			Thread.sleep(2000); // 2초 대기 (서버 시작 시간 고려)
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
-			System.err.println("Main application interrupted during server startup delay: " + e.getMessage());
+			log.error("Main application interrupted during server startup delay: {}", e.getMessage());
 		}
 
 		// 2. 클라이언트 GUI 스레드 시작
@@ -0,0 +1,43 @@
+// BroadcastEvent.java
+package chat.compi.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 채팅방 메시지 전파 (ChatServer.broadcastMessageToRoom). 저장 대기와 접속자별 응답 직렬화 시간을 나눠 기록한다.
+ */
+@Name("chat.compi.Broadcast")
+@Label("Room Broadcast")
+@Category({"Compi", "Broadcast"})
+@Description("A message saved and fanned out to the online participants of a room")
+@Enabled(false)
+@StackTrace(false)
+public class BroadcastEvent extends jdk.jfr.Event {
+    @Label("Room Id")
+    public int roomId;
+
+    @Label("Message Id")
+    public long messageId;
+
+    @Label("Participants")
+    public int participants;
+
+    @Label("Recipients")
+    @Description("Participants that were online and received the message")
+    public int recipients;
+
+    @Label("Save Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long saveNanos;
+
+    @Label("Encode Time")
+    @Description("Time spent serializing and writing NEW_MESSAGE responses to recipients")
+    @Timespan(Timespan.NANOSECONDS)
+    public long encodeNanos;
+}
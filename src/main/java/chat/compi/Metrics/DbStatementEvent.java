@@ -0,0 +1,33 @@
+// DbStatementEvent.java
+package chat.compi.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * SQL 문장 하나의 실행 (QueryStats 연결을 통한 execute* 호출). 기간은 실행 시간이고 조회 행 수는 ResultSet을 다 읽은 뒤 채운다.
+ */
+@Name("chat.compi.DbStatement")
+@Label("DB Statement")
+@Category({"Compi", "Database"})
+@Description("A SQL statement executed through a QueryStats connection")
+@Enabled(false)
+@StackTrace(false)
+public class DbStatementEvent extends jdk.jfr.Event {
+    @Label("Statement")
+    @Description("Caller and statement shape, e.g. MessageDAO.getMessagesInRoom SELECT messages")
+    public String name;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,44 @@
+// FileTransferEvent.java
+package chat.compi.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 첨부파일 업로드/다운로드 (저장소 읽기/쓰기 시간)
+ */
+@Name("chat.compi.FileTransfer")
+@Label("File Transfer")
+@Category({"Compi", "File"})
+@Description("An attachment stored on upload or read for download")
+@Enabled(false)
+@StackTrace(false)
+public class FileTransferEvent extends jdk.jfr.Event {
+    public static final String UPLOAD = "upload";
+    public static final String DOWNLOAD = "download";
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("File Path")
+    public String filePath;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Room Id")
+    public int roomId;
+
+    @Label("User Id")
+    public int userId;
+
+    @Label("Not Modified")
+    @Description("Download answered with FILE_NOT_MODIFIED from the client's cached hash")
+    public boolean notModified;
+}
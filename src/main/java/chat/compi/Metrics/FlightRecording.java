@@ -0,0 +1,93 @@
+// FlightRecording.java
+package chat.compi.Metrics;
+
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 서버 JFR 녹화 (-Dcompi.jfr=true).
+ * chat.compi.* 이벤트는 기본으로 꺼져 있어(@Enabled(false)) 녹화하지 않을 때는 isEnabled() 확인 비용만 든다.
+ * 켜면 JDK의 default 설정(GC, 스레드, 소켓 I/O 등)과 함께 요청/전파/DB/파일 이벤트를 녹화하므로
+ * 느린 메시지 전송 하나가 어디서 시간을 썼는지 한 파일에서 볼 수 있다.
+ *
+ * 설정:
+ * - compi.jfr.file: 서버 종료 시 저장할 파일 (기본 compi-server.jfr)
+ * - compi.jfr.maxAgeMinutes: 보관할 최근 기록 길이 (기본 30분)
+ * - compi.jfr.thresholdMillis: 이보다 짧은 요청/DB 이벤트는 버림 (기본 0, 모두 기록)
+ *
+ * 실행 중 덤프는 jcmd <pid> JFR.dump name=compi filename=...
+ */
+public final class FlightRecording {
+    private static final Logger log = Log.get(FlightRecording.class);
+
+    public static final String RECORDING_NAME = "compi";
+
+    private static final List<Class<? extends jdk.jfr.Event>> EVENT_TYPES = List.of(
+            RequestReceivedEvent.class,
+            RequestHandledEvent.class,
+            BroadcastEvent.class,
+            DbStatementEvent.class,
+            FileTransferEvent.class);
+
+    private static Recording recording;
+
+    private FlightRecording() {
+    }
+
+    /**
+     * 설정이 켜져 있으면 녹화를 시작합니다.
+     */
+    public static synchronized void startIfEnabled() {
+        if (recording != null || !Boolean.getBoolean("compi.jfr")) {
+            return;
+        }
+        Duration threshold = Duration.ofMillis(Long.getLong("compi.jfr.thresholdMillis", 0));
+        Path file = Paths.get(System.getProperty("compi.jfr.file", "compi-server.jfr"));
+        try {
+            Recording newRecording = new Recording(Configuration.getConfiguration("default"));
+            newRecording.setName(RECORDING_NAME);
+            for (Class<? extends jdk.jfr.Event> eventType : EVENT_TYPES) {
+                if (eventType == RequestReceivedEvent.class) {
+                    newRecording.enable(eventType); // 순간 이벤트는 기간이 0이라 임계값을 걸면 모두 버려짐
+                } else {
+                    newRecording.enable(eventType).withThreshold(threshold);
+                }
+            }
+            newRecording.setToDisk(true);
+            newRecording.setMaxAge(Duration.ofMinutes(Long.getLong("compi.jfr.maxAgeMinutes", 30)));
+            newRecording.setDestination(file);
+            newRecording.start();
+            recording = newRecording;
+            log.info("JFR recording '{}' started (will be written to {} on shutdown).", RECORDING_NAME, file.toAbsolutePath());
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            log.error("Failed to start JFR recording: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 녹화를 멈추고 파일로 저장합니다. 녹화 중이 아니면 아무 일도 하지 않습니다.
+     */
+    public static synchronized void stop() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.stop(); // destination이 있으므로 stop 시 파일로 저장됨
+            log.info("JFR recording written to {}", recording.getDestination().toAbsolutePath());
+        } catch (IllegalStateException e) {
+            log.error("Failed to stop JFR recording: {}", e.getMessage());
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+// LatencyHistogram.java
+package chat.compi.Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 잠금 없는 지연 시간 히스토그램 (HdrHistogram과 같은 로그-선형 버킷).
+ * 2의 거듭제곱 구간마다 16개의 버킷을 두어 상대 오차가 약 6% 이내이고, 크기와 관계없이 버킷 수가 고정된다.
+ * 기록은 스레드별로 나눈 버킷 배열(stripe)에 원자적 증가 한 번으로 끝나며, 조회할 때 합친다.
+ * 값의 단위는 호출하는 쪽이 정한다 (이 프로젝트에서는 나노초).
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int STRIPES = stripeCount();
+
+    private final AtomicLongArray[] stripes;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        this(STRIPES);
+    }
+
+    /**
+     * stripe 수를 정해 만듭니다. stripe 하나가 약 8KB이므로, 한두 스레드만 기록하는 히스토그램을 많이 둘 때는 1로 줄입니다.
+     * @param stripeCount 2의 거듭제곱
+     */
+    public LatencyHistogram(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two: " + stripeCount);
+        }
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+    }
+
+    /**
+     * 값 하나를 기록합니다. 음수는 0으로 기록합니다.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        int stripe = (int) Thread.currentThread().threadId() & (stripes.length - 1);
+        stripes[stripe].getAndIncrement(bucketIndex(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 지금까지 기록된 값의 분포를 계산합니다. 기록과 동시에 호출해도 되며, 그 사이의 기록은 일부만 반영될 수 있습니다.
+     */
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKET_COUNT];
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long bucketCount = stripe.get(i);
+                buckets[i] += bucketCount;
+                total += bucketCount;
+            }
+        }
+        long maxValue = max.get();
+        return new Snapshot(total, total > 0 ? (double) sum.sum() / Math.max(1, count.sum()) : 0,
+                valueAt(buckets, total, 0.50, maxValue),
+                valueAt(buckets, total, 0.90, maxValue),
+                valueAt(buckets, total, 0.99, maxValue),
+                valueAt(buckets, total, 0.999, maxValue),
+                maxValue);
+    }
+
+    // 백분위에 해당하는 버킷의 상한 (최대값을 넘지 않게)
+    private static long valueAt(long[] buckets, long total, double percentile, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1;
+    }
+
+    private static int stripeCount() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return Math.min(16, Integer.highestOneBit(Math.max(1, cpus - 1)) << 1);
+    }
+
+    /**
+     * 히스토그램의 한 시점 요약
+     */
+    public static class Snapshot {
+        /** 기록이 없는 히스토그램의 요약 */
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0);
+
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+
+        public double getMean() { return mean; }
+
+        public long getP50() { return p50; }
+
+        public long getP90() { return p90; }
+
+        public long getP99() { return p99; }
+
+        public long getP999() { return p999; }
+
+        public long getMax() { return max; }
+    }
+}
@@ -0,0 +1,143 @@
+// MetricsRegistry.java
+package chat.compi.Metrics;
+
+import chat.compi.Dto.ClientRequest;
+import chat.compi.Dto.ServerResponse;
+import chat.compi.Logging.Log;
+import chat.compi.Logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서버 전체 요청/응답 지표.
+ * - 요청 종류(RequestType)별: 처리 횟수, 실패 횟수(예외 또는 success=false 응답), 처리 시간 분포
+ * - 응답 종류(ResponseType)별: 전송 횟수, 직렬화된 바이트 수
+ * - 이름별 메모리 캐시 적중률
+ *
+ * 지표는 enum 순서로 미리 만든 배열에 두므로 기록할 때 맵 조회나 잠금이 없다 (LongAdder, LatencyHistogram).
+ * JMX(chat.compi:type=Request|Response,name=...)로 조회할 수 있고, 주기적으로 요약을 출력할 수 있다.
+ */
+public final class MetricsRegistry {
+    private static final Logger log = Log.get(MetricsRegistry.class);
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final RequestMetrics[] requests;
+    private final ResponseMetrics[] responses;
+    private final ConcurrentHashMap<String, CacheStats> caches = new ConcurrentHashMap<>();
+
+    MetricsRegistry() {
+        ClientRequest.RequestType[] requestTypes = ClientRequest.RequestType.values();
+        requests = new RequestMetrics[requestTypes.length];
+        for (ClientRequest.RequestType type : requestTypes) {
+            requests[type.ordinal()] = new RequestMetrics(type.name());
+        }
+        ServerResponse.ResponseType[] responseTypes = ServerResponse.ResponseType.values();
+        responses = new ResponseMetrics[responseTypes.length];
+        for (ServerResponse.ResponseType type : responseTypes) {
+            responses[type.ordinal()] = new ResponseMetrics(type.name());
+        }
+    }
+
+    public static MetricsRegistry get() {
+        return INSTANCE;
+    }
+
+    public void recordRequest(ClientRequest.RequestType type, long elapsedNanos, boolean failed) {
+        requests[type.ordinal()].record(elapsedNanos, failed);
+    }
+
+    public void recordResponse(ServerResponse.ResponseType type, long bytes) {
+        responses[type.ordinal()].record(bytes);
+    }
+
+    public RequestMetrics getRequestMetrics(ClientRequest.RequestType type) {
+        return requests[type.ordinal()];
+    }
+
+    public ResponseMetrics getResponseMetrics(ServerResponse.ResponseType type) {
+        return responses[type.ordinal()];
+    }
+
+    /**
+     * 이름에 해당하는 캐시 통계를 반환합니다. 처음 요청하면 새로 만듭니다.
+     * @param name 캐시 이름 (예: "attachment.hash")
+     */
+    public CacheStats cache(String name) {
+        return caches.computeIfAbsent(name, CacheStats::new);
+    }
+
+    /**
+     * 모든 캐시 통계를 이름 순으로 반환합니다.
+     */
+    public Map<String, CacheStats> getCaches() {
+        return Collections.unmodifiableMap(new TreeMap<>(caches));
+    }
+
+    /**
+     * 요청/응답 종류별 지표를 플랫폼 MBean 서버에 등록합니다.
+     */
+    public void registerMBeans() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (RequestMetrics metrics : requests) {
+                register(mBeanServer, metrics, new ObjectName("chat.compi:type=Request,name=" + metrics.getName()));
+            }
+            for (ResponseMetrics metrics : responses) {
+                register(mBeanServer, metrics, new ObjectName("chat.compi:type=Response,name=" + metrics.getName()));
+            }
+            log.info("Request/response metrics registered with JMX (chat.compi:*).");
+        } catch (JMException e) {
+            log.error("Failed to register metrics MBeans: {}", e.getMessage());
+        }
+    }
+
+    private static void register(MBeanServer mBeanServer, Object mBean, ObjectName name) throws JMException {
+        if (!mBeanServer.isRegistered(name)) {
+            mBeanServer.registerMBean(mBean, name);
+        }
+    }
+
+    /**
+     * 주기적으로 dump() 결과를 로그로 남깁니다.
+     */
+    public void startPeriodicDump(ScheduledExecutorService scheduler, long intervalMinutes) {
+        scheduler.scheduleAtFixedRate(() -> log.info("Request/response metrics:{}{}", System.lineSeparator(), dump()), intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 한 번 이상 기록된 요청/응답 종류의 누적 지표를 표 형태로 반환합니다.
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-34s %10s %8s %10s %10s %10s %10s%n",
+                "request", "count", "err%", "mean(ms)", "p50(ms)", "p99(ms)", "max(ms)"));
+        for (RequestMetrics metrics : requests) {
+            LatencyHistogram.Snapshot latency = metrics.getLatency();
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format("%-34s %10d %8.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    metrics.getName(), latency.getCount(), metrics.getErrorRate() * 100,
+                    latency.getMean() / 1e6, latency.getP50() / 1e6, latency.getP99() / 1e6, latency.getMax() / 1e6));
+        }
+        sb.append(String.format("%-34s %10s %14s %12s%n", "response", "count", "bytes", "mean bytes"));
+        for (ResponseMetrics metrics : responses) {
+            if (metrics.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format("%-34s %10d %14d %12.0f%n",
+                    metrics.getName(), metrics.getCount(), metrics.getBytes(), metrics.getMeanBytes()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,35 @@
+// RequestHandledEvent.java
+package chat.compi.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 요청 하나를 처리하는 데 걸린 시간 (ClientHandler.handleRequest 전체)
+ */
+@Name("chat.compi.RequestHandled")
+@Label("Request Handled")
+@Category({"Compi", "Request"})
+@Description("Time spent handling one client request, including DB access and responses sent")
+@Enabled(false)
+@StackTrace(false)
+public class RequestHandledEvent extends jdk.jfr.Event {
+    @Label("Request Type")
+    public String requestType;
+
+    @Label("User Id")
+    public int userId;
+
+    @Label("Failed")
+    @Description("The request threw or was answered with success=false")
+    public boolean failed;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+}
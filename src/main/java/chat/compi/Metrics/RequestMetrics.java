@@ -0,0 +1,73 @@
+// RequestMetrics.java
+package chat.compi.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 요청 종류 하나의 처리 횟수, 실패 횟수, 처리 시간 분포
+ */
+public class RequestMetrics implements RequestMetricsMBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    RequestMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long elapsedNanos, boolean failed) {
+        latency.record(elapsedNanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getErrorRate() {
+        long count = getCount();
+        return count > 0 ? (double) getErrors() / count : 0;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.snapshot().getMean() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.snapshot().getP50() / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.snapshot().getP99() / 1e6;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.snapshot().getP999() / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.snapshot().getMax() / 1e6;
+    }
+}
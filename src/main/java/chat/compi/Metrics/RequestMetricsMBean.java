@@ -0,0 +1,23 @@
+// RequestMetricsMBean.java
+package chat.compi.Metrics;
+
+/**
+ * JMX로 노출되는 요청 종류별 지표 (chat.compi:type=Request,name=<RequestType>)
+ */
+public interface RequestMetricsMBean {
+    long getCount();
+
+    long getErrors();
+
+    double getErrorRate();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+}
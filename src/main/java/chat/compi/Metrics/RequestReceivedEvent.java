@@ -0,0 +1,27 @@
+// RequestReceivedEvent.java
+package chat.compi.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 클라이언트 요청을 읽은 시점 (JFR 순간 이벤트).
+ * 읽기 스레드가 같으므로 뒤따르는 RequestHandled/DbStatement/Broadcast 이벤트와 스레드로 묶어 볼 수 있다.
+ */
+@Name("chat.compi.RequestReceived")
+@Label("Request Received")
+@Category({"Compi", "Request"})
+@Description("A client request was deserialized from the socket")
+@Enabled(false)
+@StackTrace(false)
+public class RequestReceivedEvent extends jdk.jfr.Event {
+    @Label("Request Type")
+    public String requestType;
+
+    @Label("User Id")
+    public int userId;
+}
@@ -0,0 +1,42 @@
+// ResponseMetrics.java
+package chat.compi.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 응답 종류 하나의 전송 횟수와 직렬화된 바이트 수
+ */
+public class ResponseMetrics implements ResponseMetricsMBean {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    ResponseMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long sentBytes) {
+        count.increment();
+        bytes.add(sentBytes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public double getMeanBytes() {
+        long sent = getCount();
+        return sent > 0 ? (double) getBytes() / sent : 0;
+    }
+}
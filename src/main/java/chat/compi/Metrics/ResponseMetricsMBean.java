@@ -0,0 +1,13 @@
+// ResponseMetricsMBean.java
+package chat.compi.Metrics;
+
+/**
+ * JMX로 노출되는 응답 종류별 전송량 (chat.compi:type=Response,name=<ResponseType>)
+ */
+public interface ResponseMetricsMBean {
+    long getCount();
+
+    long getBytes();
+
+    double getMeanBytes();
+}
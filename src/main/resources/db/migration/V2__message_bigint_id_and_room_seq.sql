@@ -0,0 +1,36 @@
+-- 메시지 ID를 64비트로 확장하고 방별 순번(room_seq)을 추가한다.
+-- 메시지 ID와 room_seq는 서버(MessageIdGenerator)가 메모리에서 할당하므로 AUTO_INCREMENT를 쓰지 않는다.
+--
+-- 이 스크립트는 SchemaMigrator가 추가되기 전에 들어왔다. 그 사이의 버전을 실행할 때는 서버를 띄우기 전에 직접 적용해야 한다.
+--   mysql -u <user> -p <database> < src/main/resources/db/migration/V2__message_bigint_id_and_room_seq.sql
+-- 그래서 다시 실행해도 결과가 같도록 작성한다. 직접 적용한 DB에 SchemaMigrator가 V2를 한 번 더 실행해도
+-- 서버가 이미 할당한 room_seq(저장 실패로 생긴 빈 번호 포함)는 바뀌지 않는다.
+
+-- message_reads.message_id가 messages.message_id를 참조하므로 두 컬럼을 함께 바꾸는 동안 외래 키 검사를 끈다.
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE messages MODIFY message_id BIGINT NOT NULL;
+ALTER TABLE message_reads MODIFY message_id BIGINT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
+
+ALTER TABLE messages ADD COLUMN room_seq BIGINT NOT NULL DEFAULT 0 AFTER room_id;
+
+-- 순번이 없는(0인) 메시지만 방별로 보낸 시각, ID 순서대로 번호를 매긴다. 방에 이미 번호가 있으면 그 최대값 다음부터 매긴다.
+UPDATE messages m
+JOIN (SELECT message_id, ROW_NUMBER() OVER (PARTITION BY room_id ORDER BY sent_at, message_id) AS seq
+      FROM messages
+      WHERE room_seq = 0) numbered ON m.message_id = numbered.message_id
+LEFT JOIN (SELECT room_id, MAX(room_seq) AS max_seq
+           FROM messages
+           GROUP BY room_id) numbered_max ON m.room_id = numbered_max.room_id
+SET m.room_seq = numbered.seq + COALESCE(numbered_max.max_seq, 0)
+WHERE m.room_seq = 0;
+
+-- 방별 순서 조회와 "since seq N" 증분 조회용 (MySQL에는 CREATE INDEX IF NOT EXISTS가 없어 없을 때만 만듦)
+SET @create_room_seq_index = IF(
+        (SELECT COUNT(*) FROM information_schema.statistics
+         WHERE table_schema = DATABASE() AND table_name = 'messages' AND index_name = 'ux_messages_room_seq') = 0,
+        'CREATE UNIQUE INDEX ux_messages_room_seq ON messages (room_id, room_seq)',
+        'DO 0');
+PREPARE create_room_seq_index FROM @create_room_seq_index;
+EXECUTE create_room_seq_index;
+DEALLOCATE PREPARE create_room_seq_index;
@@ -0,0 +1,21 @@
+-- 자주 실행되는 조회용 인덱스. InnoDB 보조 인덱스에는 기본 키가 포함되므로 message_id는 따로 넣지 않는다.
+-- (room_id, room_seq) 방별 순서 조회 인덱스는 V2에 있다.
+
+-- 안 읽은 메시지 수: WHERE room_id = ? AND sender_id != ? + message_reads (message_id, user_id) 기본 키 조인
+CREATE INDEX ix_messages_room_sender ON messages (room_id, sender_id);
+
+-- 방의 유효한 공지: WHERE is_notice = TRUE AND room_id = ? AND notice_expiry_time ... ORDER BY sent_at DESC
+CREATE INDEX ix_messages_room_notice ON messages (room_id, is_notice, notice_expiry_time, sent_at);
+
+-- 만료 공지 정리: WHERE is_notice = TRUE AND notice_expiry_time <= NOW()
+CREATE INDEX ix_messages_notice_expiry ON messages (is_notice, notice_expiry_time);
+
+-- 미열람 시스템 메시지 (message_type = 'SYSTEM' AND sender_id = ?), 첨부파일 메시지 (message_type IN ('FILE', 'IMAGE'))
+CREATE INDEX ix_messages_type_sender ON messages (message_type, sender_id);
+
+-- 사용자가 참여한 채팅방 목록: WHERE rp.user_id = ? (기본 키는 room_id가 앞이라 쓸 수 없음)
+CREATE INDEX ix_room_participants_user ON room_participants (user_id, room_id);
+
+-- 타임라인 조회 (WHERE room_id = ? ORDER BY event_time), 이벤트 이름별 삭제/중복 확인 (room_id, event_name, event_type)
+CREATE INDEX ix_timeline_room_time ON timeline_events (room_id, event_time);
+CREATE INDEX ix_timeline_room_name ON timeline_events (room_id, event_name, event_type);
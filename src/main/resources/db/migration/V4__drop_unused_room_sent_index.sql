@@ -0,0 +1,3 @@
+-- V3에서 만들던 (room_id, sent_at) 인덱스를 지운다. 방의 메시지는 (room_id, room_seq) 순으로 조회하므로 이 인덱스를 쓰는 조회가 없고,
+-- 메시지를 넣을 때마다 갱신 비용만 든다. V3에서도 뺐으므로 새 DB에는 이 인덱스가 없다 (이때 나는 오류 1091은 적용된 것으로 본다).
+DROP INDEX ix_messages_room_sent ON messages;
@@ -1,13 +1,16 @@
 package chat.compi;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+import static org.junit.jupiter.api.Assertions.*;
+
 class CompiApplicationTests {
 
 	@Test
-	void contextLoads() {
+	void mainClassLoads() throws Exception {
+		// 서버와 GUI를 띄우지 않고, 진입점 클래스와 그 의존 클래스가 로드되는지만 확인
+		Class<?> mainClass = Class.forName("chat.compi.MainApplication");
+		assertNotNull(mainClass.getMethod("main", String[].class));
 	}
 
 }
@@ -0,0 +1,39 @@
+package chat.compi.Controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminServerTest {
+
+    @Test
+    void jsonEscapesStringsAndNestsCollections() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "a \"quoted\"\nline\\");
+        value.put("count", 3);
+        value.put("rate", 0.5);
+        value.put("nan", Double.NaN);
+        value.put("items", Arrays.asList(1, null, true));
+
+        assertEquals("{\"name\":\"a \\\"quoted\\\"\\nline\\\\\",\"count\":3,\"rate\":0.5,\"nan\":null,\"items\":[1,null,true]}",
+                AdminServer.toJson(value));
+        assertEquals("\"\\u0001\"", AdminServer.toJson("\u0001"));
+    }
+
+    @Test
+    void prometheusSamplesUseIntegersWhenExact() {
+        AdminServer.PrometheusWriter writer = new AdminServer.PrometheusWriter();
+        writer.type("compi_connected_clients", "gauge");
+        writer.sample("compi_connected_clients", null, 3);
+        writer.sample("compi_request_duration_seconds", "type=\"LOGIN\",quantile=\"0.5\"", 0.0025);
+
+        assertEquals("# TYPE compi_connected_clients gauge\n" +
+                "compi_connected_clients 3\n" +
+                "compi_request_duration_seconds{type=\"LOGIN\",quantile=\"0.5\"} 0.0025\n", writer.toString());
+        assertEquals("MessageDAO.x SELECT \\\"m\\\"", AdminServer.PrometheusWriter.escape("MessageDAO.x SELECT \"m\""));
+    }
+}
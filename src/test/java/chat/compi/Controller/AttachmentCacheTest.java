@@ -0,0 +1,37 @@
+package chat.compi.Controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentCacheTest {
+    private static final long BUDGET = 1024 * 1024;
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void clientsSharingADirectoryKeepEachOthersIndexEntries() {
+        AttachmentCache first = new AttachmentCache(cacheDir.toFile(), BUDGET);
+        AttachmentCache second = new AttachmentCache(cacheDir.toFile(), BUDGET);
+        byte[] a = bytes("a");
+        byte[] b = bytes("b");
+
+        first.put("server_uploads/a.txt", AttachmentStorage.contentHash(a), a);
+        second.put("server_uploads/b.txt", AttachmentStorage.contentHash(b), b);
+        first.invalidate("server_uploads/a.txt");
+
+        AttachmentCache reopened = new AttachmentCache(cacheDir.toFile(), BUDGET);
+        assertNull(reopened.getHash("server_uploads/a.txt"), "invalidated entry is not merged back");
+        assertEquals(AttachmentStorage.contentHash(b), reopened.getHash("server_uploads/b.txt"));
+        assertArrayEquals(b, reopened.get(AttachmentStorage.contentHash(b)));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package chat.compi.Controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentStorageTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void sameNameWithDifferentContentGetsItsOwnPath() throws Exception {
+        AttachmentStorage storage = new AttachmentStorage(uploadDir.toFile(), null);
+
+        String first = storage.store("report.pdf", bytes("first"));
+        String second = storage.store("dir/report.pdf", bytes("second"));
+        String again = storage.store("report.pdf", bytes("first"));
+
+        assertNotEquals(first, second);
+        assertEquals(first, again, "same content is stored once");
+        assertTrue(first.endsWith("/report.pdf"));
+        assertTrue(storage.isManagedPath(first));
+        assertArrayEquals(bytes("first"), storage.read(first));
+        assertArrayEquals(bytes("second"), storage.read(second));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+package chat.compi.Controller;
+
+import chat.compi.Dto.ServerResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientEventBusTest {
+
+    @Test
+    void everySubscriberRunsUntilItUnsubscribes() {
+        ClientEventBus bus = new ClientEventBus();
+        List<String> received = new ArrayList<>();
+        bus.subscribe(ServerResponse.ResponseType.NEW_MESSAGE, response -> received.add("a:" + response.getMessage()));
+        ClientEventBus.Subscription b = bus.subscribe(ServerResponse.ResponseType.NEW_MESSAGE, response -> {
+            received.add("b:" + response.getMessage());
+            throw new IllegalStateException("listener bug");
+        });
+        bus.subscribe(ServerResponse.ResponseType.NEW_MESSAGE, response -> received.add("c:" + response.getMessage()));
+
+        bus.publish(response(ServerResponse.ResponseType.NEW_MESSAGE, "1"), System.nanoTime());
+        b.close();
+        bus.publish(response(ServerResponse.ResponseType.NEW_MESSAGE, "2"), System.nanoTime());
+        bus.replace(ServerResponse.ResponseType.NEW_MESSAGE, response -> received.add("d:" + response.getMessage()));
+        bus.publish(response(ServerResponse.ResponseType.NEW_MESSAGE, "3"), System.nanoTime());
+
+        assertEquals(List.of("a:1", "b:1", "c:1", "a:2", "c:2", "d:3"), received, "a failing listener does not stop the others");
+        assertEquals(3, bus.getQueueLatency(ServerResponse.ResponseType.NEW_MESSAGE).getCount());
+        assertEquals(0, bus.getQueueLatency(ServerResponse.ResponseType.FRIEND_LIST_UPDATE).getCount(), "never delivered");
+    }
+
+    @Test
+    void sharedLaneKeepsOrderAcrossTypes() throws InterruptedException {
+        ClientEventBus bus = new ClientEventBus();
+        bus.setDispatch(ServerResponse.ResponseType.NEW_MESSAGE, ClientEventBus.Dispatch.BACKGROUND, "messages");
+        bus.setDispatch(ServerResponse.ResponseType.ROOM_MESSAGES_UPDATE, ClientEventBus.Dispatch.BACKGROUND, "messages");
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+        bus.subscribe(ServerResponse.ResponseType.NEW_MESSAGE, response -> {
+            received.add(response.getMessage());
+            done.countDown();
+        });
+        bus.subscribe(ServerResponse.ResponseType.ROOM_MESSAGES_UPDATE, response -> {
+            received.add(response.getMessage());
+            done.countDown();
+        });
+
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ServerResponse.ResponseType type = i % 3 == 0 ? ServerResponse.ResponseType.ROOM_MESSAGES_UPDATE : ServerResponse.ResponseType.NEW_MESSAGE;
+            sent.add(String.valueOf(i));
+            bus.publish(response(type, String.valueOf(i)), System.nanoTime());
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(sent, received);
+        bus.shutdown();
+    }
+
+    @Test
+    void latestSkipsSnapshotsThatWereReplacedWhileBusy() throws InterruptedException {
+        ClientEventBus bus = new ClientEventBus();
+        bus.setDispatch(ServerResponse.ResponseType.NOTICE_LIST_UPDATE, ClientEventBus.Dispatch.LATEST);
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        bus.subscribe(ServerResponse.ResponseType.NOTICE_LIST_UPDATE, response -> {
+            received.add(response.getMessage());
+            if (response.getMessage().equals("0")) {
+                firstStarted.countDown();
+                await(release);
+            }
+            done.countDown();
+        });
+
+        bus.publish(response(ServerResponse.ResponseType.NOTICE_LIST_UPDATE, "0"), System.nanoTime());
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            bus.publish(response(ServerResponse.ResponseType.NOTICE_LIST_UPDATE, String.valueOf(i)), System.nanoTime());
+        }
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("0", "5"), received);
+        assertEquals(4, bus.getCoalescedCount(ServerResponse.ResponseType.NOTICE_LIST_UPDATE));
+        bus.shutdown();
+    }
+
+    private static ServerResponse response(ServerResponse.ResponseType type, String message) {
+        return new ServerResponse(type, true, message, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package chat.compi.Controller;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+import chat.compi.Entity.UserStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCacheTest {
+    private static final int ROOM = 7;
+    private static final User READER = new User(2, "reader", "읽는 사람", UserStatus.ONLINE);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void deltaSyncAndUpdatesSurviveReopen() {
+        MessageCache cache = new MessageCache(tempDir.toFile());
+        assertTrue(cache.open(ROOM).isEmpty());
+        assertEquals(0, cache.getSyncVersion(ROOM));
+        cache.applySync(ROOM, List.of(message(1, "a"), message(2, "b")), null, 100);
+
+        Message readB = message(2, "b");
+        readB.setReaders(new ArrayList<>(List.of(READER)));
+        readB.setUnreadCount(0);
+        List<Message> merged = cache.applySync(ROOM, List.of(message(3, "c")), List.of(readB), 105);
+        assertEquals(List.of("a", "b", "c"), contents(merged));
+        cache.update(ROOM, List.of(message(1, "a"), readB, message(3, "c"), message(4, "d")));
+        cache.close(ROOM);
+
+        MessageCache reopened = new MessageCache(tempDir.toFile());
+        List<Message> cached = reopened.open(ROOM);
+        assertEquals(List.of("a", "b", "c", "d"), contents(cached));
+        assertEquals(4, reopened.getLastRoomSeq(ROOM));
+        assertEquals(105, reopened.getSyncVersion(ROOM));
+        assertEquals(READER.getUserId(), cached.get(1).getReaders().get(0).getUserId());
+        assertEquals(0, cached.get(1).getUnreadCount());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 9, 2), cached.get(1).getSentAt());
+    }
+
+    @Test
+    void fullSyncReplacesAndTornTailIsIgnored() throws Exception {
+        MessageCache cache = new MessageCache(tempDir.toFile());
+        cache.open(ROOM);
+        cache.applySync(ROOM, List.of(message(1, "old"), message(2, "gone")), null, 10);
+        cache.applySync(ROOM, List.of(message(1, "new")), null, 20);
+        cache.close(ROOM);
+
+        // 인덱스에 반영되지 않은 꼬리(쓰다 만 레코드)를 붙임
+        File roomDir = tempDir.resolve("room-" + ROOM).toFile();
+        File[] segments = roomDir.listFiles((dir, name) -> name.startsWith("segment-"));
+        assertEquals(1, segments.length, "the old generation is deleted after a rewrite");
+        try (FileOutputStream output = new FileOutputStream(segments[0], true)) {
+            output.write(new byte[]{0, 0, 0, 50, 1, 2, 3});
+        }
+
+        MessageCache reopened = new MessageCache(tempDir.toFile());
+        assertEquals(List.of("new"), contents(reopened.open(ROOM)));
+        assertEquals(20, reopened.getSyncVersion(ROOM));
+        reopened.update(ROOM, List.of(message(1, "new"), message(2, "next")));
+        reopened.close(ROOM);
+        assertEquals(List.of("new", "next"), contents(new MessageCache(tempDir.toFile()).open(ROOM)));
+    }
+
+    @Test
+    void corruptRecordLengthIsRejectedBeforeAllocating() throws Exception {
+        MessageCache cache = new MessageCache(tempDir.toFile());
+        cache.open(ROOM);
+        cache.applySync(ROOM, List.of(message(1, "a"), message(2, "b")), null, 10);
+        cache.close(ROOM);
+
+        // 두 번째 레코드의 길이를 터무니없이 큰 값으로 바꿈 (CRC는 그대로)
+        File roomDir = tempDir.resolve("room-" + ROOM).toFile();
+        File segment = roomDir.listFiles((dir, name) -> name.startsWith("segment-"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            int firstLength = file.readInt();
+            file.seek(8L + firstLength);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        MessageCache reopened = new MessageCache(tempDir.toFile());
+        assertEquals(List.of("a"), contents(reopened.open(ROOM)));
+        assertEquals(0, reopened.getSyncVersion(ROOM), "the next sync asks for the full list");
+    }
+
+    @Test
+    void changeLogReportsChangesOrAsksForFullList() {
+        MessageChangeLog log = new MessageChangeLog(1_000);
+        long before = log.currentVersion();
+        log.record(ROOM, 11);
+        log.record(ROOM, List.of(12L, 11L));
+        long afterReads = log.currentVersion();
+        log.record(ROOM + 1, 99);
+
+        assertEquals(List.of(11L, 12L), log.changedSince(ROOM, before));
+        assertEquals(List.of(), log.changedSince(ROOM, afterReads));
+        assertEquals(List.of(), log.changedSince(ROOM + 2, before), "rooms without changes are up to date");
+        assertNull(log.changedSince(ROOM, 999), "stamps from before the server started need the full list");
+
+        log.invalidateRoom(ROOM);
+        assertNull(log.changedSince(ROOM, afterReads));
+        assertEquals(List.of(), log.changedSince(ROOM, log.currentVersion()));
+    }
+
+    private static Message message(long roomSeq, String content) {
+        Message message = new Message(1000 + roomSeq, ROOM, 1, "보낸 사람", MessageType.TEXT, content,
+                LocalDateTime.of(2024, 3, 1, 9, (int) roomSeq), false);
+        message.setRoomSeq(roomSeq);
+        message.setUnreadCount(1);
+        return message;
+    }
+
+    private static List<String> contents(List<Message> messages) {
+        return messages.stream().map(Message::getContent).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,69 @@
+package chat.compi.Controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadTrackerTest {
+
+    @Test
+    void coalescesPerRoomAndSkipsIdsAlreadySent() {
+        Map<Integer, List<List<Long>>> sent = new ConcurrentHashMap<>();
+        ReadTracker tracker = new ReadTracker((roomId, ids) ->
+                sent.computeIfAbsent(roomId, id -> new CopyOnWriteArrayList<>()).add(ids), 60_000);
+
+        tracker.markRead(1, 10);
+        tracker.markRead(1, 11);
+        tracker.markRead(1, 10);
+        tracker.markRead(2, 20);
+        tracker.flush();
+
+        assertEquals(List.of(List.of(10L, 11L)), sent.get(1));
+        assertEquals(List.of(List.of(20L)), sent.get(2));
+
+        tracker.markRead(1, 11);
+        tracker.markRead(1, 12);
+        tracker.flush();
+        assertEquals(List.of(List.of(10L, 11L), List.of(12L)), sent.get(1));
+
+        tracker.flush();
+        assertEquals(2, sent.get(1).size(), "nothing pending means nothing sent");
+    }
+
+    @Test
+    void flushesAfterWindow() throws InterruptedException {
+        List<List<Long>> sent = new CopyOnWriteArrayList<>();
+        ReadTracker tracker = new ReadTracker((roomId, ids) -> sent.add(new ArrayList<>(ids)), 20);
+
+        tracker.markRead(1, 1);
+        tracker.markRead(1, 2);
+        for (int i = 0; i < 100 && sent.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of(List.of(1L, 2L)), sent);
+    }
+
+    @Test
+    void splitsLargeBatchesIntoBoundedRequests() {
+        List<List<Long>> sent = new ArrayList<>();
+        ReadTracker tracker = new ReadTracker((roomId, ids) -> sent.add(new ArrayList<>(ids)), 60_000);
+
+        int total = ReadTracker.MAX_IDS_PER_REQUEST * 2 + 5;
+        for (long id = 0; id < total; id++) {
+            tracker.markRead(1, id);
+        }
+        tracker.flush();
+
+        assertEquals(3, sent.size());
+        assertEquals(ReadTracker.MAX_IDS_PER_REQUEST, sent.get(0).size());
+        assertEquals(5, sent.get(2).size());
+        assertEquals(total - 1, sent.get(2).get(4).longValue());
+    }
+}
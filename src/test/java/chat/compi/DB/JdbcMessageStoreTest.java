@@ -0,0 +1,42 @@
+package chat.compi.DB;
+
+import chat.compi.Entity.ChatRoom;
+import chat.compi.Entity.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * MessageDAO를 실제 MySQL에 대해 검사한다. DB 접속이 필요하므로 -Dcompi.test.jdbc=true일 때만 실행된다.
+ * 테스트마다 새 사용자 두 명과 채팅방 두 개를 만들어 사용한다.
+ */
+class JdbcMessageStoreTest extends MessageStoreConformanceTest {
+
+    @Override
+    protected void setUpFixture() {
+        assumeTrue(Boolean.getBoolean("compi.test.jdbc"), "Set -Dcompi.test.jdbc=true to run against MySQL");
+
+        store = new MessageDAO();
+        String suffix = Long.toString(System.nanoTime(), 36);
+        senderId = createUser("sender_" + suffix).getUserId();
+        readerId = createUser("reader_" + suffix).getUserId();
+
+        ChatRoomDAO chatRoomDAO = new ChatRoomDAO();
+        ChatRoom room = chatRoomDAO.createChatRoom("store test " + suffix, true, senderId, List.of(senderId, readerId));
+        ChatRoom otherRoom = chatRoomDAO.createChatRoom("store test other " + suffix, true, senderId, List.of(senderId, readerId));
+        assertNotNull(room);
+        assertNotNull(otherRoom);
+        roomId = room.getRoomId();
+        otherRoomId = otherRoom.getRoomId();
+    }
+
+    private static User createUser(String username) {
+        UserDAO userDAO = new UserDAO();
+        userDAO.registerUser(username, "password", username);
+        User user = userDAO.getUserByUsername(username);
+        assertNotNull(user);
+        return user;
+    }
+}
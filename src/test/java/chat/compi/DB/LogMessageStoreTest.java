@@ -0,0 +1,173 @@
+package chat.compi.DB;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+import chat.compi.Entity.UserStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogMessageStoreTest extends MessageStoreConformanceTest {
+    private static final int SMALL_SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path logDir;
+
+    private final Map<Integer, LocalDateTime> lastActivity = new HashMap<>();
+
+    @Override
+    protected void setUpFixture() throws IOException {
+        store = open(SMALL_SEGMENT_BYTES);
+        roomId = 1;
+        otherRoomId = 2;
+        senderId = 10;
+        readerId = 20;
+    }
+
+    @AfterEach
+    void closeStore() {
+        ((LogMessageStore) store).close();
+    }
+
+    @Test
+    void reopenedStoreRecoversMessagesReadsAndNotices() throws Exception {
+        List<Message> saved = saveAll(text(roomId, "kept"), text(roomId, "notice"));
+        store.markMessageAsRead(saved.get(0).getMessageId(), readerId);
+        store.updateMessageNoticeStatus(saved.get(1).getMessageId(), true, null);
+        reopen();
+
+        assertEquals(List.of("kept", "notice"), store.getMessagesInRoom(roomId).stream().map(Message::getContent).toList());
+        assertEquals(2, store.getMaxRoomSeq(roomId));
+        assertTrue(store.isMessageReadByUser(saved.get(0).getMessageId(), readerId));
+        assertEquals(1, store.getNoticeMessagesInRoom(roomId).size());
+    }
+
+    @Test
+    void messagesSpanSegmentsAndKeepRoomOrder() throws Exception {
+        String content = "x".repeat(500);
+        for (int i = 0; i < 40; i++) { // 세그먼트 여러 개에 걸쳐 두 방의 메시지를 섞어서 저장
+            saveAll(text(roomId, content + i), text(otherRoomId, "other " + i));
+        }
+        assertTrue(logDir.toFile().list().length > 1);
+        reopen();
+
+        List<Message> messages = store.getMessagesInRoom(roomId);
+        assertEquals(40, messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(i + 1, messages.get(i).getRoomSeq());
+            assertEquals(content + i, messages.get(i).getContent());
+        }
+        assertEquals(5, store.getMessagesInRoomSince(otherRoomId, 35).size());
+        assertEquals(40, store.getUnreadMessageCount(otherRoomId, readerId));
+    }
+
+    @Test
+    void rangeQueryUsesSparseIndexAcrossSamples() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            saveAll(text(roomId, "m" + (i + 1)));
+        }
+
+        List<Message> range = ((LogMessageStore) store).getMessagesInRoomRange(roomId, 30, 70);
+
+        assertEquals(40, range.size());
+        assertEquals("m31", range.get(0).getContent());
+        assertEquals("m70", range.get(39).getContent());
+    }
+
+    @Test
+    void unreadCountsAreKeptAcrossReadsAndRecovery() throws Exception {
+        List<Message> saved = saveAll(text(roomId, "a"), text(roomId, "b"), text(roomId, "c"));
+        store.markMessageAsRead(saved.get(0).getMessageId(), readerId);
+        store.markMessagesAsRead(roomId, List.of(saved.get(0).getMessageId(), saved.get(1).getMessageId()), readerId);
+        store.markMessageAsRead(saved.get(2).getMessageId(), senderId); // 자기 메시지 읽음은 세지 않음
+        assertEquals(1, store.getUnreadMessageCount(roomId, readerId));
+        assertEquals(0, store.getUnreadMessageCount(roomId, senderId));
+
+        reopen();
+
+        assertEquals(1, store.getUnreadMessageCount(roomId, readerId));
+        assertEquals(0, store.getUnreadMessageCount(roomId, senderId));
+        assertEquals(0, store.getUnreadMessageCount(otherRoomId, readerId));
+    }
+
+    @Test
+    void incompleteTrailingBatchIsDiscardedOnRecovery() throws Exception {
+        saveAll(text(roomId, "committed"));
+        long lastCommitted = store.getMessagesInRoom(roomId).get(0).getMessageId();
+        saveAll(text(roomId, "torn"));
+        ((LogMessageStore) store).close();
+
+        // 마지막 배치의 COMMIT 레코드(길이 4 + 종류 1 + CRC 4 = 9바이트)를 지워 쓰다 만 배치를 흉내냄
+        File segment = new File(logDir.toFile(), "segment-000000.log");
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            long end = findEndOfLog(raf);
+            raf.seek(end - 9);
+            raf.write(new byte[9]);
+        }
+        store = open(SMALL_SEGMENT_BYTES);
+
+        List<Message> messages = store.getMessagesInRoom(roomId);
+        assertEquals(1, messages.size());
+        assertEquals(lastCommitted, messages.get(0).getMessageId());
+        assertEquals(1, store.getMaxRoomSeq(roomId));
+
+        saveAll(text(roomId, "after recovery"));
+        assertEquals(List.of("committed", "after recovery"), store.getMessagesInRoom(roomId).stream().map(Message::getContent).toList());
+    }
+
+    @Test
+    void rejectedBatchLeavesNoTrace() throws Exception {
+        Message first = saveAll(text(roomId, "first")).get(0);
+        Message duplicate = new Message(first.getMessageId(), roomId, senderId, "sender", MessageType.TEXT, "dup", LocalDateTime.now(), false);
+        duplicate.setRoomSeq(2);
+
+        assertThrows(java.sql.SQLException.class, () -> store.saveMessagesBatch(List.of(duplicate), List.of(-1)));
+        reopen();
+
+        assertEquals(List.of("first"), store.getMessagesInRoom(roomId).stream().map(Message::getContent).toList());
+    }
+
+    @Test
+    void batchesReportLastActivityPerRoom() throws Exception {
+        saveAll(text(roomId, "a"), text(otherRoomId, "b"));
+
+        assertEquals(2, lastActivity.size());
+        assertNotNull(lastActivity.get(roomId));
+    }
+
+    private void reopen() throws IOException {
+        ((LogMessageStore) store).close();
+        store = open(SMALL_SEGMENT_BYTES);
+    }
+
+    private LogMessageStore open(int segmentBytes) throws IOException {
+        return new LogMessageStore(logDir.toFile(), segmentBytes,
+                userId -> new User(userId, "user" + userId, "user" + userId, UserStatus.OFFLINE),
+                lastActivity::putAll);
+    }
+
+    // 레코드 길이를 따라가며 로그 끝(길이 0) 위치를 찾음
+    private static long findEndOfLog(RandomAccessFile raf) throws IOException {
+        long position = 0;
+        while (true) {
+            raf.seek(position);
+            int length = raf.readInt();
+            if (length == 0) {
+                return position;
+            }
+            position += 4 + length;
+        }
+    }
+}
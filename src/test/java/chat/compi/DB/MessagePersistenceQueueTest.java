@@ -0,0 +1,86 @@
+package chat.compi.DB;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessagePersistenceQueueTest {
+
+    @Test
+    void badRowFailsAloneAndTheRestOfTheBatchCommits() throws Exception {
+        List<String> saved = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        // "bad"가 든 배치는 항상 실패하는 저장소. 첫 저장을 잡아 두어 나머지 메시지가 한 배치로 모이게 함
+        MessageStore store = (MessageStore) Proxy.newProxyInstance(MessageStore.class.getClassLoader(), new Class<?>[]{MessageStore.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMaxRoomSeq" -> 0L;
+                    case "saveMessagesBatch" -> {
+                        release.await(5, TimeUnit.SECONDS);
+                        @SuppressWarnings("unchecked")
+                        List<Message> messages = (List<Message>) args[0];
+                        if (messages.stream().anyMatch(message -> message.getContent().equals("bad"))) {
+                            throw new SQLException("Data too long for column 'content'");
+                        }
+                        messages.forEach(message -> saved.add(message.getContent()));
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        MessagePersistenceQueue queue = new MessagePersistenceQueue(store, MessagePersistenceQueue.Durability.ENQUEUE);
+        queue.start();
+
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        for (String content : List.of("0", "1", "2", "bad", "4", "5", "6")) {
+            futures.add(queue.enqueue(new Message(1, 10, "sender", MessageType.TEXT, content, false), -1));
+        }
+        release.countDown();
+        for (CompletableFuture<Message> future : futures) {
+            future.handle((message, error) -> null).get(10, TimeUnit.SECONDS);
+        }
+        queue.shutdown();
+
+        assertEquals(List.of("0", "1", "2", "4", "5", "6"), saved);
+        assertTrue(futures.get(3).isCompletedExceptionally());
+        assertEquals(1, queue.getFailedMessages());
+        assertEquals(6, queue.getCommittedMessages());
+    }
+
+    @Test
+    void runtimeExceptionFailsTheMessageAndTheWriterKeepsRunning() {
+        // "boom"이 든 배치에서 SQLException이 아닌 예외를 던지는 저장소
+        MessageStore store = (MessageStore) Proxy.newProxyInstance(MessageStore.class.getClassLoader(), new Class<?>[]{MessageStore.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMaxRoomSeq" -> 0L;
+                    case "saveMessagesBatch" -> {
+                        @SuppressWarnings("unchecked")
+                        List<Message> messages = (List<Message>) args[0];
+                        if (messages.stream().anyMatch(message -> message.getContent().equals("boom"))) {
+                            throw new IllegalStateException("driver bug");
+                        }
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        MessagePersistenceQueue queue = new MessagePersistenceQueue(store, MessagePersistenceQueue.Durability.COMMIT);
+        queue.start();
+
+        assertNull(queue.save(new Message(1, 10, "sender", MessageType.TEXT, "boom", false), -1));
+        assertNotNull(queue.save(new Message(1, 10, "sender", MessageType.TEXT, "ok", false), -1));
+        queue.shutdown();
+
+        assertEquals(1, queue.getFailedMessages());
+        assertEquals(1, queue.getCommittedMessages());
+        assertTrue(queue.enqueue(new Message(1, 10, "sender", MessageType.TEXT, "late", false), -1).isCompletedExceptionally());
+    }
+}
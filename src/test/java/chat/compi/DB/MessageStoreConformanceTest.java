@@ -0,0 +1,198 @@
+package chat.compi.DB;
+
+import chat.compi.Entity.Message;
+import chat.compi.Entity.MessageType;
+import chat.compi.Entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MessageStore 구현이 공통으로 지켜야 하는 동작.
+ * 구현별 하위 클래스가 저장소와 빈 채팅방 두 개, 사용자 두 명(보낸 사람, 읽는 사람)을 준비한다.
+ * DB처럼 다른 데이터가 남아 있을 수 있는 저장소도 통과하도록 전체 개수 대신 준비한 방/메시지 기준으로 확인한다.
+ */
+abstract class MessageStoreConformanceTest {
+    protected MessageStore store;
+    protected int roomId;
+    protected int otherRoomId;
+    protected int senderId;
+    protected int readerId;
+    private MessageIdGenerator idGenerator;
+
+    /**
+     * store, roomId, otherRoomId, senderId, readerId를 설정합니다.
+     */
+    protected abstract void setUpFixture() throws Exception;
+
+    @BeforeEach
+    void setUpStore() throws Exception {
+        setUpFixture();
+        idGenerator = new MessageIdGenerator(0, store);
+    }
+
+    @Test
+    void savedMessagesAreReturnedInRoomSeqOrder() throws Exception {
+        saveAll(text(roomId, "first"), text(otherRoomId, "elsewhere"), text(roomId, "second"), text(roomId, "third"));
+
+        List<Message> messages = store.getMessagesInRoom(roomId);
+
+        assertEquals(Arrays.asList("first", "second", "third"), contents(messages));
+        assertEquals(Arrays.asList(1L, 2L, 3L), messages.stream().map(Message::getRoomSeq).collect(Collectors.toList()));
+        assertEquals(3, store.getMaxRoomSeq(roomId));
+        assertEquals(1, store.getMaxRoomSeq(otherRoomId));
+        assertEquals(senderId, messages.get(0).getSenderId());
+        assertEquals(MessageType.TEXT, messages.get(0).getMessageType());
+    }
+
+    @Test
+    void messagesSinceReturnOnlyNewerRoomSeqs() throws Exception {
+        saveAll(text(roomId, "a"), text(roomId, "b"));
+        saveAll(text(roomId, "c"), text(roomId, "d"));
+
+        assertEquals(Arrays.asList("c", "d"), contents(store.getMessagesInRoomSince(roomId, 2)));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), contents(store.getMessagesInRoomSince(roomId, 0)));
+        assertTrue(store.getMessagesInRoomSince(roomId, 4).isEmpty());
+    }
+
+    @Test
+    void messagesCanBeLookedUpById() throws Exception {
+        Message saved = saveAll(text(roomId, "hello")).get(0);
+
+        Message loaded = store.getMessageById(saved.getMessageId());
+
+        assertNotNull(loaded);
+        assertEquals("hello", loaded.getContent());
+        assertEquals(roomId, loaded.getRoomId());
+        assertEquals(saved.getRoomSeq(), loaded.getRoomSeq());
+        assertNull(store.getMessageById(idGenerator.nextId()));
+    }
+
+    @Test
+    void batchSaveMarksReaderAndReadStatusIsIdempotent() throws Exception {
+        Message message = text(roomId, "read me");
+        store.saveMessagesBatch(assign(message), List.of(senderId));
+
+        assertTrue(store.isMessageReadByUser(message.getMessageId(), senderId));
+        assertFalse(store.isMessageReadByUser(message.getMessageId(), readerId));
+        assertEquals(1, store.markMessageAsReadStatus(message.getMessageId(), readerId));
+        assertEquals(0, store.markMessageAsReadStatus(message.getMessageId(), readerId));
+        assertEquals(-1, store.markMessageAsReadStatus(idGenerator.nextId(), readerId));
+        assertEquals(2, store.getReadCountForMessage(message.getMessageId()));
+
+        Set<Integer> readerIds = store.getReadersForMessage(message.getMessageId()).stream()
+                .map(User::getUserId)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(senderId, readerId), readerIds);
+    }
+
+    @Test
+    void batchReadMarksOnlyUnreadMessagesOfTheRoom() throws Exception {
+        List<Message> saved = saveAll(text(roomId, "one"), text(roomId, "two"), text(roomId, "three"), text(otherRoomId, "other"));
+        store.markMessageAsRead(saved.get(0).getMessageId(), readerId);
+
+        List<Long> ids = saved.stream().map(Message::getMessageId).collect(Collectors.toList());
+        ids.add(saved.get(1).getMessageId());
+        ids.add(idGenerator.nextId());
+
+        assertEquals(2, store.markMessagesAsRead(roomId, ids, readerId));
+        assertEquals(0, store.getUnreadMessageCount(roomId, readerId));
+        assertFalse(store.isMessageReadByUser(saved.get(3).getMessageId(), readerId), "other room's message is skipped");
+        assertEquals(0, store.markMessagesAsRead(roomId, ids, readerId));
+        assertEquals(0, store.markMessagesAsRead(roomId, List.of(), readerId));
+    }
+
+    @Test
+    void unreadCountExcludesOwnAndReadMessages() throws Exception {
+        List<Message> saved = saveAll(text(roomId, "one"), text(roomId, "two"), text(otherRoomId, "other"));
+
+        assertEquals(2, store.getUnreadMessageCount(roomId, readerId));
+        assertEquals(0, store.getUnreadMessageCount(roomId, senderId));
+
+        store.markMessageAsRead(saved.get(0).getMessageId(), readerId);
+        assertEquals(1, store.getUnreadMessageCount(roomId, readerId));
+    }
+
+    @Test
+    void noticesExpireAndReportTheirRooms() throws Exception {
+        List<Message> saved = saveAll(text(roomId, "notice"), text(roomId, "expired notice"));
+        long noticeId = saved.get(0).getMessageId();
+        long expiredId = saved.get(1).getMessageId();
+
+        assertTrue(store.updateMessageNoticeStatus(noticeId, true, LocalDateTime.now().plusHours(1)));
+        assertTrue(store.updateMessageNoticeStatus(expiredId, true, LocalDateTime.now().minusMinutes(1)));
+        assertFalse(store.updateMessageNoticeStatus(idGenerator.nextId(), true, null));
+
+        assertEquals(List.of("notice"), contents(store.getNoticeMessagesInRoom(roomId)));
+        assertTrue(store.clearExpiredNotices().contains(roomId));
+        assertFalse(store.getMessageById(expiredId).isNotice());
+        assertTrue(store.getMessageById(noticeId).isNotice());
+
+        assertTrue(store.updateMessageNoticeStatus(noticeId, false, null));
+        assertTrue(store.getNoticeMessagesInRoom(roomId).isEmpty());
+    }
+
+    @Test
+    void unreadSystemMessagesAreListedUntilRead() throws Exception {
+        Message system = new Message(roomId, senderId, "system", MessageType.SYSTEM, "welcome", false);
+        saveAll(system, text(roomId, "not a system message"));
+
+        assertTrue(containsMessage(store.getUnreadSystemMessagesForUser(readerId, senderId), system.getMessageId()));
+        store.markMessageAsRead(system.getMessageId(), readerId);
+        assertFalse(containsMessage(store.getUnreadSystemMessagesForUser(readerId, senderId), system.getMessageId()));
+    }
+
+    @Test
+    void attachmentMessagesIncludeFilesAndImagesOnly() throws Exception {
+        Message file = new Message(roomId, senderId, "sender", MessageType.FILE, "server_uploads/ab/cd/report.pdf", false);
+        Message image = new Message(roomId, senderId, "sender", MessageType.IMAGE, "server_uploads/ab/cd/photo.png", false);
+        Message text = text(roomId, "server_uploads/not/an/attachment");
+        saveAll(file, image, text);
+
+        List<Message> attachments = store.getAttachmentMessages();
+
+        assertTrue(containsMessage(attachments, file.getMessageId()));
+        assertTrue(containsMessage(attachments, image.getMessageId()));
+        assertFalse(containsMessage(attachments, text.getMessageId()));
+    }
+
+    protected Message text(int roomId, String content) {
+        return new Message(roomId, senderId, "sender", MessageType.TEXT, content, false);
+    }
+
+    protected List<Message> saveAll(Message... messages) throws Exception {
+        List<Message> assigned = assign(messages);
+        List<Integer> noReaders = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            noReaders.add(-1);
+        }
+        store.saveMessagesBatch(assigned, noReaders);
+        return assigned;
+    }
+
+    // MessagePersistenceQueue와 같은 방식으로 ID, 방별 순번, 전송 시각을 할당
+    private List<Message> assign(Message... messages) throws Exception {
+        for (Message message : messages) {
+            message.setRoomSeq(idGenerator.nextRoomSeq(message.getRoomId()));
+            message.setMessageId(idGenerator.nextId());
+            message.setSentAt(LocalDateTime.now());
+        }
+        return Arrays.asList(messages);
+    }
+
+    private static List<String> contents(List<Message> messages) {
+        return messages.stream().map(Message::getContent).collect(Collectors.toList());
+    }
+
+    private static boolean containsMessage(List<Message> messages, long messageId) {
+        return messages.stream().anyMatch(message -> message.getMessageId() == messageId);
+    }
+}
@@ -0,0 +1,103 @@
+package chat.compi.DB;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 자주 실행되는 DAO 조회가 인덱스 없이 전체 테이블을 읽지 않는지 EXPLAIN으로 확인한다.
+ * 테스트 DB는 데이터가 적어 옵티마이저가 인덱스가 있어도 전체 스캔을 고를 수 있으므로,
+ * "쓸 수 있는 인덱스가 하나도 없는 전체 스캔"(type = ALL, possible_keys = NULL)만 실패로 본다.
+ * MySQL이 필요하므로 -Dcompi.test.jdbc=true일 때만 실행된다.
+ */
+class QueryPlanTest {
+    // 쿼리 이름 -> DAO와 같은 SQL (매개변수는 모두 1로 바인딩)
+    private static final Map<String, String> HOT_QUERIES = new LinkedHashMap<>();
+
+    static {
+        HOT_QUERIES.put("MessageDAO.getMaxRoomSeq",
+                "SELECT COALESCE(MAX(room_seq), 0) FROM messages WHERE room_id = ?");
+        HOT_QUERIES.put("MessageDAO.getMessagesInRoomSince",
+                "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time, m.room_seq " +
+                "FROM messages m JOIN users u ON m.sender_id = u.user_id " +
+                "WHERE m.room_id = ? AND m.room_seq > ? ORDER BY m.room_seq ASC, m.message_id ASC");
+        HOT_QUERIES.put("MessageDAO.getReadCountForMessage",
+                "SELECT COUNT(*) FROM message_reads WHERE message_id = ?");
+        HOT_QUERIES.put("MessageDAO.getUnreadMessageCount",
+                "SELECT COUNT(*) FROM messages m LEFT JOIN message_reads mr ON m.message_id = mr.message_id AND mr.user_id = ? " +
+                "WHERE m.room_id = ? AND mr.user_id IS NULL AND m.sender_id != ?");
+        HOT_QUERIES.put("MessageDAO.getNoticeMessagesInRoom",
+                "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time, m.room_seq " +
+                "FROM messages m JOIN users u ON m.sender_id = u.user_id " +
+                "WHERE m.is_notice = TRUE AND m.room_id = ? AND (m.notice_expiry_time IS NULL OR m.notice_expiry_time > NOW()) ORDER BY m.sent_at DESC");
+        HOT_QUERIES.put("MessageDAO.isMessageReadByUser",
+                "SELECT COUNT(*) FROM message_reads WHERE message_id = ? AND user_id = ?");
+        HOT_QUERIES.put("MessageDAO.getReadersForMessage",
+                "SELECT u.user_id, u.username, u.nickname, u.status FROM message_reads mr JOIN users u ON mr.user_id = u.user_id WHERE mr.message_id = ?");
+        HOT_QUERIES.put("MessageDAO.clearExpiredNotices",
+                "SELECT DISTINCT room_id FROM messages WHERE is_notice = TRUE AND notice_expiry_time IS NOT NULL AND notice_expiry_time <= NOW()");
+        HOT_QUERIES.put("MessageDAO.getUnreadSystemMessagesForUser",
+                "SELECT m.message_id FROM messages m JOIN users u ON m.sender_id = u.user_id " +
+                "LEFT JOIN message_reads mr ON m.message_id = mr.message_id AND mr.user_id = ? " +
+                "WHERE m.message_type = 'SYSTEM' AND mr.user_id IS NULL AND m.sender_id = ? ORDER BY m.message_id ASC");
+        HOT_QUERIES.put("ChatRoomDAO.getChatRoomsByUserId",
+                "SELECT cr.room_id, cr.room_name, cr.created_at, cr.is_group_chat " +
+                "FROM chat_rooms cr JOIN room_participants rp ON cr.room_id = rp.room_id " +
+                "WHERE rp.user_id = ? ORDER BY cr.last_message_at DESC");
+        HOT_QUERIES.put("ChatRoomDAO.getParticipantsInRoom",
+                "SELECT u.user_id, u.username, u.nickname, u.status FROM room_participants rp JOIN users u ON rp.user_id = u.user_id WHERE rp.room_id = ?");
+        HOT_QUERIES.put("ChatRoomDAO.getExistingPrivateChatRoom",
+                "SELECT cr.room_id FROM chat_rooms cr " +
+                "JOIN room_participants rp1 ON cr.room_id = rp1.room_id " +
+                "JOIN room_participants rp2 ON cr.room_id = rp2.room_id " +
+                "WHERE cr.is_group_chat = FALSE AND rp1.user_id = ? AND rp2.user_id = ? " +
+                "AND (SELECT COUNT(*) FROM room_participants WHERE room_id = cr.room_id) = 2");
+        HOT_QUERIES.put("TimelineDAO.getTimelineEventsInRoom",
+                "SELECT te.event_id FROM timeline_events te JOIN users u ON te.user_id = u.user_id WHERE te.room_id = ? ORDER BY te.event_time ASC");
+        HOT_QUERIES.put("TimelineDAO.isProjectNameExist",
+                "SELECT COUNT(*) FROM timeline_events WHERE room_id = ? AND event_name = ? AND event_type = 'PROJECT_START'");
+        HOT_QUERIES.put("UserDAO.getUserByUsername",
+                "SELECT user_id, username, nickname, status, last_login_time FROM users WHERE username = ?");
+        HOT_QUERIES.put("UserDAO.getFriends",
+                "SELECT u.user_id, u.username, u.nickname, u.status FROM friends f JOIN users u ON f.friend_id = u.user_id WHERE f.user_id = ?");
+    }
+
+    @BeforeEach
+    void migrate() throws Exception {
+        assumeTrue(Boolean.getBoolean("compi.test.jdbc"), "Set -Dcompi.test.jdbc=true to run against MySQL");
+        new SchemaMigrator().migrate();
+    }
+
+    @Test
+    void hotQueriesHaveAnIndexForEveryTable() throws Exception {
+        List<String> fullScans = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (Map.Entry<String, String> query : HOT_QUERIES.entrySet()) {
+                try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + query.getValue())) {
+                    int parameterCount = pstmt.getParameterMetaData().getParameterCount();
+                    for (int i = 1; i <= parameterCount; i++) {
+                        pstmt.setInt(i, 1);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            if ("ALL".equals(rs.getString("type")) && rs.getString("possible_keys") == null) {
+                                fullScans.add(query.getKey() + " scans " + rs.getString("table"));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(fullScans.isEmpty(), "Full table scans without a usable index: " + fullScans);
+    }
+}
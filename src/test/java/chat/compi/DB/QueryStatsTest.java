@@ -0,0 +1,141 @@
+package chat.compi.DB;
+
+import chat.compi.Metrics.DbStatementEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryStatsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void reset() {
+        QueryStats.reset();
+        QueryStats.setSlowQueryThresholdMillis(200);
+    }
+
+    @Test
+    void statementsAreNamedByVerbAndTable() {
+        assertEquals("SELECT messages", QueryStats.describe(
+                "SELECT m.message_id, m.room_id, m.sender_id, u.nickname as sender_nickname, m.message_type, m.content, m.sent_at, m.is_notice, m.notice_expiry_time, m.room_seq " +
+                "FROM messages m JOIN users u ON m.sender_id = u.user_id WHERE m.room_id = ?"));
+        assertEquals("INSERT message_reads", QueryStats.describe("INSERT IGNORE INTO message_reads (message_id, user_id) VALUES (?, ?)"));
+        assertEquals("UPDATE chat_rooms", QueryStats.describe("UPDATE chat_rooms SET last_message_at = ? WHERE room_id = ?"));
+        assertEquals("DELETE timeline_events", QueryStats.describe("DELETE FROM timeline_events WHERE event_id = ?"));
+        assertEquals("SET", QueryStats.describe("SET FOREIGN_KEY_CHECKS = 0"));
+    }
+
+    @Test
+    void executionsRowsAndErrorsAreAccumulatedPerStatement() {
+        QueryStats.record("MessageDAO.getMessageById SELECT messages", 1_000_000, 1, "SELECT ...");
+        QueryStats.record("MessageDAO.getMessageById SELECT messages", 3_000_000, 0, "SELECT ...");
+        QueryStats.recordError("MessageDAO.getMessageById SELECT messages");
+
+        QueryStats.StatementStats stats = QueryStats.getAll().get("MessageDAO.getMessageById SELECT messages");
+
+        assertEquals(2, stats.getExecutions());
+        assertEquals(1, stats.getRows());
+        assertEquals(1, stats.getErrors());
+        assertEquals(4_000_000, stats.getTotalNanos());
+    }
+
+    @Test
+    void onlyStatementsOverThresholdReachTheSlowQueryLog() {
+        QueryStats.setSlowQueryThresholdMillis(5);
+        QueryStats.record("fast", 1_000_000, 0, "SELECT 1");
+        QueryStats.record("slow", 7_000_000, 3, "SELECT 2");
+
+        assertEquals(1, QueryStats.getSlowQueries().size());
+        assertEquals("slow", QueryStats.getSlowQueries().get(0).getName());
+        assertEquals(7.0, QueryStats.getSlowQueries().get(0).getMillis(), 0.001);
+        assertEquals("slow", QueryStats.getTopByTotalTime(1).get(0).getName());
+    }
+
+    @Test
+    void wrappedConnectionRecordsQueryRowsUpdatesAndErrors() throws SQLException {
+        Connection conn = QueryStats.wrap(fakeConnection(3), "TestDAO.load");
+
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM messages WHERE room_id = ?");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                // 행을 모두 읽음
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE messages SET is_notice = FALSE")) {
+            pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM broken")) {
+            assertThrows(SQLException.class, pstmt::execute);
+        }
+
+        assertEquals(3, QueryStats.getAll().get("TestDAO.load SELECT messages").getRows());
+        assertEquals(7, QueryStats.getAll().get("TestDAO.load UPDATE messages").getRows());
+        assertEquals(1, QueryStats.getAll().get("TestDAO.load DELETE broken").getErrors());
+    }
+
+    @Test
+    void wrappedConnectionEmitsFlightRecorderEventsWhenEnabled() throws SQLException, IOException {
+        Path file = tempDir.resolve("db.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(DbStatementEvent.class);
+            recording.start();
+            Connection conn = QueryStats.wrap(fakeConnection(2), "TestDAO.load");
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM messages WHERE room_id = ?");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    // 행을 모두 읽음
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM broken")) {
+                assertThrows(SQLException.class, pstmt::execute);
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, RecordedEvent> events = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getEventType().getName().equals("chat.compi.DbStatement")) {
+                events.put(event.getString("name"), event);
+            }
+        }
+        assertEquals(2L, events.get("TestDAO.load SELECT messages").getLong("rows"));
+        assertFalse(events.get("TestDAO.load SELECT messages").getBoolean("failed"));
+        assertTrue(events.get("TestDAO.load DELETE broken").getBoolean("failed"));
+    }
+
+    // 조회는 rows개의 행, 수정은 7행, execute()는 오류를 돌려주는 가짜 연결
+    private static Connection fakeConnection(int rows) {
+        int[] remaining = {rows};
+        ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(QueryStatsTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> method.getName().equals("next") ? remaining[0]-- > 0 : null);
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(QueryStatsTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeQuery": return resultSet;
+                        case "executeUpdate": return 7;
+                        case "execute": throw new SQLException("broken");
+                        default: return null;
+                    }
+                });
+        return (Connection) Proxy.newProxyInstance(QueryStatsTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> method.getName().equals("prepareStatement") ? statement : null);
+    }
+}
@@ -0,0 +1,44 @@
+package chat.compi.DB;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    @Test
+    void statementsAreSplitAtLineEndSemicolonsAndCommentsAreSkipped() {
+        String script = "-- comment; not a statement\n" +
+                "CREATE TABLE t (\n" +
+                "    id INT -- trailing comments stay inside the statement\n" +
+                ");\n" +
+                "\n" +
+                "UPDATE t SET id = 1\r\n" +
+                "WHERE id = 0;\n" +
+                "SELECT 1";
+
+        List<String> statements = SchemaMigrator.parseStatements(script);
+
+        assertEquals(3, statements.size());
+        assertTrue(statements.get(0).startsWith("CREATE TABLE t ("));
+        assertTrue(statements.get(0).endsWith(")"));
+        assertEquals("UPDATE t SET id = 1\nWHERE id = 0", statements.get(1));
+        assertEquals("SELECT 1", statements.get(2));
+    }
+
+    @Test
+    void migrationsOnTheClasspathAreOrderedAndContiguous() throws Exception {
+        TreeMap<Integer, SchemaMigrator.Migration> migrations = SchemaMigrator.findMigrations();
+
+        assertFalse(migrations.isEmpty());
+        assertEquals(1, migrations.firstKey().intValue());
+        assertEquals(migrations.size(), migrations.lastKey().intValue()); // 빠진 버전 없음
+        assertEquals("baseline", migrations.get(1).description);
+        for (SchemaMigrator.Migration migration : migrations.values()) {
+            assertFalse(SchemaMigrator.parseStatements(migration.script).isEmpty(), "V" + migration.version + " is empty");
+        }
+    }
+}
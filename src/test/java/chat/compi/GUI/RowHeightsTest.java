@@ -0,0 +1,54 @@
+package chat.compi.GUI;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowHeightsTest {
+
+    @Test
+    void topAndRowAtFollowHeightChanges() {
+        RowHeights heights = new RowHeights();
+        heights.reset(5, 10);
+        assertEquals(50, heights.total());
+        assertEquals(30, heights.top(3));
+
+        heights.set(1, 25);
+        assertEquals(65, heights.total());
+        assertEquals(35, heights.top(2));
+        assertEquals(0, heights.rowAt(9));
+        assertEquals(1, heights.rowAt(10));
+        assertEquals(1, heights.rowAt(34));
+        assertEquals(2, heights.rowAt(35));
+        assertEquals(4, heights.rowAt(1000), "past the end clamps to the last row");
+        assertEquals(0, heights.rowAt(-5));
+    }
+
+    @Test
+    void addMatchesNaivePrefixSums() {
+        RowHeights heights = new RowHeights();
+        assertEquals(-1, heights.rowAt(0));
+        Random random = new Random(3);
+        int[] expected = new int[1000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = 1 + random.nextInt(80);
+            heights.add(expected[i]);
+        }
+        for (int n = 0; n < 200; n++) {
+            int row = random.nextInt(expected.length);
+            expected[row] = 1 + random.nextInt(80);
+            heights.set(row, expected[row]);
+        }
+
+        int top = 0;
+        for (int row = 0; row < expected.length; row++) {
+            assertEquals(top, heights.top(row), "top of row " + row);
+            assertEquals(row, heights.rowAt(top));
+            assertEquals(row, heights.rowAt(top + expected[row] - 1));
+            top += expected[row];
+        }
+        assertEquals(top, heights.total());
+    }
+}
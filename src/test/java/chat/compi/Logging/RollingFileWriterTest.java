@@ -0,0 +1,41 @@
+package chat.compi.Logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rollsBySizeAndKeepsAtMostMaxFiles() throws Exception {
+        File file = tempDir.resolve("server.log").toFile();
+        RollingFileWriter writer = new RollingFileWriter(file, 20, 3);
+        for (int i = 0; i < 6; i++) {
+            writer.write("line-" + i + "-0123456\n"); // 15바이트: 한 파일에 한 줄
+        }
+        writer.close();
+
+        assertEquals("line-5-0123456\n", Files.readString(file.toPath(), StandardCharsets.UTF_8));
+        assertEquals("line-4-0123456\n", Files.readString(writer.rolledFile(1).toPath(), StandardCharsets.UTF_8));
+        assertEquals("line-3-0123456\n", Files.readString(writer.rolledFile(2).toPath(), StandardCharsets.UTF_8));
+        assertFalse(writer.rolledFile(3).exists(), "older files beyond maxFiles are deleted");
+    }
+
+    @Test
+    void formatsEventsAsTextAndJson() {
+        LogEvent event = new LogEvent(Level.INFO, "chat.compi.Test", "user {} joined \"{}\"", new Object[]{7, "room"}, null);
+        assertTrue(AsyncAppender.formatText(event).contains("INFO  [" + Thread.currentThread().getName() + "] chat.compi.Test - user 7 joined \"room\""));
+        String json = AsyncAppender.formatJson(event);
+        assertTrue(json.contains("\"level\":\"INFO\""));
+        assertTrue(json.contains("\"msg\":\"user 7 joined \\\"room\\\"\""));
+    }
+}
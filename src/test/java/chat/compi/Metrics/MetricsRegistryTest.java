@@ -0,0 +1,52 @@
+package chat.compi.Metrics;
+
+import chat.compi.Dto.ClientRequest;
+import chat.compi.Dto.ServerResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void recordsLatencyAndErrorsPerRequestType() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordRequest(ClientRequest.RequestType.SEND_MESSAGE, 2_000_000, false);
+        registry.recordRequest(ClientRequest.RequestType.SEND_MESSAGE, 4_000_000, true);
+        registry.recordRequest(ClientRequest.RequestType.LOGIN, 1_000_000, false);
+
+        RequestMetrics send = registry.getRequestMetrics(ClientRequest.RequestType.SEND_MESSAGE);
+        assertEquals(2L, send.getCount());
+        assertEquals(1L, send.getErrors());
+        assertEquals(0.5, send.getErrorRate(), 1e-9);
+        assertEquals(3.0, send.getMeanMillis(), 1e-9);
+        assertEquals(1L, registry.getRequestMetrics(ClientRequest.RequestType.LOGIN).getCount());
+
+        String dump = registry.dump();
+        assertTrue(dump.contains("SEND_MESSAGE"));
+        assertFalse(dump.contains("LOGOUT"), "request types without samples are omitted");
+    }
+
+    @Test
+    void countsSerializedResponseBytes() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        CountingOutputStream counting = new CountingOutputStream(new ByteArrayOutputStream());
+        ObjectOutputStream out = new ObjectOutputStream(counting);
+        out.flush();
+
+        long before = counting.getCount();
+        out.writeObject(new ServerResponse(ServerResponse.ResponseType.NEW_MESSAGE, true, "ok", new HashMap<>()));
+        out.flush();
+        long bytes = counting.getCount() - before;
+        registry.recordResponse(ServerResponse.ResponseType.NEW_MESSAGE, bytes);
+
+        ResponseMetrics metrics = registry.getResponseMetrics(ServerResponse.ResponseType.NEW_MESSAGE);
+        assertTrue(bytes > 0);
+        assertEquals(1L, metrics.getCount());
+        assertEquals(bytes, metrics.getBytes());
+    }
+}